@@ -0,0 +1,87 @@
+package com.cloudoj.common.config;
+
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 评测完成事件消费方的 RabbitMQ 公共配置
+ * 消费服务的 RabbitMQ 配置类继承本类并给出本服务的队列名：队列绑定到judge-service的扇出交换机；
+ * 消费失败按 spring.rabbitmq.listener.simple.retry 重试，重试耗尽后进入本服务的死信队列（队列名加 .dlq），
+ * 排查后可在管理界面重新投递
+ */
+public abstract class AbstractJudgeEventRabbitConfig {
+
+    public static final String DEAD_LETTER_QUEUE_SUFFIX = ".dlq";
+
+    /**
+     * 本服务的评测完成事件队列名
+     */
+    protected abstract String judgeCompletedQueueName();
+
+    /**
+     * 评测完成事件交换机（与judge-service声明一致，两边启动顺序不受限制）
+     */
+    @Bean
+    public FanoutExchange judgeCompletedExchange() {
+        return new FanoutExchange(JudgeCompletedEvent.EXCHANGE, true, false);
+    }
+
+    /**
+     * 评测完成事件死信交换机（各服务共用，路由键为消费队列名）
+     */
+    @Bean
+    public DirectExchange judgeCompletedDeadLetterExchange() {
+        return new DirectExchange(JudgeCompletedEvent.DEAD_LETTER_EXCHANGE, true, false);
+    }
+
+    /**
+     * 评测完成事件队列
+     */
+    @Bean
+    public Queue judgeCompletedQueue() {
+        return QueueBuilder.durable(judgeCompletedQueueName())
+                .deadLetterExchange(JudgeCompletedEvent.DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(judgeCompletedQueueName())
+                .build();
+    }
+
+    /**
+     * 评测完成事件死信队列
+     */
+    @Bean
+    public Queue judgeCompletedDeadLetterQueue() {
+        return new Queue(judgeCompletedQueueName() + DEAD_LETTER_QUEUE_SUFFIX, true);
+    }
+
+    @Bean
+    public Binding judgeCompletedBinding() {
+        return BindingBuilder
+                .bind(judgeCompletedQueue())
+                .to(judgeCompletedExchange());
+    }
+
+    @Bean
+    public Binding judgeCompletedDeadLetterBinding() {
+        return BindingBuilder
+                .bind(judgeCompletedDeadLetterQueue())
+                .to(judgeCompletedDeadLetterExchange())
+                .with(judgeCompletedQueueName());
+    }
+
+    /**
+     * 消息转换器
+     * 使用Jackson将消息转换为JSON格式
+     */
+    @Bean
+    public MessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
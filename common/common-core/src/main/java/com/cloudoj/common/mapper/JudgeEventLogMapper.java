@@ -0,0 +1,36 @@
+package com.cloudoj.common.mapper;
+
+import com.cloudoj.model.entity.judge.JudgeEventLog;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 已处理的评测完成事件 Mapper 接口
+ * 各消费服务在自己的库中建 judge_event_log 表，按事件ID去重，事件ID为主键
+ */
+public interface JudgeEventLogMapper {
+
+    /**
+     * 记录已处理的事件
+     *
+     * @return 1-新事件，0-事件已处理过
+     */
+    int insertIgnore(@Param("eventId") String eventId, @Param("submissionId") Long submissionId);
+
+    /**
+     * 统计同一提交已处理的事件数（重判时同一提交会有多个事件）
+     */
+    int countBySubmissionId(@Param("submissionId") Long submissionId);
+
+    /**
+     * 查询这些提交已处理过的事件
+     */
+    List<JudgeEventLog> selectBySubmissionIds(@Param("submissionIds") Collection<Long> submissionIds);
+
+    /**
+     * 批量记录已处理的事件，事件ID重复时抛出异常（并发消费同一事件时由事务回滚后重试）
+     */
+    int batchInsert(@Param("eventLogs") List<JudgeEventLog> eventLogs);
+}
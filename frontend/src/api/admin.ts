@@ -146,8 +146,12 @@ export function deleteProblem(problemId: number) {
 export interface TestCaseItem {
     id?: number
     problemId?: number
-    input: string
-    output: string
+    input: string | null   // 较大的测试数据只返回摘要和预览，内容为null
+    output: string | null
+    inputHash?: string
+    outputHash?: string
+    inputPreview?: string
+    outputPreview?: string
     isSample: number  // 1-样例 0-非样例
     score: number
     orderNum: number
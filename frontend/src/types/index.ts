@@ -6,6 +6,7 @@ export enum JudgeStatus {
     WRONG_ANSWER = 'WRONG_ANSWER',
     TIME_LIMIT_EXCEEDED = 'TIME_LIMIT_EXCEEDED',
     MEMORY_LIMIT_EXCEEDED = 'MEMORY_LIMIT_EXCEEDED',
+    OUTPUT_LIMIT_EXCEEDED = 'OUTPUT_LIMIT_EXCEEDED',
     RUNTIME_ERROR = 'RUNTIME_ERROR',
     COMPILE_ERROR = 'COMPILE_ERROR',
     SYSTEM_ERROR = 'SYSTEM_ERROR',
@@ -19,6 +20,7 @@ export const JudgeStatusText: Record<JudgeStatus, string> = {
     [JudgeStatus.WRONG_ANSWER]: '答案错误',
     [JudgeStatus.TIME_LIMIT_EXCEEDED]: '超时',
     [JudgeStatus.MEMORY_LIMIT_EXCEEDED]: '内存超限',
+    [JudgeStatus.OUTPUT_LIMIT_EXCEEDED]: '输出超限',
     [JudgeStatus.RUNTIME_ERROR]: '运行错误',
     [JudgeStatus.COMPILE_ERROR]: '编译错误',
     [JudgeStatus.SYSTEM_ERROR]: '系统错误',
@@ -32,6 +34,7 @@ export const JudgeStatusType: Record<JudgeStatus, 'info' | 'warning' | 'success'
     [JudgeStatus.WRONG_ANSWER]: 'danger',
     [JudgeStatus.TIME_LIMIT_EXCEEDED]: 'warning',
     [JudgeStatus.MEMORY_LIMIT_EXCEEDED]: 'warning',
+    [JudgeStatus.OUTPUT_LIMIT_EXCEEDED]: 'warning',
     [JudgeStatus.RUNTIME_ERROR]: 'danger',
     [JudgeStatus.COMPILE_ERROR]: 'warning',
     [JudgeStatus.SYSTEM_ERROR]: 'danger',
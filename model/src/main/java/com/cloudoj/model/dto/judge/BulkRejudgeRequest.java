@@ -0,0 +1,45 @@
+package com.cloudoj.model.dto.judge;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量重判请求DTO
+ * 条件之间为“且”关系，至少指定题目、作业、时间范围之一
+ */
+@Data
+public class BulkRejudgeRequest {
+    
+    /**
+     * 题目ID
+     */
+    private Long problemId;
+    
+    /**
+     * 作业ID
+     */
+    private Long homeworkId;
+    
+    /**
+     * 提交时间起点（包含）
+     */
+    private LocalDateTime startTime;
+    
+    /**
+     * 提交时间终点（不包含）
+     */
+    private LocalDateTime endTime;
+    
+    /**
+     * 投递速率（条/秒），为空时使用默认值
+     */
+    private Integer rate;
+    
+    /**
+     * 是否有筛选条件
+     */
+    public boolean hasCondition() {
+        return problemId != null || homeworkId != null || startTime != null || endTime != null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cloudoj.model.dto.judge;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 评测完成事件
+ * 评测结果保存后由judge-service发布到扇出交换机，problem-service（题目统计）、learning-service（学习进度、错题、统计）
+ * 和course-service（作业提交记录）各自用独立的队列消费
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeCompletedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 评测完成事件的扇出交换机
+     */
+    public static final String EXCHANGE = "judge.completed.exchange";
+
+    /**
+     * 各服务消费失败的事件进入的死信交换机（路由键为消费队列名）
+     */
+    public static final String DEAD_LETTER_EXCHANGE = "judge.completed.dlx";
+
+    /**
+     * 事件ID，每次评测（包括重判）一个，消费方按事件ID去重重复投递；
+     * 同一提交的重判事件ID不同，计数类的消费方还需要按提交ID去重
+     */
+    private String eventId;
+
+    /**
+     * 提交ID
+     */
+    private Long submissionId;
+
+    /**
+     * 题目ID
+     */
+    private Long problemId;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 作业ID，练习提交为空
+     */
+    private Long homeworkId;
+
+    /**
+     * 评测状态
+     */
+    private String status;
+
+    /**
+     * 得分（100分制）
+     */
+    private Integer score;
+
+    /**
+     * 运行时间（毫秒）
+     */
+    private Integer timeUsed;
+
+    /**
+     * 内存使用（KB）
+     */
+    private Integer memoryUsed;
+
+    /**
+     * 代码行数
+     */
+    private Integer codeLines;
+
+    /**
+     * 提交时间（毫秒时间戳），重判时仍是原始提交时间
+     */
+    private Long submitTime;
+
+    /**
+     * 评测完成时间（毫秒时间戳）
+     */
+    private Long judgedAt;
+}
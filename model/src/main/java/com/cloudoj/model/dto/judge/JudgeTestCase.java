@@ -20,15 +20,35 @@ public class JudgeTestCase {
     private Long id;
     
     /**
-     * 输入数据
+     * 输入数据，较大的测试数据为空（只在 inputFile 中）
      */
     private String input;
     
     /**
-     * 预期输出数据
+     * 预期输出数据，较大的测试数据为空（只在 outputFile 中）
      */
     private String output;
     
+    /**
+     * 输入数据的SHA-256，input 为空时评测节点按该摘要下载
+     */
+    private String inputHash;
+    
+    /**
+     * 预期输出的SHA-256，output 为空时评测节点按该摘要下载
+     */
+    private String outputHash;
+    
+    /**
+     * 输入数据在评测节点测试数据缓存中的文件（宿主机路径），为空时由沙箱把输入写入工作目录
+     */
+    private String inputFile;
+    
+    /**
+     * 预期输出在评测节点测试数据缓存中的文件（宿主机路径，不挂载到评测容器），output 为空时由比对器读取
+     */
+    private String outputFile;
+    
     /**
      * 时间限制（毫秒）
      */
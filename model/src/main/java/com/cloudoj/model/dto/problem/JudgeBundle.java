@@ -0,0 +1,129 @@
+package com.cloudoj.model.dto.problem;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 题目评测数据包DTO（problem-service 提供给 judge-service）
+ * 只包含评测需要的数据，version 在题目或测试用例修改时递增，作为评测节点缓存的版本
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeBundle implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 题目ID
+     */
+    private Long problemId;
+    
+    /**
+     * 评测数据版本（单调递增）
+     */
+    private Long version;
+    
+    /**
+     * 时间限制（毫秒）
+     */
+    private Integer timeLimit;
+    
+    /**
+     * 内存限制（MB）
+     */
+    private Integer memoryLimit;
+    
+    /**
+     * 输出限制（MB），为空时使用评测服务默认值
+     */
+    private Integer outputLimit;
+    
+    /**
+     * 是否并行评测测试用例：1-是 0-否
+     */
+    private Integer parallelJudge;
+    
+    /**
+     * 输出比对模式
+     */
+    private String checkerMode;
+    
+    /**
+     * 浮点数比对误差（FLOAT模式）
+     */
+    private Double checkerEpsilon;
+    
+    /**
+     * 支持的语言
+     */
+    private String languages;
+    
+    /**
+     * 测试用例不是题目设置的，而是由题目样例生成的（题目没有测试用例时）
+     */
+    private Boolean fromSamples;
+    
+    /**
+     * 测试用例
+     */
+    private List<BundleTestCase> testCases;
+    
+    /**
+     * 评测数据包中的测试用例
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BundleTestCase implements Serializable {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * 测试用例ID（由样例生成时为-1）
+         */
+        private Long id;
+        
+        /**
+         * 输入数据，超过内联大小时为空（评测节点按摘要从测试数据存储下载）
+         */
+        private String input;
+        
+        /**
+         * 预期输出，超过内联大小时为空（评测节点按摘要从测试数据存储下载）
+         */
+        private String output;
+        
+        /**
+         * 输入数据的SHA-256（十六进制）
+         */
+        private String inputHash;
+        
+        /**
+         * 预期输出的SHA-256（十六进制）
+         */
+        private String outputHash;
+        
+        /**
+         * 输入数据大小（字节）
+         */
+        private Long inputSize;
+        
+        /**
+         * 预期输出大小（字节）
+         */
+        private Long outputSize;
+        
+        /**
+         * 分值
+         */
+        private Integer score;
+    }
+}
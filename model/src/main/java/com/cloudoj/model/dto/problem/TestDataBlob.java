@@ -0,0 +1,35 @@
+package com.cloudoj.model.dto.problem;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 测试数据存储中的数据块DTO（按内容的SHA-256寻址）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestDataBlob implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 内容的SHA-256（十六进制）
+     */
+    private String hash;
+    
+    /**
+     * 内容大小（字节，未压缩）
+     */
+    private Long size;
+    
+    /**
+     * 内容预览（开头部分）
+     */
+    private String preview;
+}
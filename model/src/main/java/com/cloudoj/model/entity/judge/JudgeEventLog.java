@@ -0,0 +1,30 @@
+package com.cloudoj.model.entity.judge;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 已处理的评测完成事件实体类
+ */
+@Data
+public class JudgeEventLog implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 事件ID
+     */
+    private String eventId;
+    
+    /**
+     * 提交ID
+     */
+    private Long submissionId;
+    
+    /**
+     * 处理时间
+     */
+    private LocalDateTime createdTime;
+}
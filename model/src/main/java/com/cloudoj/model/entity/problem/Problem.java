@@ -78,6 +78,26 @@ public class Problem implements Serializable {
      */
     private Integer memoryLimit;
     
+    /**
+     * 输出限制（MB），为空时使用评测服务默认值
+     */
+    private Integer outputLimit;
+    
+    /**
+     * 是否并行评测测试用例：1-是 0-否
+     */
+    private Integer parallelJudge;
+    
+    /**
+     * 输出比对模式：EXACT/WHITESPACE/FLOAT/CASE_INSENSITIVE，为空时精确比对
+     */
+    private String checkerMode;
+    
+    /**
+     * 浮点数比对误差（FLOAT模式），为空时使用默认值1e-6
+     */
+    private Double checkerEpsilon;
+    
     /**
      * 支持的语言
      */
@@ -113,6 +133,11 @@ public class Problem implements Serializable {
      */
     private Integer isPublic;
     
+    /**
+     * 评测数据版本：修改题目或保存测试用例时递增，评测节点据此判断缓存是否过期
+     */
+    private Long judgeVersion;
+    
     /**
      * 创建时间
      */
@@ -24,15 +24,45 @@ public class TestCase implements Serializable {
     private Long problemId;
     
     /**
-     * 输入数据
+     * 输入数据（保存在测试数据存储中时，只在内容不超过内联大小时返回）
      */
     private String input;
     
     /**
-     * 预期输出
+     * 预期输出（保存在测试数据存储中时，只在内容不超过内联大小时返回）
      */
     private String output;
     
+    /**
+     * 输入数据的SHA-256（测试数据存储中的键），旧数据为空
+     */
+    private String inputHash;
+    
+    /**
+     * 输入数据大小（字节）
+     */
+    private Long inputSize;
+    
+    /**
+     * 输入数据预览（开头部分）
+     */
+    private String inputPreview;
+    
+    /**
+     * 预期输出的SHA-256（测试数据存储中的键），旧数据为空
+     */
+    private String outputHash;
+    
+    /**
+     * 预期输出大小（字节）
+     */
+    private Long outputSize;
+    
+    /**
+     * 预期输出预览（开头部分）
+     */
+    private String outputPreview;
+    
     /**
      * 是否为样例：1-是 0-否
      */
@@ -0,0 +1,32 @@
+package com.cloudoj.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 输出比对模式枚举
+ */
+@Getter
+public enum CheckerModeEnum {
+    
+    EXACT("EXACT", "精确比对（忽略首尾空白）"),
+    WHITESPACE("WHITESPACE", "忽略空白差异（按单词比对）"),
+    FLOAT("FLOAT", "浮点数误差比对"),
+    CASE_INSENSITIVE("CASE_INSENSITIVE", "忽略大小写（按单词比对）");
+    
+    private final String code;
+    private final String desc;
+    
+    CheckerModeEnum(String code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+    
+    public static CheckerModeEnum getByCode(String code) {
+        for (CheckerModeEnum mode : values()) {
+            if (mode.getCode().equals(code)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -14,6 +14,7 @@ public enum JudgeStatusEnum {
     WRONG_ANSWER("WRONG_ANSWER", "答案错误"),
     TIME_LIMIT_EXCEEDED("TIME_LIMIT_EXCEEDED", "时间超限"),
     MEMORY_LIMIT_EXCEEDED("MEMORY_LIMIT_EXCEEDED", "内存超限"),
+    OUTPUT_LIMIT_EXCEEDED("OUTPUT_LIMIT_EXCEEDED", "输出超限"),
     RUNTIME_ERROR("RUNTIME_ERROR", "运行时错误"),
     COMPILE_ERROR("COMPILE_ERROR", "编译错误"),
     SYSTEM_ERROR("SYSTEM_ERROR", "系统错误");
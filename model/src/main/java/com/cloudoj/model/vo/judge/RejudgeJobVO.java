@@ -0,0 +1,105 @@
+package com.cloudoj.model.vo.judge;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 批量重判任务VO
+ */
+@Data
+public class RejudgeJobVO implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 任务ID
+     */
+    private Long jobId;
+    
+    /**
+     * 任务状态：RUNNING/COMPLETED/CANCELLED/FAILED
+     */
+    private String status;
+    
+    /**
+     * 题目ID
+     */
+    private Long problemId;
+    
+    /**
+     * 作业ID
+     */
+    private Long homeworkId;
+    
+    /**
+     * 提交时间起点
+     */
+    private LocalDateTime startTime;
+    
+    /**
+     * 提交时间终点
+     */
+    private LocalDateTime endTime;
+    
+    /**
+     * 投递速率（条/秒）
+     */
+    private Integer rate;
+    
+    /**
+     * 需要重判的提交数
+     */
+    private Long total;
+    
+    /**
+     * 已投递到评测队列的提交数
+     */
+    private Long enqueued;
+    
+    /**
+     * 已完成重判的提交数
+     */
+    private Long judged;
+    
+    /**
+     * 重判失败（进入死信队列）的提交数
+     */
+    private Long failed;
+    
+    /**
+     * 取消后未执行的提交数
+     */
+    private Long skipped;
+    
+    /**
+     * 完成百分比
+     */
+    private Double progress;
+    
+    /**
+     * 预计剩余时间（秒），无法估计时为空
+     */
+    private Long etaSeconds;
+    
+    /**
+     * 创建人ID
+     */
+    private Long createdBy;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdTime;
+    
+    /**
+     * 结束时间（全部投递并处理完成或取消的时间）
+     */
+    private LocalDateTime finishedTime;
+    
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+}
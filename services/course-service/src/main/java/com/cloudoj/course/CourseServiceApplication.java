@@ -15,7 +15,7 @@ import org.springframework.context.annotation.Bean;
 @SpringBootApplication(scanBasePackages = {"com.cloudoj.course", "com.cloudoj.common"})
 @EnableDiscoveryClient  // 启用服务发现
 @EnableFeignClients     // 启用Feign客户端
-@MapperScan("com.cloudoj.course.mapper")  // 扫描Mapper接口
+@MapperScan({"com.cloudoj.course.mapper", "com.cloudoj.common.mapper"})  // 扫描Mapper接口
 public class CourseServiceApplication {
     
     public static void main(String[] args) {
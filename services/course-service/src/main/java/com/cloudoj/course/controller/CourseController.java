@@ -369,6 +369,31 @@ public class CourseController {
         return Result.success(detail);
     }
     
+    /**
+     * 查询作业截止时间（毫秒时间戳，供judge-service计算评测优先级）
+     */
+    @GetMapping("/homework/deadline/{id}")
+    public Result<Long> getHomeworkDeadline(@PathVariable Long id) {
+        return Result.success(homeworkService.getHomeworkDeadline(id));
+    }
+    
+    /**
+     * 查询作业所属的班级ID（供judge-service按班级公平调度评测任务）
+     */
+    @GetMapping("/homework/classId/{id}")
+    public Result<Long> getHomeworkClassId(@PathVariable Long id) {
+        return Result.success(homeworkService.getHomeworkClassId(id));
+    }
+    
+    /**
+     * 校验作业提交（供judge-service在提交时确认作业ID有效，再按作业提交计算评测优先级）
+     */
+    @GetMapping("/homework/canSubmit")
+    public Result<Boolean> canSubmitHomework(@RequestParam Long homeworkId, @RequestParam Long studentId,
+                                             @RequestParam Long problemId) {
+        return Result.success(homeworkService.canSubmitHomework(homeworkId, studentId, problemId));
+    }
+    
     /**
      * 查询课程的作业列表（包含统计信息）
      */
@@ -495,50 +520,13 @@ public class CourseController {
         Long judgeSubmissionId = Long.valueOf(request.get("judgeSubmissionId").toString());
         Integer judgeScore = request.containsKey("score") ? Integer.valueOf(request.get("score").toString()) : 0;
         String status = (String) request.get("status");
+        java.time.LocalDateTime submitTime = request.get("submitTime") != null
+                ? java.time.LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(Long.parseLong(request.get("submitTime").toString())),
+                        java.time.ZoneId.systemDefault())
+                : java.time.LocalDateTime.now();
         
-        // 获取作业中该题目的分值设置
-        List<com.cloudoj.course.entity.HomeworkProblem> homeworkProblems = homeworkProblemMapper.selectByHomeworkId(homeworkId);
-        Integer problemMaxScore = 100; // 默认100分
-        for (com.cloudoj.course.entity.HomeworkProblem hp : homeworkProblems) {
-            if (hp.getProblemId().equals(problemId)) {
-                problemMaxScore = hp.getScore() != null ? hp.getScore() : 100;
-                break;
-            }
-        }
-        
-        // 按作业题目分值比例计算实际得分
-        // judgeScore 是100分制，需要转换为作业题目分值
-        // 例如：作业题目分值20分，评测得分80分（80%），实际得分 = 20 * 80 / 100 = 16分
-        Integer actualScore = (int) Math.round((double) problemMaxScore * judgeScore / 100.0);
-        
-        log.info("记录作业提交：homeworkId={}, studentId={}, problemId={}, submissionId={}, judgeScore={}, problemMaxScore={}, actualScore={}, status={}", 
-                homeworkId, studentId, problemId, judgeSubmissionId, judgeScore, problemMaxScore, actualScore, status);
-        
-        // 创建作业提交记录
-        com.cloudoj.course.entity.HomeworkSubmission submission = new com.cloudoj.course.entity.HomeworkSubmission();
-        submission.setHomeworkId(homeworkId);
-        submission.setStudentId(studentId);
-        submission.setProblemId(problemId);
-        submission.setSubmissionId(judgeSubmissionId);
-        submission.setScore(actualScore); // 使用按比例计算的实际得分
-        submission.setStatus(status);
-        submission.setSubmitTime(java.time.LocalDateTime.now());
-        
-        // 判断是否迟交
-        com.cloudoj.course.entity.Homework homework = homeworkService.getHomeworkDetail(homeworkId) != null
-                ? (com.cloudoj.course.entity.Homework) homeworkService.getHomeworkDetail(homeworkId).get("homework")
-                : null;
-        
-        if (homework != null && homework.getEndTime() != null) {
-            submission.setIsLate(submission.getSubmitTime().isAfter(homework.getEndTime()) ? 1 : 0);
-        } else {
-            submission.setIsLate(0);
-        }
-        
-        // 保存提交记录
-        homeworkSubmissionMapper.insertSelective(submission);
-        
-        log.info("作业提交记录成功，submissionId={}, actualScore={}", submission.getId(), actualScore);
+        homeworkService.recordSubmission(homeworkId, studentId, problemId, judgeSubmissionId,
+                judgeScore, status, submitTime);
         return Result.success("记录成功", null);
     }
     
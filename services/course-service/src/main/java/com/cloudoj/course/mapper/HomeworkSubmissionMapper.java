@@ -15,6 +15,11 @@ public interface HomeworkSubmissionMapper {
      */
     HomeworkSubmission selectByPrimaryKey(Long id);
     
+    /**
+     * 根据评测提交ID查询
+     */
+    HomeworkSubmission selectBySubmissionId(@Param("submissionId") Long submissionId);
+    
     /**
      * 根据作业ID查询提交列表
      */
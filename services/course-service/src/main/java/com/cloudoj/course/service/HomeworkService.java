@@ -3,6 +3,7 @@ package com.cloudoj.course.service;
 import com.cloudoj.course.entity.Homework;
 import com.cloudoj.course.entity.HomeworkProblem;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +25,28 @@ public interface HomeworkService {
      */
     Map<String, Object> getHomeworkDetail(Long id);
     
+    /**
+     * 查询作业截止时间（毫秒时间戳），作业不存在或未设置截止时间时返回null
+     */
+    Long getHomeworkDeadline(Long id);
+    
+    /**
+     * 查询作业所属的班级ID，作业不存在或面向全课程时返回null
+     */
+    Long getHomeworkClassId(Long id);
+    
+    /**
+     * 校验作业提交：作业存在、题目在作业中，且学生属于作业所在班级（面向全课程的作业为课程下任一班级）
+     */
+    boolean canSubmitHomework(Long homeworkId, Long studentId, Long problemId);
+    
+    /**
+     * 记录作业提交（评测完成后），评测得分（100分制）按作业中该题的分值折算
+     * 同一评测提交已有记录时（重判）只更新得分和状态，是否迟交仍按原始提交时间
+     */
+    void recordSubmission(Long homeworkId, Long studentId, Long problemId, Long judgeSubmissionId,
+                          Integer judgeScore, String status, LocalDateTime submitTime);
+    
     /**
      * 查询课程的作业列表
      */
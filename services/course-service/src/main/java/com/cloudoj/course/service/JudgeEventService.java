@@ -0,0 +1,14 @@
+package com.cloudoj.course.service;
+
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+
+/**
+ * 评测完成事件处理服务
+ */
+public interface JudgeEventService {
+    
+    /**
+     * 处理评测完成事件，同一事件（按事件ID）只处理一次
+     */
+    void handleJudgeCompleted(JudgeCompletedEvent event);
+}
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -88,6 +89,89 @@ public class HomeworkServiceImpl implements HomeworkService {
         return homeworkId;
     }
     
+    @Override
+    public Long getHomeworkDeadline(Long id) {
+        Homework homework = homeworkMapper.selectByPrimaryKey(id);
+        if (homework == null || homework.getEndTime() == null) {
+            return null;
+        }
+        return homework.getEndTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    @Override
+    public Long getHomeworkClassId(Long id) {
+        Homework homework = homeworkMapper.selectByPrimaryKey(id);
+        return homework != null ? homework.getClassId() : null;
+    }
+    
+    @Override
+    public boolean canSubmitHomework(Long homeworkId, Long studentId, Long problemId) {
+        Homework homework = homeworkMapper.selectByPrimaryKey(homeworkId);
+        if (homework == null || homeworkProblemMapper.selectByHomeworkIdAndProblemId(homeworkId, problemId) == null) {
+            return false;
+        }
+        if (homework.getClassId() != null) {
+            StudentClass studentClass = studentClassMapper.selectByStudentIdAndClassId(studentId, homework.getClassId());
+            return studentClass != null && studentClass.getStatus() == 1;
+        }
+        // 面向全课程的作业：学生在课程下任一班级中即可（selectByStudentId 只返回有效的班级关系）
+        for (StudentClass studentClass : studentClassMapper.selectByStudentId(studentId)) {
+            CourseClass courseClass = classMapper.selectByPrimaryKey(studentClass.getClassId());
+            if (courseClass != null && Objects.equals(homework.getCourseId(), courseClass.getCourseId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public void recordSubmission(Long homeworkId, Long studentId, Long problemId, Long judgeSubmissionId,
+                                 Integer judgeScore, String status, LocalDateTime submitTime) {
+        // 获取作业中该题目的分值设置
+        HomeworkProblem homeworkProblem = homeworkProblemMapper.selectByHomeworkIdAndProblemId(homeworkId, problemId);
+        Integer problemMaxScore = homeworkProblem != null && homeworkProblem.getScore() != null
+                ? homeworkProblem.getScore() : 100; // 默认100分
+        
+        // 按作业题目分值比例计算实际得分
+        // judgeScore 是100分制，需要转换为作业题目分值
+        // 例如：作业题目分值20分，评测得分80分（80%），实际得分 = 20 * 80 / 100 = 16分
+        Integer actualScore = (int) Math.round((double) problemMaxScore * judgeScore / 100.0);
+        
+        log.info("记录作业提交：homeworkId={}, studentId={}, problemId={}, submissionId={}, judgeScore={}, problemMaxScore={}, actualScore={}, status={}", 
+                homeworkId, studentId, problemId, judgeSubmissionId, judgeScore, problemMaxScore, actualScore, status);
+        
+        // 重判的提交更新原记录，不再新增
+        HomeworkSubmission existing = homeworkSubmissionMapper.selectBySubmissionId(judgeSubmissionId);
+        if (existing != null) {
+            homeworkSubmissionMapper.updateScoreAndStatus(existing.getId(), actualScore, status);
+            log.info("作业提交记录已更新（重判），id={}, actualScore={}", existing.getId(), actualScore);
+            return;
+        }
+        
+        // 创建作业提交记录
+        HomeworkSubmission submission = new HomeworkSubmission();
+        submission.setHomeworkId(homeworkId);
+        submission.setStudentId(studentId);
+        submission.setProblemId(problemId);
+        submission.setSubmissionId(judgeSubmissionId);
+        submission.setScore(actualScore); // 使用按比例计算的实际得分
+        submission.setStatus(status);
+        submission.setSubmitTime(submitTime);
+        
+        // 判断是否迟交
+        Homework homework = homeworkMapper.selectByPrimaryKey(homeworkId);
+        if (homework != null && homework.getEndTime() != null) {
+            submission.setIsLate(submitTime.isAfter(homework.getEndTime()) ? 1 : 0);
+        } else {
+            submission.setIsLate(0);
+        }
+        
+        // 保存提交记录
+        homeworkSubmissionMapper.insertSelective(submission);
+        
+        log.info("作业提交记录成功，submissionId={}, actualScore={}", submission.getId(), actualScore);
+    }
+    
     @Override
     public Map<String, Object> getHomeworkDetail(Long id) {
         Homework homework = homeworkMapper.selectByPrimaryKey(id);
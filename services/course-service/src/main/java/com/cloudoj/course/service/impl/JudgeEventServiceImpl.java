@@ -0,0 +1,53 @@
+package com.cloudoj.course.service.impl;
+
+import com.cloudoj.common.mapper.JudgeEventLogMapper;
+import com.cloudoj.course.service.HomeworkService;
+import com.cloudoj.course.service.JudgeEventService;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 评测完成事件处理服务实现类
+ * 事件去重记录和业务更新在同一个事务中：重复投递的事件插入去重记录失败直接跳过，
+ * 处理失败时去重记录随事务回滚，重试时会重新处理；
+ * 重判产生新的事件ID，由作业提交记录按评测提交ID更新原记录
+ */
+@Slf4j
+@Service
+public class JudgeEventServiceImpl implements JudgeEventService {
+    
+    @Autowired
+    private JudgeEventLogMapper judgeEventLogMapper;
+    
+    @Autowired
+    private HomeworkService homeworkService;
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void handleJudgeCompleted(JudgeCompletedEvent event) {
+        // 只有作业提交需要记录
+        if (event.getHomeworkId() == null) {
+            return;
+        }
+        if (judgeEventLogMapper.insertIgnore(event.getEventId(), event.getSubmissionId()) == 0) {
+            log.info("评测完成事件已处理过，跳过: eventId={}, submissionId={}", event.getEventId(), event.getSubmissionId());
+            return;
+        }
+        
+        // 按提交时间判断是否迟交（重判的评测完成时间可能在截止之后），旧版本事件没有提交时间时用评测完成时间
+        long submitTime = event.getSubmitTime() != null ? event.getSubmitTime() : event.getJudgedAt();
+        homeworkService.recordSubmission(event.getHomeworkId(), event.getUserId(), event.getProblemId(),
+                event.getSubmissionId(), event.getScore() != null ? event.getScore() : 0, event.getStatus(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(submitTime), ZoneId.systemDefault()));
+        
+        log.info("评测完成事件处理成功: eventId={}, submissionId={}, status={}",
+                event.getEventId(), event.getSubmissionId(), event.getStatus());
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 评测服务启动类
@@ -13,6 +14,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @EnableDiscoveryClient  // 启用服务发现
 @EnableFeignClients     // 启用Feign客户端
 @MapperScan("com.cloudoj.judge.mapper")  // 扫描Mapper接口
+@EnableScheduling       // 启用定时任务（容器池维护等）
 public class JudgeServiceApplication {
     
     public static void main(String[] args) {
@@ -0,0 +1,168 @@
+package com.cloudoj.judge.checker;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 带行列号的字符流
+ * 内部有自己的缓冲区，不需要调用方再包装 BufferedReader
+ */
+class CharStream {
+    
+    static final int EOF = -1;
+    
+    // 差异片段的最大长度
+    private static final int SNIPPET_LENGTH = 16;
+    
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+    private int line = 1;
+    private int column = 1;
+    
+    CharStream(Reader reader) {
+        this.reader = reader;
+    }
+    
+    /**
+     * 查看下一个字符但不消费
+     */
+    int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+    
+    /**
+     * 读取下一个字符
+     */
+    int read() throws IOException {
+        int c = peek();
+        if (c == EOF) {
+            return EOF;
+        }
+        position++;
+        if (c == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        return c;
+    }
+    
+    /**
+     * 跳过空白字符（与 String.trim 一致，码值不大于空格的字符视为空白）
+     */
+    void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) != EOF && isWhitespace(c)) {
+            read();
+        }
+    }
+    
+    /**
+     * 剩余内容是否全部为空白
+     */
+    boolean onlyWhitespaceRemains() throws IOException {
+        skipWhitespace();
+        return peek() == EOF;
+    }
+    
+    /**
+     * 读取一个单词到 dest 中，最多读取 dest.length 个字符（超出部分留在流中）
+     * 
+     * @return 读取的字符数
+     */
+    int readToken(char[] dest) throws IOException {
+        int length = 0;
+        int c;
+        while (length < dest.length && (c = peek()) != EOF && !isWhitespace(c)) {
+            dest[length++] = (char) read();
+        }
+        return length;
+    }
+    
+    /**
+     * 读取一个单词，最多读取 maxLength 个字符（超出部分留在流中）
+     */
+    String readToken(int maxLength) throws IOException {
+        StringBuilder token = new StringBuilder();
+        int c;
+        while (token.length() < maxLength && (c = peek()) != EOF && !isWhitespace(c)) {
+            token.append((char) read());
+        }
+        return token.toString();
+    }
+    
+    /**
+     * 读取当前位置开始的一小段内容（到行尾为止），用于差异描述
+     */
+    String snippet() throws IOException {
+        StringBuilder snippet = new StringBuilder();
+        int c;
+        while (snippet.length() < SNIPPET_LENGTH && (c = peek()) != EOF && c != '\n' && c != '\r') {
+            snippet.append((char) read());
+        }
+        return snippet.toString();
+    }
+    
+    int getLine() {
+        return line;
+    }
+    
+    int getColumn() {
+        return column;
+    }
+    
+    /**
+     * 同时消费两个流中相同的前缀，直到遇到差异或任一方结束
+     * 直接比对缓冲区，避免逐字符调用 peek/read
+     */
+    static void skipCommonPrefix(CharStream a, CharStream b) throws IOException {
+        while (a.peek() != EOF && b.peek() != EOF) {
+            int n = Math.min(a.limit - a.position, b.limit - b.position);
+            int i = 0;
+            while (i < n && a.buffer[a.position + i] == b.buffer[b.position + i]) {
+                i++;
+            }
+            a.advance(i);
+            b.advance(i);
+            if (i < n) {
+                return;
+            }
+        }
+    }
+    
+    static boolean isWhitespace(int c) {
+        return c <= ' ';
+    }
+    
+    private void advance(int count) {
+        int end = position + count;
+        for (int i = position; i < end; i++) {
+            if (buffer[i] == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        position = end;
+    }
+    
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = reader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package com.cloudoj.judge.checker;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 比对结果
+ */
+@Getter
+@AllArgsConstructor
+public class CheckResult {
+    
+    private static final CheckResult ACCEPTED = new CheckResult(true, 0, 0, null, null);
+    
+    /**
+     * 是否一致
+     */
+    private final boolean accepted;
+    
+    /**
+     * 第一处差异所在行（从1开始）
+     */
+    private final int line;
+    
+    /**
+     * 第一处差异所在列（从1开始）
+     */
+    private final int column;
+    
+    /**
+     * 差异处的预期内容片段
+     */
+    private final String expected;
+    
+    /**
+     * 差异处的实际内容片段
+     */
+    private final String actual;
+    
+    public static CheckResult accepted() {
+        return ACCEPTED;
+    }
+    
+    /**
+     * 差异描述，例如：第3行第5列，期望 "42"，实际 "41"
+     */
+    public String getMessage() {
+        if (accepted) {
+            return null;
+        }
+        return "第" + line + "行第" + column + "列，期望 " + quote(expected) + "，实际 " + quote(actual);
+    }
+    
+    private static String quote(String text) {
+        return text == null || text.isEmpty() ? "<EOF>" : "\"" + text + "\"";
+    }
+}
@@ -0,0 +1,53 @@
+package com.cloudoj.judge.checker;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 精确比对：忽略整体首尾空白后逐字符比对
+ * 与原先的 actual.trim().equals(expected.trim()) 语义一致
+ */
+public class ExactChecker implements OutputChecker {
+    
+    @Override
+    public CheckResult check(Reader actualReader, Reader expectedReader) throws IOException {
+        CharStream actual = new CharStream(actualReader);
+        CharStream expected = new CharStream(expectedReader);
+        actual.skipWhitespace();
+        expected.skipWhitespace();
+        
+        while (true) {
+            CharStream.skipCommonPrefix(actual, expected);
+            int a = actual.peek();
+            int e = expected.peek();
+            if (a == CharStream.EOF || e == CharStream.EOF) {
+                // 一方结束时，另一方剩余部分必须全部是空白（对应trim）
+                int line = actual.getLine();
+                int column = actual.getColumn();
+                boolean accepted = a == CharStream.EOF ? expected.onlyWhitespaceRemains() : actual.onlyWhitespaceRemains();
+                if (accepted) {
+                    return CheckResult.accepted();
+                }
+                return mismatch(line, column, actual, expected);
+            }
+            if (a != e) {
+                // 差异前的空白可能是末尾空白，需要确认另一方剩余部分不全是空白
+                int line = actual.getLine();
+                int column = actual.getColumn();
+                if (CharStream.isWhitespace(a) && actual.onlyWhitespaceRemains() && expected.peek() == CharStream.EOF) {
+                    return CheckResult.accepted();
+                }
+                if (CharStream.isWhitespace(e) && expected.onlyWhitespaceRemains() && actual.peek() == CharStream.EOF) {
+                    return CheckResult.accepted();
+                }
+                return mismatch(line, column, actual, expected);
+            }
+            actual.read();
+            expected.read();
+        }
+    }
+    
+    private CheckResult mismatch(int line, int column, CharStream actual, CharStream expected) throws IOException {
+        return new CheckResult(false, line, column, expected.snippet(), actual.snippet());
+    }
+}
@@ -0,0 +1,20 @@
+package com.cloudoj.judge.checker;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 输出比对器
+ * 以流的方式逐字符读取程序输出和预期输出，遇到第一处不一致立即停止
+ */
+public interface OutputChecker {
+    
+    /**
+     * 比对程序输出与预期输出
+     * 
+     * @param actual 程序输出
+     * @param expected 预期输出
+     * @return 比对结果，不一致时包含第一处差异的位置（程序输出中的行列号）
+     */
+    CheckResult check(Reader actual, Reader expected) throws IOException;
+}
@@ -0,0 +1,46 @@
+package com.cloudoj.judge.checker;
+
+import com.cloudoj.model.enums.CheckerModeEnum;
+
+/**
+ * 比对器工厂
+ * 根据题目配置的比对模式选择比对器，未配置或无法识别时使用精确比对
+ */
+public final class OutputCheckerFactory {
+    
+    /**
+     * 浮点数比对的默认误差
+     */
+    public static final double DEFAULT_EPSILON = 1e-6;
+    
+    private static final OutputChecker EXACT = new ExactChecker();
+    private static final OutputChecker WHITESPACE = TokenChecker.whitespaceInsensitive();
+    private static final OutputChecker CASE_INSENSITIVE = TokenChecker.caseInsensitive();
+    private static final OutputChecker FLOAT = TokenChecker.floatTolerance(DEFAULT_EPSILON);
+    
+    private OutputCheckerFactory() {
+    }
+    
+    /**
+     * 获取比对器
+     * 
+     * @param mode 比对模式（EXACT/WHITESPACE/FLOAT/CASE_INSENSITIVE）
+     * @param epsilon 浮点数误差，不大于0时使用默认误差
+     */
+    public static OutputChecker getChecker(String mode, double epsilon) {
+        CheckerModeEnum checkerMode = mode == null ? null : CheckerModeEnum.getByCode(mode.toUpperCase());
+        if (checkerMode == null) {
+            return EXACT;
+        }
+        switch (checkerMode) {
+            case WHITESPACE:
+                return WHITESPACE;
+            case CASE_INSENSITIVE:
+                return CASE_INSENSITIVE;
+            case FLOAT:
+                return epsilon > 0 && epsilon != DEFAULT_EPSILON ? TokenChecker.floatTolerance(epsilon) : FLOAT;
+            default:
+                return EXACT;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.cloudoj.judge.checker;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * 按单词比对：任意空白（空格、换行、制表符）都视为分隔符
+ * 支持忽略大小写和浮点数误差比对
+ */
+public class TokenChecker implements OutputChecker {
+    
+    // 浮点数单词的最大长度，更长的单词不按数值解析
+    private static final int MAX_NUMBER_LENGTH = 64;
+    
+    private final boolean ignoreCase;
+    private final boolean floatTolerance;
+    private final double epsilon;
+    
+    private TokenChecker(boolean ignoreCase, boolean floatTolerance, double epsilon) {
+        this.ignoreCase = ignoreCase;
+        this.floatTolerance = floatTolerance;
+        this.epsilon = epsilon;
+    }
+    
+    /**
+     * 忽略空白差异
+     */
+    public static TokenChecker whitespaceInsensitive() {
+        return new TokenChecker(false, false, 0);
+    }
+    
+    /**
+     * 忽略空白差异和大小写
+     */
+    public static TokenChecker caseInsensitive() {
+        return new TokenChecker(true, false, 0);
+    }
+    
+    /**
+     * 浮点数按误差比对：绝对误差或相对误差不超过 epsilon 即视为相等，非数值单词精确比对
+     */
+    public static TokenChecker floatTolerance(double epsilon) {
+        return new TokenChecker(false, true, epsilon);
+    }
+    
+    @Override
+    public CheckResult check(Reader actualReader, Reader expectedReader) throws IOException {
+        CharStream actual = new CharStream(actualReader);
+        CharStream expected = new CharStream(expectedReader);
+        char[] actualToken = new char[MAX_NUMBER_LENGTH];
+        char[] expectedToken = new char[MAX_NUMBER_LENGTH];
+        
+        while (true) {
+            actual.skipWhitespace();
+            expected.skipWhitespace();
+            boolean actualEnd = actual.peek() == CharStream.EOF;
+            boolean expectedEnd = expected.peek() == CharStream.EOF;
+            if (actualEnd && expectedEnd) {
+                return CheckResult.accepted();
+            }
+            
+            int line = actual.getLine();
+            int column = actual.getColumn();
+            if (actualEnd || expectedEnd) {
+                return new CheckResult(false, line, column, expected.snippet(), actual.snippet());
+            }
+            
+            if (floatTolerance) {
+                int actualLength = actual.readToken(actualToken);
+                int expectedLength = expected.readToken(expectedToken);
+                // 字面一致时不需要解析数值
+                boolean same = Arrays.equals(actualToken, 0, actualLength, expectedToken, 0, expectedLength);
+                if (isTokenEnd(actual) && isTokenEnd(expected)) {
+                    if (!same && !numberEquals(new String(actualToken, 0, actualLength),
+                            new String(expectedToken, 0, expectedLength))) {
+                        return new CheckResult(false, line, column,
+                                new String(expectedToken, 0, expectedLength), new String(actualToken, 0, actualLength));
+                    }
+                    continue;
+                }
+                // 超长单词：已读部分必须一致，剩余部分继续逐字符比对
+                if (!same) {
+                    return new CheckResult(false, line, column,
+                            new String(expectedToken, 0, expectedLength), new String(actualToken, 0, actualLength));
+                }
+            }
+            
+            if (!compareToken(actual, expected)) {
+                return new CheckResult(false, line, column, expected.readToken(MAX_NUMBER_LENGTH), actual.readToken(MAX_NUMBER_LENGTH));
+            }
+        }
+    }
+    
+    /**
+     * 逐字符比对当前单词，不一致时两个流都停在差异处
+     */
+    private boolean compareToken(CharStream actual, CharStream expected) throws IOException {
+        while (true) {
+            int a = actual.peek();
+            int e = expected.peek();
+            boolean actualEnd = a == CharStream.EOF || CharStream.isWhitespace(a);
+            boolean expectedEnd = e == CharStream.EOF || CharStream.isWhitespace(e);
+            if (actualEnd || expectedEnd) {
+                return actualEnd && expectedEnd;
+            }
+            if (a != e && !(ignoreCase && Character.toLowerCase((char) a) == Character.toLowerCase((char) e))) {
+                return false;
+            }
+            actual.read();
+            expected.read();
+        }
+    }
+    
+    private boolean isTokenEnd(CharStream stream) throws IOException {
+        int c = stream.peek();
+        return c == CharStream.EOF || CharStream.isWhitespace(c);
+    }
+    
+    private boolean numberEquals(String actualToken, String expectedToken) {
+        double actualValue;
+        double expectedValue;
+        try {
+            actualValue = Double.parseDouble(actualToken);
+            expectedValue = Double.parseDouble(expectedToken);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Double.isNaN(actualValue) || Double.isNaN(expectedValue)) {
+            return Double.isNaN(actualValue) && Double.isNaN(expectedValue);
+        }
+        double diff = Math.abs(actualValue - expectedValue);
+        return diff <= epsilon || diff <= epsilon * Math.abs(expectedValue);
+    }
+}
@@ -0,0 +1,351 @@
+package com.cloudoj.judge.codec;
+
+import com.cloudoj.model.enums.JudgeStatusEnum;
+import com.cloudoj.model.vo.judge.JudgeResultVO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 测试用例结果编解码
+ * 提交记录的 test_case_results 列保存紧凑的二进制编码（Base64文本，列类型不变）：
+ *
+ * 格式（版本1）："TCR1:" + Base64(压缩方式（1字节） + 数据)，数据不少于 COMPRESS_THRESHOLD 字节时用deflate压缩；
+ * 数据按列存放，便于压缩：
+ * 1. 用例数（varint）
+ * 2. 每个用例的标志字节：是否有用例ID、实际输出、错误信息、内联的输入、内联的预期输出、非内置的状态
+ * 3. 用例ID（与上一个ID的差值，zigzag varint）
+ * 4. 状态（单字节，为 STATUSES 中的下标，只能在末尾追加）
+ * 5. 运行时间、内存（varint，值+1，0表示空）
+ * 6. 字符串（varint长度 + UTF-8），依次为非内置状态、实际输出、错误信息、输入、预期输出
+ *
+ * 有用例ID的输入和预期输出不保存，读取时按用例ID从题目测试数据中补全；输出和错误信息截断到 PREVIEW_LENGTH 个字符。
+ * 以 '[' 开头的旧数据按JSON解析。编码器和解码器无状态，可以在多个线程中共用
+ */
+public final class TestCaseResultCodec {
+
+    /**
+     * 保存的输出、错误信息的最大字符数
+     */
+    public static final int PREVIEW_LENGTH = 256;
+
+    private static final String PREFIX_V1 = "TCR1:";
+
+    // 内置状态，下标写入编码，只能在末尾追加
+    private static final String[] STATUSES = {
+            JudgeStatusEnum.ACCEPTED.getCode(),
+            JudgeStatusEnum.WRONG_ANSWER.getCode(),
+            JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getCode(),
+            JudgeStatusEnum.MEMORY_LIMIT_EXCEEDED.getCode(),
+            JudgeStatusEnum.OUTPUT_LIMIT_EXCEEDED.getCode(),
+            JudgeStatusEnum.RUNTIME_ERROR.getCode(),
+            JudgeStatusEnum.COMPILE_ERROR.getCode(),
+            JudgeStatusEnum.SYSTEM_ERROR.getCode()
+    };
+    private static final int CUSTOM_STATUS = 0xFF;
+
+    // 压缩方式
+    private static final int STORED = 0;
+    private static final int DEFLATED = 1;
+    // 数据较小时压缩收益不大，解压初始化的开销反而占主要部分
+    private static final int COMPRESS_THRESHOLD = 256;
+
+    private static final int FLAG_ID = 1;
+    private static final int FLAG_ACTUAL = 1 << 1;
+    private static final int FLAG_ERROR = 1 << 2;
+    private static final int FLAG_INPUT = 1 << 3;
+    private static final int FLAG_EXPECTED = 1 << 4;
+    private static final int FLAG_CUSTOM_STATUS = 1 << 5;
+
+    // 解压后数据的大小上限，防止异常数据占用过多内存
+    private static final int MAX_DECODED_SIZE = 16 * 1024 * 1024;
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private TestCaseResultCodec() {
+    }
+
+    /**
+     * 编码测试用例结果
+     *
+     * @return 编码后的文本，结果为空时返回null
+     */
+    public static String encode(List<JudgeResultVO.TestCaseResultVO> results) {
+        if (results == null || results.isEmpty()) {
+            return null;
+        }
+        int count = results.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + count * 16);
+        writeVarint(out, count);
+
+        int[] flags = new int[count];
+        for (int i = 0; i < count; i++) {
+            JudgeResultVO.TestCaseResultVO result = results.get(i);
+            int flag = 0;
+            if (result.getTestCaseId() != null) {
+                flag |= FLAG_ID;
+            } else {
+                // 没有用例ID时无法补全，输入和预期输出内联保存
+                flag |= result.getInput() != null ? FLAG_INPUT : 0;
+                flag |= result.getExpectedOutput() != null ? FLAG_EXPECTED : 0;
+            }
+            flag |= result.getActualOutput() != null ? FLAG_ACTUAL : 0;
+            flag |= result.getErrorMessage() != null ? FLAG_ERROR : 0;
+            // 空状态写入 CUSTOM_STATUS 下标但不保存字符串，解码为null
+            flag |= result.getStatus() != null && statusIndex(result.getStatus()) == CUSTOM_STATUS ? FLAG_CUSTOM_STATUS : 0;
+            flags[i] = flag;
+            out.write(flag);
+        }
+
+        long previousId = 0;
+        for (int i = 0; i < count; i++) {
+            if ((flags[i] & FLAG_ID) != 0) {
+                long id = results.get(i).getTestCaseId();
+                writeVarint(out, zigzag(id - previousId));
+                previousId = id;
+            }
+        }
+        for (JudgeResultVO.TestCaseResultVO result : results) {
+            out.write(statusIndex(result.getStatus()));
+        }
+        for (JudgeResultVO.TestCaseResultVO result : results) {
+            writeVarint(out, result.getTimeUsed() != null ? result.getTimeUsed() + 1 : 0);
+        }
+        for (JudgeResultVO.TestCaseResultVO result : results) {
+            writeVarint(out, result.getMemoryUsed() != null ? result.getMemoryUsed() + 1 : 0);
+        }
+
+        for (int i = 0; i < count; i++) {
+            JudgeResultVO.TestCaseResultVO result = results.get(i);
+            if ((flags[i] & FLAG_CUSTOM_STATUS) != 0) {
+                writeString(out, result.getStatus());
+            }
+            if ((flags[i] & FLAG_ACTUAL) != 0) {
+                writeString(out, truncate(result.getActualOutput()));
+            }
+            if ((flags[i] & FLAG_ERROR) != 0) {
+                writeString(out, truncate(result.getErrorMessage()));
+            }
+            if ((flags[i] & FLAG_INPUT) != 0) {
+                writeString(out, truncate(result.getInput()));
+            }
+            if ((flags[i] & FLAG_EXPECTED) != 0) {
+                writeString(out, truncate(result.getExpectedOutput()));
+            }
+        }
+
+        byte[] data = out.toByteArray();
+        byte[] compressed = data.length >= COMPRESS_THRESHOLD ? deflate(data) : null;
+        byte[] payload;
+        if (compressed != null && compressed.length < data.length) {
+            payload = new byte[compressed.length + 1];
+            payload[0] = DEFLATED;
+            System.arraycopy(compressed, 0, payload, 1, compressed.length);
+        } else {
+            payload = new byte[data.length + 1];
+            payload[0] = STORED;
+            System.arraycopy(data, 0, payload, 1, data.length);
+        }
+        return PREFIX_V1 + Base64.getEncoder().encodeToString(payload);
+    }
+
+    /**
+     * 解码测试用例结果（兼容旧的JSON数据）
+     * 有用例ID的结果输入和预期输出为null，由调用方按用例ID补全
+     *
+     * @throws IllegalArgumentException 数据格式错误
+     */
+    public static List<JudgeResultVO.TestCaseResultVO> decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (encoded.startsWith("[")) {
+            try {
+                return LEGACY_MAPPER.readValue(encoded, LEGACY_MAPPER.getTypeFactory()
+                        .constructCollectionType(List.class, JudgeResultVO.TestCaseResultVO.class));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("测试用例结果JSON格式错误", e);
+            }
+        }
+        if (!encoded.startsWith(PREFIX_V1)) {
+            throw new IllegalArgumentException("不支持的测试用例结果编码版本");
+        }
+
+        try {
+            byte[] payload = Base64.getDecoder().decode(encoded.substring(PREFIX_V1.length()));
+            ByteBuffer in;
+            if (payload.length > 0 && payload[0] == STORED) {
+                in = ByteBuffer.wrap(payload, 1, payload.length - 1);
+            } else if (payload.length > 0 && payload[0] == DEFLATED) {
+                in = ByteBuffer.wrap(inflate(payload, 1));
+            } else {
+                throw new IllegalArgumentException("不支持的测试用例结果压缩方式");
+            }
+            int count = (int) readVarint(in);
+            if (count < 0 || count > in.remaining()) {
+                throw new IllegalArgumentException("测试用例数错误: " + count);
+            }
+            List<JudgeResultVO.TestCaseResultVO> results = new ArrayList<>(count);
+            int[] flags = new int[count];
+            for (int i = 0; i < count; i++) {
+                flags[i] = in.get() & 0xFF;
+                results.add(new JudgeResultVO.TestCaseResultVO());
+            }
+
+            long previousId = 0;
+            for (int i = 0; i < count; i++) {
+                if ((flags[i] & FLAG_ID) != 0) {
+                    previousId += unzigzag(readVarint(in));
+                    results.get(i).setTestCaseId(previousId);
+                }
+            }
+            for (JudgeResultVO.TestCaseResultVO result : results) {
+                int index = in.get() & 0xFF;
+                result.setStatus(index < STATUSES.length ? STATUSES[index] : null);
+            }
+            for (JudgeResultVO.TestCaseResultVO result : results) {
+                long time = readVarint(in);
+                result.setTimeUsed(time > 0 ? time - 1 : null);
+            }
+            for (JudgeResultVO.TestCaseResultVO result : results) {
+                long memory = readVarint(in);
+                result.setMemoryUsed(memory > 0 ? memory - 1 : null);
+            }
+
+            for (int i = 0; i < count; i++) {
+                JudgeResultVO.TestCaseResultVO result = results.get(i);
+                if ((flags[i] & FLAG_CUSTOM_STATUS) != 0) {
+                    result.setStatus(readString(in));
+                }
+                if ((flags[i] & FLAG_ACTUAL) != 0) {
+                    result.setActualOutput(readString(in));
+                }
+                if ((flags[i] & FLAG_ERROR) != 0) {
+                    result.setErrorMessage(readString(in));
+                }
+                if ((flags[i] & FLAG_INPUT) != 0) {
+                    result.setInput(readString(in));
+                }
+                if ((flags[i] & FLAG_EXPECTED) != 0) {
+                    result.setExpectedOutput(readString(in));
+                }
+            }
+            return results;
+        } catch (BufferUnderflowException | DataFormatException e) {
+            throw new IllegalArgumentException("测试用例结果数据不完整", e);
+        }
+    }
+
+    /**
+     * 截断到 PREVIEW_LENGTH 个字符
+     */
+    public static String truncate(String text) {
+        if (text == null || text.length() <= PREVIEW_LENGTH) {
+            return text;
+        }
+        return text.substring(0, PREVIEW_LENGTH) + "...";
+    }
+
+    private static int statusIndex(String status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        return CUSTOM_STATUS;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("压缩数据不完整");
+                }
+                out.write(buffer, 0, n);
+                if (out.size() > MAX_DECODED_SIZE) {
+                    throw new DataFormatException("解压后数据过大");
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint过长");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarint(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("字符串长度错误: " + length);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
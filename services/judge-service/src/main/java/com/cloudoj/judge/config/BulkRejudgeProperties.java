@@ -0,0 +1,50 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量重判配置属性
+ * 批量重判任务按ID游标分页读取提交，以后台优先级限速投递到评测通道队列，不影响正常提交的评测
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.rejudge")
+public class BulkRejudgeProperties {
+
+    /**
+     * 默认投递速率（条/秒）
+     */
+    private int rate = 5;
+
+    /**
+     * 请求可指定的最大投递速率（条/秒）
+     */
+    private int maxRate = 50;
+
+    /**
+     * 单个任务已投递未完成的最大提交数，达到后暂停投递，避免队列中堆积大量重判任务
+     */
+    private int maxInFlight = 50;
+
+    /**
+     * 每次从数据库读取的提交数
+     */
+    private int pageSize = 200;
+
+    /**
+     * 同时运行的最大任务数
+     */
+    private int maxJobs = 2;
+
+    /**
+     * 重判任务的消息优先级（低于所有正常提交，正常提交的优先级从1开始）
+     */
+    private int priority = 0;
+
+    /**
+     * 任务记录保留时间（小时）
+     */
+    private long jobTtl = 168;
+}
@@ -0,0 +1,49 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * C/C++ 编译加速配置属性（预编译头、ccache）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.compile-accel")
+public class CompileAccelProperties {
+
+    /**
+     * 是否为 bits/stdc++.h 生成预编译头（按镜像和编译选项分别生成）
+     */
+    private boolean pchEnabled = true;
+
+    /**
+     * 预编译头超过该时间（小时）未使用时删除（工具链已更新的预编译头随时删除）
+     */
+    private int pchTtl = 168;
+
+    /**
+     * 是否启用 ccache（镜像中没有 ccache 时自动退化为直接编译）
+     * 缓存目录以读写方式挂载到容器中，容器内运行的程序同样可以写入，只应在可信环境中启用
+     */
+    private boolean ccacheEnabled = false;
+
+    /**
+     * ccache 缓存目录（宿主机路径，跨评测持久保存）
+     */
+    private String ccacheDir = System.getProperty("java.io.tmpdir") + File.separator + "oj-judge-ccache";
+
+    /**
+     * ccache 缓存最大占用（ccache max_size 格式，如 2G）
+     */
+    private String ccacheMaxSize = "2G";
+
+    /**
+     * 挂载 ccache 目录的镜像
+     */
+    private List<String> ccacheImages = new ArrayList<>(List.of("gcc:latest"));
+}
@@ -0,0 +1,36 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+/**
+ * 编译产物缓存配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.compile-cache")
+public class CompileCacheProperties {
+
+    /**
+     * 是否启用编译缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存目录（默认在系统临时目录下）
+     */
+    private String dir = System.getProperty("java.io.tmpdir") + File.separator + "oj-judge-compile-cache";
+
+    /**
+     * 缓存占用的最大磁盘空间（MB），超出后按最近最少使用淘汰
+     */
+    private long maxSize = 1024;
+
+    /**
+     * 最大缓存条目数（编译错误条目很小，需要单独限制数量）
+     */
+    private int maxEntries = 10000;
+}
@@ -0,0 +1,49 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 容器池配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.container-pool")
+public class ContainerPoolProperties {
+
+    /**
+     * 是否启用容器池（关闭后每次执行都创建一次性容器）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每种镜像常驻的预启动容器数量
+     */
+    private int poolSize = 1;
+
+    /**
+     * 每种镜像的最大容器数量（默认等于宿主机核心数）
+     */
+    private int maxSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 单个容器最多被借出的次数，达到后销毁重建
+     */
+    private int maxUses = 200;
+
+    /**
+     * 空闲容器超时（分钟），超时且超过常驻数量的容器会被回收
+     */
+    private int idleTimeout = 30;
+
+    /**
+     * 借用容器的最长等待时间（毫秒），超时后退化为一次性容器模式
+     */
+    private long acquireTimeout = 10000;
+
+    /**
+     * 维护任务（健康检查、扩缩容）的执行间隔（毫秒）
+     */
+    private long maintainInterval = 10000;
+}
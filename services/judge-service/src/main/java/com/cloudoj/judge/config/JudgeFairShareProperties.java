@@ -0,0 +1,64 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 评测公平调度配置属性
+ * 评测节点从队列预取一批任务放入本地积压，按租户（班级或用户）做赤字轮转（DRR）后交给评测线程执行
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.fair-share")
+public class JudgeFairShareProperties {
+
+    /**
+     * 是否启用公平调度（关闭后每个消费者直接按队列顺序评测）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 租户划分：class（作业提交按班级、练习提交按用户）/ user（全部按用户）
+     */
+    private String groupBy = "class";
+
+    /**
+     * 每个队列最多预取的未确认任务数，本地积压不超过 prefetch × 消费队列数
+     */
+    private int prefetch = 64;
+
+    /**
+     * 评测线程数，0 表示等于评测槽位数（未启用槽位时为宿主机核心数）
+     */
+    private int workers = 0;
+
+    /**
+     * 每轮发放给权重为1的租户的额度（毫秒，按预估评测时间扣减）
+     */
+    private int quantum = 2000;
+
+    /**
+     * 题目限制未知时任务的预估评测时间（毫秒）
+     */
+    private int defaultCost = 1000;
+
+    /**
+     * 单个任务预估评测时间的上限（毫秒），测试用例多、时限长的题目按该值扣减
+     */
+    private int maxCost = 20000;
+
+    /**
+     * 未单独配置权重的租户的权重
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * 租户权重，权重越大每轮额度越多（只在同一优先级的租户之间生效）
+     * 键为租户ID（如 class-12、user-1001）或租户类型（如 class、user、rejudge，对该类型的全部租户生效），租户ID优先
+     */
+    private Map<String, Integer> weights = new LinkedHashMap<>();
+}
@@ -0,0 +1,55 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评测任务优先级配置属性
+ * 评测通道队列是RabbitMQ优先级队列，优先级高的任务先被消费
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.priority")
+public class JudgePriorityProperties {
+
+    /**
+     * 是否按优先级投递（关闭后全部任务使用 practice 优先级）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 评测通道队列的最大优先级（x-max-priority，队列创建后不能修改）
+     */
+    private int maxPriority = 10;
+
+    /**
+     * 练习提交的优先级
+     */
+    private int practice = 2;
+
+    /**
+     * 作业提交的基础优先级
+     */
+    private int homework = 5;
+
+    /**
+     * 距作业截止不超过该时间（分钟）时开始提升优先级，越接近截止提升越多
+     */
+    private int urgentWindow = 120;
+
+    /**
+     * 临近截止时最多提升的优先级
+     */
+    private int urgentBoost = 4;
+
+    /**
+     * 用户公平性：最近一分钟内每多一次提交降低1级优先级，最多降低该值（不低于1）
+     */
+    private int fairnessMaxPenalty = 2;
+
+    /**
+     * 作业截止时间的本地缓存时间（毫秒）
+     */
+    private long deadlineCacheTtl = 60000;
+}
@@ -0,0 +1,51 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评测任务路由配置属性
+ * 按语言（评测通道）和资源档位把评测任务发送到不同的队列，评测节点只消费自己声明的通道
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.routing")
+public class JudgeRoutingProperties {
+
+    /**
+     * 是否按语言路由（关闭后全部评测任务进入 judge.queue）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 评测通道 -> 该通道的语言（不区分大小写），每个通道对应 judge.queue.{通道} 队列，
+     * 未列出的语言进入默认的 judge.queue
+     */
+    private Map<String, List<String>> lanes = new LinkedHashMap<>();
+
+    /**
+     * 本节点消费的评测通道，为空时消费全部通道
+     */
+    private List<String> serveLanes = new ArrayList<>();
+
+    /**
+     * 本节点是否消费默认的 judge.queue（未配置通道的语言，以及开启路由前已在队列中的任务）
+     */
+    private boolean serveDefault = true;
+
+    /**
+     * 题目内存限制（MB）不小于该值时进入 heavy 资源档位（judge.queue.{通道}.heavy），0 表示不分档位
+     */
+    private int heavyMemoryLimit = 0;
+
+    /**
+     * 本节点消费的资源档位（standard / heavy），为空时消费全部档位
+     */
+    private List<String> serveTiers = new ArrayList<>();
+}
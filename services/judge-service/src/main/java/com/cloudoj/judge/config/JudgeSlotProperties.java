@@ -0,0 +1,41 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评测槽位配置属性
+ * 每个槽位独占一个CPU核心，同一时刻只运行一个评测任务（或并行评测的一路辅助线程）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.slots")
+public class JudgeSlotProperties {
+
+    /**
+     * 是否启用评测槽位（关闭后不绑定CPU，评测消费者并发数沿用 spring.rabbitmq.listener 配置）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 评测专用的CPU核心列表（cpuset 格式，如 "2-7" 或 "1,3,5"）
+     * 为空时使用除 0 号核心外的全部核心（留给评测服务、Docker 和系统进程），单核机器使用 0 号核心
+     */
+    private String cpus;
+
+    /**
+     * 运行阶段容器内存 = 题目内存限制 + 该余量（MB） + 常驻运行器预留，余量容纳 JVM/解释器自身和评测运行器的开销
+     */
+    private int memoryHeadroom = 128;
+
+    /**
+     * 编译阶段的容器内存（MB），编译器的内存占用与题目内存限制无关
+     */
+    private int compileMemory = 1024;
+
+    /**
+     * 等待空闲槽位的告警间隔（毫秒），超过后记录告警并继续等待，评测不会在未绑定CPU的情况下运行
+     */
+    private long acquireTimeout = 30000;
+}
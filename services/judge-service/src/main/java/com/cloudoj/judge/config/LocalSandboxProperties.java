@@ -0,0 +1,78 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地进程沙箱配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.sandbox.local")
+public class LocalSandboxProperties {
+
+    /**
+     * 工作目录根路径（默认为系统临时目录下的 oj-judge-local）
+     */
+    private String workDir = System.getProperty("java.io.tmpdir") + "/oj-judge-local";
+
+    /**
+     * 评测进程使用的专用用户ID起始值，每次评测从 [runUid, runUid + uidCount) 中独占一个用户
+     * 评测服务需要以root运行，小于0表示不切换用户（只允许在 trustedCi 下使用）
+     */
+    private int runUid = 60000;
+
+    /**
+     * 专用用户ID的数量，即本地沙箱同时进行的评测数上限
+     */
+    private int uidCount = 64;
+
+    /**
+     * 评测进程使用的专用用户组ID
+     */
+    private int runGid = 65534;
+
+    /**
+     * 可信CI环境：无法切换用户或创建挂载命名空间时仍然启用本地沙箱，评测进程以评测服务用户运行
+     * 只能用于运行可信代码的CI，生产环境必须保持关闭，否则本地沙箱拒绝启用
+     */
+    private boolean trustedCi = false;
+
+    /**
+     * 是否为每次执行创建独立的网络命名空间（没有任何网络设备，禁止网络访问）
+     */
+    private boolean networkIsolation = true;
+
+    /**
+     * cgroup 挂载点，支持 cgroup v2 和 cgroup v1（memory、pids 子系统）
+     */
+    private String cgroupRoot = "/sys/fs/cgroup";
+
+    /**
+     * 评测专用的父 cgroup 名称，每次执行在其下创建 job-xxx 子组
+     */
+    private String cgroupName = "oj-judge";
+
+    /**
+     * 单次执行的最大进程（线程）数，cgroup 可用时通过 pids.max 限制，否则通过 RLIMIT_NPROC 限制
+     */
+    private int maxProcesses = 128;
+
+    /**
+     * 单个进程最多打开的文件数
+     */
+    private int maxOpenFiles = 256;
+
+    /**
+     * cgroup 不可用时按虚拟地址空间限制内存的额外余量（MB），0表示不限制虚拟地址空间
+     * JVM 启动时会预留大量虚拟地址空间，需要留足余量
+     */
+    private int addressSpaceHeadroom = 2048;
+
+    /**
+     * 评测进程的 PATH 环境变量（为空时沿用评测服务的 PATH）
+     * 切换用户后需要保证专用用户可以访问其中的编译器和解释器
+     */
+    private String path;
+}
@@ -0,0 +1,31 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 测试用例并行执行配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.parallel")
+public class ParallelJudgeProperties {
+
+    /**
+     * 是否允许并行执行（总开关，题目还需单独开启）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单次提交最多同时执行的测试用例数
+     */
+    private int maxFanOut = 4;
+
+    /**
+     * 全局额外评测名额（所有提交共享，默认等于宿主机核心数），仅在未启用评测槽位时使用；
+     * 启用评测槽位时名额为槽位数减一（辅助线程需要独占空闲槽位，至少有一个槽位被发起并行的评测任务占用）
+     * 消费者线程自身执行用例不占用名额
+     */
+    private int globalSlots = Runtime.getRuntime().availableProcessors();
+}
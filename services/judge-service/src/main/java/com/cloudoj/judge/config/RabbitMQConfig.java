@@ -1,18 +1,33 @@
 package com.cloudoj.judge.config;
 
+import com.cloudoj.judge.service.JudgeQueueRouter;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateCustomizer;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RabbitMQ配置类
- * 定义评测相关的队列、交换机和绑定关系
+ * 定义评测相关的队列、交换机和绑定关系，按语言划分的评测通道队列由 judge.routing 配置生成
  */
+@Slf4j
 @Configuration
 public class RabbitMQConfig {
     
@@ -28,6 +43,9 @@ public class RabbitMQConfig {
     public static final String JUDGE_ROUTING_KEY = "judge.routing.key";
     public static final String JUDGE_DEAD_LETTER_ROUTING_KEY = "judge.dead.letter.routing.key";
     
+    // 评测消费者的监听容器工厂
+    public static final String JUDGE_LISTENER_CONTAINER_FACTORY = "judgeListenerContainerFactory";
+    
     /**
      * 评测队列
      * 持久化队列，并配置死信交换机
@@ -62,6 +80,14 @@ public class RabbitMQConfig {
         return new TopicExchange(JUDGE_DEAD_LETTER_EXCHANGE, true, false);
     }
     
+    /**
+     * 评测完成事件交换机（扇出），各服务声明自己的队列绑定到该交换机
+     */
+    @Bean
+    public FanoutExchange judgeCompletedExchange() {
+        return new FanoutExchange(JudgeCompletedEvent.EXCHANGE, true, false);
+    }
+    
     /**
      * 绑定评测队列到交换机
      */
@@ -73,6 +99,27 @@ public class RabbitMQConfig {
                 .with(JUDGE_ROUTING_KEY);
     }
     
+    /**
+     * 评测通道队列及其绑定（见 {@link JudgeQueueRouter}）
+     * 通道队列是优先级队列（见 {@link com.cloudoj.judge.service.JudgePriorityResolver}），
+     * 并配置了死信交换机，超过重试次数被拒绝的任务进入死信队列
+     */
+    @Bean
+    public Declarables judgeLaneDeclarables(JudgeQueueRouter judgeQueueRouter,
+                                            JudgePriorityProperties judgePriorityProperties) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (JudgeQueueRouter.Route route : judgeQueueRouter.getLaneRoutes()) {
+            Queue queue = QueueBuilder.durable(route.getQueue())
+                    .deadLetterExchange(JUDGE_DEAD_LETTER_EXCHANGE)
+                    .deadLetterRoutingKey(JUDGE_DEAD_LETTER_ROUTING_KEY)
+                    .maxPriority(judgePriorityProperties.getMaxPriority())
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(judgeExchange()).with(route.getRoutingKey()));
+        }
+        return new Declarables(declarables);
+    }
+    
     /**
      * 绑定死信队列到死信交换机
      */
@@ -84,6 +131,40 @@ public class RabbitMQConfig {
                 .with(JUDGE_DEAD_LETTER_ROUTING_KEY);
     }
     
+    /**
+     * 评测消费者的监听容器工厂
+     * 沿用 spring.rabbitmq.listener.simple 配置，启用公平调度时预取数改为 judge.fair-share.prefetch
+     * （消费者把任务放入本地积压后不立即确认，预取数就是积压上限）
+     */
+    @Bean(JUDGE_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory judgeListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            JudgeFairShareProperties judgeFairShareProperties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        if (judgeFairShareProperties.isEnabled()) {
+            factory.setPrefetchCount(judgeFairShareProperties.getPrefetch());
+        }
+        return factory;
+    }
+    
+    /**
+     * 发布退回处理
+     * spring.rabbitmq.template.mandatory 开启后无队列可路由的消息会被 broker 退回；
+     * 评测完成事件通过 CorrelationData 判断退回，这里记录所有退回的消息便于排查
+     */
+    @Bean
+    public RabbitTemplateCustomizer returnsCallbackCustomizer() {
+        return rabbitTemplate -> {
+            rabbitTemplate.setMandatory(true);
+            rabbitTemplate.setReturnsCallback(returned -> log.warn(
+                    "消息无队列可路由被退回: exchange={}, routingKey={}, replyCode={}, replyText={}",
+                    returned.getExchange(), returned.getRoutingKey(),
+                    returned.getReplyCode(), returned.getReplyText()));
+        };
+    }
+    
     /**
      * 消息转换器
      * 使用Jackson将消息转换为JSON格式
@@ -4,6 +4,7 @@ import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -14,11 +15,12 @@ public class RestTemplateConfig {
     
     /**
      * 创建支持负载均衡的RestTemplate（用于服务间调用）
+     * 使用 Apache HttpClient 5，自动解压gzip响应（如题目评测数据包）
      */
     @Bean("loadBalancedRestTemplate")
     @LoadBalanced
     public RestTemplate loadBalancedRestTemplate() {
-        return new RestTemplate();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory());
     }
     
     /**
@@ -0,0 +1,43 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+/**
+ * 题目测试数据缓存配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.testdata-cache")
+public class TestDataCacheProperties {
+
+    /**
+     * 是否启用测试数据缓存（关闭后每次评测都从problem-service获取并写入工作目录，
+     * 测试数据较大、评测数据包中没有内联内容的题目无法评测）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存目录（宿主机路径），其中 input 子目录只读挂载到评测容器；
+     * 评测数据包中未内联的预期输出保存在 output 子目录，不会进入容器
+     */
+    private String dir = System.getProperty("java.io.tmpdir") + File.separator + "oj-judge-testdata";
+
+    /**
+     * 缓存占用的最大磁盘空间（MB），超出后按最近最少使用淘汰（正在评测使用的题目不淘汰）
+     */
+    private long maxSize = 2048;
+
+    /**
+     * 内存中保留的题目数（题目限制和测试用例），超出后按最近最少使用淘汰
+     */
+    private int maxEntries = 64;
+
+    /**
+     * 重新校验间隔（毫秒）：距上次校验不超过该时间的题目直接使用缓存，不请求problem-service
+     */
+    private long revalidateInterval = 30000;
+}
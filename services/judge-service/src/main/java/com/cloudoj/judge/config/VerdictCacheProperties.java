@@ -0,0 +1,35 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评测结果复用配置属性
+ * 同一题目、同一评测数据版本下相同语言和代码的提交直接复用上一次的评测结果
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.verdict-cache")
+public class VerdictCacheProperties {
+
+    /**
+     * 是否启用评测结果复用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 评测结果保留时间（秒）
+     */
+    private long ttl = 3600;
+
+    /**
+     * 最大缓存条目数，超出后按最近最少使用淘汰
+     */
+    private int maxEntries = 2000;
+
+    /**
+     * 缓存占用的最大内存（MB，按测试用例结果中的文本长度估算）
+     */
+    private long maxSize = 64;
+}
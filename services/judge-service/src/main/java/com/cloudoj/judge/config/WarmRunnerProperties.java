@@ -0,0 +1,45 @@
+package com.cloudoj.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 常驻运行器配置属性
+ * 常驻运行器在池化容器中预先启动解释器/虚拟机，批量运行时省去每个用例的启动开销
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge.warm-runner")
+public class WarmRunnerProperties {
+
+    /**
+     * 是否启用常驻运行器（关闭后每个用例都启动新的进程）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单个常驻运行器最多处理的批次数，达到后退出并在下次评测时重新启动
+     */
+    private int maxJobs = 100;
+
+    /**
+     * 常驻运行器启动后等待其就绪的最长时间（毫秒），超时则本次退回冷启动运行
+     */
+    private long startWait = 5000;
+
+    /**
+     * 常驻JVM的最大堆内存（MB），题目内存限制超过该值时不使用常驻JVM
+     */
+    private int javaHeap = 256;
+
+    /**
+     * 常驻JVM堆外内存（MB）：元空间、代码缓存、线程栈等，与堆一起计入容器内存预留
+     */
+    private int javaOverhead = 96;
+
+    /**
+     * 常驻 zygote 自身的内存（MB），计入容器内存预留
+     */
+    private int pythonMemory = 64;
+}
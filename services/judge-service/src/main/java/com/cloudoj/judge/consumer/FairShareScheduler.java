@@ -0,0 +1,297 @@
+package com.cloudoj.judge.consumer;
+
+import com.cloudoj.judge.config.JudgeFairShareProperties;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import com.cloudoj.judge.sandbox.JudgeSlotManager;
+import com.cloudoj.judge.sandbox.TestDataCache;
+import com.cloudoj.judge.service.JudgeTenantResolver;
+import com.cloudoj.model.dto.judge.JudgeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 评测公平调度
+ * 1. 消费者只负责把任务放入本地积压（不确认消息），积压大小由队列预取数（prefetch）限制，
+ *    节点宕机时未确认的任务由RabbitMQ重新投递
+ * 2. 跨租户先按优先级：只在队首任务优先级最高的租户之间调度（与启用公平调度前优先级队列的语义一致），
+ *    截止临近的作业先于普通作业、练习先于后台批量重判（优先级0）
+ * 3. 同一优先级的租户之间按赤字轮转（DRR）取任务：每轮给租户发放 quantum × 权重 的额度，
+ *    任务按预估评测时间（时间限制 × 测试用例数）扣减额度，单个班级或用户的大量提交不会挤占其他租户
+ * 4. 同一租户内按消息优先级、再按到达顺序执行
+ */
+@Slf4j
+@Component("fairShareScheduler")
+public class FairShareScheduler {
+
+    private static final int FALLBACK_WORKERS = Runtime.getRuntime().availableProcessors();
+
+    @Autowired
+    private JudgeFairShareProperties properties;
+
+    @Autowired
+    private JudgeSlotManager judgeSlotManager;
+
+    @Autowired(required = false)
+    private TestDataCache testDataCache;
+
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    // 有积压任务的租户（轮转顺序），积压清空后移除
+    private final ArrayDeque<Tenant> activeTenants = new ArrayDeque<>();
+    private final Map<String, Tenant> tenants = new HashMap<>();
+
+    private long sequence;
+    private int backlog;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            log.info("评测公平调度未启用");
+            return;
+        }
+        int workerCount = properties.getWorkers() > 0 ? properties.getWorkers()
+                : judgeSlotManager.isEnabled() ? judgeSlotManager.getTotalSlots() : FALLBACK_WORKERS;
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "fair-judge-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::workLoop);
+        }
+        if (judgeMetrics != null) {
+            judgeMetrics.registerFairShareBacklog(this::getBacklog);
+        }
+        log.info("评测公平调度初始化完成: workers={}, groupBy={}, prefetch={}, quantum={}ms",
+                workerCount, properties.getGroupBy(), properties.getPrefetch(), properties.getQuantum());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        if (workers != null) {
+            // 积压中的任务没有确认，连接关闭后由RabbitMQ重新投递
+            workers.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 评测消费者并发数：启用公平调度时一个消费者接收全部队列的任务，否则每个评测槽位一个消费者
+     */
+    public String getConsumerConcurrency() {
+        return properties.isEnabled() ? "1" : judgeSlotManager.getConsumerConcurrency();
+    }
+
+    /**
+     * 当前积压的任务数
+     */
+    public int getBacklog() {
+        lock.lock();
+        try {
+            return backlog;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 放入本地积压，由评测线程按公平顺序执行
+     *
+     * @param handler 评测并确认消息
+     */
+    public void submit(JudgeMessage judgeMessage, MessageProperties messageProperties, Runnable handler) {
+        String tenantId = tenantOf(judgeMessage, messageProperties);
+        Integer priority = messageProperties.getPriority();
+        int cost = costOf(judgeMessage.getProblemId());
+        lock.lock();
+        try {
+            Tenant tenant = tenants.get(tenantId);
+            if (tenant == null) {
+                tenant = new Tenant(tenantId, weightOf(tenantId));
+                tenants.put(tenantId, tenant);
+                activeTenants.addLast(tenant);
+            }
+            tenant.tasks.add(new Task(handler, priority != null ? priority : 0, cost, sequence++));
+            backlog++;
+            updateTenantBacklog(tenant);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        log.debug("评测任务进入积压: submissionId={}, tenant={}, cost={}ms", judgeMessage.getSubmissionId(), tenantId, cost);
+    }
+
+    private void workLoop() {
+        while (running) {
+            Runnable handler;
+            try {
+                handler = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                handler.run();
+            } catch (Exception e) {
+                log.error("评测任务执行异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 取下一个任务：只考虑队首任务优先级最高的租户，在它们之间赤字轮转。
+     * 轮到的租户先获得本轮额度，额度足够时连续取任务，不够时移到队尾，额度保留到下一轮；
+     * 优先级较低的租户直接移到队尾，不发放额度；租户积压清空时额度清零（空闲的租户不能攒额度）
+     *
+     * @return 任务的评测处理（评测并确认消息）
+     */
+    Runnable take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (activeTenants.isEmpty()) {
+                notEmpty.await();
+            }
+            int topPriority = Integer.MIN_VALUE;
+            for (Tenant tenant : activeTenants) {
+                topPriority = Math.max(topPriority, tenant.tasks.peek().priority);
+            }
+            while (true) {
+                Tenant tenant = activeTenants.peekFirst();
+                if (tenant.tasks.peek().priority < topPriority) {
+                    activeTenants.addLast(activeTenants.pollFirst());
+                    continue;
+                }
+                if (!tenant.granted) {
+                    tenant.deficit += (long) Math.max(1, properties.getQuantum()) * tenant.weight;
+                    tenant.granted = true;
+                }
+                Task head = tenant.tasks.peek();
+                if (head.cost <= tenant.deficit) {
+                    tenant.tasks.poll();
+                    tenant.deficit -= head.cost;
+                    backlog--;
+                    if (tenant.tasks.isEmpty()) {
+                        activeTenants.pollFirst();
+                        tenants.remove(tenant.id);
+                    }
+                    updateTenantBacklog(tenant);
+                    return head.handler;
+                }
+                tenant.granted = false;
+                activeTenants.addLast(activeTenants.pollFirst());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 任务所属租户：投递时写入的消息头，旧消息或按用户划分时使用提交用户
+     */
+    private String tenantOf(JudgeMessage judgeMessage, MessageProperties messageProperties) {
+        Object tenant = messageProperties.getHeader(JudgeTenantResolver.TENANT_HEADER);
+        if (tenant == null || JudgeTenantResolver.GROUP_BY_USER.equals(properties.getGroupBy())) {
+            return JudgeTenantResolver.userTenant(judgeMessage.getUserId());
+        }
+        return tenant.toString();
+    }
+
+    /**
+     * 预估评测时间（毫秒）：本节点缓存了题目测试数据时为 时间限制 × 测试用例数
+     */
+    private int costOf(Long problemId) {
+        TestDataCache.ProblemTestData data = testDataCache != null ? testDataCache.peek(problemId) : null;
+        if (data == null || data.getTestCases() == null || data.getTestCases().isEmpty()) {
+            return Math.min(properties.getDefaultCost(), properties.getMaxCost());
+        }
+        long cost = (long) data.getTimeLimit() * data.getTestCases().size();
+        return (int) Math.max(1, Math.min(properties.getMaxCost(), cost));
+    }
+
+    /**
+     * 租户权重：先按租户ID（如 class-12），再按租户类型（ID中第一个 '-' 之前的部分，如 rejudge、user）
+     */
+    private int weightOf(String tenantId) {
+        Integer weight = properties.getWeights().get(tenantId);
+        int dash = tenantId.indexOf('-');
+        if (weight == null && dash > 0) {
+            weight = properties.getWeights().get(tenantId.substring(0, dash));
+        }
+        return Math.max(1, weight != null ? weight : properties.getDefaultWeight());
+    }
+
+    private void updateTenantBacklog(Tenant tenant) {
+        if (judgeMetrics != null) {
+            judgeMetrics.updateTenantBacklog(tenant.id, tenant.tasks.size());
+        }
+    }
+
+    /**
+     * 租户积压
+     */
+    private static class Tenant {
+
+        private static final Comparator<Task> ORDER = Comparator
+                .comparingInt((Task task) -> -task.priority)
+                .thenComparingLong(task -> task.sequence);
+
+        final String id;
+        final int weight;
+        final PriorityQueue<Task> tasks = new PriorityQueue<>(ORDER);
+        // 剩余额度（毫秒）
+        long deficit;
+        // 本轮额度是否已发放
+        boolean granted;
+
+        Tenant(String id, int weight) {
+            this.id = id;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 积压中的评测任务
+     */
+    private static class Task {
+
+        final Runnable handler;
+        final int priority;
+        final int cost;
+        final long sequence;
+
+        Task(Runnable handler, int priority, int cost, long sequence) {
+            this.handler = handler;
+            this.priority = priority;
+            this.cost = cost;
+            this.sequence = sequence;
+        }
+    }
+}
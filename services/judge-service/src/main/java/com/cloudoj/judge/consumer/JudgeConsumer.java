@@ -1,11 +1,15 @@
 package com.cloudoj.judge.consumer;
 
 import com.cloudoj.judge.config.RabbitMQConfig;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import com.cloudoj.judge.service.BulkRejudgeService;
+import com.cloudoj.judge.service.JudgePriorityResolver;
 import com.cloudoj.judge.service.JudgeService;
 import com.cloudoj.model.dto.judge.JudgeMessage;
 import com.rabbitmq.client.Channel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,12 +27,43 @@ public class JudgeConsumer {
     @Autowired
     private JudgeService judgeService;
     
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+    
+    @Autowired
+    private FairShareScheduler fairShareScheduler;
+    
+    @Autowired
+    private BulkRejudgeService bulkRejudgeService;
+    
     /**
      * 消费评测任务
      * 使用手动确认模式，确保消息处理的可靠性
+     * 启用公平调度时只把任务放入本地积压，由评测线程按租户轮转执行后确认（见 {@link FairShareScheduler}）；
+     * 否则消费者直接评测，启用评测槽位时消费者数量等于槽位数（每个消费者独占一个CPU核心）
+     * 只监听本节点服务的评测通道队列（judge.routing.serve-lanes），每个消费者从其中任意队列取任务
      */
-    @RabbitListener(queues = RabbitMQConfig.JUDGE_QUEUE)
+    @RabbitListener(queues = "#{@judgeQueueRouter.consumerQueues}", concurrency = "#{@fairShareScheduler.consumerConcurrency}",
+            containerFactory = RabbitMQConfig.JUDGE_LISTENER_CONTAINER_FACTORY)
     public void handleJudgeTask(JudgeMessage judgeMessage, Message message, Channel channel) throws IOException {
+        if (fairShareScheduler.isEnabled()) {
+            fairShareScheduler.submit(judgeMessage, message.getMessageProperties(), () -> {
+                try {
+                    processJudgeTask(judgeMessage, message, channel);
+                } catch (IOException e) {
+                    // 通道已关闭时消息会被重新投递
+                    log.error("确认评测消息失败: submissionId={}, error={}", judgeMessage.getSubmissionId(), e.getMessage());
+                }
+            });
+            return;
+        }
+        processJudgeTask(judgeMessage, message, channel);
+    }
+    
+    /**
+     * 执行评测任务并确认消息，失败时重新入队或进入死信队列
+     */
+    private void processJudgeTask(JudgeMessage judgeMessage, Message message, Channel channel) throws IOException {
         long deliveryTag = message.getMessageProperties().getDeliveryTag();
         
         try {
@@ -37,12 +72,25 @@ public class JudgeConsumer {
                     judgeMessage.getSubmissionId(), 
                     judgeMessage.getProblemId(), 
                     judgeMessage.getLanguage());
+            recordQueueWait(message.getMessageProperties());
             
-            // 执行评测
-            judgeService.executeJudge(judgeMessage.getSubmissionId());
+            // 批量重判任务已取消时直接确认跳过
+            Long rejudgeJobId = bulkRejudgeService.jobIdOf(message.getMessageProperties());
+            if (rejudgeJobId != null && bulkRejudgeService.isCancelled(rejudgeJobId)) {
+                channel.basicAck(deliveryTag, false);
+                bulkRejudgeService.recordSkipped(rejudgeJobId);
+                log.info("批量重判任务已取消，跳过: submissionId={}, jobId={}", judgeMessage.getSubmissionId(), rejudgeJobId);
+                return;
+            }
+            
+            // 执行评测（批量重判强制重新运行，不复用相同代码的评测结果）
+            judgeService.executeJudge(judgeMessage.getSubmissionId(), rejudgeJobId != null);
             
             // 手动确认消息
             channel.basicAck(deliveryTag, false);
+            if (rejudgeJobId != null) {
+                bulkRejudgeService.recordJudged(rejudgeJobId);
+            }
             log.info("评测任务完成: submissionId={}", judgeMessage.getSubmissionId());
             log.info("========================================");
             
@@ -65,6 +113,19 @@ public class JudgeConsumer {
         }
     }
     
+    /**
+     * 记录任务的排队时间（包括本地积压中的等待，投递时写入的消息头，旧消息没有时跳过）
+     */
+    private void recordQueueWait(MessageProperties properties) {
+        Object enqueueTime = properties.getHeader(JudgePriorityResolver.ENQUEUE_TIME_HEADER);
+        if (judgeMetrics == null || !(enqueueTime instanceof Number)) {
+            return;
+        }
+        Object type = properties.getHeader(JudgePriorityResolver.TYPE_HEADER);
+        judgeMetrics.recordQueueWait(properties.getConsumerQueue(), type != null ? type.toString() : null,
+                System.currentTimeMillis() - ((Number) enqueueTime).longValue());
+    }
+    
     /**
      * 处理死信队列中的消息
      * 记录失败的评测任务
@@ -83,6 +144,10 @@ public class JudgeConsumer {
         try {
             judgeService.markAsSystemError(judgeMessage.getSubmissionId());
             channel.basicAck(deliveryTag, false);
+            Long rejudgeJobId = bulkRejudgeService.jobIdOf(message.getMessageProperties());
+            if (rejudgeJobId != null) {
+                bulkRejudgeService.recordFailed(rejudgeJobId);
+            }
         } catch (Exception e) {
             log.error("更新死信消息状态失败: {}", e.getMessage(), e);
             channel.basicNack(deliveryTag, false, false);
@@ -5,11 +5,14 @@ import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.cloudoj.common.annotation.RequireLogin;
 import com.cloudoj.common.annotation.RequireRole;
 import com.cloudoj.common.context.UserContext;
+import com.cloudoj.judge.service.BulkRejudgeService;
 import com.cloudoj.judge.service.JudgeService;
 import com.cloudoj.model.common.PageResult;
 import com.cloudoj.model.common.Result;
+import com.cloudoj.model.dto.judge.BulkRejudgeRequest;
 import com.cloudoj.model.dto.judge.SubmitCodeRequest;
 import com.cloudoj.model.vo.judge.JudgeResultVO;
+import com.cloudoj.model.vo.judge.RejudgeJobVO;
 import com.cloudoj.model.vo.judge.SubmissionVO;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -33,6 +36,9 @@ public class JudgeController {
     @Autowired
     private com.cloudoj.judge.service.SubmitRateLimiter submitRateLimiter;
     
+    @Autowired
+    private BulkRejudgeService bulkRejudgeService;
+    
     /**
      * 健康检查
      */
@@ -116,14 +122,58 @@ public class JudgeController {
     
     /**
      * 重新评测（需要管理员权限）
+     * 默认强制重新运行；fresh=false 时相同代码已评测过则复用结果
      */
     @RequireRole({"ADMIN", "SUPER_ADMIN", "TEACHER"})
     @PostMapping("/rejudge/{submissionId}")
-    public Result<JudgeResultVO> rejudge(@PathVariable Long submissionId) {
-        JudgeResultVO result = judgeService.executeJudge(submissionId);
+    public Result<JudgeResultVO> rejudge(@PathVariable Long submissionId,
+                                         @RequestParam(defaultValue = "true") boolean fresh) {
+        JudgeResultVO result = judgeService.executeJudge(submissionId, fresh);
         return Result.success(result);
     }
     
+    /**
+     * 创建批量重判任务（需要管理员权限）
+     * 按题目、作业或提交时间范围筛选，后台限速投递，立即返回任务进度
+     */
+    @RequireRole({"ADMIN", "SUPER_ADMIN", "TEACHER"})
+    @PostMapping("/rejudge/bulk")
+    public Result<RejudgeJobVO> createBulkRejudge(@RequestBody BulkRejudgeRequest request) {
+        RejudgeJobVO job = bulkRejudgeService.createJob(request, UserContext.getUserId());
+        return Result.success(job);
+    }
+    
+    /**
+     * 查询最近的批量重判任务
+     */
+    @RequireRole({"ADMIN", "SUPER_ADMIN", "TEACHER"})
+    @GetMapping("/rejudge/bulk")
+    public Result<List<RejudgeJobVO>> listBulkRejudge(@RequestParam(defaultValue = "20") int limit) {
+        return Result.success(bulkRejudgeService.listJobs(limit));
+    }
+    
+    /**
+     * 查询批量重判任务进度（完成数、预计剩余时间）
+     */
+    @RequireRole({"ADMIN", "SUPER_ADMIN", "TEACHER"})
+    @GetMapping("/rejudge/bulk/{jobId}")
+    public Result<RejudgeJobVO> getBulkRejudge(@PathVariable Long jobId) {
+        RejudgeJobVO job = bulkRejudgeService.getJob(jobId);
+        if (job == null) {
+            return Result.error("批量重判任务不存在");
+        }
+        return Result.success(job);
+    }
+    
+    /**
+     * 取消批量重判任务
+     */
+    @RequireRole({"ADMIN", "SUPER_ADMIN", "TEACHER"})
+    @PostMapping("/rejudge/bulk/{jobId}/cancel")
+    public Result<RejudgeJobVO> cancelBulkRejudge(@PathVariable Long jobId) {
+        return Result.success(bulkRejudgeService.cancelJob(jobId));
+    }
+    
     /**
      * 获取剩余提交次数
      */
@@ -2,8 +2,11 @@ package com.cloudoj.judge.feign;
 
 import com.cloudoj.model.common.Result;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.Map;
 
@@ -22,4 +25,24 @@ public interface CourseServiceClient {
      */
     @PostMapping("/course/homework/recordSubmission")
     Result<Void> recordHomeworkSubmission(@RequestBody Map<String, Object> params);
+    
+    /**
+     * 查询作业截止时间（毫秒时间戳）
+     */
+    @GetMapping("/course/homework/deadline/{homeworkId}")
+    Result<Long> getHomeworkDeadline(@PathVariable("homeworkId") Long homeworkId);
+    
+    /**
+     * 查询作业所属的班级ID（面向全课程的作业为null）
+     */
+    @GetMapping("/course/homework/classId/{homeworkId}")
+    Result<Long> getHomeworkClassId(@PathVariable("homeworkId") Long homeworkId);
+    
+    /**
+     * 校验作业提交：题目在作业中且学生属于作业所在班级
+     */
+    @GetMapping("/course/homework/canSubmit")
+    Result<Boolean> canSubmitHomework(@RequestParam("homeworkId") Long homeworkId,
+                                      @RequestParam("studentId") Long studentId,
+                                      @RequestParam("problemId") Long problemId);
 }
@@ -26,6 +26,27 @@ public class CourseServiceFallbackFactory implements FallbackFactory<CourseServi
                 // 作业记录失败不影响主流程，返回成功
                 return Result.success(null);
             }
+            
+            @Override
+            public Result<Long> getHomeworkDeadline(Long homeworkId) {
+                log.warn("查询作业截止时间降级处理: homeworkId={}", homeworkId);
+                // 截止时间未知时按普通作业优先级评测
+                return Result.success(null);
+            }
+            
+            @Override
+            public Result<Long> getHomeworkClassId(Long homeworkId) {
+                log.warn("查询作业班级降级处理: homeworkId={}", homeworkId);
+                // 班级未知时按作业分组调度
+                return Result.success(null);
+            }
+            
+            @Override
+            public Result<Boolean> canSubmitHomework(Long homeworkId, Long studentId, Long problemId) {
+                log.warn("校验作业提交降级处理: homeworkId={}, studentId={}, problemId={}", homeworkId, studentId, problemId);
+                // 无法校验时按练习提交调度，仍保留作业ID记录提交
+                return Result.success(null);
+            }
         };
     }
 }
@@ -33,6 +33,12 @@ public interface ProblemServiceClient {
     @GetMapping("/problem/{problemId}/testcases")
     Result<List<TestCase>> getTestCases(@PathVariable("problemId") Long problemId);
     
+    /**
+     * 按用例ID批量获取输入和输出预览（包含已删除的用例）
+     */
+    @GetMapping("/problem/testcases/previews")
+    Result<List<TestCase>> getTestCasePreviews(@RequestParam("ids") List<Long> ids);
+    
     /**
      * 更新题目统计信息
      */
@@ -36,6 +36,13 @@ public class ProblemServiceFallbackFactory implements FallbackFactory<ProblemSer
                 return Result.success(new ArrayList<>());
             }
             
+            @Override
+            public Result<List<TestCase>> getTestCasePreviews(List<Long> ids) {
+                log.warn("获取测试用例预览降级处理: count={}", ids.size());
+                // 评测结果中的输入和预期输出保持为空
+                return Result.success(new ArrayList<>());
+            }
+            
             @Override
             public Result<Void> updateProblemStats(Long problemId, Boolean isAccepted) {
                 log.warn("更新题目统计降级处理: problemId={}, isAccepted={}", problemId, isAccepted);
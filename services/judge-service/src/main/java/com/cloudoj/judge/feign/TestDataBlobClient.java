@@ -0,0 +1,75 @@
+package com.cloudoj.judge.feign;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 测试数据下载客户端
+ * 按内容摘要从problem-service的测试数据存储下载数据块（gzip），边下载边解压写入文件并校验摘要，不在内存中保存完整内容。
+ * 响应体是二进制流，Feign 会把整个响应读入内存，因此直接使用负载均衡的 RestTemplate 流式读取
+ */
+@Slf4j
+@Component
+public class TestDataBlobClient {
+
+    private static final String BLOB_URL = "http://problem-service/problem/testdata/blob/{hash}";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    @Qualifier("loadBalancedRestTemplate")
+    private RestTemplate restTemplate;
+
+    /**
+     * 下载数据块并解压到目标文件（已存在时覆盖）
+     *
+     * @param hash 内容的SHA-256
+     * @return 解压后的大小（字节）
+     * @throws IOException 下载失败或内容与摘要不一致
+     */
+    public long download(String hash, Path target) throws IOException {
+        try {
+            Long size = restTemplate.execute(BLOB_URL, HttpMethod.GET, null, response -> {
+                MessageDigest digest = sha256();
+                long copied;
+                try (InputStream in = new DigestInputStream(
+                        new GZIPInputStream(response.getBody(), BUFFER_SIZE), digest)) {
+                    copied = Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String actual = HexFormat.of().formatHex(digest.digest());
+                if (!actual.equals(hash)) {
+                    Files.deleteIfExists(target);
+                    throw new IOException("测试数据校验失败: expected=" + hash + ", actual=" + actual);
+                }
+                return copied;
+            }, hash);
+            log.debug("下载测试数据: hash={}, size={}", hash, size);
+            return size != null ? size : 0;
+        } catch (RestClientException e) {
+            throw new IOException("下载测试数据失败: hash=" + hash + ", error=" + e.getMessage(), e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.cloudoj.judge.mapper;
 
+import com.cloudoj.model.dto.judge.BulkRejudgeRequest;
 import com.cloudoj.model.entity.judge.Submission;
 import org.apache.ibatis.annotations.Param;
 
@@ -63,4 +64,22 @@ public interface SubmissionMapper {
      * 统计总提交数
      */
     Long countTotal();
+    
+    /**
+     * 查询最大提交ID
+     */
+    Long selectMaxId();
+    
+    /**
+     * 统计批量重判的提交数
+     */
+    Long countForRejudge(@Param("request") BulkRejudgeRequest request, @Param("maxId") Long maxId);
+    
+    /**
+     * 按ID游标分页查询批量重判的提交（ID大于 afterId，按ID升序）
+     */
+    List<Submission> selectForRejudge(@Param("request") BulkRejudgeRequest request,
+                                      @Param("maxId") Long maxId,
+                                      @Param("afterId") Long afterId,
+                                      @Param("limit") int limit);
 }
@@ -2,6 +2,7 @@ package com.cloudoj.judge.monitor;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
 
 /**
  * 评测服务监控指标
@@ -32,6 +34,12 @@ public class JudgeMetrics {
     private Counter timeoutCounter;
     private Counter wrongAnswerCounter;
     private Counter acceptedCounter;
+    private Counter compileCacheHitCounter;
+    private Counter compileCacheMissCounter;
+    private Counter testDataCacheHitCounter;
+    private Counter testDataCacheMissCounter;
+    private Counter verdictCacheHitCounter;
+    private Counter verdictCacheMissCounter;
     
     // 计时器
     private Timer judgeTimer;
@@ -47,6 +55,12 @@ public class JudgeMetrics {
     // 容器池状态
     private final ConcurrentHashMap<String, AtomicInteger> containerPoolStatus = new ConcurrentHashMap<>();
     
+    // 排队时间：队列 + 提交类型 -> 计时器
+    private final ConcurrentHashMap<String, Timer> queueWaitTimers = new ConcurrentHashMap<>();
+    
+    // 公平调度：租户 -> 积压任务数（积压清空后移除，避免租户标签无限增长）
+    private final ConcurrentHashMap<String, TenantBacklog> tenantBacklogs = new ConcurrentHashMap<>();
+    
     public JudgeMetrics(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
     }
@@ -92,6 +106,39 @@ public class JudgeMetrics {
                 .description("Number of timeout submissions")
                 .register(meterRegistry);
         
+        // 编译缓存计数器
+        compileCacheHitCounter = Counter.builder("judge.compile.cache")
+                .tag("result", "hit")
+                .description("Number of compile cache hits")
+                .register(meterRegistry);
+        
+        compileCacheMissCounter = Counter.builder("judge.compile.cache")
+                .tag("result", "miss")
+                .description("Number of compile cache misses")
+                .register(meterRegistry);
+        
+        // 测试数据缓存计数器
+        testDataCacheHitCounter = Counter.builder("judge.testdata.cache")
+                .tag("result", "hit")
+                .description("Number of test data cache hits")
+                .register(meterRegistry);
+        
+        testDataCacheMissCounter = Counter.builder("judge.testdata.cache")
+                .tag("result", "miss")
+                .description("Number of test data cache misses")
+                .register(meterRegistry);
+        
+        // 评测结果复用计数器
+        verdictCacheHitCounter = Counter.builder("judge.verdict.cache")
+                .tag("result", "hit")
+                .description("Number of submissions answered from a previous identical judge")
+                .register(meterRegistry);
+        
+        verdictCacheMissCounter = Counter.builder("judge.verdict.cache")
+                .tag("result", "miss")
+                .description("Number of verdict cache misses")
+                .register(meterRegistry);
+        
         // 计时器
         judgeTimer = Timer.builder("judge.execution.time")
                 .description("Time taken to judge a submission")
@@ -175,6 +222,30 @@ public class JudgeMetrics {
         executeTimer.record(timeMs, TimeUnit.MILLISECONDS);
     }
     
+    public void recordCompileCacheLookup(boolean hit) {
+        if (hit) {
+            compileCacheHitCounter.increment();
+        } else {
+            compileCacheMissCounter.increment();
+        }
+    }
+    
+    public void recordTestDataCacheLookup(boolean hit) {
+        if (hit) {
+            testDataCacheHitCounter.increment();
+        } else {
+            testDataCacheMissCounter.increment();
+        }
+    }
+    
+    public void recordVerdictCacheLookup(boolean hit) {
+        if (hit) {
+            verdictCacheHitCounter.increment();
+        } else {
+            verdictCacheMissCounter.increment();
+        }
+    }
+    
     // ==================== 任务状态 ====================
     
     public void taskStarted() {
@@ -206,6 +277,70 @@ public class JudgeMetrics {
         }).set(count);
     }
     
+    // ==================== 排队时间 ====================
+    
+    /**
+     * 记录评测任务从投递到开始评测的等待时间（按评测通道队列和提交类型统计，发布 p50/p95/p99）
+     */
+    public void recordQueueWait(String queue, String type, long waitMs) {
+        String queueTag = queue != null ? queue : "unknown";
+        String typeTag = type != null ? type : "unknown";
+        queueWaitTimers.computeIfAbsent(queueTag + "|" + typeTag, k -> Timer.builder("judge.queue.wait")
+                .tag("queue", queueTag)
+                .tag("type", typeTag)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .description("Time a judge task waited in the queue")
+                .register(meterRegistry))
+                .record(Math.max(0, waitMs), TimeUnit.MILLISECONDS);
+    }
+    
+    // ==================== 公平调度 ====================
+    
+    public void registerFairShareBacklog(IntSupplier total) {
+        Gauge.builder("judge.fairshare.backlog.total", total, IntSupplier::getAsInt)
+                .description("Judge tasks waiting in the local fair-share backlog")
+                .register(meterRegistry);
+    }
+    
+    public void updateTenantBacklog(String tenant, int count) {
+        if (count == 0) {
+            TenantBacklog removed = tenantBacklogs.remove(tenant);
+            if (removed != null) {
+                meterRegistry.remove(removed.meter);
+            }
+            return;
+        }
+        tenantBacklogs.computeIfAbsent(tenant, k -> {
+            AtomicInteger gauge = new AtomicInteger(count);
+            Meter meter = Gauge.builder("judge.fairshare.backlog", gauge, AtomicInteger::get)
+                    .tag("tenant", tenant)
+                    .description("Judge tasks waiting in the fair-share backlog per tenant")
+                    .register(meterRegistry);
+            return new TenantBacklog(gauge, meter);
+        }).gauge.set(count);
+    }
+    
+    private static class TenantBacklog {
+        final AtomicInteger gauge;
+        final Meter meter;
+        
+        TenantBacklog(AtomicInteger gauge, Meter meter) {
+            this.gauge = gauge;
+            this.meter = meter;
+        }
+    }
+    
+    // ==================== 评测槽位 ====================
+    
+    public void registerJudgeSlots(int total, IntSupplier free) {
+        Gauge.builder("judge.slots.total", () -> total)
+                .description("Total judge slots (pinned CPU cores)")
+                .register(meterRegistry);
+        Gauge.builder("judge.slots.free", free, IntSupplier::getAsInt)
+                .description("Free judge slots")
+                .register(meterRegistry);
+    }
+    
     // ==================== 统计报告 ====================
     
     public String getStatsReport() {
@@ -0,0 +1,662 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.checker.CheckResult;
+import com.cloudoj.judge.checker.OutputChecker;
+import com.cloudoj.judge.checker.OutputCheckerFactory;
+import com.cloudoj.model.dto.judge.JudgeTestCase;
+import com.cloudoj.model.enums.JudgeStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 语言沙箱基础类
+ * 封装各语言通用的评测流程：借出容器、写入代码、编译、执行测试用例、汇总结果
+ * 子类只需提供镜像、源文件名以及编译/运行命令，命令由 {@link SandboxBackend} 在Docker容器或本地进程沙箱中执行；
+ * 池化容器只在Docker后端下借出，其中的命令直接由 {@link DockerSandbox#executeInContainer} 执行
+ *
+ * 测试用例使用独立的输入输出文件（input_N.txt / output_N.txt），
+ * 题目开启并行评测时，同一提交的多个用例可以在多个池化容器中同时执行；
+ * 顺序评测时，支持批量运行的语言只发起一次exec，由评测运行器在容器内依次运行全部用例
+ */
+@Slf4j
+public abstract class AbstractLanguageSandbox implements LanguageSandbox {
+
+    @Autowired
+    protected DockerSandbox dockerSandbox;
+
+    // 执行后端，由 SandboxFactory 按配置选择，未设置时使用Docker
+    private volatile SandboxBackend backend;
+
+    @Autowired
+    protected ContainerPool containerPool;
+
+    @Autowired
+    protected ParallelJudgeExecutor parallelJudgeExecutor;
+
+    @Autowired
+    protected CompileCache compileCache;
+
+    @Autowired
+    protected JudgeSlotManager judgeSlotManager;
+
+    /**
+     * 是否启用批量运行（关闭后每个测试用例单独exec）
+     */
+    @Value("${judge.batch-run.enabled:true}")
+    private boolean batchRunEnabled;
+
+    /**
+     * 默认输出限制（MB），题目未设置输出限制时使用
+     */
+    @Value("${judge.output-limit:16}")
+    private int defaultOutputLimit;
+
+    // 测试用例结果中保留的实际输出和错误信息长度
+    private static final int OUTPUT_PREVIEW_LENGTH = 1000;
+
+    /**
+     * 被信号终止（退出码大于128）的运行错误信息前缀，如 "运行错误(信号9): "
+     * 这类错误可能由容器内存压力等外部原因引起，评测结果复用据此判断结果是否确定
+     */
+    public static final String SIGNAL_ERROR_PREFIX = "运行错误(信号";
+
+    /**
+     * Docker镜像
+     */
+    protected abstract String getDockerImage();
+
+    /**
+     * 语言名称（用于日志）
+     */
+    protected abstract String getLanguageName();
+
+    /**
+     * 源代码文件名
+     */
+    protected abstract String getSourceFile();
+
+    /**
+     * 编译命令，无需编译的语言返回null
+     */
+    protected abstract String getCompileCommand();
+
+    /**
+     * 运行命令（不含超时控制和输入输出重定向）
+     *
+     * @param memoryLimit 内存限制（MB）
+     */
+    protected abstract String getRunCommand(int memoryLimit);
+
+    /**
+     * 当前使用的执行后端
+     */
+    protected SandboxBackend getBackend() {
+        SandboxBackend current = backend;
+        return current != null ? current : dockerSandbox;
+    }
+
+    void setBackend(SandboxBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * 是否支持批量运行：运行命令每次启动都是全新进程、不依赖用例间状态的语言可以开启
+     */
+    protected boolean supportsBatchRun() {
+        return false;
+    }
+
+    /**
+     * 构造批量运行命令，返回null时逐个用例执行
+     * 子类可以改写为交给容器内的常驻运行器执行（见 {@link WarmRunnerManager}）
+     *
+     * @param container 借出的容器，未使用容器池时为null
+     */
+    protected String[] getBatchCommand(ContainerPool.PooledContainer container, JudgeOptions options,
+                                       int count, long outputLimitBytes) {
+        return getBackend().batchCommand(getRunCommand(options.getMemoryLimit()), count,
+                options.getTimeLimit(), outputLimitBytes);
+    }
+
+    /**
+     * 容器内常驻运行器占用的内存（MB），启用评测槽位时在题目内存限制之外额外预留
+     *
+     * @param container 借出的容器
+     * @param memoryLimit 题目内存限制（MB）
+     */
+    protected int getResidentMemory(ContainerPool.PooledContainer container, int memoryLimit) {
+        return 0;
+    }
+
+    /**
+     * 批量运行的exec结束后回调（单个用例的结果在结果清单中）
+     */
+    protected void onBatchFinished(ContainerPool.PooledContainer container,
+                                   DockerSandbox.DockerExecuteResult batchResult) {
+    }
+
+    @Override
+    public JudgeResult judge(String code, List<JudgeTestCase> testCases, int timeLimit, int memoryLimit) {
+        return judge(code, testCases, JudgeOptions.builder()
+                .timeLimit(timeLimit)
+                .memoryLimit(memoryLimit)
+                .build());
+    }
+
+    @Override
+    public JudgeResult judge(String code, List<JudgeTestCase> testCases, JudgeOptions options) {
+        String workDir = null;
+        String subDir = null;
+        ContainerPool.PooledContainer pooledContainer = null;
+        JudgeSlotManager.Slot slot = null;
+        int timeLimit = options.getTimeLimit();
+        int memoryLimit = options.getMemoryLimit();
+
+        try {
+            // 创建工作目录（在共享目录下创建子目录）
+            workDir = getBackend().createWorkDir();
+            subDir = getBackend().getSubDirName(workDir);
+            log.info("{}评测开始, workDir={}, subDir={}, timeLimit={}ms, memoryLimit={}MB, parallel={}",
+                    getLanguageName(), workDir, subDir, timeLimit, memoryLimit, options.isParallel());
+
+            // 从容器池借出容器（挂载共享目录），借不到时退化为一次性容器；本地后端不使用容器
+            if (getBackend().supportsContainerPool()) {
+                pooledContainer = containerPool.acquire(getDockerImage());
+            }
+
+            // 占用评测槽位（独占一个CPU核心），池化容器在编译和运行前绑定到该核心
+            slot = judgeSlotManager.acquire();
+
+            // 写入代码文件
+            Files.writeString(Paths.get(workDir, getSourceFile()), code);
+
+            // 编译代码
+            if (getCompileCommand() != null) {
+                DockerSandbox.DockerExecuteResult compileResult = compileWithCache(code, pooledContainer, workDir, subDir, timeLimit, memoryLimit);
+                if (!compileResult.isSuccess()) {
+                    log.warn("编译失败: {}", compileResult.getError());
+                    return JudgeResult.builder()
+                            .success(false)
+                            .status(JudgeStatusEnum.COMPILE_ERROR.getCode())
+                            .score(0)
+                            .timeUsed(compileResult.getExecuteTime())
+                            .memoryUsed(0)
+                            .errorMessage("编译错误: " + compileResult.getError())
+                            .passedTestCases(0)
+                            .totalTestCases(testCases.size())
+                            .build();
+                }
+                log.debug("编译成功，开始执行测试用例");
+            }
+
+            // 执行测试用例
+            boolean parallel = options.isParallel() && parallelJudgeExecutor.isEnabled() && testCases.size() > 1;
+            DockerSandbox.DockerExecuteResult[] runResults = new DockerSandbox.DockerExecuteResult[testCases.size()];
+            TestCaseResult[] caseResults = new TestCaseResult[testCases.size()];
+            runTestCases(testCases, runResults, caseResults, pooledContainer, workDir, subDir, options, parallel);
+
+            // 按用例顺序汇总结果（遇到运行失败即停止，与顺序执行一致）
+            List<TestCaseResult> testCaseResults = new ArrayList<>();
+            int passedCount = 0;
+            long maxTime = 0;  // 记录最大运行时间（不包括编译时间）
+            long maxMemory = 0;
+            String firstError = null;
+
+            for (int i = 0; i < testCases.size() && runResults[i] != null; i++) {
+                DockerSandbox.DockerExecuteResult runResult = runResults[i];
+
+                maxTime = Math.max(maxTime, runResult.getExecuteTime());  // 取最大运行时间
+                maxMemory = Math.max(maxMemory, runResult.getMemoryUsed() / 1024); // 转换为KB
+
+                // 检查运行结果（用例执行完成时已比对）
+                TestCaseResult testCaseResult = caseResults[i];
+                testCaseResults.add(testCaseResult);
+
+                if (testCaseResult.isPassed()) {
+                    passedCount++;
+                } else if (firstError == null) {
+                    firstError = testCaseResult.getErrorMessage();
+                }
+
+                // 如果运行失败，提前结束
+                if (isFatal(runResult)) {
+                    log.warn("测试用例运行失败，提前结束评测");
+                    break;
+                }
+            }
+
+            // 计算得分和状态
+            int score = (int) (100.0 * passedCount / testCases.size());
+            String status = determineStatus(passedCount, testCases.size(), firstError);
+
+            log.info("{}评测完成: status={}, score={}, passed={}/{}",
+                    getLanguageName(), status, score, passedCount, testCases.size());
+
+            return JudgeResult.builder()
+                    .success(passedCount == testCases.size())
+                    .status(status)
+                    .score(score)
+                    .timeUsed(maxTime)
+                    .memoryUsed(maxMemory)
+                    .errorMessage(passedCount == testCases.size() ? null : firstError)
+                    .passedTestCases(passedCount)
+                    .totalTestCases(testCases.size())
+                    .testCaseResults(testCaseResults)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("{}评测异常", getLanguageName(), e);
+            return JudgeResult.builder()
+                    .success(false)
+                    .status(JudgeStatusEnum.SYSTEM_ERROR.getCode())
+                    .score(0)
+                    .timeUsed(0)
+                    .memoryUsed(0)
+                    .errorMessage("系统错误: " + e.getMessage())
+                    .passedTestCases(0)
+                    .totalTestCases(testCases.size())
+                    .build();
+        } finally {
+            // 归还评测槽位和容器池容器
+            judgeSlotManager.release(slot);
+            containerPool.release(pooledContainer);
+            // 清理工作目录
+            if (workDir != null) {
+                getBackend().cleanupWorkDir(workDir);
+            }
+        }
+    }
+
+    /**
+     * 编译代码，相同语言、编译命令、镜像和源代码的编译结果直接从编译缓存取得
+     */
+    private DockerSandbox.DockerExecuteResult compileWithCache(String code, ContainerPool.PooledContainer container,
+                                                               String workDir, String subDir,
+                                                               int timeLimit, int memoryLimit) {
+        String cacheKey = compileCache.buildKey(getLanguageName(), getCompileCommand(),
+                getBackend().getToolchainId(getDockerImage(), getCompileCommand()), code);
+        CompileCache.CachedCompile cached = compileCache.get(cacheKey, workDir);
+        if (cached != null) {
+            log.debug("命中编译缓存: key={}, success={}", cacheKey, cached.isSuccess());
+            return DockerSandbox.DockerExecuteResult.builder()
+                    .success(cached.isSuccess())
+                    .exitCode(cached.isSuccess() ? 0 : 1)
+                    .output("")
+                    .error(cached.getError())
+                    .executeTime(0)
+                    .build();
+        }
+
+        DockerSandbox.DockerExecuteResult compileResult = compile(container, workDir, subDir, timeLimit, memoryLimit);
+        compileCache.put(cacheKey, workDir, getSourceFile(), compileResult);
+        return compileResult;
+    }
+
+    /**
+     * 编译代码（优先使用容器池，docker exec 模式）
+     */
+    private DockerSandbox.DockerExecuteResult compile(ContainerPool.PooledContainer container, String workDir,
+                                                      String subDir, int timeLimit, int memoryLimit) {
+        String[] command = new String[]{"sh", "-c", getCompileCommand()};
+        if (container != null) {
+            judgeSlotManager.applyCompileLimits(container, getResidentMemory(container, memoryLimit));
+            return dockerSandbox.executeInContainer(container.getContainerId(), command, subDir, timeLimit / 1000);
+        }
+        return getBackend().execute(getDockerImage(), command, workDir, timeLimit / 1000, memoryLimit);
+    }
+
+    /**
+     * 执行全部测试用例
+     * 并行模式下，消费者线程与若干辅助线程（各自占用一个全局名额和一个池化容器）从同一个下标计数器领取用例
+     *
+     * 执行结果和比对结果按用例下标写入 runResults / caseResults，第一个致命失败之后的用例不执行（对应位置为null）
+     */
+    private void runTestCases(List<JudgeTestCase> testCases, DockerSandbox.DockerExecuteResult[] runResults,
+                              TestCaseResult[] caseResults, ContainerPool.PooledContainer pooledContainer,
+                              String workDir, String subDir, JudgeOptions options, boolean parallel) throws Exception {
+        int total = testCases.size();
+        AtomicInteger nextIndex = new AtomicInteger(0);
+        AtomicInteger stopIndex = new AtomicInteger(total);
+        judgeSlotManager.applyRunLimits(pooledContainer, options.getMemoryLimit(),
+                getResidentMemory(pooledContainer, options.getMemoryLimit()));
+
+        // 顺序评测优先批量运行，运行器不可用或批量运行中断时，剩余用例逐个执行
+        if (!parallel && batchRunEnabled && supportsBatchRun()) {
+            int resumeIndex = runBatch(testCases, runResults, caseResults, pooledContainer, workDir, subDir, options);
+            if (resumeIndex > 0 && isFatal(runResults[resumeIndex - 1])) {
+                return;
+            }
+            nextIndex.set(resumeIndex);
+        }
+
+        List<Future<Void>> helpers = new ArrayList<>();
+        if (parallel) {
+            int fanOut = Math.min(parallelJudgeExecutor.getMaxFanOut(), total);
+            for (int i = 1; i < fanOut; i++) {
+                Future<Void> helper = parallelJudgeExecutor.trySubmit(() -> {
+                    // 辅助线程占用独立的评测槽位，没有空闲核心时不参与，避免和其他任务抢同一个核心
+                    JudgeSlotManager.Slot helperSlot = null;
+                    if (judgeSlotManager.isEnabled()) {
+                        helperSlot = judgeSlotManager.tryAcquire();
+                        if (helperSlot == null) {
+                            return null;
+                        }
+                    }
+                    // 池化模式下辅助线程使用独立容器，避免多个用例挤在同一个容器的CPU上
+                    ContainerPool.PooledContainer helperContainer = null;
+                    try {
+                        if (pooledContainer != null) {
+                            helperContainer = containerPool.tryAcquire(getDockerImage());
+                            if (helperContainer == null) {
+                                return null;
+                            }
+                            judgeSlotManager.applyRunLimits(helperContainer, options.getMemoryLimit(),
+                                    getResidentMemory(helperContainer, options.getMemoryLimit()));
+                        }
+                        drainTestCases(testCases, runResults, caseResults, nextIndex, stopIndex,
+                                helperContainer, workDir, subDir, options);
+                    } finally {
+                        containerPool.release(helperContainer);
+                        judgeSlotManager.release(helperSlot);
+                    }
+                    return null;
+                });
+                if (helper == null) {
+                    break;
+                }
+                helpers.add(helper);
+            }
+            log.debug("并行执行测试用例: total={}, workers={}", total, helpers.size() + 1);
+        }
+
+        // 消费者线程自身也参与执行，保证没有全局名额时依然能完成评测
+        drainTestCases(testCases, runResults, caseResults, nextIndex, stopIndex,
+                pooledContainer, workDir, subDir, options);
+
+        for (Future<Void> helper : helpers) {
+            try {
+                helper.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    /**
+     * 批量运行全部测试用例（一次exec，读取一次结果清单）
+     *
+     * @return 第一个没有结果的用例下标（全部完成时等于用例数）
+     */
+    private int runBatch(List<JudgeTestCase> testCases, DockerSandbox.DockerExecuteResult[] runResults,
+                         TestCaseResult[] caseResults, ContainerPool.PooledContainer container,
+                         String workDir, String subDir, JudgeOptions options) throws IOException {
+        int total = testCases.size();
+        int timeLimit = options.getTimeLimit();
+        long outputLimitBytes = getOutputLimitBytes(options);
+        String[] command = getBatchCommand(container, options, total, outputLimitBytes);
+        if (command == null) {
+            return 0;
+        }
+
+        for (int i = 0; i < total; i++) {
+            writeInput(workDir, "input_" + i + ".txt", testCases.get(i));
+        }
+
+        // 整体超时按每个用例的超时累加
+        int timeoutSeconds = total * (timeLimit / 1000 + 1) + 1;
+        DockerSandbox.DockerExecuteResult batchResult = container != null
+                ? dockerSandbox.executeInContainer(container.getContainerId(), command, subDir, timeoutSeconds)
+                : getBackend().execute(getDockerImage(), command, workDir, timeoutSeconds, options.getMemoryLimit());
+        if (container != null && batchResult.getExitCode() == -1) {
+            container.markBroken();
+        }
+        onBatchFinished(container, batchResult);
+
+        // 结果清单是运行器的标准输出，不经过提交程序可写的工作目录
+        DockerSandbox.RunnerReport[] reports = DockerSandbox.RunnerReport.parseManifest(batchResult.getOutput(), total);
+
+        int index = 0;
+        while (index < total && reports[index] != null) {
+            DockerSandbox.RunnerReport report = reports[index];
+            DockerSandbox.DockerExecuteResult runResult = DockerSandbox.DockerExecuteResult.builder()
+                    .success(report.getExitCode() == 0)
+                    .exitCode(report.getExitCode())
+                    .error("")
+                    .executeTime(report.getCpuTime())
+                    .wallTime(report.getWallTime())
+                    .memoryUsed(report.getPeakMemoryKb() * 1024)
+                    .metered(true)
+                    .build();
+            Path outputPath = Paths.get(workDir, "output_" + index + ".txt");
+            readOutput(runResult, outputPath, outputLimitBytes);
+            runResults[index] = runResult;
+            caseResults[index] = processTestCase(testCases.get(index), runResult, outputPath, options);
+            index++;
+        }
+
+        if (index < total && (index == 0 || !isFatal(runResults[index - 1]))) {
+            log.warn("批量运行未完成全部用例: completed={}/{}, exitCode={}, error={}",
+                    index, total, batchResult.getExitCode(), batchResult.getError());
+        }
+        return index;
+    }
+
+    /**
+     * 循环领取并执行测试用例，直到全部领取完或已出现致命失败
+     */
+    private void drainTestCases(List<JudgeTestCase> testCases, DockerSandbox.DockerExecuteResult[] runResults,
+                                TestCaseResult[] caseResults, AtomicInteger nextIndex, AtomicInteger stopIndex,
+                                ContainerPool.PooledContainer container,
+                                String workDir, String subDir, JudgeOptions options) throws IOException {
+        int index;
+        while ((index = nextIndex.getAndIncrement()) < testCases.size() && index <= stopIndex.get()) {
+            DockerSandbox.DockerExecuteResult runResult = runTestCase(
+                    index, testCases.get(index), container, workDir, subDir, options);
+            runResults[index] = runResult;
+            caseResults[index] = processTestCase(
+                    testCases.get(index), runResult, Paths.get(workDir, "output_" + index + ".txt"), options);
+
+            // exec超时或失败时容器内可能残留进程，归还后销毁
+            if (container != null && runResult.getExitCode() == -1) {
+                container.markBroken();
+            }
+            if (isFatal(runResult)) {
+                stopIndex.accumulateAndGet(index, Math::min);
+            }
+        }
+    }
+
+    /**
+     * 执行单个测试用例（使用独立的输入输出文件）
+     */
+    private DockerSandbox.DockerExecuteResult runTestCase(int index, JudgeTestCase testCase,
+                                                          ContainerPool.PooledContainer container,
+                                                          String workDir, String subDir,
+                                                          JudgeOptions options) throws IOException {
+        String inputFile = "input_" + index + ".txt";
+        String outputFile = "output_" + index + ".txt";
+        writeInput(workDir, inputFile, testCase);
+
+        int timeLimit = options.getTimeLimit();
+        long outputLimitBytes = getOutputLimitBytes(options);
+        String[] command = getBackend().meteredCommand(
+                "timeout " + (timeLimit / 1000) + "s " + getRunCommand(options.getMemoryLimit())
+                        + " < " + inputFile + " > " + outputFile + " 2>&1", outputLimitBytes);
+
+        DockerSandbox.DockerExecuteResult runResult = container != null
+                ? dockerSandbox.executeInContainer(container.getContainerId(), command, subDir, timeLimit / 1000 + 1)
+                : getBackend().execute(getDockerImage(), command, workDir, timeLimit / 1000 + 1, options.getMemoryLimit());
+
+        // 程序输出（含stderr）写在输出文件中
+        readOutput(runResult, Paths.get(workDir, outputFile), outputLimitBytes);
+        return runResult;
+    }
+
+    /**
+     * 准备测试用例的输入文件：输入已在测试数据缓存中时创建指向缓存文件的符号链接，否则写入工作目录
+     */
+    private void writeInput(String workDir, String inputFile, JudgeTestCase testCase) throws IOException {
+        Path inputPath = Paths.get(workDir, inputFile);
+        String cachedPath = testCase.getInputFile() != null ? getBackend().testDataPath(testCase.getInputFile()) : null;
+        if (cachedPath != null) {
+            // 批量运行中断后逐个执行剩余用例时，输入文件已经存在
+            Files.deleteIfExists(inputPath);
+            Files.createSymbolicLink(inputPath, Paths.get(cachedPath));
+            return;
+        }
+        if (testCase.getInput() == null && testCase.getInputFile() != null) {
+            // 未内联的输入只在缓存文件中
+            Files.copy(Paths.get(testCase.getInputFile()), inputPath, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        Files.writeString(inputPath, testCase.getInput() != null ? testCase.getInput() : "");
+    }
+
+    /**
+     * 读取输出文件开头的一小段作为预览（完整输出由比对器从文件流式读取），
+     * 超出限制或运行器因输出超限终止进程时标记输出超限
+     */
+    private void readOutput(DockerSandbox.DockerExecuteResult runResult, Path outputPath, long outputLimitBytes)
+            throws IOException {
+        String output = "";
+        if (Files.exists(outputPath)) {
+            if (Files.size(outputPath) > outputLimitBytes) {
+                runResult.setOutputLimitExceeded(true);
+            }
+            try (InputStream in = Files.newInputStream(outputPath)) {
+                // UTF-8单个字符最多4字节
+                output = new String(in.readNBytes(OUTPUT_PREVIEW_LENGTH * 4), StandardCharsets.UTF_8);
+            }
+        }
+        if (runResult.getExitCode() == DockerSandbox.OUTPUT_LIMIT_EXIT_CODE) {
+            runResult.setOutputLimitExceeded(true);
+        }
+        runResult.setOutput(output);
+        if (runResult.getExitCode() != 0 && (runResult.getError() == null || runResult.getError().isEmpty())) {
+            runResult.setError(output);
+        }
+    }
+
+    /**
+     * 单个测试用例的输出限制（字节）
+     */
+    private long getOutputLimitBytes(JudgeOptions options) {
+        int outputLimit = options.getOutputLimit() > 0 ? options.getOutputLimit() : defaultOutputLimit;
+        return outputLimit * 1024L * 1024L;
+    }
+
+    /**
+     * 运行失败（非零退出）时不再执行后续用例
+     */
+    private boolean isFatal(DockerSandbox.DockerExecuteResult runResult) {
+        return !runResult.isSuccess() && runResult.getExitCode() != 0;
+    }
+
+    /**
+     * 处理测试用例结果
+     * 使用题目配置的比对器从输出文件流式比对，用例结果中只保留截断后的输出前缀
+     */
+    private TestCaseResult processTestCase(JudgeTestCase testCase, DockerSandbox.DockerExecuteResult runResult,
+                                           Path outputPath, JudgeOptions options) throws IOException {
+        String actualOutput = runResult.getOutput().trim();
+        String expectedOutput = testCase.getOutput() != null ? testCase.getOutput().trim()
+                : TestDataCache.readPreview(testCase.getOutputFile(), OUTPUT_PREVIEW_LENGTH);
+
+        // 运行器测得的CPU时间或峰值内存超出题目限制时，即使输出正确也不通过
+        boolean timeExceeded = runResult.getExitCode() == 124
+                || (runResult.isMetered() && runResult.getExecuteTime() > options.getTimeLimit());
+        boolean memoryExceeded = runResult.isMetered()
+                && runResult.getMemoryUsed() > options.getMemoryLimit() * 1024L * 1024L;
+        boolean outputExceeded = runResult.isOutputLimitExceeded();
+        CheckResult checkResult = null;
+        if (!timeExceeded && !memoryExceeded && !outputExceeded && runResult.getExitCode() == 0) {
+            checkResult = checkOutput(outputPath, testCase, options);
+        }
+        boolean passed = checkResult != null && checkResult.isAccepted();
+
+        String errorMessage = null;
+        if (!passed) {
+            if (timeExceeded) {
+                errorMessage = "运行超时";
+            } else if (memoryExceeded) {
+                errorMessage = "内存超限";
+            } else if (outputExceeded) {
+                errorMessage = "输出超限";
+            } else if (runResult.getExitCode() > 128) {
+                errorMessage = SIGNAL_ERROR_PREFIX + (runResult.getExitCode() - 128) + "): " + preview(runResult.getError());
+            } else if (runResult.getExitCode() != 0) {
+                errorMessage = "运行错误: " + preview(runResult.getError());
+            } else {
+                errorMessage = "答案错误: " + checkResult.getMessage();
+            }
+        }
+
+        runResult.setOutput(null);
+        runResult.setError(null);
+
+        return TestCaseResult.builder()
+                .testCaseId(testCase.getId())
+                .passed(passed)
+                .actualOutput(preview(actualOutput))
+                .expectedOutput(expectedOutput)
+                .timeUsed(runResult.getExecuteTime())
+                .memoryUsed(runResult.getMemoryUsed() / 1024) // 转换为KB
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    /**
+     * 比对输出文件与预期输出（未内联的预期输出从测试数据缓存文件流式读取）
+     */
+    private CheckResult checkOutput(Path outputPath, JudgeTestCase testCase, JudgeOptions options) throws IOException {
+        OutputChecker checker = OutputCheckerFactory.getChecker(options.getCheckerMode(), options.getCheckerEpsilon());
+        try (Reader actual = Files.exists(outputPath)
+                ? new InputStreamReader(Files.newInputStream(outputPath), StandardCharsets.UTF_8)
+                : new StringReader("");
+             Reader expected = testCase.getOutput() != null
+                     ? new StringReader(testCase.getOutput())
+                     : new InputStreamReader(Files.newInputStream(Paths.get(testCase.getOutputFile())), StandardCharsets.UTF_8)) {
+            return checker.check(actual, expected);
+        }
+    }
+
+    private String preview(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() > OUTPUT_PREVIEW_LENGTH ? text.substring(0, OUTPUT_PREVIEW_LENGTH) + "..." : text;
+    }
+
+    private String determineStatus(int passedCount, int totalCount, String firstError) {
+        if (passedCount == totalCount) {
+            return JudgeStatusEnum.ACCEPTED.getCode();
+        } else if (firstError != null && firstError.startsWith("运行超时")) {
+            return JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getCode();
+        } else if (firstError != null && firstError.startsWith("内存超限")) {
+            return JudgeStatusEnum.MEMORY_LIMIT_EXCEEDED.getCode();
+        } else if (firstError != null && firstError.startsWith("输出超限")) {
+            return JudgeStatusEnum.OUTPUT_LIMIT_EXCEEDED.getCode();
+        } else if (firstError != null && firstError.startsWith("运行错误")) {
+            return JudgeStatusEnum.RUNTIME_ERROR.getCode();
+        } else {
+            return JudgeStatusEnum.WRONG_ANSWER.getCode();
+        }
+    }
+}
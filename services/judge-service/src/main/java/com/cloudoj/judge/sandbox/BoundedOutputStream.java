@@ -0,0 +1,51 @@
+package com.cloudoj.judge.sandbox;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 有上限的输出缓冲区
+ * 只保留前 limit 个字节，超出部分直接丢弃并记录溢出，防止失控的输出占满评测节点堆内存
+ */
+public class BoundedOutputStream extends ByteArrayOutputStream {
+
+    private final int limit;
+    private boolean overflowed = false;
+
+    public BoundedOutputStream(int limit) {
+        super(Math.min(limit, 8192));
+        this.limit = limit;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if (count >= limit) {
+            overflowed = true;
+            return;
+        }
+        super.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        int writable = Math.min(len, limit - count);
+        if (writable < len) {
+            overflowed = true;
+        }
+        if (writable > 0) {
+            super.write(b, off, writable);
+        }
+    }
+
+    /**
+     * 是否有输出因超出上限被丢弃
+     */
+    public synchronized boolean isOverflowed() {
+        return overflowed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toString(StandardCharsets.UTF_8);
+    }
+}
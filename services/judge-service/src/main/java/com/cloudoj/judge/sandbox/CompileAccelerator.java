@@ -0,0 +1,234 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.CompileAccelProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * C/C++ 编译加速
+ * 1. 预编译头：按 镜像 + 编译器 + 编译选项 为 bits/stdc++.h 生成 .gch，放在运行器目录的 pch 子目录下
+ *    （容器中为 /opt/oj/pch/键/bits/stdc++.h.gch），编译时通过 -I 加入搜索路径。
+ *    gcc 会在包含 bits/stdc++.h 时先找到 .gch，选项不匹配时静默忽略并使用原头文件，不影响编译结果。
+ *    每个预编译头目录中的 toolchain 文件记录镜像、编译器和生成时的工具链标识，使用时定期更新其修改时间；
+ *    清理时只删除工具链已更新或超过 pch-ttl 未使用的目录（运行器目录可能由多个评测节点共享）
+ * 2. ccache：缓存目录跨评测持久保存在评测节点上，镜像中没有 ccache 时直接调用编译器
+ *
+ * 只用于支持容器池的后端（Docker），本地后端直接返回原始编译命令
+ */
+@Slf4j
+@Component
+public class CompileAccelerator {
+
+    private static final String PCH_DIR = "pch";
+    private static final String PCH_HEADER = "bits/stdc++.h";
+    private static final String PCH_MARKER = "toolchain";
+    private static final long PCH_RETRY_INTERVAL = 5 * 60 * 1000L; // 生成失败后5分钟再重试
+    private static final long PCH_TOUCH_INTERVAL = 60 * 60 * 1000L; // 使用中的预编译头每小时更新一次使用时间
+
+    @Autowired
+    private DockerSandbox dockerSandbox;
+
+    @Autowired
+    private CompileAccelProperties properties;
+
+    // 预编译头键 -> 生成状态
+    private final Map<String, PchState> pchStates = new ConcurrentHashMap<>();
+
+    /**
+     * 构造编译命令（在 sh -c 中执行，编译信息输出到stdout）
+     *
+     * @param backend 当前执行后端
+     * @param image 编译使用的镜像
+     * @param compiler 编译器（gcc / g++）
+     * @param flags 编译选项（如 -std=c++17 -O2）
+     * @param output 输出文件
+     * @param source 源文件
+     * @param precompileStdcxx 是否使用 bits/stdc++.h 预编译头（仅C++）
+     */
+    public String compileCommand(SandboxBackend backend, String image, String compiler, String flags,
+                                 String output, String source, boolean precompileStdcxx) {
+        String plain = compiler + " " + flags + " -o " + output + " " + source + " 2>&1";
+        if (backend == null || !backend.supportsContainerPool()) {
+            return plain;
+        }
+        StringBuilder command = new StringBuilder();
+        boolean ccache = properties.isCcacheEnabled() && properties.getCcacheImages().contains(image);
+        if (ccache) {
+            // BASEDIR 把 /workspace/子目录 改写为相对路径，不同评测的同一份代码才能命中
+            command.append("CCACHE_DIR=").append(DockerSandbox.CCACHE_MOUNT_PATH)
+                    .append(" CCACHE_BASEDIR=/workspace CCACHE_NOHASHDIR=1")
+                    .append(" CCACHE_MAXSIZE=").append(properties.getCcacheMaxSize())
+                    .append(" CCACHE_SLOPPINESS=pch_defines,time_macros,include_file_mtime,include_file_ctime")
+                    .append(" $(command -v ccache) ");
+        }
+        command.append(compiler).append(' ').append(flags);
+        String pchDir = precompileStdcxx ? pchIncludeDir(image, compiler, flags) : null;
+        if (pchDir != null) {
+            command.append(" -I").append(pchDir);
+            if (ccache) {
+                command.append(" -fpch-preprocess");
+            }
+        }
+        command.append(" -o ").append(output).append(' ').append(source).append(" 2>&1");
+        return command.toString();
+    }
+
+    /**
+     * 预编译头所在的 include 目录（容器内路径），尚未生成时在后台生成并返回null
+     */
+    private String pchIncludeDir(String image, String compiler, String flags) {
+        if (!properties.isPchEnabled() || dockerSandbox.getRunnerDir() == null) {
+            return null;
+        }
+        String toolchainId = dockerSandbox.getToolchainId(image, compiler);
+        if (toolchainId == null) {
+            return null;
+        }
+        String key = pchKey(toolchainId, compiler, flags);
+        PchState state = pchStates.computeIfAbsent(key, k -> new PchState());
+        if (state.ready) {
+            touchPch(state, key);
+            return DockerSandbox.RUNNER_MOUNT_PATH + "/" + PCH_DIR + "/" + key;
+        }
+        synchronized (state) {
+            if (!state.building && System.currentTimeMillis() - state.lastAttempt >= PCH_RETRY_INTERVAL) {
+                state.building = true;
+                state.lastAttempt = System.currentTimeMillis();
+                CompletableFuture.runAsync(() -> buildPch(state, key, image, compiler, flags));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在编译镜像中生成预编译头：先写到临时文件再改名，容器中不会看到不完整的 .gch
+     */
+    private void buildPch(PchState state, String key, String image, String compiler, String flags) {
+        try {
+            Path pchRoot = Paths.get(dockerSandbox.getRunnerDir(), PCH_DIR);
+            Path dir = pchRoot.resolve(key);
+            Path gch = dir.resolve(PCH_HEADER + ".gch");
+            Files.createDirectories(gch.getParent());
+            // 先写工具链记录，其他节点清理时不会删除正在生成的目录
+            Files.writeString(dir.resolve(PCH_MARKER), image + "\n" + compiler + "\n"
+                    + dockerSandbox.getToolchainId(image, compiler) + "\n", StandardCharsets.UTF_8);
+            if (!Files.exists(gch)) {
+                Files.writeString(dir.resolve("stdcxx.h"), "#include <" + PCH_HEADER + ">\n", StandardCharsets.UTF_8);
+                String[] command = {"sh", "-c",
+                        compiler + " " + flags + " -x c++-header stdcxx.h -o " + PCH_HEADER + ".gch.tmp 2>&1"
+                                + " && mv " + PCH_HEADER + ".gch.tmp " + PCH_HEADER + ".gch"};
+                long start = System.currentTimeMillis();
+                DockerSandbox.DockerExecuteResult result = dockerSandbox.execute(image, command, dir.toString(), 180, 1024);
+                if (!result.isSuccess()) {
+                    log.warn("预编译头生成失败: image={}, flags={}, error={}", image, flags, result.getError());
+                } else {
+                    log.info("预编译头生成成功: image={}, flags={}, time={}ms", image, flags,
+                            System.currentTimeMillis() - start);
+                }
+            }
+            state.ready = Files.exists(gch);
+            if (state.ready) {
+                removeStalePch(pchRoot);
+            }
+        } catch (Exception e) {
+            log.warn("预编译头生成失败: image={}, flags={}", image, flags, e);
+        } finally {
+            state.building = false;
+        }
+    }
+
+    /**
+     * 更新预编译头的使用时间（toolchain 文件的修改时间），清理时据此判断是否仍在使用
+     */
+    private void touchPch(PchState state, String key) {
+        long now = System.currentTimeMillis();
+        if (now - state.lastTouched < PCH_TOUCH_INTERVAL) {
+            return;
+        }
+        state.lastTouched = now;
+        try {
+            Path marker = Paths.get(dockerSandbox.getRunnerDir(), PCH_DIR, key, PCH_MARKER);
+            Files.setLastModifiedTime(marker, FileTime.fromMillis(now));
+        } catch (Exception e) {
+            log.debug("更新预编译头使用时间失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除失效的预编译头（每个约100MB）：
+     * 1. 工具链已更新：toolchain 文件中记录的工具链标识与镜像当前的不一致，旧的 .gch 已不会被使用
+     * 2. 超过 pch-ttl 小时未使用（没有 toolchain 文件的旧目录按目录修改时间）
+     * 运行器目录可能由多个节点共享，不按本节点内存中的状态判断；使用中的目录每小时更新使用时间，不会超过 pch-ttl
+     */
+    private void removeStalePch(Path pchRoot) {
+        long ttl = properties.getPchTtl() * 3600_000L;
+        try (Stream<Path> dirs = Files.list(pchRoot)) {
+            dirs.forEach(dir -> {
+                String reason = staleReason(dir, ttl);
+                if (reason != null) {
+                    log.info("删除{}的预编译头: {}", reason, dir);
+                    // 本节点之后再用到时重新生成
+                    pchStates.remove(dir.getFileName().toString());
+                    dockerSandbox.cleanupWorkDir(dir.toString());
+                }
+            });
+        } catch (Exception e) {
+            log.debug("清理预编译头失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 预编译头目录失效的原因，仍有效时返回null
+     */
+    private String staleReason(Path dir, long ttl) {
+        try {
+            Path marker = dir.resolve(PCH_MARKER);
+            if (Files.exists(marker)) {
+                String[] lines = Files.readString(marker, StandardCharsets.UTF_8).split("\n");
+                if (lines.length >= 3) {
+                    String current = dockerSandbox.getToolchainId(lines[0], lines[1]);
+                    if (current != null && !current.equals(lines[2])) {
+                        return "工具链已更新";
+                    }
+                }
+            }
+            Path timestamp = Files.exists(marker) ? marker : dir;
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(timestamp).toMillis() > ttl) {
+                return "长期未使用";
+            }
+        } catch (Exception e) {
+            log.debug("检查预编译头失败: dir={}, error={}", dir, e.getMessage());
+        }
+        return null;
+    }
+
+    private static String pchKey(String toolchainId, String compiler, String flags) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((toolchainId + "\n" + compiler + "\n" + flags).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PchState {
+        private volatile boolean ready;
+        private volatile boolean building;
+        private volatile long lastAttempt;
+        private volatile long lastTouched;
+    }
+}
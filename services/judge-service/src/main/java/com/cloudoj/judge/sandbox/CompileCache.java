@@ -0,0 +1,263 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.CompileCacheProperties;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 编译产物缓存
+ * 以 语言 + 编译命令 + 镜像ID + 源代码 的SHA-256为键，在本地磁盘保存编译产物（class文件、可执行文件），
+ * 重判、重复提交相同代码时跳过编译；编译错误同样缓存，直接返回错误信息
+ *
+ * 目录结构：{dir}/{key}/ 下为编译产物，编译失败的条目只包含 .compile_error 文件
+ * 按最近最少使用淘汰，总大小不超过 max-size，条目数不超过 max-entries
+ */
+@Slf4j
+@Component
+public class CompileCache {
+
+    private static final String ERROR_FILE = ".compile_error";
+
+    @Autowired
+    private CompileCacheProperties properties;
+
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+
+    // 缓存键 -> 条目大小（字节），按访问顺序排列，队首为最久未使用
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+    private Path cacheDir;
+
+    /**
+     * 启动时扫描已有缓存，按最后使用时间重建LRU索引
+     */
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            cacheDir = Paths.get(properties.getDir());
+            Files.createDirectories(cacheDir);
+            try (Stream<Path> entries = Files.list(cacheDir)) {
+                List<Path> dirs = entries.filter(Files::isDirectory)
+                        .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                        .toList();
+                for (Path dir : dirs) {
+                    String name = dir.getFileName().toString();
+                    // 未完成写入的临时目录直接删除
+                    if (name.contains(".tmp-")) {
+                        deleteRecursively(dir);
+                        continue;
+                    }
+                    long size = sizeOf(dir);
+                    synchronized (index) {
+                        index.put(name, size);
+                        totalBytes += size;
+                    }
+                }
+            }
+            log.info("编译缓存初始化完成: dir={}, entries={}, size={}KB", cacheDir, index.size(), totalBytes / 1024);
+            evictIfNecessary();
+        } catch (Exception e) {
+            log.error("编译缓存初始化失败，已禁用", e);
+            cacheDir = null;
+        }
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @return 缓存键；缓存未启用或镜像ID未知时返回null
+     */
+    public String buildKey(String language, String compileCommand, String imageId, String code) {
+        if (cacheDir == null || imageId == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{language, compileCommand, imageId, code}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                // 写入长度前缀，避免拼接产生歧义
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查询缓存，命中编译成功的条目时把编译产物复制到工作目录
+     *
+     * @return 缓存条目，未命中返回null
+     */
+    public CachedCompile get(String key, String workDir) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (index) {
+            if (index.get(key) == null) {
+                recordLookup(false);
+                return null;
+            }
+        }
+
+        Path entryDir = cacheDir.resolve(key);
+        try {
+            entryDir.toFile().setLastModified(System.currentTimeMillis());
+            Path errorFile = entryDir.resolve(ERROR_FILE);
+            if (Files.exists(errorFile)) {
+                recordLookup(true);
+                return new CachedCompile(false, Files.readString(errorFile));
+            }
+            try (Stream<Path> files = Files.list(entryDir)) {
+                for (Path file : files.toList()) {
+                    Files.copy(file, Paths.get(workDir, file.getFileName().toString()),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+            recordLookup(true);
+            return new CachedCompile(true, "");
+        } catch (IOException e) {
+            // 条目可能刚被淘汰，按未命中处理
+            log.debug("读取编译缓存失败: key={}, error={}", key, e.getMessage());
+            recordLookup(false);
+            return null;
+        }
+    }
+
+    /**
+     * 保存编译结果
+     * 编译成功时保存工作目录中除源文件外的所有文件；编译超时等非确定性失败不缓存
+     */
+    public void put(String key, String workDir, String sourceFile, DockerSandbox.DockerExecuteResult compileResult) {
+        if (key == null || (!compileResult.isSuccess() && !isDeterministicFailure(compileResult))) {
+            return;
+        }
+        synchronized (index) {
+            if (index.containsKey(key)) {
+                return;
+            }
+        }
+
+        Path entryDir = cacheDir.resolve(key);
+        Path tempDir = cacheDir.resolve(key + ".tmp-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(tempDir);
+            if (compileResult.isSuccess()) {
+                try (Stream<Path> files = Files.list(Paths.get(workDir))) {
+                    for (Path file : files.toList()) {
+                        if (Files.isRegularFile(file) && !file.getFileName().toString().equals(sourceFile)) {
+                            Files.copy(file, tempDir.resolve(file.getFileName().toString()),
+                                    StandardCopyOption.COPY_ATTRIBUTES);
+                        }
+                    }
+                }
+            } else {
+                Files.writeString(tempDir.resolve(ERROR_FILE), compileResult.getError());
+            }
+
+            // 整体重命名，读取方不会看到写了一半的条目
+            Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+            long size = sizeOf(entryDir);
+            synchronized (index) {
+                index.put(key, size);
+                totalBytes += size;
+            }
+            evictIfNecessary();
+        } catch (IOException e) {
+            // 其他线程已写入同一条目等情况，丢弃本次结果
+            log.debug("写入编译缓存失败: key={}, error={}", key, e.getMessage());
+            deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * 编译器正常退出且返回非零退出码才是确定的编译错误（超时、被杀等不缓存）
+     */
+    private boolean isDeterministicFailure(DockerSandbox.DockerExecuteResult compileResult) {
+        int exitCode = compileResult.getExitCode();
+        return exitCode > 0 && exitCode < 124;
+    }
+
+    /**
+     * 淘汰最久未使用的条目，直到大小和数量都在限制内
+     */
+    private void evictIfNecessary() {
+        long maxBytes = properties.getMaxSize() * 1024 * 1024;
+        while (true) {
+            String eldest;
+            synchronized (index) {
+                if (totalBytes <= maxBytes && index.size() <= properties.getMaxEntries()) {
+                    return;
+                }
+                Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                Map.Entry<String, Long> entry = iterator.next();
+                eldest = entry.getKey();
+                totalBytes -= entry.getValue();
+                iterator.remove();
+            }
+            log.debug("编译缓存淘汰: key={}", eldest);
+            deleteRecursively(cacheDir.resolve(eldest));
+        }
+    }
+
+    private void recordLookup(boolean hit) {
+        if (judgeMetrics != null) {
+            judgeMetrics.recordCompileCacheLookup(hit);
+        }
+    }
+
+    private long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            log.debug("删除缓存目录失败: {}, error={}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存的编译结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CachedCompile {
+        private final boolean success;
+        private final String error;
+    }
+}
@@ -0,0 +1,400 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.ContainerPoolProperties;
+import com.cloudoj.judge.config.RabbitMQConfig;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import com.cloudoj.judge.service.JudgeQueueRouter;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 评测容器池
+ * 每种镜像维护多个预启动的长期运行容器，评测时借出、结束后归还：
+ * 1. 空闲容器不足时按需扩容，直到 max-size
+ * 2. 定时任务根据评测队列积压扩容，空闲超时后缩容到 pool-size
+ * 3. 容器使用次数达到 max-uses 或健康检查失败时销毁重建
+ * 4. 启动时为各语言镜像预启动 pool-size 个容器；关闭时销毁全部容器（包括仍被借出的）
+ */
+@Slf4j
+@Component
+public class ContainerPool {
+
+    @Autowired
+    private DockerSandbox dockerSandbox;
+
+    @Autowired
+    private ContainerPoolProperties properties;
+
+    @Autowired(required = false)
+    private AmqpAdmin amqpAdmin;
+
+    @Autowired(required = false)
+    private JudgeQueueRouter judgeQueueRouter;
+
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+
+    // 每次维护最多新建的容器数，避免队列突增时集中创建
+    private static final int MAX_GROW_PER_ROUND = 2;
+    // 等待空闲容器时的轮询间隔（毫秒）
+    private static final long POLL_INTERVAL_MS = 200;
+
+    // 镜像名 -> 该镜像的容器池
+    private final Map<String, ImagePool> pools = new ConcurrentHashMap<>();
+
+    // 应用关闭后不再借出和创建容器
+    private volatile boolean closed;
+
+    /**
+     * 借出一个容器
+     *
+     * @param image Docker镜像名称
+     * @return 容器租约；容器池关闭、创建失败或等待超时时返回null（调用方退化为一次性容器模式）
+     */
+    public PooledContainer acquire(String image) {
+        return acquire(image, properties.getAcquireTimeout());
+    }
+
+    /**
+     * 尝试借出一个容器，不等待：没有空闲容器且已达上限时直接返回null
+     */
+    public PooledContainer tryAcquire(String image) {
+        return acquire(image, 0);
+    }
+
+    private PooledContainer acquire(String image, long timeoutMs) {
+        if (!properties.isEnabled() || closed) {
+            return null;
+        }
+
+        ImagePool pool = pools.computeIfAbsent(image, ImagePool::new);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        try {
+            while (true) {
+                PooledContainer container = pool.idle.pollFirst();
+                if (container == null && pool.tryReserve(properties.getMaxSize())) {
+                    container = createContainer(pool);
+                    if (container == null) {
+                        return null;
+                    }
+                }
+                if (container == null) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        if (timeoutMs <= 0) {
+                            return null;
+                        }
+                        log.warn("容器池：等待空闲容器超时 image={}, total={}, busy={}",
+                                image, pool.total.get(), pool.busy.get());
+                        return null;
+                    }
+                    container = pool.idle.pollFirst(Math.min(remaining, POLL_INTERVAL_MS), TimeUnit.MILLISECONDS);
+                }
+                if (container != null) {
+                    container.uses++;
+                    pool.busy.incrementAndGet();
+                    pool.lastAcquireTime = System.currentTimeMillis();
+                    return container;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 归还容器
+     * 达到最大使用次数或被标记为损坏的容器直接销毁
+     */
+    public void release(PooledContainer container) {
+        if (container == null) {
+            return;
+        }
+        ImagePool pool = pools.get(container.getImage());
+        if (pool == null) {
+            // 关闭时已删除
+            if (!closed) {
+                dockerSandbox.removeContainer(container.getContainerId());
+            }
+            return;
+        }
+        pool.busy.decrementAndGet();
+
+        if (closed) {
+            destroyContainer(pool, container);
+            return;
+        }
+        if (container.broken || container.uses >= properties.getMaxUses()) {
+            log.info("容器池：回收容器 image={}, containerId={}, uses={}, broken={}",
+                    container.getImage(), container.getContainerId(), container.uses, container.broken);
+            destroyContainer(pool, container);
+            return;
+        }
+
+        container.lastReleaseTime = System.currentTimeMillis();
+        // 后进先出，让热容器优先被复用，冷容器留在队尾等待缩容
+        pool.idle.offerFirst(container);
+    }
+
+    /**
+     * 预启动容器：为每个镜像在后台创建 pool-size 个空闲容器（镜像不存在时会先拉取，不阻塞启动）
+     */
+    public void prewarm(Collection<String> images) {
+        if (!properties.isEnabled() || images.isEmpty()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            for (String image : images) {
+                ImagePool pool = pools.computeIfAbsent(image, ImagePool::new);
+                while (!closed && pool.tryReserve(properties.getPoolSize())) {
+                    PooledContainer container = createContainer(pool);
+                    if (container == null) {
+                        break;
+                    }
+                    container.lastReleaseTime = System.currentTimeMillis();
+                    pool.idle.offerLast(container);
+                }
+            }
+            log.info("容器池预启动完成: images={}", images);
+        }, "container-pool-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 定时维护：健康检查、按队列积压扩容、空闲超时缩容
+     */
+    @Scheduled(fixedDelayString = "${judge.container-pool.maintain-interval:10000}")
+    public void maintain() {
+        if (!properties.isEnabled() || pools.isEmpty()) {
+            return;
+        }
+
+        int backlog = getQueueBacklog();
+        long now = System.currentTimeMillis();
+        long idleTimeoutMs = TimeUnit.MINUTES.toMillis(properties.getIdleTimeout());
+
+        for (ImagePool pool : pools.values()) {
+            try {
+                checkIdleContainers(pool);
+
+                // 近期有评测的镜像才跟随积压扩容
+                boolean active = pool.busy.get() > 0 || now - pool.lastAcquireTime < idleTimeoutMs;
+                int target = Math.max(properties.getPoolSize(), active ? pool.busy.get() + backlog : 0);
+                target = Math.min(target, properties.getMaxSize());
+
+                int grown = 0;
+                while (pool.total.get() < target && grown < MAX_GROW_PER_ROUND && pool.tryReserve(target)) {
+                    PooledContainer container = createContainer(pool);
+                    if (container == null) {
+                        break;
+                    }
+                    container.lastReleaseTime = now;
+                    pool.idle.offerLast(container);
+                    grown++;
+                }
+
+                if (backlog == 0) {
+                    shrinkIdleContainers(pool, now, idleTimeoutMs);
+                }
+
+                if (judgeMetrics != null) {
+                    judgeMetrics.updateContainerPoolStatus(pool.image, pool.total.get());
+                }
+            } catch (Exception e) {
+                log.error("容器池维护失败: image={}", pool.image, e);
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时清理容器池：借出中的容器也一并删除（强制删除会终止其中仍在运行的评测）
+     */
+    @PreDestroy
+    public void destroy() {
+        log.info("清理容器池...");
+        closed = true;
+        pools.values().forEach(pool -> {
+            pool.idle.clear();
+            for (PooledContainer container : new ArrayList<>(pool.containers)) {
+                destroyContainer(pool, container);
+            }
+        });
+        pools.clear();
+    }
+
+    /**
+     * 健康检查空闲容器，不健康的直接销毁
+     */
+    private void checkIdleContainers(ImagePool pool) {
+        List<PooledContainer> snapshot = new ArrayList<>(pool.idle);
+        for (PooledContainer container : snapshot) {
+            if (!dockerSandbox.isContainerHealthy(container.getContainerId()) && pool.idle.remove(container)) {
+                log.warn("容器池：健康检查失败，销毁容器 image={}, containerId={}",
+                        pool.image, container.getContainerId());
+                destroyContainer(pool, container);
+            }
+        }
+    }
+
+    /**
+     * 从队尾开始回收空闲超时的容器，保留 pool-size 个常驻容器
+     */
+    private void shrinkIdleContainers(ImagePool pool, long now, long idleTimeoutMs) {
+        while (pool.total.get() > properties.getPoolSize()) {
+            PooledContainer container = pool.idle.peekLast();
+            if (container == null || now - container.lastReleaseTime < idleTimeoutMs) {
+                return;
+            }
+            if (pool.idle.remove(container)) {
+                log.info("容器池：空闲超时缩容 image={}, containerId={}", pool.image, container.getContainerId());
+                destroyContainer(pool, container);
+            }
+        }
+    }
+
+    /**
+     * 创建容器（调用前必须已通过 tryReserve 占用名额）
+     */
+    private PooledContainer createContainer(ImagePool pool) {
+        String containerId = dockerSandbox.createPooledContainer(pool.image);
+        if (containerId == null) {
+            pool.total.decrementAndGet();
+            return null;
+        }
+        log.info("容器池：创建新容器 image={}, containerId={}, total={}", pool.image, containerId, pool.total.get());
+        PooledContainer container = new PooledContainer(pool.image, containerId);
+        pool.containers.add(container);
+        if (closed && pool.containers.remove(container)) {
+            // 创建期间应用已关闭
+            pool.total.decrementAndGet();
+            dockerSandbox.removeContainer(containerId);
+            return null;
+        }
+        return container;
+    }
+
+    private void destroyContainer(ImagePool pool, PooledContainer container) {
+        // 关闭时和归还时可能同时销毁同一个容器，只处理一次
+        if (!pool.containers.remove(container)) {
+            return;
+        }
+        pool.total.decrementAndGet();
+        dockerSandbox.removeContainer(container.getContainerId());
+    }
+
+    /**
+     * 查询本节点消费的评测队列积压的消息总数
+     */
+    private int getQueueBacklog() {
+        if (amqpAdmin == null) {
+            return 0;
+        }
+        String[] queues = judgeQueueRouter != null
+                ? judgeQueueRouter.getConsumerQueues() : new String[]{RabbitMQConfig.JUDGE_QUEUE};
+        int backlog = 0;
+        for (String queue : queues) {
+            try {
+                Properties queueProperties = amqpAdmin.getQueueProperties(queue);
+                if (queueProperties != null) {
+                    Object count = queueProperties.get(RabbitAdmin.QUEUE_MESSAGE_COUNT);
+                    if (count instanceof Number) {
+                        backlog += ((Number) count).intValue();
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("获取评测队列积压失败: queue={}, error={}", queue, e.getMessage());
+            }
+        }
+        return backlog;
+    }
+
+    /**
+     * 单个镜像的容器池
+     */
+    private static class ImagePool {
+        private final String image;
+        private final LinkedBlockingDeque<PooledContainer> idle = new LinkedBlockingDeque<>();
+        // 该镜像已创建且未销毁的全部容器（空闲和借出中）
+        private final Set<PooledContainer> containers = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger total = new AtomicInteger(0);
+        private final AtomicInteger busy = new AtomicInteger(0);
+        private volatile long lastAcquireTime;
+
+        ImagePool(String image) {
+            this.image = image;
+        }
+
+        /**
+         * 占用一个容器名额，总数已达上限时返回false
+         */
+        boolean tryReserve(int limit) {
+            while (true) {
+                int current = total.get();
+                if (current >= limit) {
+                    return false;
+                }
+                if (total.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 池化容器（借出期间只被一个评测任务使用）
+     */
+    @Getter
+    public static class PooledContainer {
+        private final String image;
+        private final String containerId;
+        private final long createTime = System.currentTimeMillis();
+        private int uses;
+        private volatile boolean broken;
+        private volatile long lastReleaseTime;
+        // 容器内已启动的常驻运行器名称（见 WarmRunnerManager），容器销毁后随之失效
+        private final Set<String> warmRunners = ConcurrentHashMap.newKeySet();
+        // 最近一次通过 docker update 设置的CPU核心和内存限制（见 JudgeSlotManager），null/0 表示创建时的默认值
+        private volatile String cpuset;
+        private volatile long memoryLimit;
+
+        PooledContainer(String image, String containerId) {
+            this.image = image;
+            this.containerId = containerId;
+        }
+
+        /**
+         * 标记容器已损坏（如执行超时残留进程），归还时销毁
+         */
+        public void markBroken() {
+            this.broken = true;
+        }
+
+        /**
+         * 记录已生效的CPU核心和内存限制
+         */
+        void applyResources(String cpuset, long memoryLimit) {
+            this.cpuset = cpuset;
+            this.memoryLimit = memoryLimit;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.cloudoj.judge.sandbox;
 
+import com.cloudoj.judge.config.CompileAccelProperties;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.CreateContainerResponse;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.model.AccessMode;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Volume;
@@ -11,14 +14,19 @@ import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,25 +35,48 @@ import java.util.concurrent.TimeUnit;
 /**
  * Docker沙箱基础类
  * 提供Docker容器的创建、执行和清理功能
- * 支持容器池复用，减少容器创建销毁开销
+ * 长期运行容器的借出与回收由 {@link ContainerPool} 管理
  */
 @Slf4j
 @Component
-public class DockerSandbox {
+public class DockerSandbox implements SandboxBackend {
     
     private final DockerClient dockerClient;
     
+    @Autowired(required = false)
+    private CompileAccelProperties compileAccelProperties;
+    
+    @Autowired(required = false)
+    private TestDataCache testDataCache;
+    
     // 资源限制（默认值）
     private static final long DEFAULT_MEMORY_LIMIT = 256 * 1024 * 1024L; // 256MB
     private static final long CPU_COUNT = 1L; // 1核CPU
     private static final int DEFAULT_TIME_LIMIT = 5; // 5秒超时
     
-    // 容器池：镜像名 -> 容器ID
-    private final Map<String, String> containerPool = new ConcurrentHashMap<>();
-    
     // 共享工作目录（用于容器池模式）
     private String sharedWorkDir;
     
+    // 评测运行器：静态编译后挂载到所有评测容器，用于测量CPU时间和峰值内存
+    private static final String RUNNER_SOURCE = "ojrun.c";
+    private static final String RUNNER_BINARY = "ojrun";
+    public static final String RUNNER_MOUNT_PATH = "/opt/oj"; // 运行器目录在容器中的只读挂载点
+    public static final String CCACHE_MOUNT_PATH = "/opt/ccache"; // ccache 缓存目录在容器中的挂载点
+    public static final String TESTDATA_MOUNT_PATH = "/opt/testdata"; // 测试数据缓存输入目录在容器中的只读挂载点
+    private static final String RUNNER_BUILD_IMAGE = "gcc:latest";
+    private static final long RUNNER_RETRY_INTERVAL = 5 * 60 * 1000L; // 编译失败后5分钟再重试
+    public static final int OUTPUT_LIMIT_EXIT_CODE = 153; // 超出输出限制时运行器子进程被SIGXFSZ终止（128 + 25）
+    
+    // docker流式输出的采集上限：程序输出已重定向到文件，流中只有编译信息和运行器报告
+    private static final int STREAM_CAPTURE_LIMIT = 1024 * 1024;
+    private String runnerDir;
+    private volatile boolean runnerReady = false;
+    private volatile long runnerLastAttempt = 0;
+    
+    // 镜像ID缓存：镜像名 -> 镜像ID，用于编译缓存键
+    private static final long IMAGE_ID_TTL = 5 * 60 * 1000L;
+    private final Map<String, CachedImageId> imageIds = new ConcurrentHashMap<>();
+    
     public DockerSandbox() {
         // 初始化Docker客户端
         DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
@@ -79,11 +110,194 @@ public class DockerSandbox {
                 dir.mkdirs();
             }
             log.info("共享工作目录初始化成功: {}", sharedWorkDir);
+            
+            // 运行器目录放在共享目录外，避免被单次评测的工作目录清理误删
+            runnerDir = tempDir + File.separator + "oj-judge-runner";
+            Files.createDirectories(Paths.get(runnerDir));
+            try (InputStream in = getClass().getResourceAsStream("/sandbox/" + RUNNER_SOURCE)) {
+                if (in != null) {
+                    byte[] source = in.readAllBytes();
+                    Path sourcePath = Paths.get(runnerDir, RUNNER_SOURCE);
+                    // 运行器源码有变化时删除旧的二进制，下次使用时重新编译
+                    if (!Files.exists(sourcePath) || !Arrays.equals(Files.readAllBytes(sourcePath), source)) {
+                        Files.write(sourcePath, source);
+                        Files.deleteIfExists(Paths.get(runnerDir, RUNNER_BINARY));
+                    }
+                }
+            }
+            runnerReady = Files.isExecutable(Paths.get(runnerDir, RUNNER_BINARY));
         } catch (Exception e) {
             log.error("共享工作目录初始化失败", e);
         }
     }
     
+    @Override
+    public String getName() {
+        return "docker";
+    }
+    
+    /**
+     * Docker守护进程是否可以连接
+     */
+    @Override
+    public boolean isAvailable() {
+        try {
+            dockerClient.pingCmd().exec();
+            return true;
+        } catch (Exception e) {
+            log.debug("Docker守护进程不可用: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public boolean supportsContainerPool() {
+        return true;
+    }
+    
+    /**
+     * 工具链标识即镜像ID
+     */
+    @Override
+    public String getToolchainId(String image, String compileCommand) {
+        return getImageId(image);
+    }
+    
+    /**
+     * 将运行命令包装为由评测运行器执行，并限制写入单个文件的大小
+     * 超出限制时进程被终止，退出码为 OUTPUT_LIMIT_EXIT_CODE；运行器不可用时返回原始命令（退化为墙钟计时）
+     * 
+     * @param shellCommand 在 sh -c 中执行的命令
+     * @param outputLimitBytes 输出文件大小限制（字节），0表示不限制
+     */
+    @Override
+    public String[] meteredCommand(String shellCommand, long outputLimitBytes) {
+        if (ensureRunner()) {
+            return new String[]{
+                    RUNNER_MOUNT_PATH + "/" + RUNNER_BINARY,
+                    "--output-limit", String.valueOf(outputLimitBytes),
+                    "--", "sh", "-c", shellCommand
+            };
+        }
+        return new String[]{"sh", "-c", shellCommand};
+    }
+    
+    /**
+     * 构造批量运行命令：一次exec内由评测运行器依次以 input_N.txt 为输入运行全部测试用例，
+     * 输出写入 output_N.txt，每个用例的退出码、CPU时间和峰值内存写入运行器的标准输出（结果清单），
+     * 结果清单不落在工作目录中，提交的程序无法改写
+     * 运行器不可用时返回null（调用方退化为逐个用例执行）
+     * 
+     * @param runCommand 在 sh -c 中执行的运行命令（不含输入输出重定向）
+     * @param count 测试用例数量
+     * @param timeoutMs 单个用例的墙钟超时（毫秒）
+     * @param outputLimitBytes 单个用例的输出大小限制（字节），0表示不限制
+     */
+    @Override
+    public String[] batchCommand(String runCommand, int count, long timeoutMs, long outputLimitBytes) {
+        if (!ensureRunner()) {
+            return null;
+        }
+        return new String[]{
+                RUNNER_MOUNT_PATH + "/" + RUNNER_BINARY,
+                "--batch", String.valueOf(count),
+                "--timeout", String.valueOf(timeoutMs),
+                "--fail-fast",
+                "--output-limit", String.valueOf(outputLimitBytes),
+                "--", "sh", "-c", runCommand
+        };
+    }
+    
+    /**
+     * 测试数据缓存的输入目录只读挂载到所有评测容器的 /opt/testdata
+     */
+    @Override
+    public String testDataPath(String hostFile) {
+        Path cacheDir = testDataCache != null ? testDataCache.getInputDir() : null;
+        Path file = Paths.get(hostFile);
+        if (cacheDir == null || !file.startsWith(cacheDir)) {
+            return null;
+        }
+        return TESTDATA_MOUNT_PATH + "/" + cacheDir.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+    
+    /**
+     * 确保评测运行器已编译（使用gcc镜像静态编译，所有镜像通用）
+     */
+    private boolean ensureRunner() {
+        if (runnerReady) {
+            return true;
+        }
+        synchronized (this) {
+            if (runnerReady || runnerDir == null
+                    || System.currentTimeMillis() - runnerLastAttempt < RUNNER_RETRY_INTERVAL) {
+                return runnerReady;
+            }
+            runnerLastAttempt = System.currentTimeMillis();
+            String[] command = new String[]{
+                    "sh", "-c",
+                    "gcc -O2 -static -o " + RUNNER_BINARY + " " + RUNNER_SOURCE + " 2>&1"
+            };
+            DockerExecuteResult result = execute(RUNNER_BUILD_IMAGE, command, runnerDir, 60, 256);
+            runnerReady = result.isSuccess() && Files.isExecutable(Paths.get(runnerDir, RUNNER_BINARY));
+            if (runnerReady) {
+                log.info("评测运行器编译成功: {}", runnerDir);
+            } else {
+                log.warn("评测运行器编译失败，运行时间退化为墙钟时间: {}", result.getError());
+            }
+            return runnerReady;
+        }
+    }
+    
+    /**
+     * 获取运行器目录（宿主机路径，只读挂载到所有评测容器的 /opt/oj）
+     */
+    public String getRunnerDir() {
+        return runnerDir;
+    }
+    
+    /**
+     * 在容器中后台启动常驻进程（不附加输出、不等待结束）
+     * @return 是否启动成功
+     */
+    public boolean startInContainer(String containerId, String[] command) {
+        try {
+            ExecCreateCmdResponse execCreate = dockerClient.execCreateCmd(containerId)
+                    .withCmd(command)
+                    .withAttachStdout(false)
+                    .withAttachStderr(false)
+                    .withWorkingDir("/workspace")
+                    .exec();
+            dockerClient.execStartCmd(execCreate.getId())
+                    .withDetach(true)
+                    .exec(new ExecStartResultCallback(new BoundedOutputStream(0), new BoundedOutputStream(0)))
+                    .awaitCompletion(10, TimeUnit.SECONDS);
+            return true;
+        } catch (Exception e) {
+            log.warn("容器内启动常驻进程失败: containerId={}", containerId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 调整运行中容器的CPU核心绑定和内存限制（swap与内存相同，即禁用swap）
+     * @return 是否设置成功
+     */
+    public boolean updateContainerResources(String containerId, String cpuset, long memoryLimitBytes) {
+        try {
+            dockerClient.updateContainerCmd(containerId)
+                    .withCpusetCpus(cpuset)
+                    .withMemory(memoryLimitBytes)
+                    .withMemorySwap(memoryLimitBytes)
+                    .exec();
+            return true;
+        } catch (Exception e) {
+            log.warn("调整容器资源限制失败: containerId={}, cpuset={}, memory={}, error={}",
+                    containerId, cpuset, memoryLimitBytes, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * 获取共享工作目录
      */
@@ -92,39 +306,91 @@ public class DockerSandbox {
     }
     
     /**
-     * 应用关闭时清理容器池
+     * 创建长期运行的容器（供容器池使用）
+     * @return 容器ID，创建失败返回null
      */
-    @PreDestroy
-    public void destroy() {
-        log.info("清理容器池...");
-        containerPool.forEach((image, containerId) -> {
-            try {
-                dockerClient.stopContainerCmd(containerId).withTimeout(1).exec();
-                dockerClient.removeContainerCmd(containerId).withForce(true).exec();
-                log.info("清理容器池中的容器: image={}, containerId={}", image, containerId);
-            } catch (Exception e) {
-                log.error("清理容器失败: {}", containerId, e);
+    public String createPooledContainer(String image) {
+        try {
+            ensureImageExists(image);
+            return createLongRunningContainer(image);
+        } catch (Exception e) {
+            log.error("创建容器池容器失败: {}", image, e);
+            return null;
+        }
+    }
+    
+    /**
+     * 获取镜像ID（内容摘要），同名镜像重新拉取后ID会变化
+     * 结果缓存5分钟，查询失败返回null
+     */
+    public String getImageId(String image) {
+        CachedImageId cached = imageIds.get(image);
+        if (cached != null && System.currentTimeMillis() - cached.queryTime < IMAGE_ID_TTL) {
+            return cached.imageId;
+        }
+        try {
+            String imageId = dockerClient.inspectImageCmd(image).exec().getId();
+            if (imageId != null) {
+                imageIds.put(image, new CachedImageId(imageId, System.currentTimeMillis()));
             }
-        });
-        containerPool.clear();
+            return imageId;
+        } catch (Exception e) {
+            log.debug("查询镜像ID失败: {}, error={}", image, e.getMessage());
+            return null;
+        }
     }
     
     /**
-     * 获取或创建长期运行的容器（容器池模式）
-     * 容器挂载共享工作目录，支持多次评测复用
+     * 健康检查：容器仍在运行且未发生OOM
      */
-    public String getOrCreatePooledContainer(String image) {
-        return containerPool.computeIfAbsent(image, img -> {
+    public boolean isContainerHealthy(String containerId) {
+        try {
+            InspectContainerResponse.ContainerState state = dockerClient.inspectContainerCmd(containerId).exec().getState();
+            return state != null
+                    && Boolean.TRUE.equals(state.getRunning())
+                    && !Boolean.TRUE.equals(state.getOOMKilled());
+        } catch (Exception e) {
+            log.warn("容器健康检查失败: {}, error={}", containerId, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 停止并删除容器（容器池回收）
+     */
+    public void removeContainer(String containerId) {
+        try {
+            dockerClient.stopContainerCmd(containerId).withTimeout(1).exec();
+        } catch (Exception e) {
+            log.debug("停止容器失败: {}, error={}", containerId, e.getMessage());
+        }
+        cleanupContainer(containerId);
+    }
+    
+    /**
+     * 容器挂载：工作目录、只读的运行器目录和测试数据缓存的输入目录，启用 ccache 的镜像额外挂载缓存目录
+     */
+    private Bind[] containerBinds(String image, String workspaceDir) {
+        List<Bind> binds = new ArrayList<>();
+        binds.add(new Bind(workspaceDir, new Volume("/workspace")));
+        binds.add(new Bind(runnerDir, new Volume(RUNNER_MOUNT_PATH), AccessMode.ro));
+        if (testDataCache != null && testDataCache.getInputDir() != null) {
+            binds.add(new Bind(testDataCache.getInputDir().toString(), new Volume(TESTDATA_MOUNT_PATH), AccessMode.ro));
+        }
+        if (compileAccelProperties != null && compileAccelProperties.isCcacheEnabled()
+                && compileAccelProperties.getCcacheImages().contains(image)) {
             try {
-                ensureImageExists(img);
-                String containerId = createLongRunningContainer(img);
-                log.info("容器池：创建新容器 image={}, containerId={}", img, containerId);
-                return containerId;
+                Files.createDirectories(Paths.get(compileAccelProperties.getCcacheDir()));
+                binds.add(new Bind(compileAccelProperties.getCcacheDir(), new Volume(CCACHE_MOUNT_PATH)));
             } catch (Exception e) {
-                log.error("创建容器池容器失败: {}", img, e);
-                return null;
+                log.warn("ccache 目录创建失败: {}", compileAccelProperties.getCcacheDir(), e);
             }
-        });
+        }
+        return binds.toArray(new Bind[0]);
+    }
+    
+    private static Volume[] volumesOf(Bind[] binds) {
+        return Arrays.stream(binds).map(Bind::getVolume).toArray(Volume[]::new);
     }
     
     /**
@@ -132,12 +398,11 @@ public class DockerSandbox {
      * 挂载共享工作目录，支持动态切换子目录
      */
     private String createLongRunningContainer(String image) {
-        Volume volume = new Volume("/workspace");
         // 挂载共享工作目录，而不是单次评测的目录
-        Bind bind = new Bind(sharedWorkDir, volume);
+        Bind[] binds = containerBinds(image, sharedWorkDir);
         
         HostConfig hostConfig = HostConfig.newHostConfig()
-                .withBinds(bind)
+                .withBinds(binds)
                 .withMemory(DEFAULT_MEMORY_LIMIT)
                 .withMemorySwap(DEFAULT_MEMORY_LIMIT)
                 .withCpuCount(CPU_COUNT)
@@ -149,7 +414,7 @@ public class DockerSandbox {
                 .withCmd("tail", "-f", "/dev/null")
                 .withWorkingDir("/workspace")
                 .withHostConfig(hostConfig)
-                .withVolumes(volume)
+                .withVolumes(volumesOf(binds))
                 .withName("oj-pool-" + image.replace(":", "-").replace("/", "-") + "-" + UUID.randomUUID().toString().substring(0, 4))
                 .exec();
         
@@ -162,6 +427,7 @@ public class DockerSandbox {
     
     /**
      * 在已有容器中执行命令（docker exec 模式，更快）
+     * 退出码通过stderr末尾的运行器报告带回，输出流关闭即可返回结果，不再轮询 inspectExec
      * @param containerId 容器ID
      * @param command 要执行的命令
      * @param subDir 子目录名称（相对于共享工作目录）
@@ -176,15 +442,15 @@ public class DockerSandbox {
             
             // 创建 exec 命令
             ExecCreateCmdResponse execCreate = dockerClient.execCreateCmd(containerId)
-                    .withCmd(command)
+                    .withCmd(withExitTrailer(command))
                     .withAttachStdout(true)
                     .withAttachStderr(true)
                     .withWorkingDir(workingDir)
                     .exec();
             
             // 执行命令并获取输出
-            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            BoundedOutputStream stdout = new BoundedOutputStream(STREAM_CAPTURE_LIMIT);
+            BoundedOutputStream stderr = new BoundedOutputStream(STREAM_CAPTURE_LIMIT);
             
             boolean completed = dockerClient.execStartCmd(execCreate.getId())
                     .exec(new ExecStartResultCallback(stdout, stderr))
@@ -192,22 +458,23 @@ public class DockerSandbox {
             
             long executeTime = System.currentTimeMillis() - startTime;
             
-            // 获取退出码（需要处理 null 情况）
-            Integer exitCode = -1;
-            if (completed) {
-                // 等待一小段时间确保退出码可用
-                for (int i = 0; i < 10; i++) {
-                    Long exitCodeLong = dockerClient.inspectExecCmd(execCreate.getId()).exec().getExitCodeLong();
-                    if (exitCodeLong != null) {
-                        exitCode = exitCodeLong.intValue();
-                        break;
-                    }
-                    Thread.sleep(50);
-                }
-            }
+            String output = stdout.toString();
+            String error = stderr.toString();
             
-            String output = stdout.toString("UTF-8");
-            String error = stderr.toString("UTF-8");
+            // 输出超出采集上限时已提前断开输出流，进程可能仍在运行，按-1返回使容器池回收该容器
+            if (stdout.isOverflowed() || stderr.isOverflowed()) {
+                log.warn("容器exec输出超出采集上限: time={}ms", executeTime);
+                return DockerExecuteResult.builder()
+                        .success(false)
+                        .exitCode(-1)
+                        .output(output)
+                        .error("输出超限")
+                        .executeTime(executeTime)
+                        .wallTime(executeTime)
+                        .memoryUsed(0)
+                        .outputLimitExceeded(true)
+                        .build();
+            }
             
             // 如果超时，返回超时错误
             if (!completed) {
@@ -218,19 +485,41 @@ public class DockerSandbox {
                         .output(output)
                         .error("Execution timed out")
                         .executeTime(executeTime)
+                        .wallTime(executeTime)
                         .memoryUsed(0)
                         .build();
             }
             
-            log.debug("容器exec执行完成: exitCode={}, time={}ms", exitCode, executeTime);
+            // 解析报告：退出码，运行器测量时还有CPU时间（user+sys）和峰值RSS
+            RunnerReport report = RunnerReport.parse(error);
+            int exitCode;
+            long cpuTime = executeTime;
+            long memoryUsed = 0;
+            if (report != null) {
+                error = report.getRemaining();
+                exitCode = report.getExitCode();
+                if (report.isMetered()) {
+                    cpuTime = report.getCpuTime();
+                    memoryUsed = report.getPeakMemoryKb() * 1024;
+                }
+            } else {
+                // 没有报告（外层shell被杀等异常情况）时才查询一次exec状态
+                Long exitCodeLong = dockerClient.inspectExecCmd(execCreate.getId()).exec().getExitCodeLong();
+                exitCode = exitCodeLong != null ? exitCodeLong.intValue() : -1;
+            }
+            
+            log.debug("容器exec执行完成: exitCode={}, cpu={}ms, wall={}ms, memory={}KB", 
+                    exitCode, cpuTime, executeTime, memoryUsed / 1024);
             
             return DockerExecuteResult.builder()
                     .success(exitCode == 0)
                     .exitCode(exitCode)
                     .output(output)
                     .error(error.isEmpty() ? (exitCode != 0 ? output : "") : error)
-                    .executeTime(executeTime)
-                    .memoryUsed(DEFAULT_MEMORY_LIMIT / 2)
+                    .executeTime(cpuTime)
+                    .wallTime(executeTime)
+                    .memoryUsed(memoryUsed)
+                    .metered(report != null && report.isMetered())
                     .build();
                     
         } catch (Exception e) {
@@ -242,21 +531,41 @@ public class DockerSandbox {
                     .output("")
                     .error("执行失败: " + e.getMessage())
                     .executeTime(executeTime)
+                    .wallTime(executeTime)
                     .memoryUsed(0)
                     .build();
         }
     }
     
+    /**
+     * 为exec命令追加退出码报告
+     * 评测运行器自己会输出报告（批量模式只有退出码），不再包一层shell：
+     * 结果清单所在的标准输出管道只由不可转储的运行器持有，子进程无法通过外层shell的 /proc/<pid>/fd 写入；
+     * 其他命令由外层shell在结束后向stderr追加 @@OJRUN exit=N
+     */
+    private String[] withExitTrailer(String[] command) {
+        if (command[0].equals(RUNNER_MOUNT_PATH + "/" + RUNNER_BINARY)) {
+            return command;
+        }
+        String[] wrapped = new String[command.length + 3];
+        wrapped[0] = "sh";
+        wrapped[1] = "-c";
+        wrapped[2] = "\"$@\"; code=$?; printf '\\n" + RunnerReport.TRAILER_PREFIX + "exit=%d\\n' \"$code\" >&2; exit \"$code\"";
+        wrapped[3] = "ojexit";
+        System.arraycopy(command, 0, wrapped, 4, command.length);
+        return wrapped;
+    }
+    
     /**
      * Exec回调处理器
      */
     private static class ExecStartResultCallback extends com.github.dockerjava.api.async.ResultCallbackTemplate<
             ExecStartResultCallback, com.github.dockerjava.api.model.Frame> {
         
-        private final ByteArrayOutputStream stdout;
-        private final ByteArrayOutputStream stderr;
+        private final BoundedOutputStream stdout;
+        private final BoundedOutputStream stderr;
         
-        public ExecStartResultCallback(ByteArrayOutputStream stdout, ByteArrayOutputStream stderr) {
+        public ExecStartResultCallback(BoundedOutputStream stdout, BoundedOutputStream stderr) {
             this.stdout = stdout;
             this.stderr = stderr;
         }
@@ -273,6 +582,10 @@ public class DockerSandbox {
                         stderr.write(frame.getPayload());
                         break;
                 }
+                // 超出采集上限后断开输出流，不再接收后续数据
+                if (stdout.isOverflowed() || stderr.isOverflowed()) {
+                    close();
+                }
             } catch (Exception e) {
                 // 忽略
             }
@@ -302,6 +615,7 @@ public class DockerSandbox {
      * @param memoryLimitMB 内存限制（MB）
      * @return 执行结果
      */
+    @Override
     public DockerExecuteResult execute(String image, String[] command, String workDir, int timeoutSeconds, int memoryLimitMB) {
         String containerId = null;
         long startTime = System.currentTimeMillis();
@@ -327,9 +641,6 @@ public class DockerSandbox {
             
             long executeTime = System.currentTimeMillis() - codeStartTime;
             
-            // 获取容器输出
-            String output = getContainerLogs(containerId);
-            
             // 检查是否超时
             if (exitCode == null) {
                 log.warn("容器执行超时: {}", containerId);
@@ -339,23 +650,31 @@ public class DockerSandbox {
                         .output("")
                         .error("执行超时")
                         .executeTime(executeTime)
+                        .wallTime(executeTime)
                         .memoryUsed(0)
                         .build();
             }
             
-            // 获取容器统计信息（内存使用）
-            long memoryUsed = getContainerMemoryUsage(containerId);
+            // 获取容器输出，并解析运行器报告（CPU时间和峰值内存）
+            String[] logs = getContainerLogs(containerId);
+            RunnerReport report = RunnerReport.parse(logs[1]);
+            String stderr = report != null ? report.getRemaining() : logs[1];
+            String output = stderr.isEmpty() ? logs[0] : stderr;
+            long cpuTime = report != null && report.isMetered() ? report.getCpuTime() : executeTime;
+            long memoryUsed = report != null && report.isMetered() ? report.getPeakMemoryKb() * 1024 : 0;
             
-            log.debug("容器执行完成: containerId={}, exitCode={}, time={}ms", 
-                    containerId, exitCode, executeTime);
+            log.debug("容器执行完成: containerId={}, exitCode={}, cpu={}ms, wall={}ms, memory={}KB", 
+                    containerId, exitCode, cpuTime, executeTime, memoryUsed / 1024);
             
             return DockerExecuteResult.builder()
                     .success(exitCode == 0)
                     .exitCode(exitCode)
                     .output(output)
                     .error(exitCode != 0 ? output : "")
-                    .executeTime(executeTime)
+                    .executeTime(cpuTime)
+                    .wallTime(executeTime)
                     .memoryUsed(memoryUsed)
+                    .metered(report != null && report.isMetered())
                     .build();
             
         } catch (Exception e) {
@@ -367,6 +686,7 @@ public class DockerSandbox {
                     .output("")
                     .error("系统错误: " + e.getMessage())
                     .executeTime(executeTime)
+                    .wallTime(executeTime)
                     .memoryUsed(0)
                     .build();
         } finally {
@@ -377,24 +697,16 @@ public class DockerSandbox {
         }
     }
     
-    /**
-     * 创建容器（使用默认内存限制）
-     */
-    private String createContainer(String image, String[] command, String workDir) {
-        return createContainer(image, command, workDir, DEFAULT_MEMORY_LIMIT);
-    }
-    
     /**
      * 创建容器（带内存限制）
      */
     private String createContainer(String image, String[] command, String workDir, long memoryLimitBytes) {
         // 创建卷挂载
-        Volume volume = new Volume("/workspace");
-        Bind bind = new Bind(workDir, volume);
+        Bind[] binds = containerBinds(image, workDir);
         
         // 配置主机资源限制
         HostConfig hostConfig = HostConfig.newHostConfig()
-                .withBinds(bind)
+                .withBinds(binds)
                 .withMemory(memoryLimitBytes)
                 .withMemorySwap(memoryLimitBytes) // 禁用swap
                 .withCpuCount(CPU_COUNT)
@@ -406,7 +718,7 @@ public class DockerSandbox {
                 .withCmd(command)
                 .withWorkingDir("/workspace")
                 .withHostConfig(hostConfig)
-                .withVolumes(volume)
+                .withVolumes(volumesOf(binds))
                 .withName("oj-judge-" + UUID.randomUUID().toString().substring(0, 8))
                 .exec();
         
@@ -415,10 +727,11 @@ public class DockerSandbox {
     
     /**
      * 获取容器日志
+     * @return [标准输出, 错误输出]
      */
-    private String getContainerLogs(String containerId) {
-        try (ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-             ByteArrayOutputStream stderr = new ByteArrayOutputStream()) {
+    private String[] getContainerLogs(String containerId) {
+        try (BoundedOutputStream stdout = new BoundedOutputStream(STREAM_CAPTURE_LIMIT);
+             BoundedOutputStream stderr = new BoundedOutputStream(STREAM_CAPTURE_LIMIT)) {
             
             dockerClient.logContainerCmd(containerId)
                     .withStdOut(true)
@@ -427,31 +740,11 @@ public class DockerSandbox {
                     .exec(new LogContainerResultCallback(stdout, stderr))
                     .awaitCompletion(5, TimeUnit.SECONDS);
             
-            String output = stdout.toString("UTF-8");
-            String error = stderr.toString("UTF-8");
-            
-            if (!error.isEmpty()) {
-                return error;
-            }
-            return output;
+            return new String[]{stdout.toString(), stderr.toString()};
             
         } catch (Exception e) {
             log.error("获取容器日志失败", e);
-            return "";
-        }
-    }
-    
-    /**
-     * 获取容器内存使用情况
-     */
-    private long getContainerMemoryUsage(String containerId) {
-        try {
-            // 由于Docker API限制，这里返回估计值
-            // 实际项目中可以通过stats API获取精确值
-            return DEFAULT_MEMORY_LIMIT / 2; // 返回最大限制的一半作为估计值
-        } catch (Exception e) {
-            log.error("获取容器内存使用失败", e);
-            return 0;
+            return new String[]{"", ""};
         }
     }
     
@@ -493,6 +786,7 @@ public class DockerSandbox {
      * 创建临时工作目录（在共享目录下创建子目录）
      * @return 工作目录的绝对路径
      */
+    @Override
     public String createWorkDir() {
         try {
             // 在共享目录下创建子目录，这样容器池可以访问
@@ -512,6 +806,7 @@ public class DockerSandbox {
     /**
      * 从工作目录路径中提取子目录名称（用于容器内路径）
      */
+    @Override
     public String getSubDirName(String workDir) {
         File dir = new File(workDir);
         return dir.getName();
@@ -520,6 +815,7 @@ public class DockerSandbox {
     /**
      * 清理工作目录
      */
+    @Override
     public void cleanupWorkDir(String workDir) {
         try {
             File dir = new File(workDir);
@@ -550,8 +846,129 @@ public class DockerSandbox {
         private int exitCode;           // 退出码
         private String output;          // 标准输出
         private String error;           // 错误输出
-        private long executeTime;       // 执行时间（毫秒）
-        private long memoryUsed;        // 内存使用（字节）
+        private long executeTime;       // 执行时间（毫秒，运行器可用时为CPU时间user+sys）
+        private long wallTime;          // 墙钟时间（毫秒，含docker exec往返开销）
+        private long memoryUsed;        // 内存使用（字节，运行器可用时为峰值RSS）
+        private boolean metered;        // 时间和内存是否由评测运行器测得
+        private boolean outputLimitExceeded; // 输出是否超出限制
+    }
+    
+    /**
+     * 缓存的镜像ID
+     */
+    @lombok.AllArgsConstructor
+    private static class CachedImageId {
+        private final String imageId;
+        private final long queryTime;
+    }
+    
+    /**
+     * 评测运行器报告
+     * exec外层shell只追加退出码：@@OJRUN exit=0
+     * 单次模式下运行器在stderr末尾追加一行：@@OJRUN exit=0 cpu_ms=12 peak_kb=2048 wall_ms=15
+     * 批量模式下运行器在stderr末尾只追加退出码，标准输出为结果清单，每个用例按顺序占一行：
+     * case=0 exit=0 cpu_ms=12 peak_kb=2048 wall_ms=15
+     */
+    @lombok.Getter
+    @lombok.AllArgsConstructor
+    static class RunnerReport {
+        static final String TRAILER_PREFIX = "@@OJRUN ";
+        
+        private final int caseIndex;
+        private final int exitCode;
+        private final long cpuTime;
+        private final long peakMemoryKb;
+        private final long wallTime;
+        private final String remaining; // 去掉报告后的stderr
+        private final boolean metered;  // 是否包含CPU时间和峰值内存（只有退出码时为false）
+        
+        /**
+         * 从stderr中解析报告，没有报告时返回null
+         */
+        static RunnerReport parse(String stderr) {
+            if (stderr == null) {
+                return null;
+            }
+            int start = stderr.lastIndexOf(TRAILER_PREFIX);
+            if (start < 0) {
+                return null;
+            }
+            int end = stderr.indexOf('\n', start);
+            String line = stderr.substring(start + TRAILER_PREFIX.length(), end < 0 ? stderr.length() : end);
+            
+            // 运行器在报告前补了一个换行
+            int cut = start > 0 && stderr.charAt(start - 1) == '\n' ? start - 1 : start;
+            String remaining = stderr.substring(0, cut) + (end < 0 ? "" : stderr.substring(end + 1));
+            return parseLine(line, remaining);
+        }
+        
+        /**
+         * 解析批量模式的结果清单
+         * 运行器按用例下标从0开始依次写入，出现无法解析、下标不连续、重复或越界的行时整个清单作废，
+         * 全部用例按未运行处理（由调用方逐个重新执行），不采信其中任何一行
+         * 
+         * @return 按用例下标排列的报告，未运行的用例对应位置为null
+         */
+        static RunnerReport[] parseManifest(String manifest, int count) {
+            RunnerReport[] reports = new RunnerReport[count];
+            if (manifest == null) {
+                return reports;
+            }
+            int next = 0;
+            for (String line : manifest.split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                RunnerReport report = parseLine(line, "");
+                if (report == null || !report.metered || next >= count || report.caseIndex != next) {
+                    log.warn("批量运行结果清单异常，忽略整个清单: expectedCase={}, line={}", next, line);
+                    return new RunnerReport[count];
+                }
+                reports[next++] = report;
+            }
+            return reports;
+        }
+        
+        private static RunnerReport parseLine(String line, String remaining) {
+            int caseIndex = -1;
+            int exitCode = -1;
+            long cpuTime = 0;
+            long peakMemoryKb = 0;
+            long wallTime = 0;
+            boolean found = false;
+            boolean metered = false;
+            try {
+                for (String field : line.trim().split(" ")) {
+                    int eq = field.indexOf('=');
+                    if (eq < 0) {
+                        continue;
+                    }
+                    long value = Long.parseLong(field.substring(eq + 1));
+                    switch (field.substring(0, eq)) {
+                        case "case":
+                            caseIndex = (int) value;
+                            break;
+                        case "exit":
+                            exitCode = (int) value;
+                            found = true;
+                            break;
+                        case "cpu_ms":
+                            cpuTime = value;
+                            metered = true;
+                            break;
+                        case "peak_kb":
+                            peakMemoryKb = value;
+                            break;
+                        case "wall_ms":
+                            wallTime = value;
+                            break;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            return found ? new RunnerReport(caseIndex, exitCode, cpuTime, peakMemoryKb, wallTime, remaining, metered) : null;
+        }
     }
     
     /**
@@ -561,10 +978,10 @@ public class DockerSandbox {
             com.github.dockerjava.api.async.ResultCallbackTemplate<LogContainerResultCallback, com.github.dockerjava.api.model.Frame>,
             com.github.dockerjava.api.model.Frame> {
         
-        private final ByteArrayOutputStream stdout;
-        private final ByteArrayOutputStream stderr;
+        private final BoundedOutputStream stdout;
+        private final BoundedOutputStream stderr;
         
-        public LogContainerResultCallback(ByteArrayOutputStream stdout, ByteArrayOutputStream stderr) {
+        public LogContainerResultCallback(BoundedOutputStream stdout, BoundedOutputStream stderr) {
             this.stdout = stdout;
             this.stderr = stderr;
         }
@@ -581,6 +998,10 @@ public class DockerSandbox {
                         stderr.write(frame.getPayload());
                         break;
                 }
+                // 超出采集上限后断开输出流，不再接收后续数据
+                if (stdout.isOverflowed() || stderr.isOverflowed()) {
+                    close();
+                }
             } catch (Exception e) {
                 // 忽略
             }
@@ -0,0 +1,215 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.JudgeSlotProperties;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评测槽位管理
+ * 每个槽位独占一个CPU核心，评测任务（以及并行评测的每一路辅助线程）执行期间占用一个槽位：
+ * 1. Docker后端：借出的池化容器通过 docker update 绑定到槽位的核心（cpuset），
+ *    内存限制在编译阶段设为 compile-memory，运行阶段设为题目内存限制加余量；
+ *    容器中的常驻运行器（预热JVM、zygote）与评测程序共用容器的cgroup，两个阶段都额外加上它的预留内存。
+ *    池化容器同一时刻只被一个任务使用，容器的cgroup就是该任务独占的cgroup
+ * 2. 本地后端：每次执行创建的子cgroup写入槽位核心的 cpuset.cpus
+ * 3. 评测消费者数量等于槽位数，保证满载时每个任务都有独占的核心，计时不受其他任务干扰；
+ *    并行评测的辅助线程名额为槽位数减一（见 {@link ParallelJudgeExecutor}），辅助线程只使用空闲的槽位
+ */
+@Slf4j
+@Component("judgeSlotManager")
+public class JudgeSlotManager {
+
+    @Autowired
+    private JudgeSlotProperties properties;
+
+    @Autowired
+    private DockerSandbox dockerSandbox;
+
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+
+    private final LinkedBlockingQueue<Slot> freeSlots = new LinkedBlockingQueue<>();
+
+    // 当前线程占用的槽位，本地后端创建cgroup时读取
+    private final ThreadLocal<Slot> currentSlot = new ThreadLocal<>();
+
+    private int totalSlots;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            log.info("评测槽位未启用");
+            return;
+        }
+        List<Integer> cpus = parseCpus(properties.getCpus());
+        for (int i = 0; i < cpus.size(); i++) {
+            freeSlots.add(new Slot(i, cpus.get(i)));
+        }
+        totalSlots = cpus.size();
+        if (judgeMetrics != null) {
+            judgeMetrics.registerJudgeSlots(totalSlots, freeSlots::size);
+        }
+        log.info("评测槽位初始化完成: slots={}, cpus={}", totalSlots, cpus);
+    }
+
+    public boolean isEnabled() {
+        return totalSlots > 0;
+    }
+
+    /**
+     * 槽位总数，未启用时为0
+     */
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+
+    /**
+     * 评测消费者并发数：每个槽位一个消费者，未启用时返回空字符串（沿用默认配置）
+     */
+    public String getConsumerConcurrency() {
+        return isEnabled() ? String.valueOf(totalSlots) : "";
+    }
+
+    /**
+     * 占用一个槽位并绑定到当前线程，没有空闲槽位时一直等待（每等待 acquire-timeout 毫秒记录一次告警）
+     * 评测消费者数量等于槽位数，正常情况下不会等待；不会在未绑定CPU的情况下继续评测，避免计时受其他任务干扰
+     *
+     * @return 槽位；未启用时返回null
+     * @throws IllegalStateException 等待被中断（评测服务关闭）
+     */
+    public Slot acquire() {
+        if (!isEnabled()) {
+            return null;
+        }
+        long waited = 0;
+        try {
+            while (true) {
+                Slot slot = freeSlots.poll(properties.getAcquireTimeout(), TimeUnit.MILLISECONDS);
+                if (slot != null) {
+                    currentSlot.set(slot);
+                    return slot;
+                }
+                waited += properties.getAcquireTimeout();
+                log.warn("等待空闲评测槽位已超过{}ms，继续等待: slots={}", waited, totalSlots);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待评测槽位被中断");
+        }
+    }
+
+    /**
+     * 尝试占用一个槽位并绑定到当前线程，不等待
+     */
+    public Slot tryAcquire() {
+        Slot slot = freeSlots.poll();
+        currentSlot.set(slot);
+        return slot;
+    }
+
+    /**
+     * 归还槽位并解除当前线程的绑定
+     */
+    public void release(Slot slot) {
+        currentSlot.remove();
+        if (slot != null) {
+            freeSlots.offer(slot);
+        }
+    }
+
+    /**
+     * 当前线程占用的槽位
+     */
+    public Slot currentSlot() {
+        return currentSlot.get();
+    }
+
+    /**
+     * 编译阶段：容器内存设为 compile-memory
+     *
+     * @param residentMb 容器内常驻运行器的预留内存（MB）
+     */
+    public void applyCompileLimits(ContainerPool.PooledContainer container, int residentMb) {
+        applyToContainer(container, properties.getCompileMemory() + residentMb);
+    }
+
+    /**
+     * 运行阶段：容器内存设为题目内存限制加余量
+     *
+     * @param residentMb 容器内常驻运行器的预留内存（MB）
+     */
+    public void applyRunLimits(ContainerPool.PooledContainer container, int memoryLimitMb, int residentMb) {
+        applyToContainer(container, memoryLimitMb + properties.getMemoryHeadroom() + residentMb);
+    }
+
+    /**
+     * 把借出的容器绑定到当前线程槽位的核心并设置内存限制，与容器当前设置相同时跳过
+     */
+    private void applyToContainer(ContainerPool.PooledContainer container, int memoryMb) {
+        Slot slot = currentSlot.get();
+        if (slot == null || container == null) {
+            return;
+        }
+        String cpuset = String.valueOf(slot.getCpu());
+        long memoryBytes = memoryMb * 1024L * 1024L;
+        if (cpuset.equals(container.getCpuset()) && memoryBytes == container.getMemoryLimit()) {
+            return;
+        }
+        if (dockerSandbox.updateContainerResources(container.getContainerId(), cpuset, memoryBytes)) {
+            container.applyResources(cpuset, memoryBytes);
+        } else {
+            // 设置失败时容器的实际限制未知，销毁重建
+            container.markBroken();
+        }
+    }
+
+    /**
+     * 解析 cpuset 格式的核心列表，为空时使用除 0 号核心外的全部核心
+     */
+    static List<Integer> parseCpus(String cpus) {
+        TreeSet<Integer> result = new TreeSet<>();
+        if (cpus == null || cpus.isBlank()) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int cpu = processors > 1 ? 1 : 0; cpu < processors; cpu++) {
+                result.add(cpu);
+            }
+            return new ArrayList<>(result);
+        }
+        for (String part : cpus.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                result.add(Integer.parseInt(range));
+            } else {
+                int from = Integer.parseInt(range.substring(0, dash).trim());
+                int to = Integer.parseInt(range.substring(dash + 1).trim());
+                for (int cpu = from; cpu <= to; cpu++) {
+                    result.add(cpu);
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * 评测槽位
+     */
+    @Value
+    public static class Slot {
+        int index;
+        int cpu;
+    }
+}
@@ -24,6 +24,57 @@ public interface LanguageSandbox {
      */
     JudgeResult judge(String code, List<JudgeTestCase> testCases, int timeLimit, int memoryLimit);
     
+    /**
+     * 执行代码评测（带评测选项）
+     * 
+     * @param code 代码内容
+     * @param testCases 测试用例列表
+     * @param options 评测选项（时间/内存限制、是否并行等）
+     * @return 评测结果
+     */
+    default JudgeResult judge(String code, List<JudgeTestCase> testCases, JudgeOptions options) {
+        return judge(code, testCases, options.getTimeLimit(), options.getMemoryLimit());
+    }
+    
+    /**
+     * 评测选项（来自题目配置）
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class JudgeOptions {
+        /**
+         * 时间限制（毫秒）
+         */
+        private int timeLimit;
+        
+        /**
+         * 内存限制（MB）
+         */
+        private int memoryLimit;
+        
+        /**
+         * 输出限制（MB），0表示使用默认值
+         */
+        private int outputLimit;
+        
+        /**
+         * 是否并行执行测试用例
+         */
+        private boolean parallel;
+        
+        /**
+         * 输出比对模式（EXACT/WHITESPACE/FLOAT/CASE_INSENSITIVE），为空时精确比对
+         */
+        private String checkerMode;
+        
+        /**
+         * 浮点数比对误差（绝对误差或相对误差），不大于0时使用默认值
+         */
+        private double checkerEpsilon;
+    }
+    
     /**
      * 评测结果
      */
@@ -0,0 +1,807 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.LocalSandboxProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地进程沙箱（不依赖Docker）
+ * 直接在宿主机上执行编译和运行命令，与 {@link DockerSandbox} 的执行约定一致，省去Docker守护进程往返：
+ * 1. 每次执行创建独立的 cgroup（v2 或 v1 的 memory/pids 子系统），限制内存和进程数，结束后整组清理
+ * 2. 通过 unshare 创建独立的挂载和网络命名空间：工作目录根路径和预期输出目录被空的tmpfs覆盖，
+ *    只有本次评测的工作目录重新挂载回来，测试数据输入目录只读挂载，并且禁止网络访问
+ * 3. 每次评测独占一个专用用户（见 run-uid / uid-count），工作目录属于该用户且权限为0700，
+ *    通过 setpriv 切换到该用户执行，并禁止再提升权限
+ * 4. 通过 prlimit 限制打开文件数、禁止core文件，cgroup不可用时改用进程数和虚拟地址空间限制
+ * 5. cgroup v2 支持 cpuset 时，把执行绑定到当前线程占用的评测槽位核心（见 {@link JudgeSlotManager}）
+ *
+ * 切换用户和挂载命名空间需要评测服务以root运行，做不到时本地沙箱拒绝启用，
+ * 只有显式设置 trusted-ci 的可信CI环境才会以评测服务用户直接运行
+ * 评测运行器 ojrun 使用宿主机gcc编译，时间和内存测量方式与容器内一致
+ */
+@Slf4j
+@Component
+public class LocalSandbox implements SandboxBackend {
+
+    @Autowired
+    private LocalSandboxProperties properties;
+
+    @Autowired(required = false)
+    private JudgeSlotManager judgeSlotManager;
+
+    @Autowired(required = false)
+    private TestDataCache testDataCache;
+
+    private static final String RUNNER_SOURCE = "ojrun.c";
+    private static final String RUNNER_BINARY = "ojrun";
+    private static final String RUNNER_DIR = ".runner";
+    private static final String JOBS_DIR = "jobs";
+
+    // 工作目录只允许所属的专用用户访问，根目录只允许进入、不允许列出
+    private static final Set<PosixFilePermission> JOB_DIR_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> ROOT_DIR_PERMISSIONS = PosixFilePermissions.fromString("rwx--x--x");
+
+    // 等待空闲专用用户的最长时间（秒）
+    private static final int UID_ACQUIRE_TIMEOUT = 30;
+
+    // 输出流的采集上限：程序输出已重定向到文件，流中只有编译信息和运行器报告
+    private static final int STREAM_CAPTURE_LIMIT = 1024 * 1024;
+
+    // 工具链标识缓存时间，编译器升级后最多5分钟旧的编译缓存失效
+    private static final long TOOLCHAIN_ID_TTL = 5 * 60 * 1000L;
+    private final Map<String, CachedToolchainId> toolchainIds = new ConcurrentHashMap<>();
+
+    private boolean initialized = false;
+    private volatile boolean available = false;
+    private Path workRoot;
+    private Path jobsRoot;
+    private String runnerPath;
+    private boolean dropPrivileges;
+    private boolean prlimitAvailable;
+    // 命名空间前缀：root时为 unshare --mount [--net]，可信CI的普通用户为 unshare --user --net
+    private List<String> namespacePrefix;
+    private boolean mountIsolation;
+    private boolean networkIsolation;
+    // 空闲的专用用户ID，工作目录 -> 该评测独占的用户ID
+    private final BlockingQueue<Integer> freeUids = new LinkedBlockingQueue<>();
+    private final Map<String, Integer> jobUids = new ConcurrentHashMap<>();
+    private List<Path> cgroupParents;
+    private boolean cgroupV2;
+    private boolean cgroupCpuset;
+
+    /**
+     * 探测宿主机支持的隔离手段并编译评测运行器
+     * 只在选用本地后端时由 SandboxFactory 调用，重复调用直接返回
+     */
+    public synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        if (!System.getProperty("os.name", "").toLowerCase().startsWith("linux")) {
+            log.info("本地沙箱只支持Linux，当前系统: {}", System.getProperty("os.name"));
+            return;
+        }
+        try {
+            workRoot = Paths.get(properties.getWorkDir()).toAbsolutePath();
+            jobsRoot = workRoot.resolve(JOBS_DIR);
+            Files.createDirectories(jobsRoot);
+
+            boolean root = Integer.valueOf(0).equals(Files.getAttribute(Paths.get("/proc/self"), "unix:uid"));
+            dropPrivileges = root && properties.getRunUid() >= 0 && properties.getUidCount() > 0
+                    && probe("setpriv", "--version");
+            initNamespaces(root);
+            if ((!dropPrivileges || !mountIsolation) && !properties.isTrustedCi()) {
+                log.error("本地沙箱：无法切换到专用用户或创建挂载命名空间（需要以root运行并提供setpriv、unshare），拒绝启用。"
+                        + "只运行可信代码的CI环境可以设置 judge.sandbox.local.trusted-ci=true");
+                return;
+            }
+            if (dropPrivileges) {
+                Files.setPosixFilePermissions(workRoot, ROOT_DIR_PERMISSIONS);
+                Files.setPosixFilePermissions(jobsRoot, ROOT_DIR_PERMISSIONS);
+                for (int i = 0; i < properties.getUidCount(); i++) {
+                    freeUids.add(properties.getRunUid() + i);
+                }
+            }
+            prlimitAvailable = probe("prlimit", "--version");
+            initCgroup();
+            initRunner();
+            available = true;
+
+            log.info("本地沙箱初始化完成: workDir={}, runner={}, uid={}, mount={}, network={}, cgroup={}, prlimit={}",
+                    workRoot, runnerPath != null,
+                    dropPrivileges ? properties.getRunUid() + "+" + properties.getUidCount() : "不切换",
+                    mountIsolation ? "隔离" : "未隔离",
+                    networkIsolation ? "隔离" : "未隔离",
+                    cgroupParents == null ? "不可用" : (cgroupV2 ? "v2" : "v1"),
+                    prlimitAvailable);
+            if (!dropPrivileges || !mountIsolation) {
+                log.warn("本地沙箱：已按 trusted-ci 启用，评测进程可以访问评测服务用户的文件，只能运行可信代码");
+            }
+        } catch (Exception e) {
+            log.error("本地沙箱初始化失败", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public boolean supportsContainerPool() {
+        return false;
+    }
+
+    /**
+     * 创建工作目录，切换用户时为本次评测独占一个专用用户，工作目录属于该用户且只有该用户可以访问
+     */
+    @Override
+    public String createWorkDir() {
+        Integer uid = null;
+        try {
+            if (dropPrivileges) {
+                uid = freeUids.poll(UID_ACQUIRE_TIMEOUT, TimeUnit.SECONDS);
+                if (uid == null) {
+                    throw new IllegalStateException("没有空闲的评测专用用户");
+                }
+            }
+            Path workDir = Files.createDirectory(jobsRoot.resolve("job-" + UUID.randomUUID()),
+                    PosixFilePermissions.asFileAttribute(JOB_DIR_PERMISSIONS));
+            // 切换用户后评测进程需要在工作目录中写入编译产物和输出文件
+            if (uid != null) {
+                Files.setPosixFilePermissions(workDir, JOB_DIR_PERMISSIONS);
+                Files.setAttribute(workDir, "unix:uid", uid);
+                Files.setAttribute(workDir, "unix:gid", properties.getRunGid());
+                jobUids.put(workDir.toString(), uid);
+            }
+            log.debug("创建工作目录: {}, uid={}", workDir, uid);
+            return workDir.toString();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (uid != null) {
+                freeUids.offer(uid);
+            }
+            log.error("创建工作目录失败", e);
+            throw new RuntimeException("创建工作目录失败", e);
+        }
+    }
+
+    @Override
+    public String getSubDirName(String workDir) {
+        return new File(workDir).getName();
+    }
+
+    @Override
+    public void cleanupWorkDir(String workDir) {
+        try {
+            deleteRecursively(Paths.get(workDir));
+            log.debug("清理工作目录成功: {}", workDir);
+        } catch (Exception e) {
+            log.error("清理工作目录失败: {}", workDir, e);
+        } finally {
+            // 每次执行结束时cgroup已整组清理，该用户不再有残留进程
+            Integer uid = jobUids.remove(workDir);
+            if (uid != null) {
+                freeUids.offer(uid);
+            }
+        }
+    }
+
+    /**
+     * 工具链标识：编译命令中编译器可执行文件的真实路径、大小和修改时间
+     */
+    @Override
+    public String getToolchainId(String image, String compileCommand) {
+        if (compileCommand == null || compileCommand.isBlank()) {
+            return null;
+        }
+        String executable = compileCommand.trim().split("\\s+")[0];
+        CachedToolchainId cached = toolchainIds.get(executable);
+        if (cached != null && System.currentTimeMillis() - cached.queryTime < TOOLCHAIN_ID_TTL) {
+            return cached.toolchainId;
+        }
+        Path path = findExecutable(executable);
+        if (path == null) {
+            return null;
+        }
+        try {
+            Path realPath = path.toRealPath();
+            String toolchainId = "local:" + realPath + ":" + Files.size(realPath) + ":"
+                    + Files.getLastModifiedTime(realPath).toMillis();
+            toolchainIds.put(executable, new CachedToolchainId(toolchainId, System.currentTimeMillis()));
+            return toolchainId;
+        } catch (IOException e) {
+            log.debug("查询工具链失败: {}, error={}", executable, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String[] meteredCommand(String shellCommand, long outputLimitBytes) {
+        if (runnerPath != null) {
+            return new String[]{
+                    runnerPath,
+                    "--output-limit", String.valueOf(outputLimitBytes),
+                    "--", "sh", "-c", shellCommand
+            };
+        }
+        return new String[]{"sh", "-c", shellCommand};
+    }
+
+    @Override
+    public String[] batchCommand(String runCommand, int count, long timeoutMs, long outputLimitBytes) {
+        if (runnerPath == null) {
+            return null;
+        }
+        return new String[]{
+                runnerPath,
+                "--batch", String.valueOf(count),
+                "--timeout", String.valueOf(timeoutMs),
+                "--fail-fast",
+                "--output-limit", String.valueOf(outputLimitBytes),
+                "--", "sh", "-c", runCommand
+        };
+    }
+
+    /**
+     * 本地后端直接读取宿主机上的缓存文件
+     */
+    @Override
+    public String testDataPath(String hostFile) {
+        return hostFile;
+    }
+
+    /**
+     * 在宿主机上执行命令
+     * 进程退出码直接取得；运行器可用时从stderr末尾的报告解析CPU时间和峰值内存
+     */
+    @Override
+    public DockerSandbox.DockerExecuteResult execute(String image, String[] command, String workDir,
+                                                     int timeoutSeconds, int memoryLimitMB) {
+        long startTime = System.currentTimeMillis();
+        long memoryLimitBytes = memoryLimitMB * 1024L * 1024L;
+        JobCgroup cgroup = createCgroup(memoryLimitBytes);
+        Process process = null;
+
+        try {
+            ProcessBuilder builder = new ProcessBuilder(wrapCommand(command, workDir, cgroup, memoryLimitBytes))
+                    .directory(new File(workDir));
+            Map<String, String> environment = builder.environment();
+            environment.clear();
+            environment.put("PATH", properties.getPath() != null ? properties.getPath() : System.getenv("PATH"));
+            environment.put("HOME", workDir);
+            environment.put("TMPDIR", workDir);
+            environment.put("LANG", "C.UTF-8");
+
+            process = builder.start();
+            process.getOutputStream().close();
+
+            // 输出超出采集上限时立即杀死整组进程，不让其阻塞在写管道上
+            Process started = process;
+            Runnable onOverflow = () -> kill(started, cgroup);
+            BoundedOutputStream stdout = new BoundedOutputStream(STREAM_CAPTURE_LIMIT);
+            BoundedOutputStream stderr = new BoundedOutputStream(STREAM_CAPTURE_LIMIT);
+            StreamPump stdoutPump = new StreamPump(process.getInputStream(), stdout, onOverflow);
+            StreamPump stderrPump = new StreamPump(process.getErrorStream(), stderr, onOverflow);
+            stdoutPump.start();
+            stderrPump.start();
+
+            boolean completed = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            long executeTime = System.currentTimeMillis() - startTime;
+            if (!completed) {
+                kill(process, cgroup);
+            }
+            // 后台残留的进程可能仍持有管道，最多再等1秒
+            stdoutPump.join(1000);
+            stderrPump.join(1000);
+
+            String output = stdout.toString();
+            String error = stderr.toString();
+
+            if (stdout.isOverflowed() || stderr.isOverflowed()) {
+                log.warn("本地执行输出超出采集上限: time={}ms", executeTime);
+                return DockerSandbox.DockerExecuteResult.builder()
+                        .success(false)
+                        .exitCode(-1)
+                        .output(output)
+                        .error("输出超限")
+                        .executeTime(executeTime)
+                        .wallTime(executeTime)
+                        .memoryUsed(0)
+                        .outputLimitExceeded(true)
+                        .build();
+            }
+
+            if (!completed) {
+                log.warn("本地执行超时: time={}ms", executeTime);
+                return DockerSandbox.DockerExecuteResult.builder()
+                        .success(false)
+                        .exitCode(-1)
+                        .output(output)
+                        .error("执行超时")
+                        .executeTime(executeTime)
+                        .wallTime(executeTime)
+                        .memoryUsed(0)
+                        .build();
+            }
+
+            int exitCode = process.exitValue();
+            long cpuTime = executeTime;
+            long memoryUsed = 0;
+            DockerSandbox.RunnerReport report = DockerSandbox.RunnerReport.parse(error);
+            if (report != null) {
+                error = report.getRemaining();
+                exitCode = report.getExitCode();
+                if (report.isMetered()) {
+                    cpuTime = report.getCpuTime();
+                    memoryUsed = report.getPeakMemoryKb() * 1024;
+                }
+            }
+            // 被cgroup的OOM killer杀死时，峰值RSS可能还没达到限制，按内存超限处理
+            if (cgroup != null && cgroup.isOomKilled()) {
+                memoryUsed = Math.max(memoryUsed, memoryLimitBytes + 1);
+            }
+
+            log.debug("本地执行完成: exitCode={}, cpu={}ms, wall={}ms, memory={}KB",
+                    exitCode, cpuTime, executeTime, memoryUsed / 1024);
+
+            return DockerSandbox.DockerExecuteResult.builder()
+                    .success(exitCode == 0)
+                    .exitCode(exitCode)
+                    .output(output)
+                    .error(error.isEmpty() ? (exitCode != 0 ? output : "") : error)
+                    .executeTime(cpuTime)
+                    .wallTime(executeTime)
+                    .memoryUsed(memoryUsed)
+                    .metered(report != null && report.isMetered())
+                    .build();
+
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            long executeTime = System.currentTimeMillis() - startTime;
+            log.error("本地执行失败", e);
+            return DockerSandbox.DockerExecuteResult.builder()
+                    .success(false)
+                    .exitCode(-1)
+                    .output("")
+                    .error("系统错误: " + e.getMessage())
+                    .executeTime(executeTime)
+                    .wallTime(executeTime)
+                    .memoryUsed(0)
+                    .build();
+        } finally {
+            if (process != null && process.isAlive()) {
+                kill(process, cgroup);
+            }
+            if (cgroup != null) {
+                cgroup.remove();
+            }
+        }
+    }
+
+    /**
+     * 按 加入cgroup -> 命名空间（挂载隔离） -> 切换用户 -> 资源限制 -> 命令 的顺序包装命令，每一层都exec下一层
+     */
+    private List<String> wrapCommand(String[] command, String workDir, JobCgroup cgroup, long memoryLimitBytes) {
+        List<String> wrapped = new ArrayList<>();
+        if (cgroup != null) {
+            StringBuilder script = new StringBuilder();
+            for (Path procs : cgroup.getProcsFiles()) {
+                script.append("echo $$ > ").append(quote(procs.toString())).append(" || exit 125; ");
+            }
+            script.append("exec \"$@\"");
+            wrapped.addAll(List.of("sh", "-c", script.toString(), "ojcg"));
+        }
+        if (namespacePrefix != null) {
+            wrapped.addAll(namespacePrefix);
+            if (mountIsolation) {
+                wrapped.addAll(List.of("sh", "-c", mountScript(workDir), "ojns"));
+            }
+        }
+        if (dropPrivileges) {
+            Integer uid = jobUids.get(workDir);
+            if (uid == null) {
+                throw new IllegalStateException("工作目录没有对应的评测专用用户: " + workDir);
+            }
+            wrapped.addAll(List.of("setpriv",
+                    "--reuid=" + uid,
+                    "--regid=" + properties.getRunGid(),
+                    "--clear-groups",
+                    "--no-new-privs",
+                    "--"));
+        }
+        if (prlimitAvailable) {
+            wrapped.add("prlimit");
+            wrapped.add("--core=0");
+            wrapped.add("--nofile=" + properties.getMaxOpenFiles());
+            if (cgroup == null) {
+                wrapped.add("--nproc=" + properties.getMaxProcesses());
+                if (properties.getAddressSpaceHeadroom() > 0) {
+                    wrapped.add("--as=" + (memoryLimitBytes + properties.getAddressSpaceHeadroom() * 1024L * 1024L));
+                }
+            }
+            wrapped.add("--");
+        }
+        wrapped.addAll(Arrays.asList(command));
+        return wrapped;
+    }
+
+    /**
+     * 杀死进程及其全部后代，cgroup可用时连同已脱离进程树的进程一起清理
+     */
+    private void kill(Process process, JobCgroup cgroup) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        if (cgroup != null) {
+            cgroup.kill();
+        }
+    }
+
+    /**
+     * 在挂载命名空间中隐藏其他评测的工作目录和预期输出，只留下本次的工作目录和只读的测试数据输入目录
+     * 工作目录根路径被tmpfs覆盖后，通过当前目录（仍指向原工作目录）把本次的工作目录绑定回原路径
+     */
+    private String mountScript(String workDir) {
+        List<String> steps = new ArrayList<>();
+        steps.add("mount --make-rprivate /");
+        steps.add("mount -t tmpfs -o size=64k,mode=0711 ojjobs " + quote(jobsRoot.toString()));
+        steps.add("mkdir " + quote(workDir));
+        steps.add("mount --bind . " + quote(workDir));
+        Path outputDir = testDataCache != null ? testDataCache.getOutputDir() : null;
+        if (outputDir != null) {
+            steps.add("mount -t tmpfs -o size=64k,mode=0700 ojout " + quote(outputDir.toString()));
+        }
+        Path inputDir = testDataCache != null ? testDataCache.getInputDir() : null;
+        if (inputDir != null) {
+            steps.add("mount --bind " + quote(inputDir.toString()) + " " + quote(inputDir.toString()));
+            steps.add("mount -o remount,bind,ro " + quote(inputDir.toString()));
+        }
+        steps.add("cd " + quote(workDir));
+        StringBuilder script = new StringBuilder();
+        for (String step : steps) {
+            script.append(step).append(" || exit 125; ");
+        }
+        return script.append("exec \"$@\"").toString();
+    }
+
+    /**
+     * 探测命名空间隔离：root创建挂载和网络命名空间，普通用户（仅可信CI）借助用户命名空间隔离网络
+     */
+    private void initNamespaces(boolean root) {
+        if (root) {
+            if (properties.isNetworkIsolation() && probe("unshare", "--mount", "--net", "--", "true")) {
+                namespacePrefix = List.of("unshare", "--mount", "--net", "--");
+                networkIsolation = true;
+            } else if (probe("unshare", "--mount", "--", "true")) {
+                namespacePrefix = List.of("unshare", "--mount", "--");
+            }
+            mountIsolation = namespacePrefix != null;
+        } else if (properties.isNetworkIsolation()
+                && probe("unshare", "--user", "--map-root-user", "--net", "--", "true")) {
+            namespacePrefix = List.of("unshare", "--user", "--map-root-user", "--net", "--");
+            networkIsolation = true;
+        }
+        if (properties.isNetworkIsolation() && !networkIsolation) {
+            log.warn("本地沙箱：无法创建网络命名空间，评测进程可以访问网络");
+        }
+    }
+
+    /**
+     * 初始化评测专用的父cgroup：优先使用cgroup v2，其次使用v1的memory和pids子系统
+     */
+    private void initCgroup() {
+        Path root = Paths.get(properties.getCgroupRoot());
+        String name = properties.getCgroupName();
+        try {
+            if (Files.exists(root.resolve("cgroup.controllers"))) {
+                Path parent = root.resolve(name);
+                Files.createDirectories(parent);
+                for (String controller : new String[]{"+memory", "+pids"}) {
+                    writeQuietly(root.resolve("cgroup.subtree_control"), controller);
+                    Files.writeString(parent.resolve("cgroup.subtree_control"), controller);
+                }
+                // cpuset 控制器可选，不可用时只是不绑定CPU
+                writeQuietly(root.resolve("cgroup.subtree_control"), "+cpuset");
+                writeQuietly(parent.resolve("cgroup.subtree_control"), "+cpuset");
+                cgroupCpuset = Files.readString(parent.resolve("cgroup.subtree_control")).contains("cpuset");
+                cgroupParents = List.of(parent);
+                cgroupV2 = true;
+            } else if (Files.isDirectory(root.resolve("memory")) && Files.isDirectory(root.resolve("pids"))) {
+                Path memoryParent = root.resolve("memory").resolve(name);
+                Path pidsParent = root.resolve("pids").resolve(name);
+                Files.createDirectories(memoryParent);
+                Files.createDirectories(pidsParent);
+                cgroupParents = List.of(memoryParent, pidsParent);
+                cgroupV2 = false;
+            } else {
+                log.warn("本地沙箱：未找到可用的cgroup，内存限制退化为虚拟地址空间限制");
+            }
+        } catch (Exception e) {
+            cgroupParents = null;
+            log.warn("本地沙箱：cgroup不可用，内存限制退化为虚拟地址空间限制: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 为单次执行创建cgroup，创建失败时返回null（只依赖rlimit限制）
+     */
+    private JobCgroup createCgroup(long memoryLimitBytes) {
+        if (cgroupParents == null) {
+            return null;
+        }
+        String name = "job-" + UUID.randomUUID().toString().substring(0, 8);
+        List<Path> dirs = new ArrayList<>();
+        try {
+            for (Path parent : cgroupParents) {
+                dirs.add(Files.createDirectory(parent.resolve(name)));
+            }
+            if (cgroupV2) {
+                Path dir = dirs.get(0);
+                Files.writeString(dir.resolve("memory.max"), String.valueOf(memoryLimitBytes));
+                writeQuietly(dir.resolve("memory.swap.max"), "0");
+                Files.writeString(dir.resolve("pids.max"), String.valueOf(properties.getMaxProcesses()));
+                JudgeSlotManager.Slot slot = judgeSlotManager != null ? judgeSlotManager.currentSlot() : null;
+                if (cgroupCpuset && slot != null) {
+                    writeQuietly(dir.resolve("cpuset.cpus"), String.valueOf(slot.getCpu()));
+                }
+            } else {
+                Files.writeString(dirs.get(0).resolve("memory.limit_in_bytes"), String.valueOf(memoryLimitBytes));
+                writeQuietly(dirs.get(0).resolve("memory.memsw.limit_in_bytes"), String.valueOf(memoryLimitBytes));
+                Files.writeString(dirs.get(1).resolve("pids.max"), String.valueOf(properties.getMaxProcesses()));
+            }
+            return new JobCgroup(dirs, cgroupV2);
+        } catch (IOException e) {
+            log.warn("创建cgroup失败: {}", e.getMessage());
+            new JobCgroup(dirs, cgroupV2).remove();
+            return null;
+        }
+    }
+
+    /**
+     * 使用宿主机gcc编译评测运行器，源码未变化时复用已有的二进制
+     */
+    private void initRunner() throws IOException {
+        Path runnerDir = workRoot.resolve(RUNNER_DIR);
+        Files.createDirectories(runnerDir);
+        Path binaryPath = runnerDir.resolve(RUNNER_BINARY);
+        try (InputStream in = getClass().getResourceAsStream("/sandbox/" + RUNNER_SOURCE)) {
+            if (in == null) {
+                return;
+            }
+            byte[] source = in.readAllBytes();
+            Path sourcePath = runnerDir.resolve(RUNNER_SOURCE);
+            if (!Files.exists(sourcePath) || !Arrays.equals(Files.readAllBytes(sourcePath), source)) {
+                Files.write(sourcePath, source);
+                Files.deleteIfExists(binaryPath);
+            }
+        }
+        if (!Files.isExecutable(binaryPath)
+                && !probe("gcc", "-O2", "-o", binaryPath.toString(), runnerDir.resolve(RUNNER_SOURCE).toString())) {
+            log.warn("本地沙箱：评测运行器编译失败，运行时间退化为墙钟时间");
+            return;
+        }
+        runnerPath = binaryPath.toString();
+    }
+
+    /**
+     * 执行探测命令，10秒内正常退出返回true
+     */
+    private boolean probe(String... command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Path findExecutable(String executable) {
+        if (executable.contains("/")) {
+            Path path = Paths.get(executable);
+            return Files.isExecutable(path) ? path : null;
+        }
+        String path = properties.getPath() != null ? properties.getPath() : System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            Path candidate = Paths.get(dir, executable);
+            if (Files.isExecutable(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    private static void writeQuietly(Path file, String value) {
+        try {
+            Files.writeString(file, value);
+        } catch (IOException e) {
+            // 控制器已启用或内核不支持该文件
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> -a.compareTo(b)).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.error("删除文件失败: {}", path, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 单次执行的cgroup（v2时只有一个目录，v1时依次为memory和pids子系统下的目录）
+     */
+    private static class JobCgroup {
+        private final List<Path> dirs;
+        private final boolean v2;
+
+        JobCgroup(List<Path> dirs, boolean v2) {
+            this.dirs = dirs;
+            this.v2 = v2;
+        }
+
+        List<Path> getProcsFiles() {
+            List<Path> procsFiles = new ArrayList<>();
+            for (Path dir : dirs) {
+                procsFiles.add(dir.resolve("cgroup.procs"));
+            }
+            return procsFiles;
+        }
+
+        /**
+         * 是否有进程因超出内存限制被OOM killer杀死
+         */
+        boolean isOomKilled() {
+            if (dirs.isEmpty()) {
+                return false;
+            }
+            Path events = dirs.get(0).resolve(v2 ? "memory.events" : "memory.oom_control");
+            try {
+                for (String line : Files.readAllLines(events)) {
+                    if (line.startsWith("oom_kill ")) {
+                        return Long.parseLong(line.substring("oom_kill ".length()).trim()) > 0;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // 旧内核没有oom_kill计数
+            }
+            return false;
+        }
+
+        /**
+         * 杀死组内全部进程（包括已脱离进程树的后台进程）
+         */
+        void kill() {
+            if (v2 && !dirs.isEmpty()) {
+                writeQuietly(dirs.get(0).resolve("cgroup.kill"), "1");
+            }
+            for (Path dir : dirs) {
+                try {
+                    for (String pid : Files.readAllLines(dir.resolve("cgroup.procs"))) {
+                        if (!pid.isBlank()) {
+                            ProcessHandle.of(Long.parseLong(pid.trim())).ifPresent(ProcessHandle::destroyForcibly);
+                        }
+                    }
+                } catch (IOException | NumberFormatException e) {
+                    // cgroup已被删除
+                }
+            }
+        }
+
+        /**
+         * 删除cgroup，组内还有进程时先杀死，等待进程退出后再删除
+         */
+        void remove() {
+            for (Path dir : dirs) {
+                for (int attempt = 0; attempt < 20 && Files.exists(dir); attempt++) {
+                    try {
+                        Files.delete(dir);
+                    } catch (IOException e) {
+                        kill();
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 把子进程的输出流读入有上限的缓冲区，超出上限时回调并停止读取
+     */
+    private static class StreamPump extends Thread {
+        private final InputStream in;
+        private final BoundedOutputStream out;
+        private final Runnable onOverflow;
+
+        StreamPump(InputStream in, BoundedOutputStream out, Runnable onOverflow) {
+            super("local-sandbox-pump");
+            setDaemon(true);
+            this.in = in;
+            this.out = out;
+            this.onOverflow = onOverflow;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[8192];
+            try {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                    if (out.isOverflowed()) {
+                        onOverflow.run();
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // 进程被杀死后管道关闭
+            }
+        }
+    }
+
+    /**
+     * 缓存的工具链标识
+     */
+    @lombok.AllArgsConstructor
+    private static class CachedToolchainId {
+        private final String toolchainId;
+        private final long queryTime;
+    }
+}
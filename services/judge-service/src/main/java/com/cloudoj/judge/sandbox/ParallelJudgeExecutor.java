@@ -0,0 +1,93 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.ParallelJudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用例并行执行器
+ * 维护全局评测名额，所有提交的并行用例共享这些名额，避免并行评测挤占宿主机CPU；
+ * 启用评测槽位时名额由槽位数决定（槽位数减一），不再单独配置
+ */
+@Slf4j
+@Component
+public class ParallelJudgeExecutor {
+
+    @Autowired
+    private ParallelJudgeProperties properties;
+
+    @Autowired
+    private JudgeSlotManager judgeSlotManager;
+
+    private Semaphore slots;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int globalSlots = judgeSlotManager.isEnabled()
+                ? judgeSlotManager.getTotalSlots() - 1
+                : Math.max(properties.getGlobalSlots(), 0);
+        slots = new Semaphore(globalSlots);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(globalSlots, 1), r -> {
+            Thread thread = new Thread(r, "parallel-judge-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("并行评测执行器初始化完成: globalSlots={}, maxFanOut={}", globalSlots, properties.getMaxFanOut());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 是否启用并行执行
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled() && properties.getMaxFanOut() > 1;
+    }
+
+    /**
+     * 单次提交的最大并行度
+     */
+    public int getMaxFanOut() {
+        return properties.getMaxFanOut();
+    }
+
+    /**
+     * 尝试占用一个全局名额提交辅助任务
+     *
+     * @return 任务Future；没有空闲名额时返回null（调用方自行串行执行）
+     */
+    public Future<Void> trySubmit(Callable<Void> task) {
+        if (!slots.tryAcquire()) {
+            return null;
+        }
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (Exception e) {
+            slots.release();
+            log.warn("提交并行评测任务失败: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,185 +1,101 @@
 package com.cloudoj.judge.sandbox;
 
-import com.cloudoj.model.dto.judge.JudgeTestCase;
-import com.cloudoj.model.enums.JudgeStatusEnum;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Python语言沙箱
  * Docker镜像：python:3.13-slim
  * 支持容器池模式，复用容器减少开销
+ * 使用容器池批量运行时，测试用例由容器内常驻的 zygote（ojpyrun，已导入常用模块）fork 子进程执行，省去解释器启动时间
  */
-@Slf4j
 @Component
-public class PythonSandbox implements LanguageSandbox {
-    
-    @Autowired
-    private DockerSandbox dockerSandbox;
+public class PythonSandbox extends AbstractLanguageSandbox {
     
     private static final String DOCKER_IMAGE = "python:3.13-slim";
     private static final String SOURCE_FILE = "main.py";
     
+    // 常驻 zygote：编译为 /opt/oj/python/ojpyrun.pyc（同时在目标Python版本上检查语法）
+    private static final String WARM_RUNNER_NAME = "python";
+    private static final String WARM_RUNNER_DIR = DockerSandbox.RUNNER_MOUNT_PATH + "/" + WARM_RUNNER_NAME;
+    private static final String WARM_RUNNER_SOCKET = "/tmp/ojpy.sock";
+    
+    @Autowired
+    private WarmRunnerManager warmRunnerManager;
+    
+    private volatile WarmRunnerManager.WarmRunner warmRunner;
+    
     @Override
-    public JudgeResult judge(String code, List<JudgeTestCase> testCases, int timeLimit, int memoryLimit) {
-        String workDir = null;
-        String subDir = null;
-        
-        try {
-            // 创建工作目录（在共享目录下创建子目录）
-            workDir = dockerSandbox.createWorkDir();
-            subDir = dockerSandbox.getSubDirName(workDir);
-            log.info("Python评测开始, workDir={}, subDir={}, timeLimit={}ms, memoryLimit={}MB", 
-                    workDir, subDir, timeLimit, memoryLimit);
-            
-            // 获取或创建容器池中的容器（挂载共享目录）
-            String pooledContainerId = dockerSandbox.getOrCreatePooledContainer(DOCKER_IMAGE);
-            boolean usePooledContainer = (pooledContainerId != null);
-            
-            // 写入代码文件
-            String codeFile = workDir + File.separator + SOURCE_FILE;
-            Files.writeString(Paths.get(codeFile), code);
-            
-            log.debug("Python代码已写入，开始执行测试用例");
-            
-            // 执行测试用例（Python无需编译）
-            List<TestCaseResult> testCaseResults = new ArrayList<>();
-            int passedCount = 0;
-            long maxTime = 0;  // 记录最大运行时间
-            long maxMemory = 0;
-            String firstError = null;
-            
-            for (JudgeTestCase testCase : testCases) {
-                // 写入输入数据
-                String inputFile = workDir + File.separator + "input.txt";
-                Files.writeString(Paths.get(inputFile), testCase.getInput());
-                
-                // 运行代码（优先使用容器池）
-                DockerSandbox.DockerExecuteResult runResult = usePooledContainer
-                        ? runInContainer(pooledContainerId, subDir, timeLimit)
-                        : run(workDir, timeLimit, memoryLimit);
-                
-                maxTime = Math.max(maxTime, runResult.getExecuteTime());  // 取最大运行时间
-                maxMemory = Math.max(maxMemory, runResult.getMemoryUsed() / 1024);
-                
-                // 检查运行结果
-                TestCaseResult testCaseResult = processTestCase(testCase, runResult);
-                testCaseResults.add(testCaseResult);
-                
-                if (testCaseResult.isPassed()) {
-                    passedCount++;
-                } else if (firstError == null) {
-                    firstError = testCaseResult.getErrorMessage();
-                }
-                
-                if (!runResult.isSuccess() && runResult.getExitCode() != 0) {
-                    break;
-                }
-            }
-            
-            // 计算得分和状态
-            int score = (int) (100.0 * passedCount / testCases.size());
-            String status = determineStatus(passedCount, testCases.size(), firstError);
-            
-            log.info("Python评测完成: status={}, score={}, passed={}/{}", 
-                    status, score, passedCount, testCases.size());
-            
-            return JudgeResult.builder()
-                    .success(passedCount == testCases.size())
-                    .status(status)
-                    .score(score)
-                    .timeUsed(maxTime)
-                    .memoryUsed(maxMemory)
-                    .errorMessage(passedCount == testCases.size() ? null : firstError)
-                    .passedTestCases(passedCount)
-                    .totalTestCases(testCases.size())
-                    .testCaseResults(testCaseResults)
-                    .build();
-            
-        } catch (Exception e) {
-            log.error("Python评测异常", e);
-            return JudgeResult.builder()
-                    .success(false)
-                    .status(JudgeStatusEnum.SYSTEM_ERROR.getCode())
-                    .score(0)
-                    .errorMessage("系统错误: " + e.getMessage())
-                    .passedTestCases(0)
-                    .totalTestCases(testCases.size())
-                    .build();
-        } finally {
-            if (workDir != null) {
-                dockerSandbox.cleanupWorkDir(workDir);
-            }
-        }
+    protected String getDockerImage() {
+        return DOCKER_IMAGE;
     }
     
-    /**
-     * 运行Python代码（传统模式）
-     */
-    private DockerSandbox.DockerExecuteResult run(String workDir, int timeLimit, int memoryLimit) {
-        String[] command = new String[]{
-                "sh", "-c",
-                "timeout " + (timeLimit / 1000) + "s python3 " + SOURCE_FILE + " < input.txt 2>&1"
-        };
-        
-        return dockerSandbox.execute(DOCKER_IMAGE, command, workDir, timeLimit / 1000 + 1, memoryLimit);
+    @Override
+    protected String getLanguageName() {
+        return "Python";
     }
     
-    /**
-     * 运行Python代码（容器池模式）
-     */
-    private DockerSandbox.DockerExecuteResult runInContainer(String containerId, String subDir, int timeLimit) {
-        String[] command = new String[]{
-                "sh", "-c",
-                "timeout " + (timeLimit / 1000) + "s python3 " + SOURCE_FILE + " < input.txt 2>&1"
-        };
-        
-        return dockerSandbox.executeInContainer(containerId, command, subDir, timeLimit / 1000 + 1);
+    @Override
+    protected String getSourceFile() {
+        return SOURCE_FILE;
+    }
+    
+    @Override
+    protected String getCompileCommand() {
+        return null;
     }
     
-    private TestCaseResult processTestCase(JudgeTestCase testCase, DockerSandbox.DockerExecuteResult runResult) {
-        String actualOutput = runResult.getOutput().trim();
-        String expectedOutput = testCase.getOutput().trim();
-        boolean passed = actualOutput.equals(expectedOutput);
-        
-        String errorMessage = null;
-        if (!passed) {
-            if (runResult.getExitCode() == 124) {
-                errorMessage = "运行超时";
-            } else if (runResult.getExitCode() != 0) {
-                errorMessage = "运行错误: " + runResult.getError();
-            } else {
-                errorMessage = "答案错误";
-            }
+    @Override
+    protected String getRunCommand(int memoryLimit) {
+        return "python3 " + SOURCE_FILE;
+    }
+    
+    @Override
+    protected boolean supportsBatchRun() {
+        return true;
+    }
+    
+    @Override
+    protected String[] getBatchCommand(ContainerPool.PooledContainer container, JudgeOptions options,
+                                       int count, long outputLimitBytes) {
+        String[] command = super.getBatchCommand(container, options, count, outputLimitBytes);
+        if (container == null) {
+            return command;
         }
-        
-        return TestCaseResult.builder()
-                .testCaseId(testCase.getId())
-                .passed(passed)
-                .actualOutput(actualOutput.length() > 1000 ? actualOutput.substring(0, 1000) + "..." : actualOutput)
-                .expectedOutput(expectedOutput)
-                .timeUsed(runResult.getExecuteTime())
-                .memoryUsed(runResult.getMemoryUsed() / 1024)
-                .errorMessage(errorMessage)
-                .build();
+        return warmRunnerManager.warmCommand(container, getWarmRunner(),
+                SOURCE_FILE + " " + options.getMemoryLimit(), command);
     }
     
-    private String determineStatus(int passedCount, int totalCount, String firstError) {
-        if (passedCount == totalCount) {
-            return JudgeStatusEnum.ACCEPTED.getCode();
-        } else if (firstError != null && firstError.contains("超时")) {
-            return JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getCode();
-        } else if (firstError != null && firstError.contains("运行错误")) {
-            return JudgeStatusEnum.RUNTIME_ERROR.getCode();
-        } else {
-            return JudgeStatusEnum.WRONG_ANSWER.getCode();
+    @Override
+    protected int getResidentMemory(ContainerPool.PooledContainer container, int memoryLimit) {
+        return warmRunnerManager.reservedMemory(container, getWarmRunner(), true);
+    }
+    
+    @Override
+    protected void onBatchFinished(ContainerPool.PooledContainer container,
+                                   DockerSandbox.DockerExecuteResult batchResult) {
+        warmRunnerManager.onBatchFinished(container, getWarmRunner(), batchResult);
+    }
+    
+    private WarmRunnerManager.WarmRunner getWarmRunner() {
+        WarmRunnerManager.WarmRunner runner = warmRunner;
+        if (runner == null) {
+            runner = WarmRunnerManager.WarmRunner.builder()
+                    .name(WARM_RUNNER_NAME)
+                    .image(DOCKER_IMAGE)
+                    .source("ojpyrun.py")
+                    .buildCommand("python3 -c \"import py_compile; "
+                            + "py_compile.compile('ojpyrun.py', cfile='ojpyrun.pyc', doraise=True)\" 2>&1")
+                    .artifact("ojpyrun.pyc")
+                    .socketPath(WARM_RUNNER_SOCKET)
+                    .startCommand("exec python3 " + WARM_RUNNER_DIR + "/ojpyrun.pyc"
+                            + " --socket " + WARM_RUNNER_SOCKET
+                            + " --max-jobs " + warmRunnerManager.getProperties().getMaxJobs()
+                            + " > /tmp/ojpy.log 2>&1")
+                    .reservedMemory(warmRunnerManager.getProperties().getPythonMemory())
+                    .build();
+            warmRunner = runner;
         }
+        return runner;
     }
 }
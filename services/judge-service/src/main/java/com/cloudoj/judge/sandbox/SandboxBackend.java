@@ -0,0 +1,93 @@
+package com.cloudoj.judge.sandbox;
+
+/**
+ * 沙箱执行后端
+ * 语言沙箱通过该接口完成工作目录管理、编译和运行，不关心命令是在Docker容器中还是在宿主机上执行
+ *
+ * 约定：
+ * 1. 命令的工作目录为 createWorkDir 创建的目录，源代码、输入输出文件都放在其中
+ * 2. meteredCommand / batchCommand 包装的命令由评测运行器执行，报告格式见 {@link DockerSandbox.RunnerReport}
+ * 3. 执行结果中 executeTime 为CPU时间（运行器可用时）、memoryUsed 为峰值内存（字节）
+ */
+public interface SandboxBackend {
+
+    /**
+     * 后端名称（用于日志和配置）
+     */
+    String getName();
+
+    /**
+     * 后端当前是否可用
+     */
+    boolean isAvailable();
+
+    /**
+     * 是否使用容器池（只有Docker后端支持，池化容器中的执行直接调用 {@link DockerSandbox#executeInContainer}）
+     */
+    boolean supportsContainerPool();
+
+    /**
+     * 创建单次评测的工作目录
+     *
+     * @return 工作目录的绝对路径
+     */
+    String createWorkDir();
+
+    /**
+     * 从工作目录路径中提取子目录名称
+     */
+    String getSubDirName(String workDir);
+
+    /**
+     * 清理工作目录
+     */
+    void cleanupWorkDir(String workDir);
+
+    /**
+     * 编译工具链标识，作为编译缓存键的一部分：工具链变化后旧的编译产物自动失效
+     *
+     * @param image Docker镜像名称
+     * @param compileCommand 编译命令
+     * @return 工具链标识，查询失败返回null
+     */
+    String getToolchainId(String image, String compileCommand);
+
+    /**
+     * 将运行命令包装为由评测运行器执行，并限制写入单个文件的大小
+     * 运行器不可用时返回原始命令（退化为墙钟计时）
+     *
+     * @param shellCommand 在 sh -c 中执行的命令
+     * @param outputLimitBytes 输出文件大小限制（字节），0表示不限制
+     */
+    String[] meteredCommand(String shellCommand, long outputLimitBytes);
+
+    /**
+     * 构造批量运行命令，运行器不可用时返回null（调用方退化为逐个用例执行）
+     *
+     * @param runCommand 在 sh -c 中执行的运行命令（不含输入输出重定向）
+     * @param count 测试用例数量
+     * @param timeoutMs 单个用例的墙钟超时（毫秒）
+     * @param outputLimitBytes 单个用例的输出大小限制（字节），0表示不限制
+     */
+    String[] batchCommand(String runCommand, int count, long timeoutMs, long outputLimitBytes);
+
+    /**
+     * 测试数据缓存文件在执行环境中的路径（工作目录中的输入文件以符号链接指向该路径）
+     *
+     * @param hostFile 缓存文件的宿主机路径
+     * @return 执行环境中的路径，缓存目录在执行环境中不可见时返回null（调用方把输入写入工作目录）
+     */
+    String testDataPath(String hostFile);
+
+    /**
+     * 在独立环境中执行一次命令
+     *
+     * @param image Docker镜像名称（本地后端只用于日志）
+     * @param command 要执行的命令
+     * @param workDir 工作目录（宿主机路径）
+     * @param timeoutSeconds 超时时间（秒）
+     * @param memoryLimitMB 内存限制（MB）
+     */
+    DockerSandbox.DockerExecuteResult execute(String image, String[] command, String workDir,
+                                              int timeoutSeconds, int memoryLimitMB);
+}
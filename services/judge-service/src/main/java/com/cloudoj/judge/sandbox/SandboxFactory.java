@@ -2,11 +2,21 @@ package com.cloudoj.judge.sandbox;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * 沙箱工厂类
- * 根据编程语言选择对应的沙箱实现
+ * 根据编程语言选择对应的沙箱实现，并按配置为所有语言沙箱选择执行后端：
+ * docker - Docker容器（默认镜像和容器池），默认值
+ * local  - 本地进程沙箱（cgroup + 命名空间 + 专用用户），不依赖Docker，只在显式配置时使用
+ *
+ * 后端之间不会自动切换：Docker不可用时不会退化为在宿主机上运行提交的代码，
+ * 配置了本地沙箱但其隔离条件不满足时评测服务拒绝启动
  */
 @Slf4j
 @Component
@@ -24,6 +34,70 @@ public class SandboxFactory {
     @Autowired
     private PythonSandbox pythonSandbox;
     
+    @Autowired
+    private DockerSandbox dockerSandbox;
+    
+    @Autowired
+    private LocalSandbox localSandbox;
+    
+    @Autowired
+    private ContainerPool containerPool;
+    
+    /**
+     * 执行后端：docker / local
+     */
+    @Value("${judge.sandbox.backend:docker}")
+    private String backendType;
+    
+    private SandboxBackend backend;
+    
+    /**
+     * 启动时选择执行后端
+     */
+    @PostConstruct
+    public void init() {
+        backend = selectBackend();
+        for (AbstractLanguageSandbox sandbox : new AbstractLanguageSandbox[]{javaSandbox, cppSandbox, cSandbox, pythonSandbox}) {
+            sandbox.setBackend(backend);
+        }
+        log.info("评测执行后端: {}", backend.getName());
+        
+        // 使用容器池的后端预启动各语言镜像的常驻容器，避免首批评测等待创建容器
+        if (backend.supportsContainerPool()) {
+            Set<String> images = new LinkedHashSet<>();
+            for (AbstractLanguageSandbox sandbox : new AbstractLanguageSandbox[]{javaSandbox, cppSandbox, cSandbox, pythonSandbox}) {
+                images.add(sandbox.getDockerImage());
+            }
+            containerPool.prewarm(images);
+        }
+    }
+    
+    /**
+     * 当前使用的执行后端
+     */
+    public SandboxBackend getBackend() {
+        return backend;
+    }
+    
+    private SandboxBackend selectBackend() {
+        String type = backendType == null ? "docker" : backendType.trim().toLowerCase();
+        switch (type) {
+            case "docker":
+                if (!dockerSandbox.isAvailable()) {
+                    log.error("Docker守护进程不可用，评测将失败直到Docker恢复");
+                }
+                return dockerSandbox;
+            case "local":
+                localSandbox.init();
+                if (!localSandbox.isAvailable()) {
+                    throw new IllegalStateException("本地沙箱不可用，请检查 judge.sandbox.local 配置");
+                }
+                return localSandbox;
+            default:
+                throw new IllegalStateException("未知的评测执行后端: " + backendType + "（可选 docker / local）");
+        }
+    }
+    
     /**
      * 根据语言获取对应的沙箱
      * 
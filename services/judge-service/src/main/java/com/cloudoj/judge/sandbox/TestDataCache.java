@@ -0,0 +1,541 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.TestDataCacheProperties;
+import com.cloudoj.judge.feign.TestDataBlobClient;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import com.cloudoj.model.dto.judge.JudgeTestCase;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 题目测试数据缓存
+ * 评测节点按 题目ID + 版本 把测试用例的输入数据落盘一次，评测时工作目录中的 input_<i>.txt 只是指向缓存文件的符号链接，
+ * 输入目录以只读方式挂载到评测容器，热门题目的后续提交既不请求problem-service，也不写入测试数据
+ *
+ * 1. 内存中保存题目的评测数据（限制、比对模式、测试用例），距上次校验不超过 revalidate-interval 时直接使用
+ * 2. 超过校验间隔后带上已缓存的版本做条件请求，版本未变化时只刷新校验时间；
+ *    版本由problem-service提供（评测数据包），旧接口加载的数据以测试数据摘要作为版本
+ * 3. 磁盘目录结构：{dir}/input/p{题目ID}-{版本}/{i}.in 和 {dir}/output/p{题目ID}-{版本}/{i}.out，
+ *    预期输出目录不挂载到容器，只保存评测数据包中没有内联的较大输出；按最近最少使用淘汰，正在评测使用的目录不淘汰
+ * 4. 没有内联内容的测试数据按摘要流式下载，题目的上一版本中已有相同摘要的文件时直接硬链接，不重复下载
+ * 5. problem-service 不可用时继续使用过期的缓存
+ */
+@Slf4j
+@Component
+public class TestDataCache {
+
+    private static final String INPUT_DIR = "input";
+    private static final String OUTPUT_DIR = "output";
+    private static final String INPUT_SUFFIX = ".in";
+    private static final String OUTPUT_SUFFIX = ".out";
+
+    @Autowired
+    private TestDataCacheProperties properties;
+
+    @Autowired
+    private TestDataBlobClient blobClient;
+
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+
+    // 题目ID -> 评测数据，按访问顺序排列
+    private final LinkedHashMap<Long, ProblemTestData> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // 磁盘目录名 -> 大小（字节），按访问顺序排列，队首为最久未使用
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    // 磁盘目录名 -> 正在使用该目录的评测数
+    private final Map<String, Integer> inUse = new HashMap<>();
+    private long totalBytes = 0;
+    // 输入目录（挂载到评测容器）和预期输出目录，未启用时为null
+    private Path inputDir;
+    private Path outputDir;
+
+    /**
+     * 启动时扫描已有的测试数据目录，按最后使用时间重建LRU索引
+     */
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            Path cacheDir = Paths.get(properties.getDir()).toAbsolutePath();
+            Path inputRoot = cacheDir.resolve(INPUT_DIR);
+            Path outputRoot = cacheDir.resolve(OUTPUT_DIR);
+            Files.createDirectories(inputRoot);
+            Files.createDirectories(outputRoot);
+            // 预期输出只允许评测服务读取，本地沙箱的评测用户无法进入
+            try {
+                Files.setPosixFilePermissions(outputRoot, PosixFilePermissions.fromString("rwx------"));
+            } catch (UnsupportedOperationException e) {
+                log.warn("测试数据缓存：文件系统不支持POSIX权限，无法限制预期输出目录的访问: {}", outputRoot);
+            }
+            // 旧版本直接放在缓存目录下的数据
+            try (Stream<Path> dirs = Files.list(cacheDir)) {
+                dirs.filter(dir -> !dir.equals(inputRoot) && !dir.equals(outputRoot)).forEach(this::deleteRecursively);
+            }
+            try (Stream<Path> dirs = Files.list(inputRoot)) {
+                List<Path> sorted = dirs.filter(Files::isDirectory)
+                        .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                        .toList();
+                for (Path dir : sorted) {
+                    String name = dir.getFileName().toString();
+                    // 未完成写入的临时目录直接删除
+                    if (name.contains(".tmp-")) {
+                        deleteRecursively(dir);
+                        continue;
+                    }
+                    long size = sizeOf(dir) + sizeOf(outputRoot.resolve(name));
+                    synchronized (index) {
+                        index.put(name, size);
+                        totalBytes += size;
+                    }
+                }
+            }
+            // 没有对应输入目录的预期输出（写入中断）
+            try (Stream<Path> dirs = Files.list(outputRoot)) {
+                dirs.filter(dir -> !index.containsKey(dir.getFileName().toString())).forEach(this::deleteRecursively);
+            }
+            inputDir = inputRoot;
+            outputDir = outputRoot;
+            log.info("测试数据缓存初始化完成: dir={}, entries={}, size={}KB", cacheDir, index.size(), totalBytes / 1024);
+            evictIfNecessary();
+        } catch (Exception e) {
+            log.error("测试数据缓存初始化失败，已禁用", e);
+            inputDir = null;
+            outputDir = null;
+        }
+    }
+
+    /**
+     * 输入数据目录（宿主机绝对路径，只读挂载到评测容器），未启用时返回null
+     */
+    public Path getInputDir() {
+        return inputDir;
+    }
+
+    /**
+     * 预期输出目录（宿主机绝对路径，不进入评测环境），未启用时返回null
+     */
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * 获取题目的评测数据并标记为使用中，评测结束后必须调用 release
+     *
+     * @param loader 从problem-service加载评测数据，参数为已缓存的版本（没有时为null）；
+     *               版本未变化时返回 {@link ProblemTestData#NOT_MODIFIED}，加载失败返回null
+     * @return 评测数据，缓存未命中且加载失败时返回null
+     */
+    public ProblemTestData acquire(Long problemId, Function<String, ProblemTestData> loader) {
+        ProblemTestData cached;
+        synchronized (entries) {
+            cached = inputDir != null ? entries.get(problemId) : null;
+        }
+        if (cached != null && System.currentTimeMillis() - cached.getCheckedAt() < properties.getRevalidateInterval()
+                && retain(cached)) {
+            recordLookup(true);
+            return cached;
+        }
+        recordLookup(false);
+
+        ProblemTestData loaded = loader.apply(cached != null ? cached.getVersion() : null);
+        if (loaded == ProblemTestData.NOT_MODIFIED) {
+            if (cached != null && retain(cached)) {
+                ProblemTestData revalidated = cached.toBuilder().checkedAt(System.currentTimeMillis()).build();
+                synchronized (entries) {
+                    entries.put(problemId, revalidated);
+                }
+                return revalidated;
+            }
+            // 缓存目录已被淘汰，重新完整加载
+            loaded = loader.apply(null);
+        }
+        boolean judgeable = loaded != null && loaded.getTestCases() != null && !loaded.getTestCases().isEmpty();
+        if (!judgeable && cached != null && retain(cached)) {
+            log.warn("加载题目评测数据失败，使用过期缓存: problemId={}, version={}", problemId, cached.getVersion());
+            return cached;
+        }
+        if (!judgeable || (!loaded.isCacheable() && !requiresDownload(loaded))) {
+            return loaded;
+        }
+        if (inputDir == null) {
+            if (requiresDownload(loaded)) {
+                throw new IllegalStateException("测试数据缓存未启用，无法获取未内联的测试数据");
+            }
+            return loaded;
+        }
+        return materialize(problemId, loaded);
+    }
+
+    /**
+     * 查看内存中缓存的评测数据（不校验版本，不占用磁盘目录），只用于读取题目限制，没有时返回null
+     */
+    public ProblemTestData peek(Long problemId) {
+        synchronized (entries) {
+            return entries.get(problemId);
+        }
+    }
+
+    /**
+     * 评测结束，解除对测试数据目录的占用
+     */
+    public void release(ProblemTestData data) {
+        if (data != null && data.getEntryName() != null) {
+            unpin(data.getEntryName());
+        }
+    }
+
+    /**
+     * 把输入数据（以及未内联的预期输出）写入缓存目录（同一版本已存在时直接使用），返回引用缓存文件的评测数据
+     * 写入失败时返回原始数据（沙箱把输入写入工作目录）；有未内联的数据时无法评测，抛出异常
+     * 不可缓存的数据（如使用默认限制）同样落盘，但不放入内存缓存
+     */
+    private ProblemTestData materialize(Long problemId, ProblemTestData loaded) {
+        String version = loaded.getVersion() != null ? loaded.getVersion() : fingerprint(loaded.getTestCases());
+        String name = "p" + problemId + "-" + version;
+        Path entryInputDir = inputDir.resolve(name);
+        Path entryOutputDir = outputDir.resolve(name);
+
+        // 先占用再写入，避免刚写完就被淘汰
+        boolean present;
+        synchronized (index) {
+            present = index.get(name) != null;
+            inUse.merge(name, 1, Integer::sum);
+        }
+        try {
+            if (!present) {
+                writeEntry(problemId, name, loaded.getTestCases());
+            } else {
+                entryInputDir.toFile().setLastModified(System.currentTimeMillis());
+            }
+        } catch (IOException e) {
+            log.warn("写入测试数据缓存失败: problemId={}, error={}", problemId, e.getMessage());
+            unpin(name);
+            if (requiresDownload(loaded)) {
+                throw new IllegalStateException("获取测试数据失败: " + e.getMessage(), e);
+            }
+            return loaded;
+        }
+
+        List<JudgeTestCase> testCases = new ArrayList<>(loaded.getTestCases().size());
+        for (int i = 0; i < loaded.getTestCases().size(); i++) {
+            JudgeTestCase source = loaded.getTestCases().get(i);
+            testCases.add(JudgeTestCase.builder()
+                    .id(source.getId())
+                    .input(source.getInput())
+                    .output(source.getOutput())
+                    .inputHash(source.getInputHash())
+                    .outputHash(source.getOutputHash())
+                    .inputFile(entryInputDir.resolve(i + INPUT_SUFFIX).toString())
+                    .outputFile(source.getOutput() == null ? entryOutputDir.resolve(i + OUTPUT_SUFFIX).toString() : null)
+                    .timeLimit(source.getTimeLimit())
+                    .memoryLimit(source.getMemoryLimit())
+                    .score(source.getScore())
+                    .build());
+        }
+        ProblemTestData entry = loaded.toBuilder()
+                .version(version)
+                .testCases(testCases)
+                .entryName(name)
+                .checkedAt(System.currentTimeMillis())
+                .build();
+
+        if (loaded.isCacheable()) {
+            synchronized (entries) {
+                entries.put(problemId, entry);
+                Iterator<Long> iterator = entries.keySet().iterator();
+                while (entries.size() > properties.getMaxEntries() && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        if (!present) {
+            log.info("测试数据已缓存: problemId={}, version={}, testCases={}", problemId, version, testCases.size());
+        }
+        evictIfNecessary();
+        return entry;
+    }
+
+    /**
+     * 写入一个版本的测试数据：先写临时目录再整体重命名，容器中不会看到写了一半的目录
+     * 预期输出目录先于输入目录就位，输入目录存在即表示该版本完整
+     */
+    private void writeEntry(Long problemId, String name, List<JudgeTestCase> testCases) throws IOException {
+        String tempName = name + ".tmp-" + UUID.randomUUID();
+        Path inputTemp = inputDir.resolve(tempName);
+        Path outputTemp = outputDir.resolve(tempName);
+        // 题目上一版本的缓存文件（内容摘要 -> 文件），相同内容直接硬链接
+        ProblemTestData previous;
+        synchronized (entries) {
+            previous = entries.get(problemId);
+        }
+        boolean reusePrevious = previous != null && previous.getEntryName() != null
+                && !previous.getEntryName().equals(name) && retain(previous);
+        long downloaded = 0;
+        try {
+            Map<String, Path> reusable = reusePrevious ? localFiles(previous) : Map.of();
+            Files.createDirectories(inputTemp);
+            Files.createDirectories(outputTemp);
+            for (int i = 0; i < testCases.size(); i++) {
+                JudgeTestCase testCase = testCases.get(i);
+                if (testCase.getInput() != null) {
+                    Files.writeString(inputTemp.resolve(i + INPUT_SUFFIX), testCase.getInput(), StandardCharsets.UTF_8);
+                } else {
+                    downloaded += fetch(testCase.getInputHash(), inputTemp.resolve(i + INPUT_SUFFIX), reusable);
+                }
+                if (testCase.getOutput() == null) {
+                    downloaded += fetch(testCase.getOutputHash(), outputTemp.resolve(i + OUTPUT_SUFFIX), reusable);
+                }
+            }
+            moveIntoPlace(outputTemp, outputDir.resolve(name));
+            moveIntoPlace(inputTemp, inputDir.resolve(name));
+        } catch (IOException e) {
+            deleteRecursively(inputTemp);
+            deleteRecursively(outputTemp);
+            throw e;
+        } finally {
+            if (reusePrevious) {
+                unpin(previous.getEntryName());
+            }
+        }
+        if (downloaded > 0) {
+            log.info("下载测试数据: problemId={}, entry={}, size={}KB", problemId, name, downloaded / 1024);
+        }
+        long size = sizeOf(inputDir.resolve(name)) + sizeOf(outputDir.resolve(name));
+        synchronized (index) {
+            if (index.putIfAbsent(name, size) == null) {
+                totalBytes += size;
+            }
+        }
+    }
+
+    private void moveIntoPlace(Path tempDir, Path entryDir) throws IOException {
+        try {
+            Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 其他线程已写入同一版本，内容相同
+            deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * 获取未内联的测试数据：本地已有相同摘要的文件时硬链接（不支持时复制），否则从problem-service流式下载
+     *
+     * @return 下载的字节数
+     */
+    private long fetch(String hash, Path target, Map<String, Path> reusable) throws IOException {
+        if (hash == null) {
+            throw new IOException("测试数据既没有内容也没有摘要");
+        }
+        Path local = reusable.get(hash);
+        if (local != null && Files.exists(local)) {
+            try {
+                Files.createLink(target, local);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(local, target);
+            }
+            return 0;
+        }
+        return blobClient.download(hash, target);
+    }
+
+    /**
+     * 评测数据引用的缓存文件，按内容摘要索引
+     */
+    private static Map<String, Path> localFiles(ProblemTestData data) {
+        Map<String, Path> files = new HashMap<>();
+        for (JudgeTestCase testCase : data.getTestCases()) {
+            if (testCase.getInputHash() != null && testCase.getInputFile() != null) {
+                files.put(testCase.getInputHash(), Paths.get(testCase.getInputFile()));
+            }
+            if (testCase.getOutputHash() != null && testCase.getOutputFile() != null) {
+                files.put(testCase.getOutputHash(), Paths.get(testCase.getOutputFile()));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 是否有需要按摘要下载的测试数据
+     */
+    private static boolean requiresDownload(ProblemTestData data) {
+        return data.getTestCases().stream().anyMatch(testCase -> testCase.getInput() == null || testCase.getOutput() == null);
+    }
+
+    /**
+     * 占用评测数据引用的磁盘目录，目录已被淘汰时返回false
+     */
+    private boolean retain(ProblemTestData data) {
+        synchronized (index) {
+            if (index.get(data.getEntryName()) == null) {
+                return false;
+            }
+            inUse.merge(data.getEntryName(), 1, Integer::sum);
+            return true;
+        }
+    }
+
+    private void unpin(String entryName) {
+        synchronized (index) {
+            inUse.computeIfPresent(entryName, (name, count) -> count > 1 ? count - 1 : null);
+        }
+        evictIfNecessary();
+    }
+
+    /**
+     * 淘汰最久未使用且不在使用中的目录，直到总大小在限制内
+     */
+    private void evictIfNecessary() {
+        if (inputDir == null) {
+            return;
+        }
+        long maxBytes = properties.getMaxSize() * 1024 * 1024;
+        while (true) {
+            String eldest = null;
+            synchronized (index) {
+                if (totalBytes <= maxBytes) {
+                    return;
+                }
+                for (Map.Entry<String, Long> entry : index.entrySet()) {
+                    if (!inUse.containsKey(entry.getKey())) {
+                        eldest = entry.getKey();
+                        totalBytes -= entry.getValue();
+                        break;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                index.remove(eldest);
+            }
+            log.debug("测试数据缓存淘汰: {}", eldest);
+            // 先删除输入目录，中断时剩下的预期输出目录在启动时清理
+            deleteRecursively(inputDir.resolve(eldest));
+            deleteRecursively(outputDir.resolve(eldest));
+        }
+    }
+
+    /**
+     * 测试数据版本：全部用例的ID、分值、输入和输出（未内联时为其摘要）的SHA-256摘要（前16位）
+     */
+    static String fingerprint(List<JudgeTestCase> testCases) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (JudgeTestCase testCase : testCases) {
+                for (Object part : new Object[]{testCase.getId(), testCase.getScore(),
+                        testCase.getInput(), testCase.getInputHash(), testCase.getOutput(), testCase.getOutputHash()}) {
+                    byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+                    // 写入长度前缀，避免拼接产生歧义
+                    digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                    digest.update(bytes);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取缓存文件的开头部分（用于评测结果中展示未内联的测试数据），读取失败时返回空字符串
+     */
+    public static String readPreview(String file, int maxChars) {
+        if (file == null) {
+            return "";
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(file))) {
+            String text = new String(in.readNBytes(maxChars * 4), StandardCharsets.UTF_8);
+            return text.length() > maxChars ? text.substring(0, maxChars) + "..." : text;
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private void recordLookup(boolean hit) {
+        if (judgeMetrics != null) {
+            judgeMetrics.recordTestDataCacheLookup(hit);
+        }
+    }
+
+    private long sizeOf(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            log.debug("删除测试数据目录失败: {}, error={}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * 题目的评测数据
+     */
+    @Getter
+    @Builder(toBuilder = true)
+    public static class ProblemTestData {
+
+        /**
+         * 加载结果：已缓存的版本仍是最新版本
+         */
+        public static final ProblemTestData NOT_MODIFIED = ProblemTestData.builder().build();
+
+        private final Long problemId;
+        // 评测数据版本，未缓存的旧接口数据为null
+        private final String version;
+        private final int timeLimit;
+        private final int memoryLimit;
+        private final int outputLimit;
+        private final boolean parallelJudge;
+        private final String checkerMode;
+        private final double checkerEpsilon;
+        // 支持的语言（题目原始配置）
+        private final String languages;
+        private final List<JudgeTestCase> testCases;
+        // 是否可以缓存（使用题目样例代替测试用例、题目限制获取失败时为false）
+        private final boolean cacheable;
+        // 引用的磁盘目录名，未缓存时为null
+        private final String entryName;
+        private final long checkedAt;
+    }
+}
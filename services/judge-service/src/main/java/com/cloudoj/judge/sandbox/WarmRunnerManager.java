@@ -0,0 +1,209 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.WarmRunnerProperties;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 常驻运行器管理
+ * 在池化容器中后台启动常驻的运行器进程（如预热的JVM），批量运行时由 ojrun --warm 把整批用例转交给它执行：
+ * 1. 运行器源码随 judge-service 打包在 /sandbox 下，首次使用时在对应语言镜像中编译到运行器目录
+ * 2. 容器第一次使用时后台启动运行器，ojrun 等待套接字就绪（最多 start-wait 毫秒）
+ * 3. 运行器越权、达到 max-jobs 或已退出时，ojrun 在stderr输出 "ojrun: warm runner ..." 提示，
+ *    下次评测时重新启动；本次未完成的用例由 ojrun 或逐个用例执行兜底，评测结果不受影响
+ */
+@Slf4j
+@Component
+public class WarmRunnerManager {
+
+    // ojrun 在常驻运行器不可用或即将退出时输出的提示前缀
+    private static final String STATUS_MARKER = "ojrun: warm runner";
+    private static final long BUILD_RETRY_INTERVAL = 5 * 60 * 1000L; // 编译失败后5分钟再重试
+
+    @Autowired
+    private DockerSandbox dockerSandbox;
+
+    @Autowired
+    private WarmRunnerProperties properties;
+
+    // 运行器名称 -> 编译状态
+    private final Map<String, BuildState> builds = new ConcurrentHashMap<>();
+
+    public WarmRunnerProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 把批量运行命令改写为交给容器内的常驻运行器执行
+     * 改写后的命令仍保留原批量运行参数，常驻运行器不可用时 ojrun 自动退回逐个启动进程
+     *
+     * @param container 借出的容器
+     * @param runner 常驻运行器定义
+     * @param request 传给常驻运行器的请求内容（如主类名和内存限制）
+     * @param batchCommand {@link SandboxBackend#batchCommand} 构造的批量运行命令
+     * @return 改写后的命令，无法使用常驻运行器时原样返回
+     */
+    public String[] warmCommand(ContainerPool.PooledContainer container, WarmRunner runner,
+                                String request, String[] batchCommand) {
+        if (!properties.isEnabled() || container == null || batchCommand == null || !ensureBuilt(runner)) {
+            return batchCommand;
+        }
+        long waitMs = 0;
+        if (!container.getWarmRunners().contains(runner.getName())) {
+            String[] startCommand = {"sh", "-c", runner.getStartCommand()};
+            if (!dockerSandbox.startInContainer(container.getContainerId(), startCommand)) {
+                return batchCommand;
+            }
+            container.getWarmRunners().add(runner.getName());
+            waitMs = properties.getStartWait();
+            log.debug("启动常驻运行器: runner={}, containerId={}", runner.getName(), container.getContainerId());
+        }
+
+        String[] command = new String[batchCommand.length + 6];
+        command[0] = batchCommand[0];
+        command[1] = "--warm";
+        command[2] = runner.getSocketPath();
+        command[3] = "--warm-request";
+        command[4] = request;
+        command[5] = "--warm-wait";
+        command[6] = String.valueOf(waitMs);
+        System.arraycopy(batchCommand, 1, command, 7, batchCommand.length - 1);
+        return command;
+    }
+
+    /**
+     * 容器中常驻运行器需要预留的内存（MB）
+     * 常驻运行器与评测程序在同一个容器的cgroup中，评测槽位设置容器内存限制时必须把它计算在内，
+     * 否则题目内存限制较小时 docker update 失败或运行器被OOM终止
+     *
+     * @param willStart 本次评测是否会使用（必要时启动）该运行器
+     * @return 运行器已在容器中或即将启动时返回其内存占用，否则返回0
+     */
+    public int reservedMemory(ContainerPool.PooledContainer container, WarmRunner runner, boolean willStart) {
+        if (!properties.isEnabled() || container == null) {
+            return 0;
+        }
+        return willStart || container.getWarmRunners().contains(runner.getName()) ? runner.getReservedMemory() : 0;
+    }
+
+    /**
+     * 批量运行结束后检查常驻运行器状态，已退出的运行器在下次评测时重新启动
+     */
+    public void onBatchFinished(ContainerPool.PooledContainer container, WarmRunner runner,
+                                DockerSandbox.DockerExecuteResult batchResult) {
+        if (container == null || batchResult == null || batchResult.getError() == null) {
+            return;
+        }
+        if (batchResult.getError().contains(STATUS_MARKER)
+                && container.getWarmRunners().remove(runner.getName())) {
+            log.debug("常驻运行器已退出，下次评测时重新启动: runner={}, containerId={}",
+                    runner.getName(), container.getContainerId());
+        }
+    }
+
+    /**
+     * 确保常驻运行器已编译到运行器目录的子目录（容器中为 /opt/oj/名称）
+     */
+    private boolean ensureBuilt(WarmRunner runner) {
+        BuildState state = builds.computeIfAbsent(runner.getName(), name -> new BuildState());
+        if (state.ready) {
+            return true;
+        }
+        synchronized (state) {
+            if (state.ready || dockerSandbox.getRunnerDir() == null
+                    || System.currentTimeMillis() - state.lastAttempt < BUILD_RETRY_INTERVAL) {
+                return state.ready;
+            }
+            state.lastAttempt = System.currentTimeMillis();
+            try {
+                Path dir = Paths.get(dockerSandbox.getRunnerDir(), runner.getName());
+                Files.createDirectories(dir);
+                Path artifact = dir.resolve(runner.getArtifact());
+                try (InputStream in = getClass().getResourceAsStream("/sandbox/" + runner.getSource())) {
+                    if (in == null) {
+                        log.warn("常驻运行器源码不存在: {}", runner.getSource());
+                        return false;
+                    }
+                    byte[] source = in.readAllBytes();
+                    Path sourcePath = dir.resolve(runner.getSource());
+                    // 源码有变化时删除旧的编译产物，重新编译
+                    if (!Files.exists(sourcePath) || !Arrays.equals(Files.readAllBytes(sourcePath), source)) {
+                        Files.write(sourcePath, source);
+                        Files.deleteIfExists(artifact);
+                    }
+                }
+                if (!Files.exists(artifact)) {
+                    String[] command = {"sh", "-c", runner.getBuildCommand()};
+                    DockerSandbox.DockerExecuteResult result = dockerSandbox.execute(
+                            runner.getImage(), command, dir.toString(), 180, 1024);
+                    if (!result.isSuccess()) {
+                        log.warn("常驻运行器编译失败: runner={}, error={}", runner.getName(), result.getError());
+                    }
+                }
+                state.ready = Files.exists(artifact);
+                if (state.ready) {
+                    log.info("常驻运行器已就绪: runner={}, dir={}", runner.getName(), dir);
+                }
+            } catch (Exception e) {
+                log.warn("常驻运行器准备失败: runner={}", runner.getName(), e);
+            }
+            return state.ready;
+        }
+    }
+
+    private static class BuildState {
+        private volatile boolean ready;
+        private volatile long lastAttempt;
+    }
+
+    /**
+     * 常驻运行器定义
+     */
+    @Value
+    @Builder
+    public static class WarmRunner {
+        /**
+         * 名称，同时作为运行器目录下的子目录名
+         */
+        String name;
+        /**
+         * 编译运行器使用的镜像
+         */
+        String image;
+        /**
+         * 运行器源码（classpath 下 /sandbox 中的文件名）
+         */
+        String source;
+        /**
+         * 在子目录中执行的编译命令
+         */
+        String buildCommand;
+        /**
+         * 编译产物（相对子目录），存在即视为编译成功
+         */
+        String artifact;
+        /**
+         * 容器内的 Unix 套接字路径
+         */
+        String socketPath;
+        /**
+         * 在容器中后台执行的启动命令（sh -c）
+         */
+        String startCommand;
+        /**
+         * 运行器自身占用的内存（MB），设置容器内存限制时额外预留
+         */
+        int reservedMemory;
+    }
+}
@@ -0,0 +1,470 @@
+package com.cloudoj.judge.service;
+
+import com.cloudoj.judge.config.BulkRejudgeProperties;
+import com.cloudoj.judge.config.RabbitMQConfig;
+import com.cloudoj.judge.mapper.SubmissionMapper;
+import com.cloudoj.model.dto.judge.BulkRejudgeRequest;
+import com.cloudoj.model.dto.judge.JudgeMessage;
+import com.cloudoj.model.entity.judge.Submission;
+import com.cloudoj.model.vo.judge.RejudgeJobVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量重判
+ * 1. 创建任务时记录当前最大提交ID，任务只处理不超过该ID的提交，按ID游标分页读取（不使用 OFFSET）
+ * 2. 后台线程按 rate 限速投递到各语言的评测通道队列，消息优先级为 judge.rejudge.priority（低于所有正常提交），
+ *    租户为 rejudge-{任务ID}，公平调度时与正常提交的租户轮转；已投递未完成的提交达到 max-in-flight 时暂停投递
+ * 3. 重判强制重新运行，不复用相同代码的评测结果；编译缓存仍然生效，相同代码不重复编译
+ * 4. 任务进度保存在Redis中，任意节点都可以查询和取消；取消后已投递的重判任务由消费者直接确认跳过
+ */
+@Slf4j
+@Service
+public class BulkRejudgeService {
+
+    // 消息头：批量重判任务ID
+    public static final String JOB_HEADER = "x-rejudge-job";
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String JOB_KEY_PREFIX = "judge:rejudge:job:";
+    private static final String JOB_SEQ_KEY = "judge:rejudge:seq";
+    private static final String JOB_LIST_KEY = "judge:rejudge:jobs";
+
+    private static final String F_STATUS = "status";
+    private static final String F_PROBLEM_ID = "problemId";
+    private static final String F_HOMEWORK_ID = "homeworkId";
+    private static final String F_START_TIME = "startTime";
+    private static final String F_END_TIME = "endTime";
+    private static final String F_RATE = "rate";
+    private static final String F_TOTAL = "total";
+    private static final String F_ENQUEUED = "enqueued";
+    private static final String F_JUDGED = "judged";
+    private static final String F_FAILED = "failed";
+    private static final String F_SKIPPED = "skipped";
+    private static final String F_ENQUEUE_DONE = "enqueueDone";
+    private static final String F_CREATED_BY = "createdBy";
+    private static final String F_CREATED_TIME = "createdTime";
+    private static final String F_FINISHED_TIME = "finishedTime";
+    private static final String F_ERROR = "errorMessage";
+
+    private static final List<String> PROGRESS_FIELDS = Arrays.asList(
+            F_STATUS, F_ENQUEUED, F_JUDGED, F_FAILED, F_SKIPPED, F_ENQUEUE_DONE);
+
+    // 投递暂停（已投递未完成的提交过多）时的检查间隔（毫秒）
+    private static final long IN_FLIGHT_WAIT = 500;
+
+    @Autowired
+    private BulkRejudgeProperties properties;
+
+    @Autowired
+    private SubmissionMapper submissionMapper;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private JudgeQueueRouter judgeQueueRouter;
+
+    // 本节点正在投递的任务
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, properties.getMaxJobs()), r -> {
+            Thread thread = new Thread(r, "bulk-rejudge-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 创建批量重判任务，在后台线程中投递，立即返回
+     */
+    public RejudgeJobVO createJob(BulkRejudgeRequest request, Long userId) {
+        if (request == null || !request.hasCondition()) {
+            throw new RuntimeException("请至少指定题目、作业或提交时间范围");
+        }
+        if (runningJobs.size() >= Math.max(1, properties.getMaxJobs())) {
+            throw new RuntimeException("正在运行的批量重判任务过多，请稍后再试");
+        }
+        int rate = request.getRate() != null ? request.getRate() : properties.getRate();
+        rate = Math.max(1, Math.min(properties.getMaxRate(), rate));
+
+        Long maxId = submissionMapper.selectMaxId();
+        if (maxId == null) {
+            maxId = 0L;
+        }
+        Long total = submissionMapper.countForRejudge(request, maxId);
+
+        Long jobId = stringRedisTemplate.opsForValue().increment(JOB_SEQ_KEY);
+        long now = System.currentTimeMillis();
+        Map<String, String> fields = new HashMap<>();
+        fields.put(F_STATUS, STATUS_RUNNING);
+        putIfNotNull(fields, F_PROBLEM_ID, request.getProblemId());
+        putIfNotNull(fields, F_HOMEWORK_ID, request.getHomeworkId());
+        putIfNotNull(fields, F_START_TIME, request.getStartTime());
+        putIfNotNull(fields, F_END_TIME, request.getEndTime());
+        putIfNotNull(fields, F_CREATED_BY, userId);
+        fields.put(F_RATE, String.valueOf(rate));
+        fields.put(F_TOTAL, String.valueOf(total != null ? total : 0));
+        fields.put(F_ENQUEUED, "0");
+        fields.put(F_JUDGED, "0");
+        fields.put(F_FAILED, "0");
+        fields.put(F_SKIPPED, "0");
+        fields.put(F_CREATED_TIME, String.valueOf(now));
+        String jobKey = JOB_KEY_PREFIX + jobId;
+        stringRedisTemplate.opsForHash().putAll(jobKey, fields);
+        stringRedisTemplate.expire(jobKey, properties.getJobTtl(), TimeUnit.HOURS);
+        stringRedisTemplate.opsForZSet().add(JOB_LIST_KEY, jobId.toString(), now);
+
+        runningJobs.add(jobId);
+        long rateValue = rate;
+        long maxIdValue = maxId;
+        executor.submit(() -> runJob(jobId, request, maxIdValue, rateValue));
+
+        log.info("创建批量重判任务: jobId={}, problemId={}, homeworkId={}, startTime={}, endTime={}, total={}, rate={}/s",
+                jobId, request.getProblemId(), request.getHomeworkId(), request.getStartTime(), request.getEndTime(),
+                total, rate);
+        return getJob(jobId);
+    }
+
+    /**
+     * 查询任务进度
+     *
+     * @return 任务不存在（或已过期）时返回null
+     */
+    public RejudgeJobVO getJob(Long jobId) {
+        HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+        Map<String, String> fields = hashOps.entries(JOB_KEY_PREFIX + jobId);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return toVO(jobId, fields);
+    }
+
+    /**
+     * 查询最近的任务
+     */
+    public List<RejudgeJobVO> listJobs(int limit) {
+        Set<String> jobIds = stringRedisTemplate.opsForZSet().reverseRange(JOB_LIST_KEY, 0, Math.max(1, limit) - 1);
+        List<RejudgeJobVO> jobs = new ArrayList<>();
+        if (jobIds == null) {
+            return jobs;
+        }
+        for (String jobId : jobIds) {
+            RejudgeJobVO job = getJob(Long.valueOf(jobId));
+            if (job != null) {
+                jobs.add(job);
+            } else {
+                // 任务记录已过期
+                stringRedisTemplate.opsForZSet().remove(JOB_LIST_KEY, jobId);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * 取消任务：停止投递，已投递未执行的重判任务由消费者跳过
+     */
+    public RejudgeJobVO cancelJob(Long jobId) {
+        String jobKey = JOB_KEY_PREFIX + jobId;
+        HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+        String status = hashOps.get(jobKey, F_STATUS);
+        if (status == null) {
+            throw new RuntimeException("批量重判任务不存在");
+        }
+        if (STATUS_RUNNING.equals(status)) {
+            hashOps.put(jobKey, F_STATUS, STATUS_CANCELLED);
+            hashOps.putIfAbsent(jobKey, F_FINISHED_TIME, String.valueOf(System.currentTimeMillis()));
+            log.info("取消批量重判任务: jobId={}", jobId);
+        }
+        return getJob(jobId);
+    }
+
+    /**
+     * 评测消息所属的批量重判任务
+     *
+     * @return 任务ID，不是批量重判的消息返回null
+     */
+    public Long jobIdOf(MessageProperties messageProperties) {
+        Object jobId = messageProperties.getHeader(JOB_HEADER);
+        if (jobId instanceof Number) {
+            return ((Number) jobId).longValue();
+        }
+        return jobId != null ? Long.valueOf(jobId.toString()) : null;
+    }
+
+    /**
+     * 任务是否已取消（任务记录已过期时同样不再执行）
+     */
+    public boolean isCancelled(Long jobId) {
+        HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+        String status = hashOps.get(JOB_KEY_PREFIX + jobId, F_STATUS);
+        return status == null || STATUS_CANCELLED.equals(status);
+    }
+
+    /**
+     * 记录一个提交重判完成
+     */
+    public void recordJudged(Long jobId) {
+        recordProcessed(jobId, F_JUDGED);
+    }
+
+    /**
+     * 记录一个提交重判失败（进入死信队列）
+     */
+    public void recordFailed(Long jobId) {
+        recordProcessed(jobId, F_FAILED);
+    }
+
+    /**
+     * 记录一个提交因任务取消而跳过
+     */
+    public void recordSkipped(Long jobId) {
+        recordProcessed(jobId, F_SKIPPED);
+    }
+
+    private void recordProcessed(Long jobId, String field) {
+        try {
+            String jobKey = JOB_KEY_PREFIX + jobId;
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(jobKey))) {
+                stringRedisTemplate.opsForHash().increment(jobKey, field, 1);
+                completeIfDone(jobId);
+            }
+        } catch (Exception e) {
+            // 进度统计失败不影响评测
+            log.warn("更新批量重判进度失败: jobId={}, field={}, error={}", jobId, field, e.getMessage());
+        }
+    }
+
+    /**
+     * 后台投递：按ID游标分页读取，限速投递，已投递未完成的提交过多时暂停
+     */
+    private void runJob(Long jobId, BulkRejudgeRequest request, long maxId, long rate) {
+        String jobKey = JOB_KEY_PREFIX + jobId;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long nextSendAt = System.nanoTime();
+        long afterId = 0;
+        try {
+            while (true) {
+                List<Submission> page = submissionMapper.selectForRejudge(request, maxId, afterId,
+                        Math.max(1, properties.getPageSize()));
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (Submission submission : page) {
+                    if (!awaitCapacity(jobId)) {
+                        log.info("批量重判任务已取消，停止投递: jobId={}, lastSubmissionId={}", jobId, afterId);
+                        return;
+                    }
+                    long waitNanos = nextSendAt - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    nextSendAt = Math.max(nextSendAt, System.nanoTime() - intervalNanos) + intervalNanos;
+
+                    enqueue(jobId, submission);
+                    stringRedisTemplate.opsForHash().increment(jobKey, F_ENQUEUED, 1);
+                    afterId = submission.getId();
+                }
+            }
+
+            // 全部投递完成，以实际投递数为准（任务运行期间删除的提交不再计入）
+            HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+            hashOps.put(jobKey, F_TOTAL, hashOps.get(jobKey, F_ENQUEUED));
+            hashOps.put(jobKey, F_ENQUEUE_DONE, "1");
+            completeIfDone(jobId);
+            log.info("批量重判任务投递完成: jobId={}, enqueued={}", jobId, hashOps.get(jobKey, F_ENQUEUED));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markFailed(jobId, "服务停止，投递中断");
+        } catch (Exception e) {
+            log.error("批量重判任务投递失败: jobId={}, lastSubmissionId={}", jobId, afterId, e);
+            markFailed(jobId, e.getMessage());
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * 等待已投递未完成的提交数低于 max-in-flight
+     *
+     * @return 任务已取消时返回false
+     */
+    private boolean awaitCapacity(Long jobId) throws InterruptedException {
+        while (true) {
+            Map<String, String> progress = readProgress(jobId);
+            if (!STATUS_RUNNING.equals(progress.get(F_STATUS))) {
+                return false;
+            }
+            long inFlight = parse(progress.get(F_ENQUEUED)) - parse(progress.get(F_JUDGED))
+                    - parse(progress.get(F_FAILED)) - parse(progress.get(F_SKIPPED));
+            if (inFlight < Math.max(1, properties.getMaxInFlight())) {
+                return true;
+            }
+            Thread.sleep(IN_FLIGHT_WAIT);
+        }
+    }
+
+    /**
+     * 以后台优先级投递到提交语言对应的评测通道队列
+     */
+    private void enqueue(Long jobId, Submission submission) {
+        JudgeMessage judgeMessage = new JudgeMessage();
+        judgeMessage.setSubmissionId(submission.getId());
+        judgeMessage.setProblemId(submission.getProblemId());
+        judgeMessage.setUserId(submission.getUserId());
+        judgeMessage.setLanguage(submission.getLanguage());
+        judgeMessage.setRetryCount(0);
+
+        JudgeQueueRouter.Route route = judgeQueueRouter.route(submission.getLanguage(), submission.getProblemId());
+        rabbitTemplate.convertAndSend(
+                RabbitMQConfig.JUDGE_EXCHANGE,
+                route.getRoutingKey(),
+                judgeMessage,
+                message -> {
+                    message.getMessageProperties().setPriority(properties.getPriority());
+                    message.getMessageProperties().setHeader(JudgePriorityResolver.TYPE_HEADER,
+                            JudgePriorityResolver.TYPE_REJUDGE);
+                    message.getMessageProperties().setHeader(JudgeTenantResolver.TENANT_HEADER, "rejudge-" + jobId);
+                    message.getMessageProperties().setHeader(JudgePriorityResolver.ENQUEUE_TIME_HEADER,
+                            System.currentTimeMillis());
+                    message.getMessageProperties().setHeader(JOB_HEADER, jobId);
+                    return message;
+                }
+        );
+    }
+
+    /**
+     * 全部投递且全部处理完成时标记任务完成
+     */
+    private void completeIfDone(Long jobId) {
+        Map<String, String> progress = readProgress(jobId);
+        if (!STATUS_RUNNING.equals(progress.get(F_STATUS)) || progress.get(F_ENQUEUE_DONE) == null) {
+            return;
+        }
+        long processed = parse(progress.get(F_JUDGED)) + parse(progress.get(F_FAILED)) + parse(progress.get(F_SKIPPED));
+        if (processed >= parse(progress.get(F_ENQUEUED))) {
+            String jobKey = JOB_KEY_PREFIX + jobId;
+            HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+            hashOps.put(jobKey, F_STATUS, STATUS_COMPLETED);
+            hashOps.putIfAbsent(jobKey, F_FINISHED_TIME, String.valueOf(System.currentTimeMillis()));
+            log.info("批量重判任务完成: jobId={}, processed={}", jobId, processed);
+        }
+    }
+
+    private void markFailed(Long jobId, String errorMessage) {
+        try {
+            String jobKey = JOB_KEY_PREFIX + jobId;
+            HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+            if (STATUS_RUNNING.equals(hashOps.get(jobKey, F_STATUS))) {
+                hashOps.put(jobKey, F_STATUS, STATUS_FAILED);
+                hashOps.put(jobKey, F_ERROR, errorMessage != null ? errorMessage : "未知错误");
+                hashOps.putIfAbsent(jobKey, F_FINISHED_TIME, String.valueOf(System.currentTimeMillis()));
+            }
+        } catch (Exception e) {
+            log.error("更新批量重判任务状态失败: jobId={}, error={}", jobId, e.getMessage());
+        }
+    }
+
+    private Map<String, String> readProgress(Long jobId) {
+        HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+        List<String> values = hashOps.multiGet(JOB_KEY_PREFIX + jobId, PROGRESS_FIELDS);
+        Map<String, String> progress = new HashMap<>();
+        for (int i = 0; i < PROGRESS_FIELDS.size(); i++) {
+            progress.put(PROGRESS_FIELDS.get(i), values.get(i));
+        }
+        return progress;
+    }
+
+    private RejudgeJobVO toVO(Long jobId, Map<String, String> fields) {
+        RejudgeJobVO job = new RejudgeJobVO();
+        job.setJobId(jobId);
+        job.setStatus(fields.get(F_STATUS));
+        job.setProblemId(parseLong(fields.get(F_PROBLEM_ID)));
+        job.setHomeworkId(parseLong(fields.get(F_HOMEWORK_ID)));
+        job.setStartTime(fields.get(F_START_TIME) != null ? LocalDateTime.parse(fields.get(F_START_TIME)) : null);
+        job.setEndTime(fields.get(F_END_TIME) != null ? LocalDateTime.parse(fields.get(F_END_TIME)) : null);
+        job.setRate((int) parse(fields.get(F_RATE)));
+        job.setTotal(parse(fields.get(F_TOTAL)));
+        job.setEnqueued(parse(fields.get(F_ENQUEUED)));
+        job.setJudged(parse(fields.get(F_JUDGED)));
+        job.setFailed(parse(fields.get(F_FAILED)));
+        job.setSkipped(parse(fields.get(F_SKIPPED)));
+        job.setCreatedBy(parseLong(fields.get(F_CREATED_BY)));
+        job.setCreatedTime(toTime(fields.get(F_CREATED_TIME)));
+        job.setFinishedTime(toTime(fields.get(F_FINISHED_TIME)));
+        job.setErrorMessage(fields.get(F_ERROR));
+
+        long processed = job.getJudged() + job.getFailed() + job.getSkipped();
+        long total = Math.max(job.getTotal(), job.getEnqueued());
+        job.setProgress(total > 0 ? Math.min(100.0, Math.round(processed * 10000.0 / total) / 100.0) : 100.0);
+
+        // 预计剩余时间：按已完成的平均速度估算，不快于投递速率
+        if (STATUS_RUNNING.equals(job.getStatus()) && total > processed) {
+            long remaining = total - processed;
+            long etaSeconds = (total - job.getEnqueued()) / Math.max(1, job.getRate());
+            long elapsed = System.currentTimeMillis() - parse(fields.get(F_CREATED_TIME));
+            if (processed > 0 && elapsed > 0) {
+                etaSeconds = Math.max(etaSeconds, remaining * elapsed / processed / 1000);
+            }
+            job.setEtaSeconds(etaSeconds);
+        }
+        return job;
+    }
+
+    private static void putIfNotNull(Map<String, String> fields, String field, Object value) {
+        if (value != null) {
+            fields.put(field, value.toString());
+        }
+    }
+
+    private static LocalDateTime toTime(String millis) {
+        return millis != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(millis)), ZoneId.systemDefault()) : null;
+    }
+
+    private static Long parseLong(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    private static long parse(String value) {
+        return value != null ? Long.parseLong(value) : 0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.cloudoj.judge.service;
+
+import com.cloudoj.judge.config.JudgePriorityProperties;
+import com.cloudoj.judge.feign.CourseServiceClient;
+import com.cloudoj.model.common.Result;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 评测任务优先级
+ * 1. 提交类型：作业提交（homeworkId 不为空）高于练习提交
+ * 2. 作业截止时间：距截止不超过 urgent-window 时按剩余时间线性提升，截止前的提交优先级最高
+ * 3. 用户公平性：最近一分钟内连续提交的用户逐级降低优先级，避免单个用户的批量提交挤占同类任务
+ * 优先级范围为 1 ~ max-priority，0 留给后台批量任务
+ */
+@Slf4j
+@Service
+public class JudgePriorityResolver {
+
+    public static final String TYPE_PRACTICE = "practice";
+    public static final String TYPE_HOMEWORK = "homework";
+    public static final String TYPE_REJUDGE = "rejudge";
+
+    // 消息头：提交类型和投递时间（毫秒，AMQP自带的timestamp属性只精确到秒）
+    public static final String TYPE_HEADER = "x-judge-type";
+    public static final String ENQUEUE_TIME_HEADER = "x-enqueue-time";
+
+    private static final int DEADLINE_CACHE_MAX_ENTRIES = 1024;
+    private static final long NO_DEADLINE = -1L;
+
+    @Autowired
+    private JudgePriorityProperties properties;
+
+    @Autowired
+    private CourseServiceClient courseServiceClient;
+
+    @Autowired
+    private SubmitRateLimiter submitRateLimiter;
+
+    // 作业ID -> [截止时间, 获取时间]
+    private final Map<Long, long[]> deadlineCache = new ConcurrentHashMap<>();
+
+    /**
+     * 计算提交的评测优先级（在记录本次提交之后调用）
+     *
+     * @param homeworkId 已由课程服务校验（题目在作业中且用户属于作业班级）的作业ID，未校验或校验失败时传null
+     */
+    public JudgePriority resolve(Long userId, Long homeworkId) {
+        String type = homeworkId != null ? TYPE_HOMEWORK : TYPE_PRACTICE;
+        if (!properties.isEnabled()) {
+            return new JudgePriority(type, properties.getPractice());
+        }
+
+        int priority;
+        if (homeworkId != null) {
+            priority = properties.getHomework() + urgencyBoost(deadlineOf(homeworkId));
+        } else {
+            priority = properties.getPractice();
+        }
+
+        // 本次提交已计入，之前每多一次提交降低1级
+        int recentSubmits = submitRateLimiter.getRecentSubmits(userId);
+        priority -= Math.min(properties.getFairnessMaxPenalty(), Math.max(0, recentSubmits - 1));
+
+        priority = Math.max(1, Math.min(properties.getMaxPriority(), priority));
+        return new JudgePriority(type, priority);
+    }
+
+    /**
+     * 临近截止的优先级提升：剩余时间从 urgent-window 减少到0时，提升从0线性增加到 urgent-boost
+     */
+    private int urgencyBoost(long deadline) {
+        if (deadline == NO_DEADLINE) {
+            return 0;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        long window = properties.getUrgentWindow() * 60_000L;
+        if (remaining < 0 || remaining >= window) {
+            return 0;
+        }
+        return (int) Math.ceil(properties.getUrgentBoost() * (1 - (double) remaining / window));
+    }
+
+    /**
+     * 作业截止时间，本地缓存 deadline-cache-ttl 毫秒，获取失败时按没有截止时间处理
+     */
+    private long deadlineOf(Long homeworkId) {
+        long now = System.currentTimeMillis();
+        long[] cached = deadlineCache.get(homeworkId);
+        if (cached != null && now - cached[1] < properties.getDeadlineCacheTtl()) {
+            return cached[0];
+        }
+        long deadline = NO_DEADLINE;
+        try {
+            Result<Long> result = courseServiceClient.getHomeworkDeadline(homeworkId);
+            if (result != null && result.getData() != null) {
+                deadline = result.getData();
+            }
+        } catch (Exception e) {
+            log.warn("查询作业截止时间失败: homeworkId={}, error={}", homeworkId, e.getMessage());
+        }
+        if (deadlineCache.size() >= DEADLINE_CACHE_MAX_ENTRIES) {
+            deadlineCache.clear();
+        }
+        deadlineCache.put(homeworkId, new long[]{deadline, now});
+        return deadline;
+    }
+
+    /**
+     * 提交类型和优先级
+     */
+    @Value
+    public static class JudgePriority {
+        String type;
+        int priority;
+    }
+}
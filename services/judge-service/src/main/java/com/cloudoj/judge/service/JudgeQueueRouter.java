@@ -0,0 +1,159 @@
+package com.cloudoj.judge.service;
+
+import com.cloudoj.judge.config.JudgeRoutingProperties;
+import com.cloudoj.judge.config.RabbitMQConfig;
+import com.cloudoj.judge.feign.ProblemServiceClient;
+import com.cloudoj.judge.sandbox.TestDataCache;
+import com.cloudoj.model.common.Result;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评测任务路由
+ * 1. 每个评测通道（一组语言）一个队列 judge.queue.{通道}，路由键 judge.lang.{通道}；
+ *    配置了 heavy-memory-limit 时，内存限制较大的题目进入 judge.queue.{通道}.heavy
+ * 2. 未配置通道的语言、关闭路由时进入原有的 judge.queue
+ * 3. 每个节点都声明完整的队列拓扑（提交接口在任意节点上都能投递），只消费 serve-lanes / serve-tiers 中的队列，
+ *    各语言的评测能力可以独立扩缩容，节点的容器池只需要预热所服务语言的镜像
+ */
+@Slf4j
+@Service("judgeQueueRouter")
+public class JudgeQueueRouter {
+
+    public static final String TIER_STANDARD = "standard";
+    public static final String TIER_HEAVY = "heavy";
+
+    private static final String LANE_QUEUE_PREFIX = "judge.queue.";
+    private static final String LANE_ROUTING_KEY_PREFIX = "judge.lang.";
+
+    private static final Route DEFAULT_ROUTE = new Route(null, TIER_STANDARD,
+            RabbitMQConfig.JUDGE_QUEUE, RabbitMQConfig.JUDGE_ROUTING_KEY);
+
+    @Autowired
+    private JudgeRoutingProperties properties;
+
+    @Autowired(required = false)
+    private TestDataCache testDataCache;
+
+    @Autowired
+    private ProblemServiceClient problemServiceClient;
+
+    private String[] consumerQueues;
+
+    @PostConstruct
+    public void init() {
+        List<String> queues = new ArrayList<>();
+        if (properties.isServeDefault() || !properties.isEnabled()) {
+            queues.add(RabbitMQConfig.JUDGE_QUEUE);
+        }
+        for (Route route : getLaneRoutes()) {
+            boolean laneServed = properties.getServeLanes().isEmpty() || properties.getServeLanes().contains(route.getLane());
+            boolean tierServed = properties.getServeTiers().isEmpty() || properties.getServeTiers().contains(route.getTier());
+            if (laneServed && tierServed) {
+                queues.add(route.getQueue());
+            }
+        }
+        if (queues.isEmpty()) {
+            throw new IllegalStateException("评测节点没有可消费的队列，请检查 judge.routing.serve-lanes / serve-tiers 配置");
+        }
+        consumerQueues = queues.toArray(new String[0]);
+        log.info("评测任务路由: enabled={}, lanes={}, consumerQueues={}",
+                properties.isEnabled(), properties.getLanes().keySet(), queues);
+    }
+
+    /**
+     * 本节点消费的队列（评测消费者监听）
+     */
+    public String[] getConsumerQueues() {
+        return consumerQueues;
+    }
+
+    /**
+     * 全部评测通道的队列和路由键（不含默认队列），用于声明队列拓扑
+     */
+    public List<Route> getLaneRoutes() {
+        List<Route> routes = new ArrayList<>();
+        if (!properties.isEnabled()) {
+            return routes;
+        }
+        for (String lane : properties.getLanes().keySet()) {
+            routes.add(laneRoute(lane, TIER_STANDARD));
+            if (properties.getHeavyMemoryLimit() > 0) {
+                routes.add(laneRoute(lane, TIER_HEAVY));
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * 评测任务的投递目标
+     */
+    public Route route(String language, Long problemId) {
+        String lane = properties.isEnabled() ? laneOf(language) : null;
+        if (lane == null) {
+            return DEFAULT_ROUTE;
+        }
+        boolean heavy = properties.getHeavyMemoryLimit() > 0
+                && memoryLimitOf(problemId) >= properties.getHeavyMemoryLimit();
+        return laneRoute(lane, heavy ? TIER_HEAVY : TIER_STANDARD);
+    }
+
+    /**
+     * 语言所属的评测通道，未配置时返回null
+     */
+    private String laneOf(String language) {
+        if (language == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : properties.getLanes().entrySet()) {
+            for (String candidate : entry.getValue()) {
+                if (candidate.equalsIgnoreCase(language)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 题目内存限制（MB）：优先使用本节点测试数据缓存中的题目限制，获取失败时返回0（standard 档位）
+     */
+    private int memoryLimitOf(Long problemId) {
+        TestDataCache.ProblemTestData cached = testDataCache != null ? testDataCache.peek(problemId) : null;
+        if (cached != null) {
+            return cached.getMemoryLimit();
+        }
+        try {
+            Result<Map<String, Object>> result = problemServiceClient.getProblemById(problemId);
+            Object memoryLimit = result != null && result.getData() != null ? result.getData().get("memoryLimit") : null;
+            return memoryLimit != null ? ((Number) memoryLimit).intValue() : 0;
+        } catch (Exception e) {
+            log.warn("获取题目内存限制失败，使用 standard 档位: problemId={}, error={}", problemId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static Route laneRoute(String lane, String tier) {
+        String suffix = TIER_HEAVY.equals(tier) ? "." + TIER_HEAVY : "";
+        return new Route(lane, tier, LANE_QUEUE_PREFIX + lane + suffix, LANE_ROUTING_KEY_PREFIX + lane + suffix);
+    }
+
+    /**
+     * 投递目标
+     */
+    @Value
+    public static class Route {
+        // 评测通道，默认队列为null
+        String lane;
+        String tier;
+        String queue;
+        String routingKey;
+    }
+}
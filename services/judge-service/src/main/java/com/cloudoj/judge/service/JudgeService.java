@@ -25,6 +25,13 @@ public interface JudgeService {
      */
     JudgeResultVO executeJudge(Long submissionId);
     
+    /**
+     * 执行评测（同步）
+     *
+     * @param fresh 是否强制重新运行（不复用相同代码的评测结果）
+     */
+    JudgeResultVO executeJudge(Long submissionId, boolean fresh);
+    
     /**
      * 查询提交记录详情（带缓存）
      */
@@ -0,0 +1,81 @@
+package com.cloudoj.judge.service;
+
+import com.cloudoj.judge.config.JudgeFairShareProperties;
+import com.cloudoj.judge.feign.CourseServiceClient;
+import com.cloudoj.model.common.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 评测任务租户
+ * 公平调度按租户轮转：作业提交属于作业所在班级（class-{班级ID}，面向全课程的作业为 homework-{作业ID}），
+ * 练习提交属于提交用户（user-{用户ID}），批量重判属于重判任务（rejudge-{任务ID}）。租户在投递时写入消息头，评测节点不需要再查询课程服务
+ */
+@Slf4j
+@Service
+public class JudgeTenantResolver {
+
+    // 消息头：评测任务所属租户
+    public static final String TENANT_HEADER = "x-judge-tenant";
+
+    public static final String GROUP_BY_USER = "user";
+
+    private static final int CLASS_CACHE_MAX_ENTRIES = 1024;
+    private static final long NO_CLASS = -1L;
+
+    @Autowired
+    private JudgeFairShareProperties properties;
+
+    @Autowired
+    private CourseServiceClient courseServiceClient;
+
+    // 作业ID -> 班级ID（作业的班级基本不变，不设过期时间；面向全课程的作业为 NO_CLASS）
+    private final Map<Long, Long> classCache = new ConcurrentHashMap<>();
+
+    /**
+     * 计算提交所属的租户
+     *
+     * @param homeworkId 已校验的作业ID（同 {@link JudgePriorityResolver#resolve}），未校验时按用户分组
+     */
+    public String resolve(Long userId, Long homeworkId) {
+        if (homeworkId == null || !properties.isEnabled() || GROUP_BY_USER.equals(properties.getGroupBy())) {
+            return userTenant(userId);
+        }
+        long classId = classOf(homeworkId);
+        return classId != NO_CLASS ? "class-" + classId : "homework-" + homeworkId;
+    }
+
+    /**
+     * 用户租户（旧消息没有租户消息头时使用）
+     */
+    public static String userTenant(Long userId) {
+        return "user-" + userId;
+    }
+
+    private long classOf(Long homeworkId) {
+        Long cached = classCache.get(homeworkId);
+        if (cached != null) {
+            return cached;
+        }
+        long classId = NO_CLASS;
+        try {
+            Result<Long> result = courseServiceClient.getHomeworkClassId(homeworkId);
+            if (result != null && result.getData() != null) {
+                classId = result.getData();
+            }
+        } catch (Exception e) {
+            // 查询失败时本次按作业分组，不缓存
+            log.warn("查询作业班级失败: homeworkId={}, error={}", homeworkId, e.getMessage());
+            return NO_CLASS;
+        }
+        if (classCache.size() >= CLASS_CACHE_MAX_ENTRIES) {
+            classCache.clear();
+        }
+        classCache.put(homeworkId, classId);
+        return classId;
+    }
+}
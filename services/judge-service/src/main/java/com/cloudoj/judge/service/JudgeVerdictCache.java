@@ -0,0 +1,230 @@
+package com.cloudoj.judge.service;
+
+import com.cloudoj.judge.config.VerdictCacheProperties;
+import com.cloudoj.judge.monitor.JudgeMetrics;
+import com.cloudoj.judge.sandbox.AbstractLanguageSandbox;
+import com.cloudoj.judge.sandbox.TestDataCache;
+import com.cloudoj.model.enums.JudgeStatusEnum;
+import com.cloudoj.model.vo.judge.JudgeResultVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 评测结果复用
+ * 以 题目ID + 评测数据版本 + 语言 + 代码 + 评测限制（时间、内存、输出、比较方式）的SHA-256为键，
+ * 在内存中保存评测结果；学生重复提交完全相同的代码时直接复用，不再进入沙箱
+ *
+ * 1. 只缓存结果确定的评测：系统错误、时间超限、内存超限和被信号终止的运行错误（受机器负载和容器内存压力影响）不缓存；
+ *    评测数据没有版本（旧接口、不可缓存）时不缓存
+ * 2. 按最近最少使用淘汰，条目数不超过 max-entries，估算内存不超过 max-size，条目超过 ttl 后失效
+ */
+@Slf4j
+@Service
+public class JudgeVerdictCache {
+
+    private static final Set<String> NON_DETERMINISTIC_STATUSES = Set.of(
+            JudgeStatusEnum.SYSTEM_ERROR.getCode(),
+            JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getCode(),
+            JudgeStatusEnum.MEMORY_LIMIT_EXCEEDED.getCode());
+
+    // 每个测试用例结果除文本外的估算开销（字节）
+    private static final int TEST_CASE_OVERHEAD = 128;
+
+    @Autowired
+    private VerdictCacheProperties properties;
+
+    @Autowired(required = false)
+    private JudgeMetrics judgeMetrics;
+
+    // 缓存键 -> 评测结果，按访问顺序排列，队首为最久未使用
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+
+    /**
+     * 计算缓存键
+     *
+     * @return 缓存键；未启用或评测数据没有版本时返回null
+     */
+    public String buildKey(Long problemId, String language, String code, TestDataCache.ProblemTestData testData) {
+        if (!properties.isEnabled() || testData == null || testData.getVersion() == null || !testData.isCacheable()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String[] parts = {
+                    String.valueOf(problemId), testData.getVersion(), language, code,
+                    String.valueOf(testData.getTimeLimit()), String.valueOf(testData.getMemoryLimit()),
+                    String.valueOf(testData.getOutputLimit()), String.valueOf(testData.getCheckerMode()),
+                    String.valueOf(testData.getCheckerEpsilon())
+            };
+            for (String part : parts) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                // 写入长度前缀，避免拼接产生歧义
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @return 评测结果的副本（提交ID为新提交），未命中返回null
+     */
+    public JudgeResultVO get(String key, Long submissionId) {
+        if (key == null) {
+            return null;
+        }
+        Entry entry;
+        synchronized (index) {
+            entry = index.get(key);
+            if (entry != null && entry.expireAt <= System.currentTimeMillis()) {
+                index.remove(key);
+                totalBytes -= entry.bytes;
+                entry = null;
+            }
+        }
+        recordLookup(entry != null);
+        return entry != null ? copyOf(entry.result, submissionId) : null;
+    }
+
+    /**
+     * 保存评测结果，结果不确定的评测不缓存
+     */
+    public void put(String key, JudgeResultVO result) {
+        if (key == null || result == null || result.getStatus() == null
+                || NON_DETERMINISTIC_STATUSES.contains(result.getStatus()) || isKilledBySignal(result)) {
+            return;
+        }
+        long maxBytes = properties.getMaxSize() * 1024 * 1024;
+        long bytes = sizeOf(result);
+        if (bytes > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(copyOf(result, null), bytes, System.currentTimeMillis() + properties.getTtl() * 1000);
+        synchronized (index) {
+            Entry previous = index.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            totalBytes += bytes;
+
+            // 超出限制时按最近最少使用淘汰
+            Iterator<Map.Entry<String, Entry>> iterator = index.entrySet().iterator();
+            while ((index.size() > properties.getMaxEntries() || totalBytes > maxBytes) && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.getValue().bytes;
+            }
+        }
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    /**
+     * 被信号终止的运行错误（如容器内存不足被 SIGKILL），重新运行结果可能不同
+     */
+    private static boolean isKilledBySignal(JudgeResultVO result) {
+        if (!JudgeStatusEnum.RUNTIME_ERROR.getCode().equals(result.getStatus())) {
+            return false;
+        }
+        if (isSignalError(result.getErrorMessage())) {
+            return true;
+        }
+        if (result.getTestCaseResults() != null) {
+            for (JudgeResultVO.TestCaseResultVO testCase : result.getTestCaseResults()) {
+                if (isSignalError(testCase.getErrorMessage())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSignalError(String errorMessage) {
+        return errorMessage != null && errorMessage.startsWith(AbstractLanguageSandbox.SIGNAL_ERROR_PREFIX);
+    }
+
+    /**
+     * 复制评测结果：测试用例结果逐条复制，调用方补充输入和预期输出等修改不会影响缓存中的结果
+     */
+    private static JudgeResultVO copyOf(JudgeResultVO source, Long submissionId) {
+        JudgeResultVO copy = new JudgeResultVO();
+        BeanUtils.copyProperties(source, copy);
+        copy.setSubmissionId(submissionId);
+        if (source.getTestCaseResults() != null) {
+            List<JudgeResultVO.TestCaseResultVO> testCases = new ArrayList<>(source.getTestCaseResults().size());
+            for (JudgeResultVO.TestCaseResultVO testCase : source.getTestCaseResults()) {
+                JudgeResultVO.TestCaseResultVO testCaseCopy = new JudgeResultVO.TestCaseResultVO();
+                BeanUtils.copyProperties(testCase, testCaseCopy);
+                testCases.add(testCaseCopy);
+            }
+            copy.setTestCaseResults(testCases);
+        }
+        return copy;
+    }
+
+    private static long sizeOf(JudgeResultVO result) {
+        long chars = length(result.getErrorMessage());
+        if (result.getTestCaseResults() != null) {
+            for (JudgeResultVO.TestCaseResultVO testCase : result.getTestCaseResults()) {
+                chars += length(testCase.getInput()) + length(testCase.getExpectedOutput())
+                        + length(testCase.getActualOutput()) + length(testCase.getErrorMessage());
+            }
+        }
+        int testCases = result.getTestCaseResults() != null ? result.getTestCaseResults().size() : 0;
+        return chars * 2 + (long) testCases * TEST_CASE_OVERHEAD;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private void recordLookup(boolean hit) {
+        if (judgeMetrics != null) {
+            judgeMetrics.recordVerdictCacheLookup(hit);
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+
+        final JudgeResultVO result;
+        final long bytes;
+        final long expireAt;
+
+        Entry(JudgeResultVO result, long bytes, long expireAt) {
+            this.result = result;
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+    }
+}
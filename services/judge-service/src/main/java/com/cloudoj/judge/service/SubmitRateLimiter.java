@@ -83,6 +83,16 @@ public class SubmitRateLimiter {
         return Math.max(0, MAX_SUBMITS_PER_MINUTE - countMinute);
     }
     
+    /**
+     * 获取用户最近1分钟内的提交次数（用于评测优先级的公平性调整）
+     * 
+     * @param userId 用户ID
+     * @return 提交次数
+     */
+    public int getRecentSubmits(Long userId) {
+        return MAX_SUBMITS_PER_MINUTE - getRemainingSubmits(userId);
+    }
+    
     /**
      * 获取需要等待的秒数
      * 
@@ -1,37 +1,54 @@
 package com.cloudoj.judge.service.impl;
 
+import com.cloudoj.judge.codec.TestCaseResultCodec;
 import com.cloudoj.judge.config.RabbitMQConfig;
 import com.cloudoj.judge.feign.CourseServiceClient;
 import com.cloudoj.judge.feign.ProblemServiceClient;
 import com.cloudoj.judge.mapper.SubmissionMapper;
+import com.cloudoj.judge.sandbox.TestDataCache;
 import com.cloudoj.judge.service.AntiCheatService;
+import com.cloudoj.judge.service.JudgePriorityResolver;
+import com.cloudoj.judge.service.JudgeTenantResolver;
+import com.cloudoj.judge.service.JudgeVerdictCache;
+import com.cloudoj.judge.service.JudgeQueueRouter;
 import com.cloudoj.judge.service.JudgeService;
 import com.cloudoj.judge.service.SubmitRateLimiter;
 import com.cloudoj.model.common.PageResult;
 import com.cloudoj.model.common.Result;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
 import com.cloudoj.model.dto.judge.JudgeMessage;
 import com.cloudoj.model.dto.judge.SubmitCodeRequest;
+import com.cloudoj.model.dto.problem.JudgeBundle;
 import com.cloudoj.model.entity.judge.Submission;
 import com.cloudoj.model.entity.problem.TestCase;
 import com.cloudoj.model.enums.JudgeStatusEnum;
 import com.cloudoj.model.vo.judge.JudgeResultVO;
 import com.cloudoj.model.vo.judge.SubmissionVO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -53,6 +70,15 @@ public class JudgeServiceImpl implements JudgeService {
     @Autowired
     private SubmitRateLimiter submitRateLimiter;
     
+    @Autowired
+    private JudgeQueueRouter judgeQueueRouter;
+    
+    @Autowired
+    private JudgePriorityResolver judgePriorityResolver;
+    
+    @Autowired
+    private JudgeTenantResolver judgeTenantResolver;
+    
     @Autowired(required = false)
     private com.cloudoj.judge.sandbox.SandboxFactory sandboxFactory;
     
@@ -75,11 +101,28 @@ public class JudgeServiceImpl implements JudgeService {
     @Autowired
     private com.cloudoj.judge.service.AntiCheatService antiCheatService;
     
+    @Autowired
+    private TestDataCache testDataCache;
+    
+    @Autowired
+    private JudgeVerdictCache judgeVerdictCache;
+    
+    // 评测完成后发布事件（关闭后直接调用各服务接口）
+    @Value("${judge.events.enabled:true}")
+    private boolean eventsEnabled;
+    
+    // 等待评测完成事件发布确认的最长时间（毫秒）
+    @Value("${judge.events.confirm-timeout:5000}")
+    private long eventsConfirmTimeout;
+    
     // Redis缓存key前缀
     private static final String SUBMISSION_CACHE_PREFIX = "submission:";
     private static final String JUDGE_RESULT_CACHE_PREFIX = "judge:result:";
     // 缓存过期时间（秒）
     private static final long CACHE_EXPIRE_TIME = 300; // 5分钟
+    // 评测数据包接口，测试数据缓存中评测数据包的版本以 v 开头（旧接口数据的版本为内容摘要）
+    private static final String JUDGE_BUNDLE_URL = "http://problem-service/problem/{problemId}/judge-bundle";
+    private static final String BUNDLE_VERSION_PREFIX = "v";
     
     @Override
     public Long submitCode(SubmitCodeRequest request, String ipAddress) {
@@ -91,6 +134,13 @@ public class JudgeServiceImpl implements JudgeService {
             );
         }
         
+        // 校验作业ID：确认无效时不作为作业提交，无法确认时保留作业ID但按练习提交调度
+        Boolean homeworkValid = request.getHomeworkId() != null
+                ? verifyHomeworkSubmission(request.getHomeworkId(), request.getUserId(), request.getProblemId())
+                : null;
+        Long homeworkId = Boolean.FALSE.equals(homeworkValid) ? null : request.getHomeworkId();
+        Long scheduleHomeworkId = Boolean.TRUE.equals(homeworkValid) ? request.getHomeworkId() : null;
+        
         // 创建提交记录
         Submission submission = new Submission();
         submission.setProblemId(request.getProblemId());
@@ -99,7 +149,7 @@ public class JudgeServiceImpl implements JudgeService {
         submission.setCode(request.getCode());
         submission.setStatus(JudgeStatusEnum.PENDING.getCode());
         submission.setIpAddress(ipAddress);
-        submission.setHomeworkId(request.getHomeworkId()); // 保存作业ID
+        submission.setHomeworkId(homeworkId); // 保存作业ID
         
         // 保存到数据库
         submissionMapper.insert(submission);
@@ -119,19 +169,58 @@ public class JudgeServiceImpl implements JudgeService {
         judgeMessage.setCode(request.getCode());
         judgeMessage.setRetryCount(0);
         
+        // 按语言（和资源档位）投递到对应的评测通道队列，作业提交、临近截止的作业优先评测
+        JudgeQueueRouter.Route route = judgeQueueRouter.route(request.getLanguage(), request.getProblemId());
+        JudgePriorityResolver.JudgePriority priority = judgePriorityResolver.resolve(
+                request.getUserId(), scheduleHomeworkId);
+        String tenant = judgeTenantResolver.resolve(request.getUserId(), scheduleHomeworkId);
         rabbitTemplate.convertAndSend(
             RabbitMQConfig.JUDGE_EXCHANGE,
-            RabbitMQConfig.JUDGE_ROUTING_KEY,
-            judgeMessage
+            route.getRoutingKey(),
+            judgeMessage,
+            message -> {
+                message.getMessageProperties().setPriority(priority.getPriority());
+                message.getMessageProperties().setHeader(JudgePriorityResolver.TYPE_HEADER, priority.getType());
+                message.getMessageProperties().setHeader(JudgeTenantResolver.TENANT_HEADER, tenant);
+                message.getMessageProperties().setHeader(JudgePriorityResolver.ENQUEUE_TIME_HEADER,
+                        System.currentTimeMillis());
+                return message;
+            }
         );
         
-        log.info("评测任务已发送到队列, submissionId={}", submission.getId());
+        log.info("评测任务已发送到队列, submissionId={}, queue={}, type={}, priority={}, tenant={}", submission.getId(),
+                route.getQueue(), priority.getType(), priority.getPriority(), tenant);
         
         return submission.getId();
     }
     
+    /**
+     * 校验作业提交：题目在作业中且用户属于作业所在班级，只有校验通过的提交才按作业提交提升优先级和按班级分组
+     *
+     * @return true-有效，false-无效，null-课程服务不可用无法确认
+     */
+    private Boolean verifyHomeworkSubmission(Long homeworkId, Long userId, Long problemId) {
+        try {
+            Result<Boolean> result = courseServiceClient.canSubmitHomework(homeworkId, userId, problemId);
+            Boolean valid = result != null ? result.getData() : null;
+            if (Boolean.FALSE.equals(valid)) {
+                log.warn("作业提交校验未通过，按练习提交处理: homeworkId={}, userId={}, problemId={}",
+                        homeworkId, userId, problemId);
+            }
+            return valid;
+        } catch (Exception e) {
+            log.warn("校验作业提交失败，按练习提交调度: homeworkId={}, error={}", homeworkId, e.getMessage());
+            return null;
+        }
+    }
+    
     @Override
     public JudgeResultVO executeJudge(Long submissionId) {
+        return executeJudge(submissionId, false);
+    }
+    
+    @Override
+    public JudgeResultVO executeJudge(Long submissionId, boolean fresh) {
         // 查询提交记录
         Submission submission = submissionMapper.selectById(submissionId);
         if (submission == null) {
@@ -148,16 +237,8 @@ public class JudgeServiceImpl implements JudgeService {
         notificationService.notifyStatus(submission.getUserId(), submissionId, 
                 JudgeStatusEnum.JUDGING.getCode(), "评测中...");
         
-        // 执行评测
-        JudgeResultVO result;
-        if (sandboxFactory != null) {
-            // 使用Docker沙箱评测
-            result = dockerJudge(submission);
-        } else {
-            // 如果Docker不可用，使用模拟评测
-            log.warn("Docker沙箱不可用，使用模拟评测");
-            result = simulateJudge(submission);
-        }
+        // 执行评测（执行后端由 SandboxFactory 按配置选择；相同代码已评测过时复用结果）
+        JudgeResultVO result = sandboxJudge(submission, fresh);
         
         // 更新评测结果
         submission.setStatus(result.getStatus());
@@ -173,28 +254,29 @@ public class JudgeServiceImpl implements JudgeService {
         }
         submission.setPassRate(new BigDecimal(passRateStr));
         
-        // 保存测试用例结果详情（JSON格式）
+        // 保存测试用例结果详情（紧凑编码，输入和预期输出只保存用例ID）
         if (result.getTestCaseResults() != null && !result.getTestCaseResults().isEmpty()) {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                String testCaseResultsJson = objectMapper.writeValueAsString(result.getTestCaseResults());
-                submission.setTestCaseResults(testCaseResultsJson);
+                submission.setTestCaseResults(TestCaseResultCodec.encode(result.getTestCaseResults()));
             } catch (Exception e) {
-                log.error("序列化测试用例结果失败", e);
+                log.error("编码测试用例结果失败", e);
             }
         }
         
         submissionMapper.updateJudgeResult(submission);
         
-        // 更新题目统计（提交次数和通过次数）
-        updateProblemStatistics(submission.getProblemId(), "ACCEPTED".equals(result.getStatus()));
-        
-        // 更新学习进度到learning-service
-        updateLearningProgress(submission, result);
-        
-        // 如果是作业提交，记录到course-service
-        if (submission.getHomeworkId() != null) {
-            recordHomeworkSubmission(submission, result);
+        // 发布评测完成事件：题目统计、学习进度、作业提交记录由各服务异步消费，评测线程不等待下游服务
+        if (!publishJudgeCompleted(submission, result)) {
+            // 更新题目统计（提交次数和通过次数）
+            updateProblemStatistics(submission.getProblemId(), "ACCEPTED".equals(result.getStatus()));
+            
+            // 更新学习进度到learning-service
+            updateLearningProgress(submission, result);
+            
+            // 如果是作业提交，记录到course-service
+            if (submission.getHomeworkId() != null) {
+                recordHomeworkSubmission(submission, result);
+            }
         }
         
         // 清除缓存，让下次查询能获取最新结果
@@ -210,11 +292,14 @@ public class JudgeServiceImpl implements JudgeService {
     }
     
     /**
-     * Docker沙箱评测
+     * 沙箱评测
+     *
+     * @param fresh 是否强制重新运行（不复用评测结果）
      */
-    private JudgeResultVO dockerJudge(Submission submission) {
+    private JudgeResultVO sandboxJudge(Submission submission, boolean fresh) {
         JudgeResultVO result = new JudgeResultVO();
         result.setSubmissionId(submission.getId());
+        TestDataCache.ProblemTestData testData = null;
         
         try {
             // 代码安全检查
@@ -235,8 +320,10 @@ public class JudgeServiceImpl implements JudgeService {
             // 获取语言对应的沙箱
             com.cloudoj.judge.sandbox.LanguageSandbox sandbox = sandboxFactory.getSandbox(submission.getLanguage());
             
-            // 从problem-service获取测试用例
-            List<com.cloudoj.model.dto.judge.JudgeTestCase> testCases = getMockTestCases(submission.getProblemId());
+            // 获取题目的评测数据（限制和测试用例），命中测试数据缓存时不请求problem-service
+            testData = testDataCache.acquire(submission.getProblemId(),
+                    knownVersion -> loadProblemTestData(submission.getProblemId(), knownVersion));
+            List<com.cloudoj.model.dto.judge.JudgeTestCase> testCases = testData != null ? testData.getTestCases() : null;
             
             // 检查测试用例是否为空
             if (testCases == null || testCases.isEmpty()) {
@@ -252,33 +339,30 @@ public class JudgeServiceImpl implements JudgeService {
                 return result;
             }
             
-            // 获取题目的时间限制和内存限制
-            int timeLimit = 5000;  // 默认5秒
-            int memoryLimit = 256; // 默认256MB
-            try {
-                Result<java.util.Map<String, Object>> problemResult = problemServiceClient.getProblemById(submission.getProblemId());
-                if (problemResult != null && problemResult.isSuccess() && problemResult.getData() != null) {
-                    java.util.Map<String, Object> problemData = problemResult.getData();
-                    Object timeLimitObj = problemData.get("timeLimit");
-                    Object memoryLimitObj = problemData.get("memoryLimit");
-                    if (timeLimitObj != null) {
-                        timeLimit = ((Number) timeLimitObj).intValue();
-                    }
-                    if (memoryLimitObj != null) {
-                        memoryLimit = ((Number) memoryLimitObj).intValue();
-                    }
-                    log.info("使用题目限制：timeLimit={}ms, memoryLimit={}MB", timeLimit, memoryLimit);
+            // 同一评测数据版本下相同语言和代码的提交直接复用评测结果
+            String verdictKey = judgeVerdictCache.buildKey(submission.getProblemId(),
+                    submission.getLanguage(), submission.getCode(), testData);
+            if (!fresh) {
+                JudgeResultVO cached = judgeVerdictCache.get(verdictKey, submission.getId());
+                if (cached != null) {
+                    log.info("复用相同代码的评测结果: submissionId={}, status={}, score={}",
+                            submission.getId(), cached.getStatus(), cached.getScore());
+                    return cached;
                 }
-            } catch (Exception e) {
-                log.warn("获取题目限制失败，使用默认值：timeLimit={}ms, memoryLimit={}MB", timeLimit, memoryLimit);
             }
             
             // 执行评测
             com.cloudoj.judge.sandbox.LanguageSandbox.JudgeResult judgeResult = sandbox.judge(
                     submission.getCode(),
                     testCases,
-                    timeLimit,
-                    memoryLimit
+                    com.cloudoj.judge.sandbox.LanguageSandbox.JudgeOptions.builder()
+                            .timeLimit(testData.getTimeLimit())
+                            .memoryLimit(testData.getMemoryLimit())
+                            .outputLimit(testData.getOutputLimit())
+                            .parallel(testData.isParallelJudge())
+                            .checkerMode(testData.getCheckerMode())
+                            .checkerEpsilon(testData.getCheckerEpsilon())
+                            .build()
             );
             
             // 转换结果
@@ -312,7 +396,9 @@ public class JudgeServiceImpl implements JudgeService {
                     vo.setMemoryUsed(tcr.getMemoryUsed());
                     // 从testCases获取input（如果索引对应）
                     if (i < testCases.size()) {
-                        vo.setInput(testCases.get(i).getInput());
+                        com.cloudoj.model.dto.judge.JudgeTestCase tc = testCases.get(i);
+                        vo.setInput(tc.getInput() != null ? tc.getInput()
+                                : TestDataCache.readPreview(tc.getInputFile(), 1000));
                     }
                     vo.setExpectedOutput(tcr.getExpectedOutput());
                     vo.setActualOutput(tcr.getActualOutput());
@@ -329,9 +415,12 @@ public class JudgeServiceImpl implements JudgeService {
             // 防作弊检测：只要有得分就检测（防止部分硬编码得分）
             if (result.getScore() > 0) {
                 try {
-                    // 将 JudgeTestCase 转换为 TestCase 用于检测
+                    // 将 JudgeTestCase 转换为 TestCase 用于检测（未内联的大数据不可能被硬编码，跳过）
                     List<TestCase> testCasesForCheck = new ArrayList<>();
                     for (com.cloudoj.model.dto.judge.JudgeTestCase jtc : testCases) {
+                        if (jtc.getInput() == null || jtc.getOutput() == null) {
+                            continue;
+                        }
                         TestCase tc = new TestCase();
                         tc.setId(jtc.getId());
                         tc.setInput(jtc.getInput());
@@ -359,14 +448,165 @@ public class JudgeServiceImpl implements JudgeService {
                 }
             }
             
+            judgeVerdictCache.put(verdictKey, result);
+            
         } catch (Exception e) {
-            log.error("Docker评测失败，使用模拟评测", e);
-            return simulateJudge(submission);
+            log.error("沙箱评测失败: submissionId={}", submission.getId(), e);
+            result.setStatus(JudgeStatusEnum.SYSTEM_ERROR.getCode());
+            result.setStatusDesc(JudgeStatusEnum.SYSTEM_ERROR.getDesc());
+            result.setScore(0);
+            result.setTimeUsed(0);
+            result.setMemoryUsed(0);
+            result.setPassRate("0.00%");
+            result.setErrorMessage("系统错误: " + e.getMessage());
+            result.setTestCaseResults(new ArrayList<>());
+        } finally {
+            testDataCache.release(testData);
         }
         
         return result;
     }
     
+    /**
+     * 从problem-service加载题目的评测数据
+     * 优先使用评测数据包接口（一次请求，带已缓存版本的条件请求，响应gzip压缩），接口不可用时分别获取题目详情和测试用例
+     *
+     * @param knownVersion 已缓存的版本，没有时为null
+     * @return 评测数据；版本未变化时返回 NOT_MODIFIED
+     */
+    private TestDataCache.ProblemTestData loadProblemTestData(Long problemId, String knownVersion) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            if (knownVersion != null && knownVersion.startsWith(BUNDLE_VERSION_PREFIX)) {
+                headers.setIfNoneMatch("\"" + knownVersion.substring(BUNDLE_VERSION_PREFIX.length()) + "\"");
+            }
+            ResponseEntity<Result<JudgeBundle>> response = restTemplate.exchange(JUDGE_BUNDLE_URL, HttpMethod.GET,
+                    new HttpEntity<>(headers), new ParameterizedTypeReference<Result<JudgeBundle>>() {}, problemId);
+            if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                return TestDataCache.ProblemTestData.NOT_MODIFIED;
+            }
+            Result<JudgeBundle> result = response.getBody();
+            if (result != null && result.isSuccess() && result.getData() != null) {
+                return fromJudgeBundle(result.getData());
+            }
+            log.warn("获取题目评测数据包失败：problemId={}, message={}", problemId,
+                    result != null ? result.getMessage() : null);
+        } catch (Exception e) {
+            log.warn("获取题目评测数据包失败，改为分别获取题目详情和测试用例：problemId={}, error={}",
+                    problemId, e.getMessage());
+        }
+        return loadProblemTestDataLegacy(problemId);
+    }
+    
+    /**
+     * 评测数据包转换为评测数据（题目没有测试用例时数据包中是由样例生成的用例，同样带版本，可以缓存）
+     */
+    private TestDataCache.ProblemTestData fromJudgeBundle(JudgeBundle bundle) {
+        int timeLimit = bundle.getTimeLimit() != null ? bundle.getTimeLimit() : 5000;
+        int memoryLimit = bundle.getMemoryLimit() != null ? bundle.getMemoryLimit() : 256;
+        List<com.cloudoj.model.dto.judge.JudgeTestCase> testCases = new ArrayList<>();
+        if (bundle.getTestCases() != null) {
+            for (JudgeBundle.BundleTestCase tc : bundle.getTestCases()) {
+                testCases.add(com.cloudoj.model.dto.judge.JudgeTestCase.builder()
+                        .id(tc.getId())
+                        .input(tc.getInput())
+                        .output(tc.getOutput())
+                        .inputHash(tc.getInputHash())
+                        .outputHash(tc.getOutputHash())
+                        .score(tc.getScore())
+                        .timeLimit(timeLimit)
+                        .memoryLimit(memoryLimit)
+                        .build());
+            }
+        }
+        log.info("获取题目评测数据包：problemId={}, version={}, testCases={}, fromSamples={}",
+                bundle.getProblemId(), bundle.getVersion(), testCases.size(), bundle.getFromSamples());
+        return TestDataCache.ProblemTestData.builder()
+                .problemId(bundle.getProblemId())
+                .version(BUNDLE_VERSION_PREFIX + bundle.getVersion())
+                .timeLimit(timeLimit)
+                .memoryLimit(memoryLimit)
+                .outputLimit(bundle.getOutputLimit() != null ? bundle.getOutputLimit() : 0)
+                .parallelJudge(bundle.getParallelJudge() != null && bundle.getParallelJudge() == 1)
+                .checkerMode(bundle.getCheckerMode())
+                .checkerEpsilon(bundle.getCheckerEpsilon() != null ? bundle.getCheckerEpsilon() : 0)
+                .languages(bundle.getLanguages())
+                .testCases(testCases)
+                .cacheable(true)
+                .build();
+    }
+    
+    /**
+     * 分别获取题目详情和测试用例（评测数据包接口不可用时使用）：时间/内存/输出限制、比对模式和测试用例
+     * 题目没有测试用例时使用题目样例；使用样例或题目详情获取失败（使用默认限制）时不缓存
+     */
+    private TestDataCache.ProblemTestData loadProblemTestDataLegacy(Long problemId) {
+        java.util.Map<String, Object> problemData = null;
+        try {
+            Result<java.util.Map<String, Object>> problemResult = problemServiceClient.getProblemById(problemId);
+            if (problemResult != null && problemResult.isSuccess()) {
+                problemData = problemResult.getData();
+            }
+        } catch (Exception e) {
+            log.warn("获取题目详情失败：problemId={}, error={}", problemId, e.getMessage());
+        }
+        
+        // 获取题目的时间限制和内存限制
+        int timeLimit = 5000;  // 默认5秒
+        int memoryLimit = 256; // 默认256MB
+        int outputLimit = 0;   // 0表示使用评测服务默认值
+        boolean parallelJudge = false;
+        String checkerMode = null;
+        double checkerEpsilon = 0;
+        if (problemData != null) {
+            Object timeLimitObj = problemData.get("timeLimit");
+            Object memoryLimitObj = problemData.get("memoryLimit");
+            if (timeLimitObj != null) {
+                timeLimit = ((Number) timeLimitObj).intValue();
+            }
+            if (memoryLimitObj != null) {
+                memoryLimit = ((Number) memoryLimitObj).intValue();
+            }
+            Object outputLimitObj = problemData.get("outputLimit");
+            if (outputLimitObj != null) {
+                outputLimit = ((Number) outputLimitObj).intValue();
+            }
+            Object parallelJudgeObj = problemData.get("parallelJudge");
+            parallelJudge = parallelJudgeObj != null && ((Number) parallelJudgeObj).intValue() == 1;
+            Object checkerModeObj = problemData.get("checkerMode");
+            if (checkerModeObj != null) {
+                checkerMode = checkerModeObj.toString();
+            }
+            Object checkerEpsilonObj = problemData.get("checkerEpsilon");
+            if (checkerEpsilonObj != null) {
+                checkerEpsilon = ((Number) checkerEpsilonObj).doubleValue();
+            }
+            log.info("使用题目限制：timeLimit={}ms, memoryLimit={}MB, outputLimit={}MB, parallelJudge={}, checkerMode={}",
+                    timeLimit, memoryLimit, outputLimit, parallelJudge, checkerMode);
+        } else {
+            log.warn("获取题目限制失败，使用默认值：timeLimit={}ms, memoryLimit={}MB", timeLimit, memoryLimit);
+        }
+        
+        // 从problem-service获取测试用例，没有测试用例时使用题目样例
+        List<com.cloudoj.model.dto.judge.JudgeTestCase> testCases = getMockTestCases(problemId);
+        boolean fromSamples = testCases.isEmpty();
+        if (fromSamples) {
+            testCases = getFallbackTestCasesFromProblem(problemId, problemData);
+        }
+        
+        return TestDataCache.ProblemTestData.builder()
+                .problemId(problemId)
+                .timeLimit(timeLimit)
+                .memoryLimit(memoryLimit)
+                .outputLimit(outputLimit)
+                .parallelJudge(parallelJudge)
+                .checkerMode(checkerMode)
+                .checkerEpsilon(checkerEpsilon)
+                .testCases(testCases)
+                .cacheable(problemData != null && !fromSamples)
+                .build();
+    }
+    
     /**
      * 获取测试用例（从problem-service，使用 Feign + Sentinel 降级）
      */
@@ -379,7 +619,7 @@ public class JudgeServiceImpl implements JudgeService {
             
             if (result == null || result.getData() == null || result.getData().isEmpty()) {
                 log.warn("获取测试用例为空，尝试使用题目样例：problemId={}", problemId);
-                return getFallbackTestCasesFromProblem(problemId);
+                return new ArrayList<>();
             }
             
             List<TestCase> testCases = result.getData();
@@ -391,6 +631,8 @@ public class JudgeServiceImpl implements JudgeService {
                     .id(tc.getId())
                     .input(tc.getInput())
                     .output(tc.getOutput())
+                    .inputHash(tc.getInputHash())
+                    .outputHash(tc.getOutputHash())
                     .score(tc.getScore() != null ? tc.getScore() : 20) // 默认20分
                     .timeLimit(5000)  // 5秒，可以从Problem中获取
                     .memoryLimit(256) // 256MB，可以从Problem中获取
@@ -399,27 +641,26 @@ public class JudgeServiceImpl implements JudgeService {
             
         } catch (Exception e) {
             log.error("调用problem-service失败，尝试使用题目样例：problemId={}", problemId, e);
-            return getFallbackTestCasesFromProblem(problemId);
+            return new ArrayList<>();
         }
     }
     
     /**
      * 从题目样例获取降级测试用例
      * 当题目没有设置测试用例时，使用题目中的sampleInput和sampleOutput作为测试用例
+     *
+     * @param problem 已获取的题目详情，获取失败时为null
      */
-    private List<com.cloudoj.model.dto.judge.JudgeTestCase> getFallbackTestCasesFromProblem(Long problemId) {
+    private List<com.cloudoj.model.dto.judge.JudgeTestCase> getFallbackTestCasesFromProblem(Long problemId,
+                                                                                          java.util.Map<String, Object> problem) {
         try {
             log.info("尝试从题目样例获取测试用例：problemId={}", problemId);
             
-            // 获取题目详情
-            Result<java.util.Map<String, Object>> problemResult = problemServiceClient.getProblemById(problemId);
-            
-            if (problemResult == null || problemResult.getData() == null) {
+            if (problem == null) {
                 log.warn("获取题目详情失败：problemId={}", problemId);
                 return new ArrayList<>();
             }
             
-            java.util.Map<String, Object> problem = problemResult.getData();
             String sampleInput = (String) problem.get("sampleInput");
             String sampleOutput = (String) problem.get("sampleOutput");
             
@@ -458,77 +699,6 @@ public class JudgeServiceImpl implements JudgeService {
         }
     }
     
-    /**
-     * 模拟评测（Docker不可用时的备选方案）
-     */
-    private JudgeResultVO simulateJudge(Submission submission) {
-        JudgeResultVO result = new JudgeResultVO();
-        result.setSubmissionId(submission.getId());
-        
-        try {
-            // 检查测试用例是否存在
-            List<com.cloudoj.model.dto.judge.JudgeTestCase> testCases = getMockTestCases(submission.getProblemId());
-            if (testCases == null || testCases.isEmpty()) {
-                log.error("题目没有测试用例，无法评测：problemId={}", submission.getProblemId());
-                result.setStatus(JudgeStatusEnum.SYSTEM_ERROR.getCode());
-                result.setStatusDesc("题目暂无测试用例");
-                result.setScore(0);
-                result.setTimeUsed(0);
-                result.setMemoryUsed(0);
-                result.setPassRate("0.00%");
-                result.setErrorMessage("该题目暂未设置测试用例，请联系管理员添加测试用例后再提交");
-                result.setTestCaseResults(new ArrayList<>());
-                return result;
-            }
-            
-            // 模拟编译和运行
-            Thread.sleep(1000); // 模拟评测耗时
-            
-            // 随机生成评测结果（仅供演示）
-            Random random = new Random();
-            int rand = random.nextInt(100);
-            
-            if (rand < 70) { // 70% 概率通过
-                result.setStatus(JudgeStatusEnum.ACCEPTED.getCode());
-                result.setStatusDesc(JudgeStatusEnum.ACCEPTED.getDesc());
-                result.setScore(100);
-                result.setPassRate("100.00%");
-            } else if (rand < 85) { // 15% 概率答案错误
-                result.setStatus(JudgeStatusEnum.WRONG_ANSWER.getCode());
-                result.setStatusDesc(JudgeStatusEnum.WRONG_ANSWER.getDesc());
-                result.setScore(60);
-                result.setPassRate("60.00%");
-                result.setErrorMessage("测试用例3输出不匹配");
-            } else if (rand < 95) { // 10% 概率运行时错误
-                result.setStatus(JudgeStatusEnum.RUNTIME_ERROR.getCode());
-                result.setStatusDesc(JudgeStatusEnum.RUNTIME_ERROR.getDesc());
-                result.setScore(0);
-                result.setPassRate("0.00%");
-                result.setErrorMessage("NullPointerException at line 10");
-            } else { // 5% 概率时间超限
-                result.setStatus(JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getCode());
-                result.setStatusDesc(JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getDesc());
-                result.setScore(0);
-                result.setPassRate("0.00%");
-                result.setErrorMessage("执行超过1000ms限制");
-            }
-            
-            // 随机生成运行时间和内存
-            result.setTimeUsed(random.nextInt(500) + 50);  // 50-550ms
-            result.setMemoryUsed(random.nextInt(20000) + 4096); // 4-24MB
-            
-        } catch (Exception e) {
-            log.error("评测失败", e);
-            result.setStatus(JudgeStatusEnum.SYSTEM_ERROR.getCode());
-            result.setStatusDesc(JudgeStatusEnum.SYSTEM_ERROR.getDesc());
-            result.setScore(0);
-            result.setPassRate("0.00%");
-            result.setErrorMessage("系统错误: " + e.getMessage());
-        }
-        
-        return result;
-    }
-    
     @Override
     public SubmissionVO getSubmissionById(Long id) {
         // 先从缓存获取
@@ -658,11 +828,8 @@ public class JudgeServiceImpl implements JudgeService {
         // 解析测试用例结果详情
         if (submission.getTestCaseResults() != null && !submission.getTestCaseResults().isEmpty()) {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                List<JudgeResultVO.TestCaseResultVO> testCaseResults = objectMapper.readValue(
-                    submission.getTestCaseResults(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, JudgeResultVO.TestCaseResultVO.class)
-                );
+                List<JudgeResultVO.TestCaseResultVO> testCaseResults = TestCaseResultCodec.decode(submission.getTestCaseResults());
+                fillTestCaseData(submission.getProblemId(), testCaseResults);
                 result.setTestCaseResults(testCaseResults);
             } catch (Exception e) {
                 log.error("解析测试用例结果失败, submissionId={}", submissionId, e);
@@ -679,6 +846,48 @@ public class JudgeServiceImpl implements JudgeService {
         return result;
     }
     
+    /**
+     * 按用例ID从problem-service数据库中的预览补全测试用例结果的输入和预期输出（编码时未保存）
+     * 同一用例ID的内容不会改变，测试数据修改后历史提交仍展示当时评测的数据；只读查询，不触发测试数据下载
+     * 获取失败时保持为空
+     */
+    private void fillTestCaseData(Long problemId, List<JudgeResultVO.TestCaseResultVO> testCaseResults) {
+        List<Long> ids = testCaseResults.stream()
+                .filter(vo -> vo.getTestCaseId() != null && (vo.getInput() == null || vo.getExpectedOutput() == null))
+                .map(JudgeResultVO.TestCaseResultVO::getTestCaseId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            Result<List<TestCase>> result = problemServiceClient.getTestCasePreviews(ids);
+            if (result == null || result.getData() == null) {
+                return;
+            }
+            Map<Long, TestCase> previewMap = new HashMap<>();
+            for (TestCase tc : result.getData()) {
+                if (tc.getId() != null && problemId.equals(tc.getProblemId())) {
+                    previewMap.put(tc.getId(), tc);
+                }
+            }
+            for (JudgeResultVO.TestCaseResultVO vo : testCaseResults) {
+                TestCase tc = vo.getTestCaseId() != null ? previewMap.get(vo.getTestCaseId()) : null;
+                if (tc == null) {
+                    continue;
+                }
+                if (vo.getInput() == null) {
+                    vo.setInput(TestCaseResultCodec.truncate(tc.getInputPreview()));
+                }
+                if (vo.getExpectedOutput() == null) {
+                    vo.setExpectedOutput(TestCaseResultCodec.truncate(tc.getOutputPreview()));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("补全测试用例输入输出失败: problemId={}, error={}", problemId, e.getMessage());
+        }
+    }
+    
     @Override
     public void markAsSystemError(Long submissionId) {
         Submission submission = submissionMapper.selectById(submissionId);
@@ -698,6 +907,60 @@ public class JudgeServiceImpl implements JudgeService {
         log.info("提交记录已标记为系统错误, submissionId={}", submissionId);
     }
     
+    /**
+     * 发布评测完成事件
+     *
+     * @return 是否已发布；未启用或发布失败时返回false，由调用方直接调用各服务接口
+     */
+    private boolean publishJudgeCompleted(Submission submission, JudgeResultVO result) {
+        if (!eventsEnabled) {
+            return false;
+        }
+        JudgeCompletedEvent event = JudgeCompletedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .submissionId(submission.getId())
+                .problemId(submission.getProblemId())
+                .userId(submission.getUserId())
+                .homeworkId(submission.getHomeworkId())
+                .status(result.getStatus())
+                .score(result.getScore())
+                .timeUsed(result.getTimeUsed())
+                .memoryUsed(result.getMemoryUsed())
+                .codeLines(submission.getCode() != null ? submission.getCode().split("\n").length : 0)
+                .submitTime(toEpochMilli(submission.getCreateTime()))
+                .judgedAt(System.currentTimeMillis())
+                .build();
+        // 等待 broker 确认：未确认（nack）、无队列可路由被退回或超时都视为发布失败，由调用方直接调用各服务
+        CorrelationData correlation = new CorrelationData(event.getEventId());
+        try {
+            rabbitTemplate.convertAndSend(JudgeCompletedEvent.EXCHANGE, "", event, correlation);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(eventsConfirmTimeout, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                log.error("评测完成事件未被确认，直接调用各服务: submissionId={}, reason={}",
+                        submission.getId(), confirm.getReason());
+                return false;
+            }
+            if (correlation.getReturned() != null) {
+                log.error("评测完成事件无队列可路由，直接调用各服务: submissionId={}, replyText={}",
+                        submission.getId(), correlation.getReturned().getReplyText());
+                return false;
+            }
+            log.info("评测完成事件已发布, submissionId={}, eventId={}", submission.getId(), event.getEventId());
+            return true;
+        } catch (TimeoutException e) {
+            log.error("等待评测完成事件发布确认超时，直接调用各服务: submissionId={}, timeout={}ms",
+                    submission.getId(), eventsConfirmTimeout);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("等待评测完成事件发布确认被中断，直接调用各服务: submissionId={}", submission.getId());
+            return false;
+        } catch (Exception e) {
+            log.error("发布评测完成事件失败，直接调用各服务: submissionId={}, error={}", submission.getId(), e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * 更新题目统计信息（使用 Feign + Sentinel 降级）
      */
@@ -780,6 +1043,7 @@ public class JudgeServiceImpl implements JudgeService {
             params.put("judgeSubmissionId", submission.getId());
             params.put("score", result.getScore() != null ? result.getScore() : 0);
             params.put("status", result.getStatus());
+            params.put("submitTime", toEpochMilli(submission.getCreateTime()));
             
             // 使用 Feign 客户端调用（自动支持 Sentinel 降级）
             courseServiceClient.recordHomeworkSubmission(params);
@@ -792,6 +1056,13 @@ public class JudgeServiceImpl implements JudgeService {
         }
     }
     
+    /**
+     * 提交时间转换为毫秒时间戳，缺失时返回null
+     */
+    private static Long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+    
     @Override
     public void clearSubmissionCache(Long submissionId) {
         String submissionKey = SUBMISSION_CACHE_PREFIX + submissionId;
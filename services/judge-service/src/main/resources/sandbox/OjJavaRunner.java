@@ -0,0 +1,517 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilePermission;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.NetPermission;
+import java.net.SocketPermission;
+import java.net.StandardProtocolFamily;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Permission;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.PropertyPermission;
+import java.util.Scanner;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+
+/*
+ * OjJavaRunner - 常驻的Java评测运行器
+ *
+ * 用法: java -Djava.security.manager=allow -cp /opt/oj/java OjJavaRunner --socket <path> [--max-jobs <n>]
+ *       java -XX:ArchiveClassesAtExit=ojjava.jsa -cp . OjJavaRunner --warmup
+ *
+ * 在评测容器中常驻一个已经预热的JVM，通过 Unix 套接字接收 ojrun --warm 转交的批量运行请求
+ * （格式见 ojrun.c），请求内容为 "<主类> <内存限制MB>"。每个用例：
+ * 1. 使用新的类加载器从工作目录加载提交的类（父加载器为平台类加载器，看不到运行器自身）
+ * 2. System.in/out/err 重定向到 input_<i>.txt / output_<i>.txt
+ * 3. 在独立线程组中运行 main 方法，超过墙钟超时后停止线程并记为退出码 124
+ * 4. 输出超过限制记为退出码 153（与 ojrun 的 SIGXFSZ 一致），System.exit 的状态码作为退出码
+ * 5. CPU时间为主线程CPU时间，峰值内存为堆内存峰值相对运行前基线的增量
+ * 每个用例结束后按 ojrun 批量模式相同的格式向套接字回复一行 case=...，由 ojrun 写入结果清单。
+ *
+ * 安全管理器只约束提交代码所在的线程组：禁止创建进程、网络访问、写文件、修改系统属性、
+ * 替换标准流等。出现这类越权操作、线程无法停止或处理完 max-jobs 批请求后，运行器回复当前
+ * 请求后退出（回复中带 recycle 标记），由 judge-service 重新启动，避免状态在提交之间泄漏。
+ *
+ * --warmup 模式只执行一遍常用JDK类，配合 -XX:ArchiveClassesAtExit 生成 AppCDS 归档。
+ */
+public final class OjJavaRunner {
+
+    private static final int EXIT_INTERNAL_ERROR = 2;
+    private static final int EXIT_TIMEOUT = 124;
+    private static final int EXIT_OUTPUT_LIMIT = 153;
+    private static final long STACK_SIZE = 16L * 1024 * 1024;
+    private static final long STOP_WAIT_MS = 200;
+
+    private static final ThreadGroup SANDBOX_GROUP = new ThreadGroup("submission");
+    private static final SandboxSecurityManager SECURITY_MANAGER = new SandboxSecurityManager();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final InputStream STDIN = System.in;
+    private static final PrintStream STDOUT = System.out;
+    private static final PrintStream STDERR = System.err;
+
+    /** 需要在回复当前请求后退出重启 */
+    private static volatile boolean recycle;
+
+    public static void main(String[] args) throws Exception {
+        String socketPath = "/tmp/ojjava.sock";
+        int maxJobs = 200;
+        boolean warmupOnly = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket":
+                    socketPath = args[++i];
+                    break;
+                case "--max-jobs":
+                    maxJobs = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmupOnly = true;
+                    break;
+                default:
+                    STDERR.println("OjJavaRunner: unknown option " + args[i]);
+                    System.exit(EXIT_INTERNAL_ERROR);
+            }
+        }
+
+        warmup();
+        if (warmupOnly) {
+            return;
+        }
+
+        System.setSecurityManager(SECURITY_MANAGER);
+        Path path = Paths.get(socketPath);
+        Files.deleteIfExists(path);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(path));
+            for (int jobs = 0; jobs < maxJobs && !recycle; jobs++) {
+                try (SocketChannel client = server.accept()) {
+                    BufferedReader reader = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+                    String request = reader.readLine();
+                    int code = request == null ? EXIT_INTERNAL_ERROR : handle(request, client);
+                    // 回复中带上 recycle 表示运行器随后退出，下一批请求需要重新启动
+                    boolean exiting = recycle || jobs + 1 >= maxJobs;
+                    String response = "exit=" + code + (exiting ? " recycle" : "") + "\n";
+                    client.write(ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII)));
+                } catch (IOException e) {
+                    STDERR.println("OjJavaRunner: " + e);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        // 可能残留无法停止的提交线程，直接结束进程
+        Runtime.getRuntime().halt(0);
+    }
+
+    /**
+     * 处理一批用例，每个用例的结果回复给 ojrun，返回值即 ojrun 的退出码
+     */
+    private static int handle(String request, SocketChannel client) {
+        String[] fields = request.split("\t", 6);
+        if (fields.length < 6) {
+            STDERR.println("OjJavaRunner: malformed request");
+            return EXIT_INTERNAL_ERROR;
+        }
+        Path dir = Paths.get(fields[0]);
+        int count = Integer.parseInt(fields[1]);
+        long timeoutMs = Long.parseLong(fields[2]);
+        long outputLimit = Long.parseLong(fields[3]);
+        boolean failFast = "1".equals(fields[4]);
+        String[] job = fields[5].trim().split(" ");
+        String mainClass = job[0];
+        long memoryLimitKb = job.length > 1 ? Long.parseLong(job[1]) * 1024 : Long.MAX_VALUE / 2;
+
+        try {
+            for (int i = 0; i < count && !recycle; i++) {
+                long[] result = runCase(dir, i, mainClass, timeoutMs, outputLimit, memoryLimitKb);
+                String line = String.format("case=%d exit=%d cpu_ms=%d peak_kb=%d wall_ms=%d%n",
+                        i, result[0], result[1], result[2], result[3]);
+                client.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII)));
+                if (failFast && result[0] != 0) {
+                    break;
+                }
+            }
+            return 0;
+        } catch (Exception e) {
+            STDERR.println("OjJavaRunner: " + e);
+            return EXIT_INTERNAL_ERROR;
+        }
+    }
+
+    /**
+     * 运行单个用例
+     *
+     * @return {退出码, CPU毫秒, 峰值KB, 墙钟毫秒}
+     */
+    private static long[] runCase(Path dir, int index, String mainClass, long timeoutMs,
+                                  long outputLimit, long memoryLimitKb) throws IOException {
+        Path input = dir.resolve("input_" + index + ".txt");
+        Path output = dir.resolve("output_" + index + ".txt");
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader());
+             InputStream in = new BufferedInputStream(Files.newInputStream(input), 1 << 16);
+             LimitedOutputStream limited = new LimitedOutputStream(Files.newOutputStream(output), outputLimit)) {
+            // 标准输出和标准错误共用一个流，保持与 2>&1 重定向相同的先后顺序
+            PrintStream print = new PrintStream(new BufferedOutputStream(limited, 1 << 16), false);
+            Submission submission = new Submission(loader, mainClass);
+
+            System.gc();
+            long baseline = heapUsed();
+            resetHeapPeaks();
+
+            System.setIn(in);
+            System.setOut(print);
+            System.setErr(print);
+            Thread thread = new Thread(SANDBOX_GROUP, submission, "main", STACK_SIZE);
+            long start = System.nanoTime();
+            long cpuNanos;
+            boolean timedOut;
+            try {
+                thread.start();
+                thread.join(timeoutMs);
+                timedOut = thread.isAlive();
+                cpuNanos = timedOut ? THREADS.getThreadCpuTime(thread.getId()) : submission.cpuNanos;
+                stopSubmissionThreads();
+                try {
+                    print.flush();
+                } catch (Throwable ignored) {
+                    // 输出超限在 limited.exceeded 中体现
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                System.setIn(STDIN);
+                System.setOut(STDOUT);
+                System.setErr(STDERR);
+            }
+            long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+            long peakKb = Math.max(0, heapPeak() - baseline) / 1024;
+            if (submission.outOfMemory) {
+                peakKb = Math.max(peakKb, memoryLimitKb + 1024);
+            }
+            int code = timedOut ? EXIT_TIMEOUT
+                    : limited.exceeded ? EXIT_OUTPUT_LIMIT
+                    : submission.exitCode;
+            return new long[]{code, Math.max(0, cpuNanos) / 1_000_000, peakKb, wallMs};
+        }
+    }
+
+    /**
+     * 停止提交代码创建的所有线程，停不下来时标记重启
+     */
+    @SuppressWarnings("removal")
+    private static void stopSubmissionThreads() throws InterruptedException {
+        Thread[] threads = new Thread[SANDBOX_GROUP.activeCount() + 16];
+        int n = SANDBOX_GROUP.enumerate(threads, true);
+        for (int i = 0; i < n; i++) {
+            try {
+                threads[i].stop();
+            } catch (UnsupportedOperationException e) {
+                recycle = true;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            threads[i].join(STOP_WAIT_MS);
+            if (threads[i].isAlive()) {
+                recycle = true;
+            }
+        }
+        if (SECURITY_MANAGER.violated) {
+            recycle = true;
+        }
+    }
+
+    private static long heapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void resetHeapPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * 在运行器线程中执行一遍提交代码常用的JDK类：
+     * 类加载和延迟初始化（如区域设置、格式化器）不计入提交的运行时间，也不会在沙箱线程中触发权限检查
+     */
+    private static void warmup() throws Exception {
+        String text = "3 1.5 hello\n1 2 3\n";
+        Scanner scanner = new Scanner(new java.io.ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        int n = scanner.nextInt();
+        double d = scanner.nextDouble();
+        String word = scanner.next();
+        long sum = 0;
+        while (scanner.hasNextLong()) {
+            sum += scanner.nextLong();
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new java.io.ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+        StringTokenizer tokenizer = new StringTokenizer(reader.readLine());
+        while (tokenizer.hasMoreTokens()) {
+            sum += tokenizer.nextToken().length();
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%.3f %d %s%n", d, n, word));
+        sb.append(new BigInteger("123456789012345678901234567890").multiply(BigInteger.TEN));
+        sb.append(new BigDecimal("1.25").setScale(1, java.math.RoundingMode.HALF_UP));
+        int[] array = {5, 3, 1, 4, 2};
+        Arrays.sort(array);
+        List<Integer> list = new ArrayList<>();
+        Map<String, Integer> map = new HashMap<>();
+        TreeMap<Integer, Integer> tree = new TreeMap<>();
+        PriorityQueue<Integer> queue = new PriorityQueue<>();
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        for (int value : array) {
+            list.add(value);
+            map.merge(String.valueOf(value), 1, Integer::sum);
+            tree.put(value, value);
+            queue.offer(value);
+            deque.push(value);
+        }
+        list.sort(null);
+        sb.append(list.stream().mapToInt(Integer::intValue).sum()).append(map.size()).append(tree.firstKey())
+                .append(queue.poll()).append(deque.pop()).append(sum).append(Math.sqrt(2));
+        PrintStream sink = new PrintStream(OutputStream.nullOutputStream(), false);
+        sink.println(sb);
+        sink.printf("%d %.2f%n", n, d);
+        sink.flush();
+        try (URLClassLoader loader = new URLClassLoader(new URL[0], ClassLoader.getPlatformClassLoader())) {
+            loader.getParent();
+        }
+    }
+
+    /**
+     * 在沙箱线程中运行提交的 main 方法
+     */
+    private static final class Submission implements Runnable {
+        private final ClassLoader loader;
+        private final String mainClass;
+        volatile int exitCode;
+        volatile long cpuNanos = -1;
+        volatile boolean outOfMemory;
+
+        Submission(ClassLoader loader, String mainClass) {
+            this.loader = loader;
+            this.mainClass = mainClass;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Method main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+                if (!Modifier.isStatic(main.getModifiers())) {
+                    throw new NoSuchMethodException("main is not static");
+                }
+                main.setAccessible(true);
+                main.invoke(null, (Object) new String[0]);
+                System.out.flush();
+                exitCode = 0;
+            } catch (InvocationTargetException e) {
+                exitCode = exitCodeOf(e.getCause());
+            } catch (Throwable e) {
+                exitCode = exitCodeOf(e);
+            } finally {
+                cpuNanos = THREADS.getCurrentThreadCpuTime();
+            }
+        }
+
+        private int exitCodeOf(Throwable e) {
+            if (e instanceof ExitException) {
+                System.out.flush();
+                return ((ExitException) e).status;
+            }
+            if (e instanceof OutputLimitError) {
+                return EXIT_OUTPUT_LIMIT;
+            }
+            if (e instanceof ThreadDeath) {
+                // 超时后被运行器停止，退出码由运行器记为超时
+                return EXIT_TIMEOUT;
+            }
+            if (e instanceof OutOfMemoryError) {
+                outOfMemory = true;
+            }
+            // 与 JVM 默认的未捕获异常输出一致
+            System.err.print("Exception in thread \"main\" ");
+            e.printStackTrace(System.err);
+            return 1;
+        }
+    }
+
+    /**
+     * 提交代码调用 System.exit 时抛出，结束 main 方法并携带退出码
+     */
+    private static final class ExitException extends SecurityException {
+        final int status;
+
+        ExitException(int status) {
+            super("System.exit(" + status + ")");
+            this.status = status;
+        }
+    }
+
+    /**
+     * 输出超过限制时抛出（Error 不会被 PrintStream 吞掉）
+     */
+    private static final class OutputLimitError extends Error {
+        OutputLimitError() {
+            super("output limit exceeded", null, false, false);
+        }
+    }
+
+    /**
+     * 限制写入字节数的输出流，超出后丢弃多余部分并抛出 OutputLimitError
+     */
+    private static final class LimitedOutputStream extends FilterOutputStream {
+        private final long limit;
+        private long written;
+        volatile boolean exceeded;
+
+        LimitedOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (exceeded) {
+                throw new OutputLimitError();
+            }
+            if (limit > 0 && written + len > limit) {
+                out.write(b, off, (int) (limit - written));
+                written = limit;
+                exceeded = true;
+                throw new OutputLimitError();
+            }
+            out.write(b, off, len);
+            written += len;
+        }
+    }
+
+    /**
+     * 只约束提交代码线程组的安全管理器
+     */
+    @SuppressWarnings("removal")
+    private static final class SandboxSecurityManager extends SecurityManager {
+        volatile boolean violated;
+
+        @Override
+        public void checkPermission(Permission perm) {
+            if (!inSandbox()) {
+                return;
+            }
+            String name = perm.getName();
+            String actions = perm.getActions();
+            if (perm instanceof FilePermission) {
+                if (actions.contains("write") || actions.contains("delete") || actions.contains("execute")) {
+                    deny(perm);
+                }
+            } else if (perm instanceof SocketPermission || perm instanceof NetPermission) {
+                deny(perm);
+            } else if (perm instanceof PropertyPermission) {
+                if (actions.contains("write")) {
+                    deny(perm);
+                }
+            } else if (perm instanceof RuntimePermission) {
+                if (name.equals("setIO") || name.equals("setSecurityManager") || name.equals("createSecurityManager")
+                        || name.equals("shutdownHooks") || name.equals("setDefaultUncaughtExceptionHandler")
+                        || name.equals("setContextClassLoader") || name.startsWith("loadLibrary.")) {
+                    deny(perm);
+                }
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+            checkPermission(perm);
+        }
+
+        @Override
+        public void checkExit(int status) {
+            if (inSandbox()) {
+                throw new ExitException(status);
+            }
+        }
+
+        @Override
+        public void checkAccess(Thread t) {
+            if (inSandbox() && t.getThreadGroup() != SANDBOX_GROUP && t.getThreadGroup() != null) {
+                deny(new RuntimePermission("modifyThread"));
+            }
+        }
+
+        @Override
+        public void checkAccess(ThreadGroup g) {
+            if (inSandbox() && g != SANDBOX_GROUP) {
+                deny(new RuntimePermission("modifyThreadGroup"));
+            }
+        }
+
+        private static boolean inSandbox() {
+            ThreadGroup group = Thread.currentThread().getThreadGroup();
+            return group == SANDBOX_GROUP;
+        }
+
+        private void deny(Permission perm) {
+            violated = true;
+            throw new SecurityException("评测沙箱禁止的操作: " + perm);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+"""
+ojpyrun - 常驻的Python评测运行器（zygote）
+
+用法: python3 ojpyrun.pyc --socket <path> [--max-jobs <n>]
+
+在评测容器中常驻一个已经导入常用模块的Python进程，通过 Unix 套接字接收 ojrun --warm 转交的
+批量运行请求（格式见 ojrun.c），请求内容为 "<源文件> <内存限制MB>"。每个用例 fork 一个子进程：
+1. 子进程独立成组，标准输入输出重定向到 input_<i>.txt / output_<i>.txt
+2. fork 之后设置资源限制：输出文件大小（RLIMIT_FSIZE，超出后被 SIGXFSZ 终止，退出码 153）、
+   地址空间（内存限制加上 zygote 自身占用）、CPU时间（超时的兜底）、禁止 core 文件
+3. 在全新的 __main__ 模块中执行提交的代码，重新播种随机数
+4. 父进程通过 wait4 取得退出码、CPU时间和峰值RSS，超过墙钟超时后杀死整个进程组并记为退出码 124
+5. 子进程内存不足（MemoryError）时峰值内存按超过内存限制报告
+每个用例结束后按 ojrun 批量模式相同的格式向套接字回复一行 case=...，由 ojrun 写入结果清单。
+子进程只保留标准输入输出和内存不足标记管道，关闭从 zygote 继承的其他文件描述符（包括套接字），
+zygote 设为不可转储，子进程无法通过 /proc/<pid>/fd 拿到套接字伪造结果。
+
+子进程与 zygote 地址空间隔离（写时复制），提交之间不会互相影响；处理完 max-jobs 批请求后
+运行器回复当前请求（带 recycle 标记）后退出，由 judge-service 重新启动。
+"""
+import builtins
+import ctypes
+import gc
+import os
+import resource
+import select
+import signal
+import socket
+import sys
+import time
+import traceback
+import types
+
+# 预先导入入门题目常用的模块，子进程中 import 只是一次字典查找
+import array
+import bisect
+import collections
+import copy
+import decimal
+import fractions
+import functools
+import heapq
+import io
+import itertools
+import math
+import operator
+import random
+import re
+import statistics
+import string
+
+EXIT_INTERNAL_ERROR = 2
+EXIT_TIMEOUT = 124
+MEMORY_ERROR_FLAG = b"M"
+MB = 1024 * 1024
+PR_SET_DUMPABLE = 4
+
+
+def main(argv):
+    socket_path = "/tmp/ojpy.sock"
+    max_jobs = 100
+    i = 1
+    while i < len(argv):
+        if argv[i] == "--socket" and i + 1 < len(argv):
+            socket_path = argv[i + 1]
+            i += 1
+        elif argv[i] == "--max-jobs" and i + 1 < len(argv):
+            max_jobs = int(argv[i + 1])
+            i += 1
+        else:
+            print("ojpyrun: unknown option " + argv[i], file=sys.stderr)
+            return EXIT_INTERNAL_ERROR
+        i += 1
+
+    try:
+        ctypes.CDLL(None).prctl(PR_SET_DUMPABLE, 0, 0, 0, 0)
+    except (OSError, AttributeError):
+        print("ojpyrun: prctl unavailable", file=sys.stderr)
+
+    if os.path.exists(socket_path):
+        os.unlink(socket_path)
+    server = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+    server.bind(socket_path)
+    server.listen(8)
+    # 把已导入的对象移出垃圾回收跟踪，避免子进程中的GC触碰这些页面引发写时复制
+    gc.collect()
+    gc.freeze()
+    try:
+        for jobs in range(max_jobs):
+            client, _ = server.accept()
+            with client:
+                try:
+                    request = client.makefile("r", encoding="utf-8").readline()
+                    code = handle(request.rstrip("\n"), client) if request else EXIT_INTERNAL_ERROR
+                except Exception:
+                    traceback.print_exc()
+                    code = EXIT_INTERNAL_ERROR
+                response = "exit=%d%s\n" % (code, " recycle" if jobs + 1 >= max_jobs else "")
+                try:
+                    client.sendall(response.encode("ascii"))
+                except OSError:
+                    pass
+    finally:
+        server.close()
+        if os.path.exists(socket_path):
+            os.unlink(socket_path)
+    return 0
+
+
+def handle(request, client):
+    """处理一批用例，每个用例的结果回复给 ojrun，返回值即 ojrun 的退出码"""
+    fields = request.split("\t", 5)
+    if len(fields) < 6:
+        print("ojpyrun: malformed request", file=sys.stderr)
+        return EXIT_INTERNAL_ERROR
+    work_dir = fields[0]
+    count = int(fields[1])
+    timeout_ms = int(fields[2])
+    output_limit = int(fields[3])
+    fail_fast = fields[4] == "1"
+    job = fields[5].split()
+    source_file = job[0]
+    memory_limit_kb = int(job[1]) * 1024 if len(job) > 1 else 0
+
+    with open(os.path.join(work_dir, source_file), "rb") as f:
+        source = f.read()
+    for index in range(count):
+        code, cpu_ms, peak_kb, wall_ms = run_case(work_dir, index, source_file, source,
+                                                  timeout_ms, output_limit, memory_limit_kb)
+        client.sendall(("case=%d exit=%d cpu_ms=%d peak_kb=%d wall_ms=%d\n"
+                        % (index, code, cpu_ms, peak_kb, wall_ms)).encode("ascii"))
+        if fail_fast and code != 0:
+            break
+    return 0
+
+
+def run_case(work_dir, index, source_file, source, timeout_ms, output_limit, memory_limit_kb):
+    """运行单个用例，返回 (退出码, CPU毫秒, 峰值KB, 墙钟毫秒)"""
+    input_path = os.path.join(work_dir, "input_%d.txt" % index)
+    output_path = os.path.join(work_dir, "output_%d.txt" % index)
+    flag_read, flag_write = os.pipe()
+    start = time.monotonic()
+    pid = os.fork()
+    if pid == 0:
+        os.close(flag_read)
+        child(work_dir, input_path, output_path, source_file, source, output_limit, memory_limit_kb, timeout_ms,
+              flag_write)
+    os.close(flag_write)
+
+    timed_out = not wait_exit(pid, timeout_ms)
+    # 连同提交代码启动的后代进程一起结束
+    try:
+        os.killpg(pid, signal.SIGKILL)
+    except OSError:
+        pass
+    _, status, usage = os.wait4(pid, 0)
+    wall_ms = int((time.monotonic() - start) * 1000)
+    memory_error = os.read(flag_read, 1) == MEMORY_ERROR_FLAG
+    os.close(flag_read)
+
+    if timed_out:
+        code = EXIT_TIMEOUT
+    elif os.WIFEXITED(status):
+        code = os.WEXITSTATUS(status)
+    else:
+        code = 128 + os.WTERMSIG(status)
+    cpu_ms = int((usage.ru_utime + usage.ru_stime) * 1000)
+    peak_kb = usage.ru_maxrss
+    if memory_error and memory_limit_kb > 0:
+        peak_kb = max(peak_kb, memory_limit_kb + 1024)
+    return code, cpu_ms, peak_kb, wall_ms
+
+
+def wait_exit(pid, timeout_ms):
+    """等待子进程结束（不回收），超时返回 False"""
+    if hasattr(os, "pidfd_open"):
+        try:
+            pidfd = os.pidfd_open(pid)
+        except OSError:
+            pidfd = -1
+        if pidfd >= 0:
+            try:
+                poller = select.poll()
+                poller.register(pidfd, select.POLLIN)
+                return bool(poller.poll(timeout_ms))
+            finally:
+                os.close(pidfd)
+    # 内核不支持 pidfd 时轮询
+    deadline = time.monotonic() + timeout_ms / 1000.0
+    while time.monotonic() < deadline:
+        if os.waitid(os.P_PID, pid, os.WEXITED | os.WNOHANG | os.WNOWAIT) is not None:
+            return True
+        time.sleep(0.001)
+    return False
+
+
+def child(work_dir, input_path, output_path, source_file, source, output_limit, memory_limit_kb, timeout_ms,
+          flag_write):
+    """子进程：重定向标准流、设置资源限制后在新的 __main__ 模块中执行提交代码，不返回"""
+    code = 1
+    try:
+        os.setpgid(0, 0)
+        # Python 启动时忽略了 SIGPIPE 和 SIGXFSZ，恢复默认处理：输出超限时与其他语言一样被信号终止
+        signal.signal(signal.SIGPIPE, signal.SIG_DFL)
+        signal.signal(signal.SIGXFSZ, signal.SIG_DFL)
+        os.chdir(work_dir)
+        input_fd = os.open(input_path, os.O_RDONLY)
+        output_fd = os.open(output_path, os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644)
+        os.dup2(input_fd, 0)
+        os.dup2(output_fd, 1)
+        os.dup2(output_fd, 2)
+        os.close(input_fd)
+        os.close(output_fd)
+        # 关闭从 zygote 继承的套接字等文件描述符，只保留标准流和内存不足标记管道
+        max_fd = resource.getrlimit(resource.RLIMIT_NOFILE)[0]
+        os.closerange(3, flag_write)
+        os.closerange(flag_write + 1, max_fd if max_fd != resource.RLIM_INFINITY else 65536)
+
+        set_limit(resource.RLIMIT_CORE, 0)
+        if output_limit > 0:
+            set_limit(resource.RLIMIT_FSIZE, output_limit)
+        # CPU时间只作兜底，墙钟超时由父进程控制
+        set_limit(resource.RLIMIT_CPU, timeout_ms // 1000 + 2)
+        if memory_limit_kb > 0:
+            # 地址空间包含 zygote 自身的映射，在其基础上加上题目内存限制
+            set_limit(resource.RLIMIT_AS, current_address_space() + memory_limit_kb * 1024 + 16 * MB)
+
+        sys.stdin = io.TextIOWrapper(io.BufferedReader(io.FileIO(0, "r", closefd=False)), encoding="utf-8")
+        sys.stdout = io.TextIOWrapper(io.BufferedWriter(io.FileIO(1, "w", closefd=False)), encoding="utf-8")
+        sys.stderr = io.TextIOWrapper(io.FileIO(2, "w", closefd=False), encoding="utf-8",
+                                      errors="backslashreplace", write_through=True)
+        sys.argv = [source_file]
+        sys.path[0] = work_dir
+        random.seed()
+        gc.unfreeze()
+
+        module = types.ModuleType("__main__")
+        module.__file__ = os.path.join(work_dir, source_file)
+        module.__builtins__ = builtins
+        sys.modules["__main__"] = module
+        code = run_submission(module, source_file, source, flag_write)
+    except BaseException:
+        traceback.print_exc()
+    finally:
+        try:
+            sys.stdout.flush()
+        except BaseException:
+            pass
+        os._exit(code)
+
+
+def run_submission(module, source_file, source, flag_write):
+    """执行提交代码，退出码与 python3 直接运行时一致"""
+    try:
+        exec(compile(source, source_file, "exec"), module.__dict__)
+        sys.stdout.flush()
+        return 0
+    except SystemExit as e:
+        return system_exit_code(e)
+    except BaseException as e:
+        if isinstance(e, MemoryError):
+            os.write(flag_write, MEMORY_ERROR_FLAG)
+        # 去掉 zygote 自身的栈帧，与直接运行时的 Traceback 一致
+        traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        return 1
+
+
+def system_exit_code(e):
+    try:
+        sys.stdout.flush()
+    except BaseException:
+        pass
+    if e.code is None:
+        return 0
+    if isinstance(e.code, int):
+        return e.code & 0xFF
+    print(e.code, file=sys.stderr)
+    return 1
+
+
+def set_limit(kind, value):
+    try:
+        resource.setrlimit(kind, (value, value))
+    except (ValueError, OSError):
+        pass
+
+
+def current_address_space():
+    with open("/proc/self/statm") as f:
+        return int(f.read().split()[0]) * resource.getpagesize()
+
+
+if __name__ == "__main__":
+    sys.exit(main(sys.argv))
@@ -0,0 +1,357 @@
+/*
+ * ojrun - 评测运行器
+ *
+ * 用法: ojrun [--output-limit <bytes>] -- <command> [args...]
+ *       ojrun --batch <count> --timeout <ms> [--fail-fast] [--output-limit <bytes>] -- <command> [args...]
+ *       ojrun --warm <socket> --warm-request <request> [--warm-wait <ms>] --batch <count> ... -- <command> [args...]
+ *
+ * 单次模式：启动子进程并等待其结束，通过 wait4 取得子进程（包括其已回收的后代进程）
+ * 的 CPU 时间（user + sys）和峰值 RSS，结束后向 stderr 追加一行报告：
+ *
+ *   @@OJRUN exit=<退出码> cpu_ms=<CPU毫秒> peak_kb=<峰值KB> wall_ms=<墙钟毫秒>
+ *
+ * 自身退出码与子进程一致（被信号终止时为 128 + 信号值）。
+ *
+ * 批量模式：在当前目录下依次以 input_<i>.txt 为标准输入、output_<i>.txt 为标准输出和
+ * 标准错误运行命令（i = 0 .. count-1），每个用例超过 timeout 毫秒墙钟时间后杀死整个
+ * 进程组并记为退出码 124（与 coreutils timeout 一致）。每个用例结束后向运行器自身的
+ * 标准输出（结果清单）写一行：
+ *
+ *   case=<i> exit=<退出码> cpu_ms=<CPU毫秒> peak_kb=<峰值KB> wall_ms=<墙钟毫秒>
+ *
+ * 全部结束后向 stderr 追加 "@@OJRUN exit=<退出码>"。
+ * 结果清单不写入工作目录：子进程的标准输出已重定向到用例文件，运行器启动时把自己设为
+ * 不可转储（PR_SET_DUMPABLE），同一用户的子进程无法通过 /proc/<pid>/fd 或 ptrace 拿到
+ * 清单所在的管道。子进程杀死运行器只会让后续用例没有结果，不能伪造结果。
+ *
+ * 指定 --fail-fast 时遇到非零退出码即停止，后续用例不再运行。
+ *
+ * 指定 --output-limit 时通过 RLIMIT_FSIZE 限制子进程写入单个文件的大小，超出后子进程
+ * 收到 SIGXFSZ 被终止（退出码 128 + 25 = 153），用于输出超限判定。
+ *
+ * 常驻模式：批量模式的前置步骤，把整批用例交给容器内常驻的运行器进程（如预热的JVM）执行。
+ * 通过 Unix 套接字发送一行请求：
+ *
+ *   <工作目录>\t<count>\t<timeout>\t<output-limit>\t<fail-fast>\t<request>\n
+ *
+ * 常驻运行器每完成一个用例回复一行与批量模式相同格式的 case=... 行（由 ojrun 转写到结果清单），
+ * 完成后回复一行 exit=<退出码>，随后要退出重启时追加 recycle，此时向 stderr 输出
+ * "ojrun: warm runner exited"。
+ * 连接失败（--warm-wait 毫秒内套接字不可用）或运行器中途退出时，向 stderr 输出
+ * "ojrun: warm runner unavailable" 并退回普通批量模式，由 -- 之后的命令逐个运行用例。
+ *
+ * 由 judge-service 使用 gcc 镜像静态编译，挂载到所有评测容器的 /opt/oj 下。
+ */
+#include <errno.h>
+#include <fcntl.h>
+#include <signal.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/prctl.h>
+#include <sys/resource.h>
+#include <sys/socket.h>
+#include <sys/time.h>
+#include <sys/un.h>
+#include <sys/wait.h>
+#include <time.h>
+#include <unistd.h>
+
+static long elapsed_ms(const struct timespec *start, const struct timespec *end) {
+    return (end->tv_sec - start->tv_sec) * 1000L + (end->tv_nsec - start->tv_nsec) / 1000000L;
+}
+
+static long cpu_ms_of(const struct rusage *usage) {
+    return (usage->ru_utime.tv_sec + usage->ru_stime.tv_sec) * 1000L
+            + (usage->ru_utime.tv_usec + usage->ru_stime.tv_usec) / 1000L;
+}
+
+static int exit_code_of(int status) {
+    return WIFEXITED(status) ? WEXITSTATUS(status) : 128 + WTERMSIG(status);
+}
+
+static void on_alarm(int sig) {
+    (void) sig;
+}
+
+/* 子进程中设置输出文件大小限制（0 表示不限制） */
+static void limit_output(long output_limit) {
+    if (output_limit > 0) {
+        struct rlimit limit;
+        limit.rlim_cur = (rlim_t) output_limit;
+        limit.rlim_max = (rlim_t) output_limit;
+        setrlimit(RLIMIT_FSIZE, &limit);
+    }
+}
+
+/*
+ * 运行单个用例：子进程独立成组，标准输入输出重定向到用例文件
+ * 返回退出码，超时返回 124
+ */
+static int run_case(int index, long timeout_ms, long output_limit, char *argv[], struct rusage *usage, long *wall_ms) {
+    char input[64], output[64];
+    snprintf(input, sizeof(input), "input_%d.txt", index);
+    snprintf(output, sizeof(output), "output_%d.txt", index);
+
+    struct timespec start, end;
+    clock_gettime(CLOCK_MONOTONIC, &start);
+
+    pid_t pid = fork();
+    if (pid < 0) {
+        perror("ojrun: fork");
+        return -1;
+    }
+    if (pid == 0) {
+        setpgid(0, 0);
+        int in = open(input, O_RDONLY);
+        int out = open(output, O_WRONLY | O_CREAT | O_TRUNC, 0644);
+        if (in < 0 || out < 0) {
+            perror("ojrun: open");
+            _exit(127);
+        }
+        dup2(in, STDIN_FILENO);
+        dup2(out, STDOUT_FILENO);
+        dup2(out, STDERR_FILENO);
+        close(in);
+        close(out);
+        limit_output(output_limit);
+        execvp(argv[0], argv);
+        perror("ojrun: execvp");
+        _exit(127);
+    }
+    setpgid(pid, pid);
+
+    struct itimerval timer;
+    memset(&timer, 0, sizeof(timer));
+    timer.it_value.tv_sec = timeout_ms / 1000;
+    timer.it_value.tv_usec = (timeout_ms % 1000) * 1000;
+    setitimer(ITIMER_REAL, &timer, NULL);
+
+    int status = 0;
+    int timed_out = 0;
+    while (wait4(pid, &status, 0, usage) < 0) {
+        if (errno != EINTR) {
+            perror("ojrun: wait4");
+            return -1;
+        }
+        /* 定时器到期：杀死整个进程组后继续回收 */
+        timed_out = 1;
+        kill(-pid, SIGKILL);
+    }
+    memset(&timer, 0, sizeof(timer));
+    setitimer(ITIMER_REAL, &timer, NULL);
+    /* 回收进程组内残留的后代进程 */
+    kill(-pid, SIGKILL);
+
+    clock_gettime(CLOCK_MONOTONIC, &end);
+    *wall_ms = elapsed_ms(&start, &end);
+    return timed_out ? 124 : exit_code_of(status);
+}
+
+static int run_batch(int count, long timeout_ms, long output_limit, int fail_fast, char *argv[]) {
+    struct sigaction action;
+    memset(&action, 0, sizeof(action));
+    action.sa_handler = on_alarm;
+    sigaction(SIGALRM, &action, NULL);
+
+    for (int i = 0; i < count; i++) {
+        struct rusage usage;
+        long wall_ms = 0;
+        memset(&usage, 0, sizeof(usage));
+        int code = run_case(i, timeout_ms, output_limit, argv, &usage, &wall_ms);
+        if (code < 0) {
+            return 2;
+        }
+        printf("case=%d exit=%d cpu_ms=%ld peak_kb=%ld wall_ms=%ld\n",
+               i, code, cpu_ms_of(&usage), usage.ru_maxrss, wall_ms);
+        fflush(stdout);
+        if (fail_fast && code != 0) {
+            break;
+        }
+    }
+    return 0;
+}
+
+/*
+ * 把整批用例交给常驻运行器执行
+ * 返回常驻运行器回复的退出码，连接失败或未收到回复返回 -1
+ */
+static int run_warm(const char *socket_path, const char *request, long wait_ms,
+                    int count, long timeout_ms, long output_limit, int fail_fast) {
+    struct sockaddr_un addr;
+    memset(&addr, 0, sizeof(addr));
+    addr.sun_family = AF_UNIX;
+    if (strlen(socket_path) >= sizeof(addr.sun_path)) {
+        return -1;
+    }
+    strcpy(addr.sun_path, socket_path);
+
+    struct timespec start, now;
+    clock_gettime(CLOCK_MONOTONIC, &start);
+    int fd;
+    for (;;) {
+        fd = socket(AF_UNIX, SOCK_STREAM, 0);
+        if (fd < 0) {
+            return -1;
+        }
+        if (connect(fd, (struct sockaddr *) &addr, sizeof(addr)) == 0) {
+            break;
+        }
+        close(fd);
+        clock_gettime(CLOCK_MONOTONIC, &now);
+        if (elapsed_ms(&start, &now) >= wait_ms) {
+            return -1;
+        }
+        usleep(20000);
+    }
+
+    /* 常驻运行器卡死时不无限等待：每个用例的超时再加1秒，另加2秒余量 */
+    long total_ms = count * (timeout_ms + 1000L) + 2000L;
+    struct timeval receive_timeout;
+    receive_timeout.tv_sec = total_ms / 1000;
+    receive_timeout.tv_usec = (total_ms % 1000) * 1000;
+    setsockopt(fd, SOL_SOCKET, SO_RCVTIMEO, &receive_timeout, sizeof(receive_timeout));
+
+    char cwd[4096];
+    if (getcwd(cwd, sizeof(cwd)) == NULL
+            || dprintf(fd, "%s\t%d\t%ld\t%ld\t%d\t%s\n", cwd, count, timeout_ms, output_limit, fail_fast, request) < 0) {
+        close(fd);
+        return -1;
+    }
+
+    /*
+     * 逐行读取回复：case= 行先暂存，收到 exit= 行后一起写到结果清单；
+     * 常驻运行器中途退出时丢弃已收到的行，退回普通批量模式后结果清单中不会出现重复的用例
+     */
+    size_t capacity = (size_t) count * 128 + 1;
+    char *cases = malloc(capacity);
+    if (cases == NULL) {
+        close(fd);
+        return -1;
+    }
+    size_t cases_length = 0;
+    char line[256];
+    size_t length = 0;
+    int code = -1;
+    char c;
+    while (code < 0 && read(fd, &c, 1) == 1) {
+        if (c != '\n') {
+            if (length < sizeof(line) - 1) {
+                line[length++] = c;
+            }
+            continue;
+        }
+        line[length] = '\0';
+        if (strncmp(line, "case=", 5) == 0 && cases_length + length + 1 < capacity) {
+            memcpy(cases + cases_length, line, length);
+            cases_length += length;
+            cases[cases_length++] = '\n';
+        } else if (strncmp(line, "exit=", 5) == 0) {
+            code = atoi(line + 5);
+            if (strstr(line, "recycle") != NULL) {
+                fprintf(stderr, "ojrun: warm runner exited\n");
+            }
+        }
+        length = 0;
+    }
+    close(fd);
+    if (code >= 0) {
+        fwrite(cases, 1, cases_length, stdout);
+        fflush(stdout);
+    }
+    free(cases);
+    return code;
+}
+
+int main(int argc, char *argv[]) {
+    /* 同一用户的子进程不能打开运行器的 /proc/<pid>/fd 或 ptrace 运行器（exec 后子进程恢复可转储） */
+    prctl(PR_SET_DUMPABLE, 0, 0, 0, 0);
+
+    int first = 1;
+    int batch = 0;
+    long timeout_ms = 0;
+    int fail_fast = 0;
+    long output_limit = 0;
+    const char *warm_socket = NULL;
+    const char *warm_request = "";
+    long warm_wait_ms = 0;
+    while (first < argc && strncmp(argv[first], "--", 2) == 0 && strcmp(argv[first], "--") != 0) {
+        if (strcmp(argv[first], "--batch") == 0 && first + 1 < argc) {
+            batch = atoi(argv[++first]);
+        } else if (strcmp(argv[first], "--timeout") == 0 && first + 1 < argc) {
+            timeout_ms = atol(argv[++first]);
+        } else if (strcmp(argv[first], "--fail-fast") == 0) {
+            fail_fast = 1;
+        } else if (strcmp(argv[first], "--output-limit") == 0 && first + 1 < argc) {
+            output_limit = atol(argv[++first]);
+        } else if (strcmp(argv[first], "--warm") == 0 && first + 1 < argc) {
+            warm_socket = argv[++first];
+        } else if (strcmp(argv[first], "--warm-request") == 0 && first + 1 < argc) {
+            warm_request = argv[++first];
+        } else if (strcmp(argv[first], "--warm-wait") == 0 && first + 1 < argc) {
+            warm_wait_ms = atol(argv[++first]);
+        } else {
+            fprintf(stderr, "ojrun: unknown option %s\n", argv[first]);
+            return 2;
+        }
+        first++;
+    }
+    if (first < argc && strcmp(argv[first], "--") == 0) {
+        first++;
+    }
+    if (first >= argc) {
+        fprintf(stderr, "usage: ojrun [--batch count --timeout ms [--fail-fast]] [--output-limit bytes] -- command [args...]\n");
+        return 2;
+    }
+    if (batch > 0) {
+        if (timeout_ms <= 0) {
+            fprintf(stderr, "ojrun: --batch requires --timeout\n");
+            return 2;
+        }
+        if (warm_socket != NULL) {
+            /* 常驻运行器已关闭连接时写套接字不能让运行器本身被 SIGPIPE 终止 */
+            signal(SIGPIPE, SIG_IGN);
+            int code = run_warm(warm_socket, warm_request, warm_wait_ms, batch, timeout_ms, output_limit, fail_fast);
+            signal(SIGPIPE, SIG_DFL);
+            if (code >= 0) {
+                fprintf(stderr, "\n@@OJRUN exit=%d\n", code);
+                return code;
+            }
+            fprintf(stderr, "ojrun: warm runner unavailable\n");
+        }
+        int code = run_batch(batch, timeout_ms, output_limit, fail_fast, &argv[first]);
+        fprintf(stderr, "\n@@OJRUN exit=%d\n", code);
+        return code;
+    }
+
+    struct timespec start, end;
+    clock_gettime(CLOCK_MONOTONIC, &start);
+
+    pid_t pid = fork();
+    if (pid < 0) {
+        perror("ojrun: fork");
+        return 2;
+    }
+    if (pid == 0) {
+        limit_output(output_limit);
+        execvp(argv[first], &argv[first]);
+        perror("ojrun: execvp");
+        _exit(127);
+    }
+
+    int status = 0;
+    struct rusage usage;
+    while (wait4(pid, &status, 0, &usage) < 0) {
+        if (errno != EINTR) {
+            perror("ojrun: wait4");
+            return 2;
+        }
+    }
+    clock_gettime(CLOCK_MONOTONIC, &end);
+
+    int code = exit_code_of(status);
+
+    fprintf(stderr, "\n@@OJRUN exit=%d cpu_ms=%ld peak_kb=%ld wall_ms=%ld\n",
+            code, cpu_ms_of(&usage), usage.ru_maxrss, elapsed_ms(&start, &end));
+    return code;
+}
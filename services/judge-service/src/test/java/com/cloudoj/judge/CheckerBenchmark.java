@@ -0,0 +1,128 @@
+package com.cloudoj.judge;
+
+import com.cloudoj.judge.checker.CheckResult;
+import com.cloudoj.judge.checker.OutputChecker;
+import com.cloudoj.judge.checker.OutputCheckerFactory;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 输出比对微基准
+ *
+ * 对比两种比对方式在大输出上的耗时和内存分配：
+ * 1. 旧方式：Files.readString 读入整个输出后 trim + equals
+ * 2. 新方式：比对器从输出文件流式读取，逐字符/逐词比对
+ *
+ * 直接运行 main 方法即可，不依赖Docker
+ */
+public class CheckerBenchmark {
+
+    private static final int[] OUTPUT_SIZES_MB = {1, 8, 32};
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("输出比对微基准");
+        System.out.println("预热: " + WARMUP_ITERATIONS + " 次, 测量: " + ITERATIONS + " 次");
+        System.out.println("========================================");
+
+        for (int sizeMb : OUTPUT_SIZES_MB) {
+            Path outputFile = Files.createTempFile("checker-bench-", ".txt");
+            try {
+                String expected = generateOutput(sizeMb * 1024L * 1024L);
+                Files.writeString(outputFile, expected, StandardCharsets.UTF_8);
+                System.out.println("输出大小: " + sizeMb + " MB");
+
+                run("  旧方式（整体读取 trim+equals）", () -> {
+                    String actual = Files.readString(outputFile, StandardCharsets.UTF_8).trim();
+                    return actual.equals(expected.trim());
+                });
+                run("  新方式（EXACT 流式比对）", () ->
+                        check(OutputCheckerFactory.getChecker("EXACT", 0), outputFile, expected));
+                run("  新方式（WHITESPACE 流式比对）", () ->
+                        check(OutputCheckerFactory.getChecker("WHITESPACE", 0), outputFile, expected));
+                run("  新方式（FLOAT 流式比对）", () ->
+                        check(OutputCheckerFactory.getChecker("FLOAT", 0), outputFile, expected));
+            } finally {
+                Files.deleteIfExists(outputFile);
+            }
+        }
+    }
+
+    private static boolean check(OutputChecker checker, Path outputFile, String expected) throws Exception {
+        try (Reader actual = new InputStreamReader(Files.newInputStream(outputFile), StandardCharsets.UTF_8)) {
+            CheckResult result = checker.check(actual, new StringReader(expected));
+            return result.isAccepted();
+        }
+    }
+
+    /**
+     * 生成大小约为 bytes 的输出：每行若干个整数和浮点数
+     */
+    private static String generateOutput(long bytes) throws Exception {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder((int) bytes + 64);
+        while (sb.length() < bytes) {
+            for (int i = 0; i < 8; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                if (i % 2 == 0) {
+                    sb.append(random.nextInt(1_000_000));
+                } else {
+                    sb.append(String.format("%.6f", random.nextDouble() * 1000));
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void run(String name, Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            if (!task.run()) {
+                throw new IllegalStateException(name + " 比对结果错误");
+            }
+        }
+        long[] samples = new long[ITERATIONS];
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        long allocatedPerRun = (allocatedBytes() - allocatedBefore) / ITERATIONS;
+        Arrays.sort(samples);
+        System.out.printf("%s: 平均 %.2f ms, P50 %.2f ms, 最大 %.2f ms, 每次分配 %.2f MB%n",
+                name,
+                Arrays.stream(samples).average().orElse(0) / 1_000_000.0,
+                samples[samples.length / 2] / 1_000_000.0,
+                samples[samples.length - 1] / 1_000_000.0,
+                allocatedPerRun / 1024.0 / 1024.0);
+    }
+
+    /**
+     * 当前线程累计分配的堆内存（字节），JVM不支持时返回0
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        boolean run() throws Exception;
+    }
+}
@@ -0,0 +1,138 @@
+package com.cloudoj.judge;
+
+import com.cloudoj.judge.sandbox.DockerSandbox;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * docker exec 单次开销微基准
+ *
+ * 对比两种获取退出码的方式：
+ * 1. 旧方式：输出流结束后轮询 inspectExec（最多10次，每次间隔50ms）
+ * 2. 新方式：DockerSandbox.executeInContainer，退出码随stderr末尾的报告返回，流关闭即结束
+ *
+ * 运行前需要本机Docker开放 tcp://localhost:2375，并已拉取 gcc:latest 镜像
+ */
+public class ExecOverheadBenchmark {
+
+    private static final String DOCKER_HOST = "tcp://localhost:2375";
+    private static final String IMAGE = "gcc:latest";
+    private static final String[] COMMAND = {"sh", "-c", "true"};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) throws Exception {
+        DockerSandbox dockerSandbox = new DockerSandbox();
+        dockerSandbox.init();
+        DockerClient dockerClient = createDockerClient();
+
+        String workDir = dockerSandbox.createWorkDir();
+        String subDir = dockerSandbox.getSubDirName(workDir);
+        String containerId = dockerSandbox.createPooledContainer(IMAGE);
+        if (containerId == null) {
+            System.err.println("创建容器失败，请检查Docker是否可用");
+            return;
+        }
+
+        try {
+            System.out.println("========================================");
+            System.out.println("docker exec 单次开销微基准");
+            System.out.println("镜像: " + IMAGE + ", 命令: " + String.join(" ", COMMAND));
+            System.out.println("预热: " + WARMUP_ITERATIONS + " 次, 测量: " + ITERATIONS + " 次");
+            System.out.println("========================================");
+
+            long[] polling = measure(() -> execWithPolling(dockerClient, containerId, subDir));
+            printStats("旧方式（inspectExec轮询）", polling);
+
+            long[] trailer = measure(() -> dockerSandbox.executeInContainer(containerId, COMMAND, subDir, 5));
+            printStats("新方式（退出码随输出返回）", trailer);
+
+            double saved = average(polling) - average(trailer);
+            System.out.printf("平均每次exec节省: %.2f ms%n", saved);
+        } finally {
+            dockerSandbox.removeContainer(containerId);
+            dockerSandbox.cleanupWorkDir(workDir);
+            dockerClient.close();
+        }
+    }
+
+    /**
+     * 旧的执行方式：等待输出流结束后轮询 inspectExec 获取退出码
+     */
+    private static int execWithPolling(DockerClient dockerClient, String containerId, String subDir) throws Exception {
+        ExecCreateCmdResponse execCreate = dockerClient.execCreateCmd(containerId)
+                .withCmd(COMMAND)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withWorkingDir("/workspace/" + subDir)
+                .exec();
+
+        dockerClient.execStartCmd(execCreate.getId())
+                .exec(new ResultCallback.Adapter<Frame>())
+                .awaitCompletion(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 10; i++) {
+            Long exitCode = dockerClient.inspectExecCmd(execCreate.getId()).exec().getExitCodeLong();
+            if (exitCode != null) {
+                return exitCode.intValue();
+            }
+            Thread.sleep(50);
+        }
+        return -1;
+    }
+
+    private static long[] measure(Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void printStats(String name, long[] sortedSamples) {
+        System.out.printf("%s: 平均 %.2f ms, P50 %.2f ms, P99 %.2f ms, 最大 %.2f ms%n",
+                name,
+                average(sortedSamples),
+                sortedSamples[sortedSamples.length / 2] / 1_000_000.0,
+                sortedSamples[(int) (sortedSamples.length * 0.99)] / 1_000_000.0,
+                sortedSamples[sortedSamples.length - 1] / 1_000_000.0);
+    }
+
+    private static double average(long[] samples) {
+        return Arrays.stream(samples).average().orElse(0) / 1_000_000.0;
+    }
+
+    private static DockerClient createDockerClient() {
+        DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(DOCKER_HOST)
+                .build();
+        ApacheDockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
+                .dockerHost(config.getDockerHost())
+                .connectionTimeout(Duration.ofSeconds(30))
+                .responseTimeout(Duration.ofSeconds(45))
+                .build();
+        return DockerClientBuilder.getInstance(config)
+                .withDockerHttpClient(httpClient)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        Object run() throws Exception;
+    }
+}
@@ -0,0 +1,111 @@
+package com.cloudoj.judge;
+
+import com.cloudoj.judge.codec.TestCaseResultCodec;
+import com.cloudoj.model.vo.judge.JudgeResultVO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 测试用例结果编码微基准
+ *
+ * 对比两种保存方式的存储大小和解析耗时：
+ * 1. 旧方式：每次新建 ObjectMapper，完整的结果列表（含输入、预期输出）序列化为JSON
+ * 2. 新方式：TestCaseResultCodec 紧凑编码，输入和预期输出只保存用例ID
+ *
+ * 直接运行 main 方法即可，不依赖数据库
+ */
+public class ResultCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("测试用例结果编码微基准");
+        System.out.println("预热: " + WARMUP_ITERATIONS + " 次, 测量: " + ITERATIONS + " 次");
+        System.out.println("========================================");
+
+        // 常见题目：少量用例，输入输出较短
+        bench("10个用例，短输出", generate(10, 20));
+        // 输出较多的题目：输入、预期输出、实际输出都接近预览长度上限
+        bench("50个用例，长输出", generate(50, 1000));
+    }
+
+    private static void bench(String name, List<JudgeResultVO.TestCaseResultVO> results) throws Exception {
+        String json = new ObjectMapper().writeValueAsString(results);
+        String encoded = TestCaseResultCodec.encode(results);
+        System.out.println(name);
+        System.out.printf("  存储大小: JSON %d 字节, 紧凑编码 %d 字节%n",
+                json.getBytes(StandardCharsets.UTF_8).length, encoded.getBytes(StandardCharsets.UTF_8).length);
+
+        run("  旧方式（JSON序列化）", () -> new ObjectMapper().writeValueAsString(results).length());
+        run("  新方式（紧凑编码）", () -> TestCaseResultCodec.encode(results).length());
+        run("  旧方式（JSON解析）", () -> {
+            ObjectMapper objectMapper = new ObjectMapper();
+            List<JudgeResultVO.TestCaseResultVO> parsed = objectMapper.readValue(json,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, JudgeResultVO.TestCaseResultVO.class));
+            return parsed.size();
+        });
+        run("  新方式（紧凑解码）", () -> TestCaseResultCodec.decode(encoded).size());
+    }
+
+    private static List<JudgeResultVO.TestCaseResultVO> generate(int count, int outputLength) {
+        Random random = new Random(42);
+        List<JudgeResultVO.TestCaseResultVO> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String input = randomNumbers(random, outputLength);
+            String expected = randomNumbers(random, outputLength);
+            boolean passed = i % 5 != 4;
+
+            JudgeResultVO.TestCaseResultVO vo = new JudgeResultVO.TestCaseResultVO();
+            vo.setTestCaseId(10_000L + i);
+            vo.setStatus(passed ? "ACCEPTED" : "WRONG_ANSWER");
+            vo.setTimeUsed((long) random.nextInt(500));
+            vo.setMemoryUsed(20_000L + random.nextInt(10_000));
+            vo.setInput(input);
+            vo.setExpectedOutput(expected);
+            vo.setActualOutput(passed ? expected : randomNumbers(random, outputLength));
+            if (!passed) {
+                vo.setErrorMessage("答案错误: 第1行不一致");
+            }
+            results.add(vo);
+        }
+        return results;
+    }
+
+    private static String randomNumbers(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            sb.append(random.nextInt(1_000_000)).append(sb.length() % 64 < 8 ? '\n' : ' ');
+        }
+        return sb.substring(0, length);
+    }
+
+    private static void run(String name, Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        System.out.printf("%s: 平均 %.1f us, P50 %.1f us, P99 %.1f us%n",
+                name,
+                Arrays.stream(samples).average().orElse(0) / 1_000.0,
+                samples[samples.length / 2] / 1_000.0,
+                samples[samples.length * 99 / 100] / 1_000.0);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        int run() throws Exception;
+    }
+}
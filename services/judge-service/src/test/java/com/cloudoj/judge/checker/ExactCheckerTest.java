@@ -0,0 +1,103 @@
+package com.cloudoj.judge.checker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 精确比对测试：结果必须与 actual.trim().equals(expected.trim()) 一致
+ */
+public class ExactCheckerTest {
+
+    private final OutputChecker checker = new ExactChecker();
+
+    @Test
+    public void ignoresLeadingAndTrailingWhitespace() throws Exception {
+        assertTrue(check("1 2\n3\n", "1 2\n3").isAccepted());
+        assertTrue(check("  1 2\n3", "1 2\n3 \t\n\n").isAccepted());
+        assertTrue(check("ab \n", "ab\n").isAccepted());
+        assertTrue(check("", " \n\t").isAccepted());
+    }
+
+    @Test
+    public void internalWhitespaceMustMatch() throws Exception {
+        assertFalse(check("1  2", "1 2").isAccepted());
+        assertFalse(check("1\r\n2", "1\n2").isAccepted());
+        assertFalse(check("ab \nc", "ab").isAccepted());
+    }
+
+    @Test
+    public void reportsFirstDifference() throws Exception {
+        CheckResult result = check("1 2\n3 5\n", "1 2\n3 4\n");
+
+        assertFalse(result.isAccepted());
+        assertEquals(2, result.getLine());
+        assertEquals(3, result.getColumn());
+        assertEquals("4", result.getExpected());
+        assertEquals("5", result.getActual());
+        assertEquals("第2行第3列，期望 \"4\"，实际 \"5\"", result.getMessage());
+    }
+
+    @Test
+    public void reportsTruncatedOutput() throws Exception {
+        CheckResult result = check("abc", "abcd");
+
+        assertFalse(result.isAccepted());
+        assertEquals(1, result.getLine());
+        assertEquals(4, result.getColumn());
+        assertEquals("第1行第4列，期望 \"d\"，实际 <EOF>", result.getMessage());
+    }
+
+    @Test
+    public void differenceAcrossBufferBoundary() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            expected.append(i).append('\n');
+        }
+        StringBuilder actual = new StringBuilder(expected);
+        int position = expected.indexOf("\n4000\n") + 1;
+        actual.setCharAt(position, '5');
+
+        CheckResult result = check(actual.toString(), expected.toString());
+
+        assertFalse(result.isAccepted());
+        assertEquals(4001, result.getLine());
+        assertEquals(1, result.getColumn());
+        assertTrue(check(expected + "\n\n", expected.toString()).isAccepted());
+    }
+
+    @Test
+    public void matchesTrimEquals() throws Exception {
+        char[] alphabet = {'a', 'b', ' ', '\n', '\t', '\r'};
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            String actual = randomText(random, alphabet);
+            String expected = random.nextInt(4) == 0 ? actual + randomText(random, new char[]{' ', '\n'}) : randomText(random, alphabet);
+            boolean trimEquals = actual.trim().equals(expected.trim());
+            assertEquals(trimEquals, check(actual, expected).isAccepted(),
+                    "actual=" + escape(actual) + ", expected=" + escape(expected));
+        }
+    }
+
+    private CheckResult check(String actual, String expected) throws Exception {
+        return checker.check(new StringReader(actual), new StringReader(expected));
+    }
+
+    private static String randomText(Random random, char[] alphabet) {
+        int length = random.nextInt(8);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String text) {
+        return "\"" + text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "\"";
+    }
+}
@@ -0,0 +1,109 @@
+package com.cloudoj.judge.checker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按单词比对测试：空白差异、大小写、浮点数误差，以及比对器工厂的模式选择
+ */
+public class TokenCheckerTest {
+
+    private static final OutputChecker WHITESPACE = TokenChecker.whitespaceInsensitive();
+    private static final OutputChecker CASE_INSENSITIVE = TokenChecker.caseInsensitive();
+    private static final OutputChecker FLOAT = TokenChecker.floatTolerance(1e-6);
+
+    @Test
+    public void whitespaceInsensitive() throws Exception {
+        assertTrue(check(WHITESPACE, "1 2\n3", "1\t2   3\r\n\n").isAccepted());
+        assertTrue(check(WHITESPACE, "", "\n \n").isAccepted());
+        assertFalse(check(WHITESPACE, "12", "1 2").isAccepted());
+        assertFalse(check(WHITESPACE, "Yes", "YES").isAccepted());
+    }
+
+    @Test
+    public void reportsMissingToken() throws Exception {
+        CheckResult result = check(WHITESPACE, "1 2\n", "1 2 3\n");
+
+        assertFalse(result.isAccepted());
+        assertEquals(2, result.getLine());
+        assertEquals(1, result.getColumn());
+        assertEquals("3", result.getExpected());
+        assertEquals("", result.getActual());
+    }
+
+    @Test
+    public void reportsDifferentToken() throws Exception {
+        CheckResult result = check(WHITESPACE, "1 22 3", "1 23 3");
+
+        assertFalse(result.isAccepted());
+        assertEquals(1, result.getLine());
+        assertEquals(3, result.getColumn());
+    }
+
+    @Test
+    public void caseInsensitive() throws Exception {
+        assertTrue(check(CASE_INSENSITIVE, "yes\nNo", "YES no").isAccepted());
+        assertFalse(check(CASE_INSENSITIVE, "yes", "yess").isAccepted());
+    }
+
+    @Test
+    public void floatWithinAbsoluteOrRelativeError() throws Exception {
+        assertTrue(check(FLOAT, "0.3333333", "0.333333333").isAccepted());
+        assertTrue(check(FLOAT, "1e-7 -0", "0 0").isAccepted());
+        // 绝对误差0.5，相对误差5e-7
+        assertTrue(check(FLOAT, "1000000.5", "1000000.0").isAccepted());
+        assertFalse(check(FLOAT, "1.001", "1.0").isAccepted());
+        assertFalse(check(FLOAT, "0.00001", "0").isAccepted());
+    }
+
+    @Test
+    public void floatEpsilonBoundary() throws Exception {
+        OutputChecker checker = TokenChecker.floatTolerance(0.5);
+
+        assertTrue(check(checker, "1.5", "1").isAccepted());
+        assertFalse(check(checker, "1.5001", "1").isAccepted());
+    }
+
+    @Test
+    public void floatNonNumericTokens() throws Exception {
+        assertTrue(check(FLOAT, "answer 1.0000001", "answer 1").isAccepted());
+        assertFalse(check(FLOAT, "abc", "abd").isAccepted());
+        assertFalse(check(FLOAT, "NaN", "1").isAccepted());
+        assertTrue(check(FLOAT, "NaN", "NaN").isAccepted());
+        assertFalse(check(FLOAT, "1.0", "1.0 2.0").isAccepted());
+    }
+
+    @Test
+    public void floatLongTokens() throws Exception {
+        String longToken = "1234567890".repeat(10);
+
+        assertTrue(check(FLOAT, longToken + " 2", longToken + " 2.0000000001").isAccepted());
+        // 超过数值解析长度的单词逐字符比对
+        assertFalse(check(FLOAT, longToken + "1", longToken + "2").isAccepted());
+        assertFalse(check(FLOAT, "9" + longToken, "8" + longToken).isAccepted());
+    }
+
+    @Test
+    public void factorySelectsChecker() throws Exception {
+        assertSame(OutputCheckerFactory.getChecker(null, 0), OutputCheckerFactory.getChecker("EXACT", 0));
+        assertSame(OutputCheckerFactory.getChecker("UNKNOWN", 0), OutputCheckerFactory.getChecker("EXACT", 0));
+        assertTrue(OutputCheckerFactory.getChecker("EXACT", 0) instanceof ExactChecker);
+        assertSame(OutputCheckerFactory.getChecker("whitespace", 0), OutputCheckerFactory.getChecker("WHITESPACE", 0));
+        assertSame(OutputCheckerFactory.getChecker("FLOAT", 0), OutputCheckerFactory.getChecker("FLOAT", OutputCheckerFactory.DEFAULT_EPSILON));
+
+        // 题目配置的误差生效，不大于0时使用默认误差
+        assertTrue(check(OutputCheckerFactory.getChecker("FLOAT", 1e-2), "1.005", "1.0").isAccepted());
+        assertFalse(check(OutputCheckerFactory.getChecker("FLOAT", 0), "1.005", "1.0").isAccepted());
+        assertTrue(check(OutputCheckerFactory.getChecker("FLOAT", -1), "1.0000001", "1.0").isAccepted());
+    }
+
+    private static CheckResult check(OutputChecker checker, String actual, String expected) throws Exception {
+        return checker.check(new StringReader(actual), new StringReader(expected));
+    }
+}
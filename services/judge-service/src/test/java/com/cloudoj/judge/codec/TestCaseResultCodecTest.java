@@ -0,0 +1,201 @@
+package com.cloudoj.judge.codec;
+
+import com.cloudoj.model.vo.judge.JudgeResultVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试用例结果编解码测试：TCR1往返、不压缩与deflate两种存储、旧JSON兼容、截断和异常数据
+ */
+public class TestCaseResultCodecTest {
+
+    private static final String PREFIX = "TCR1:";
+
+    @Test
+    public void roundTrip() {
+        List<JudgeResultVO.TestCaseResultVO> results = Arrays.asList(
+                testCase(1005L, "ACCEPTED", 12L, 20480L, "3", null),
+                // 用例ID不递增，编码为负差值
+                testCase(1001L, "WRONG_ANSWER", 0L, null, "答案 4", "第1行第1列，期望 \"3\"，实际 \"4\""),
+                testCase(1002L, "RUNTIME_ERROR", null, 0L, null, "运行错误(信号11): "));
+        results.get(0).setInput("1 2");
+        results.get(0).setExpectedOutput("3");
+
+        List<JudgeResultVO.TestCaseResultVO> decoded = TestCaseResultCodec.decode(TestCaseResultCodec.encode(results));
+
+        assertEquals(results.size(), decoded.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertSameResult(results.get(i), decoded.get(i));
+        }
+        // 有用例ID的输入和预期输出不保存，由调用方按用例ID补全
+        assertNull(decoded.get(0).getInput());
+        assertNull(decoded.get(0).getExpectedOutput());
+    }
+
+    @Test
+    public void inlinesInputWithoutTestCaseId() {
+        JudgeResultVO.TestCaseResultVO result = testCase(null, "WRONG_ANSWER", 5L, 100L, "2", null);
+        result.setInput("1 1");
+        result.setExpectedOutput("x".repeat(TestCaseResultCodec.PREVIEW_LENGTH + 10));
+
+        JudgeResultVO.TestCaseResultVO decoded = TestCaseResultCodec.decode(
+                TestCaseResultCodec.encode(Collections.singletonList(result))).get(0);
+
+        assertNull(decoded.getTestCaseId());
+        assertEquals("1 1", decoded.getInput());
+        assertEquals(TestCaseResultCodec.truncate(result.getExpectedOutput()), decoded.getExpectedOutput());
+    }
+
+    @Test
+    public void customAndMissingStatus() {
+        List<JudgeResultVO.TestCaseResultVO> results = Arrays.asList(
+                testCase(1L, "PARTIAL", 1L, 1L, null, null),
+                testCase(2L, null, 1L, 1L, null, null));
+
+        List<JudgeResultVO.TestCaseResultVO> decoded = TestCaseResultCodec.decode(TestCaseResultCodec.encode(results));
+
+        assertEquals("PARTIAL", decoded.get(0).getStatus());
+        assertNull(decoded.get(1).getStatus());
+    }
+
+    @Test
+    public void truncatesLongText() {
+        String longOutput = "输出".repeat(TestCaseResultCodec.PREVIEW_LENGTH);
+        JudgeResultVO.TestCaseResultVO result = testCase(1L, "WRONG_ANSWER", 1L, 1L, longOutput, longOutput);
+
+        JudgeResultVO.TestCaseResultVO decoded = TestCaseResultCodec.decode(
+                TestCaseResultCodec.encode(Collections.singletonList(result))).get(0);
+
+        String expected = longOutput.substring(0, TestCaseResultCodec.PREVIEW_LENGTH) + "...";
+        assertEquals(expected, decoded.getActualOutput());
+        assertEquals(expected, decoded.getErrorMessage());
+        assertEquals("short", TestCaseResultCodec.truncate("short"));
+        assertNull(TestCaseResultCodec.truncate(null));
+    }
+
+    @Test
+    public void storesSmallAndDeflatesLargeData() {
+        List<JudgeResultVO.TestCaseResultVO> small = Collections.singletonList(testCase(1L, "ACCEPTED", 1L, 1L, "1", null));
+        List<JudgeResultVO.TestCaseResultVO> large = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            large.add(testCase(id, "ACCEPTED", 10L, 2048L, "same output " + (id % 3), null));
+        }
+
+        String smallEncoded = TestCaseResultCodec.encode(small);
+        String largeEncoded = TestCaseResultCodec.encode(large);
+
+        assertEquals(0, payload(smallEncoded)[0]);
+        assertEquals(1, payload(largeEncoded)[0]);
+        List<JudgeResultVO.TestCaseResultVO> decoded = TestCaseResultCodec.decode(largeEncoded);
+        assertEquals(large.size(), decoded.size());
+        for (int i = 0; i < large.size(); i++) {
+            assertSameResult(large.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void decodesLegacyJson() {
+        String json = "[{\"testCaseId\":7,\"status\":\"ACCEPTED\",\"timeUsed\":15,\"memoryUsed\":1024,"
+                + "\"input\":\"1 2\",\"expectedOutput\":\"3\",\"actualOutput\":\"3\",\"unknownField\":true},"
+                + "{\"testCaseId\":8,\"status\":\"WRONG_ANSWER\",\"errorMessage\":\"答案错误\"}]";
+
+        List<JudgeResultVO.TestCaseResultVO> decoded = TestCaseResultCodec.decode(json);
+
+        assertEquals(2, decoded.size());
+        assertEquals(Long.valueOf(7L), decoded.get(0).getTestCaseId());
+        assertEquals(Long.valueOf(15L), decoded.get(0).getTimeUsed());
+        // 旧数据的输入和预期输出原样保留
+        assertEquals("1 2", decoded.get(0).getInput());
+        assertEquals("3", decoded.get(0).getExpectedOutput());
+        assertEquals("答案错误", decoded.get(1).getErrorMessage());
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode("[{\"testCaseId\":"));
+    }
+
+    @Test
+    public void emptyInput() {
+        assertTrue(TestCaseResultCodec.decode(null).isEmpty());
+        assertTrue(TestCaseResultCodec.decode("").isEmpty());
+        assertNull(TestCaseResultCodec.encode(null));
+        assertNull(TestCaseResultCodec.encode(Collections.emptyList()));
+    }
+
+    @Test
+    public void rejectsUnknownVersion() {
+        String encoded = TestCaseResultCodec.encode(Collections.singletonList(testCase(1L, "ACCEPTED", 1L, 1L, null, null)));
+
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode("TCR2:" + encoded.substring(PREFIX.length())));
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode("{\"testCaseId\":1}"));
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode("ACCEPTED"));
+    }
+
+    @Test
+    public void rejectsUnknownCompression() {
+        byte[] payload = payload(TestCaseResultCodec.encode(Collections.singletonList(testCase(1L, "ACCEPTED", 1L, 1L, null, null))));
+        payload[0] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode(encode(payload)));
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode(PREFIX));
+        assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode(PREFIX + "not base64!"));
+    }
+
+    @Test
+    public void rejectsTruncatedData() {
+        List<JudgeResultVO.TestCaseResultVO> results = new ArrayList<>();
+        Random random = new Random(7);
+        for (long id = 1; id <= 40; id++) {
+            results.add(testCase(id, random.nextBoolean() ? "ACCEPTED" : "WRONG_ANSWER",
+                    (long) random.nextInt(1000), (long) random.nextInt(1 << 20), "输出 " + random.nextInt(), null));
+        }
+        List<JudgeResultVO.TestCaseResultVO> small = Collections.singletonList(testCase(3L, "CUSTOM", 1L, 1L, "abc", "err"));
+
+        for (List<JudgeResultVO.TestCaseResultVO> list : Arrays.asList(results, small)) {
+            byte[] payload = payload(TestCaseResultCodec.encode(list));
+            for (int length = 1; length < payload.length; length++) {
+                String truncated = encode(Arrays.copyOf(payload, length));
+                assertThrows(IllegalArgumentException.class, () -> TestCaseResultCodec.decode(truncated),
+                        "length=" + length);
+            }
+        }
+    }
+
+    private static JudgeResultVO.TestCaseResultVO testCase(Long id, String status, Long timeUsed, Long memoryUsed,
+                                                           String actualOutput, String errorMessage) {
+        JudgeResultVO.TestCaseResultVO result = new JudgeResultVO.TestCaseResultVO();
+        result.setTestCaseId(id);
+        result.setStatus(status);
+        result.setTimeUsed(timeUsed);
+        result.setMemoryUsed(memoryUsed);
+        result.setActualOutput(actualOutput);
+        result.setErrorMessage(errorMessage);
+        return result;
+    }
+
+    private static void assertSameResult(JudgeResultVO.TestCaseResultVO expected, JudgeResultVO.TestCaseResultVO actual) {
+        assertEquals(expected.getTestCaseId(), actual.getTestCaseId());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getTimeUsed(), actual.getTimeUsed());
+        assertEquals(expected.getMemoryUsed(), actual.getMemoryUsed());
+        assertEquals(expected.getActualOutput(), actual.getActualOutput());
+        assertEquals(expected.getErrorMessage(), actual.getErrorMessage());
+    }
+
+    private static byte[] payload(String encoded) {
+        assertTrue(encoded.startsWith(PREFIX));
+        return Base64.getDecoder().decode(encoded.substring(PREFIX.length()));
+    }
+
+    private static String encode(byte[] payload) {
+        return PREFIX + Base64.getEncoder().encodeToString(payload);
+    }
+}
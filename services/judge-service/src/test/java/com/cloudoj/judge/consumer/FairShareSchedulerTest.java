@@ -0,0 +1,142 @@
+package com.cloudoj.judge.consumer;
+
+import com.cloudoj.judge.config.JudgeFairShareProperties;
+import com.cloudoj.judge.service.JudgeTenantResolver;
+import com.cloudoj.model.dto.judge.JudgeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 公平调度测试：跨租户按优先级、同优先级租户之间赤字轮转、租户内按优先级和到达顺序
+ * 题目没有缓存的测试数据，每个任务按 default-cost（1000毫秒）扣减额度
+ */
+public class FairShareSchedulerTest {
+
+    private JudgeFairShareProperties properties;
+    private FairShareScheduler scheduler;
+    private final List<String> executed = new ArrayList<>();
+    private long submissionId;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new JudgeFairShareProperties();
+        properties.setQuantum(1000);
+        scheduler = new FairShareScheduler();
+        ReflectionTestUtils.setField(scheduler, "properties", properties);
+    }
+
+    @Test
+    public void roundRobinAcrossTenants() throws Exception {
+        submit("class-1", 5, "a1", "a2", "a3", "a4");
+        submit("class-2", 5, "b1", "b2");
+
+        assertEquals(6, scheduler.getBacklog());
+        assertEquals(Arrays.asList("a1", "b1", "a2", "b2", "a3", "a4"), drain(6));
+        assertEquals(0, scheduler.getBacklog());
+    }
+
+    @Test
+    public void quantumAllowsConsecutiveTasks() throws Exception {
+        properties.setQuantum(2000);
+        submit("class-1", 5, "a1", "a2", "a3");
+        submit("class-2", 5, "b1", "b2", "b3");
+
+        assertEquals(Arrays.asList("a1", "a2", "b1", "b2", "a3", "b3"), drain(6));
+    }
+
+    @Test
+    public void tenantWeight() throws Exception {
+        properties.getWeights().put("class-1", 2);
+        submit("class-1", 5, "a1", "a2", "a3", "a4");
+        submit("class-2", 5, "b1", "b2");
+
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3", "a4", "b2"), drain(6));
+    }
+
+    @Test
+    public void tenantTypeWeight() throws Exception {
+        properties.getWeights().put("rejudge", 3);
+        properties.getWeights().put("rejudge-8", 1);
+        submit("rejudge-7", 0, "r1", "r2", "r3", "r4");
+        submit("rejudge-8", 0, "s1", "s2");
+
+        // rejudge-7 按类型权重3，rejudge-8 按租户ID权重1
+        assertEquals(Arrays.asList("r1", "r2", "r3", "s1", "r4", "s2"), drain(6));
+    }
+
+    @Test
+    public void higherPriorityTenantsFirst() throws Exception {
+        submit("rejudge-1", 0, "r1", "r2");
+        submit("user-1", 1, "p1", "p2");
+        submit("class-1", 5, "h1");
+        submit("class-2", 9, "u1");
+
+        // 截止临近的作业 > 普通作业 > 练习 > 批量重判，与到达顺序和轮转位置无关
+        assertEquals(Arrays.asList("u1", "h1", "p1", "p2", "r1", "r2"), drain(6));
+    }
+
+    @Test
+    public void lowerPriorityTenantDoesNotAccumulateDeficit() throws Exception {
+        submit("user-1", 1, "p1", "p2", "p3");
+        submit("class-1", 5, "h1", "h2");
+
+        assertEquals(Arrays.asList("h1", "h2"), drain(2));
+        submit("user-2", 1, "q1", "q2");
+
+        // 等待高优先级期间 user-1 没有攒额度，恢复后与 user-2 正常轮转
+        assertEquals(Arrays.asList("p1", "q1", "p2", "q2", "p3"), drain(5));
+    }
+
+    @Test
+    public void priorityThenArrivalWithinTenant() throws Exception {
+        submit("class-1", 1, "low1");
+        submit("class-1", 3, "high");
+        submit("class-1", 2, "mid");
+        submit("class-1", 1, "low2");
+
+        assertEquals(Arrays.asList("high", "mid", "low1", "low2"), drain(4));
+    }
+
+    @Test
+    public void groupByUserIgnoresTenantHeader() throws Exception {
+        properties.setGroupBy(JudgeTenantResolver.GROUP_BY_USER);
+        properties.getWeights().put("user-1", 2);
+        submit("class-9", 5, 1L, "a1", "a2", "a3");
+        submit("class-9", 5, 2L, "b1", "b2");
+
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3", "b2"), drain(5));
+    }
+
+    private void submit(String tenant, int priority, String... names) {
+        submit(tenant, priority, 1L, names);
+    }
+
+    private void submit(String tenant, int priority, Long userId, String... names) {
+        for (String name : names) {
+            JudgeMessage message = new JudgeMessage();
+            message.setSubmissionId(++submissionId);
+            message.setProblemId(1L);
+            message.setUserId(userId);
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setPriority(priority);
+            messageProperties.setHeader(JudgeTenantResolver.TENANT_HEADER, tenant);
+            scheduler.submit(message, messageProperties, () -> executed.add(name));
+        }
+    }
+
+    private List<String> drain(int count) throws Exception {
+        executed.clear();
+        for (int i = 0; i < count; i++) {
+            scheduler.take().run();
+        }
+        return new ArrayList<>(executed);
+    }
+}
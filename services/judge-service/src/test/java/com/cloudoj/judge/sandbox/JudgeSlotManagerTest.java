@@ -0,0 +1,195 @@
+package com.cloudoj.judge.sandbox;
+
+import com.cloudoj.judge.config.JudgeSlotProperties;
+import com.cloudoj.judge.config.ParallelJudgeProperties;
+import com.cloudoj.judge.config.WarmRunnerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评测槽位测试：CPU核心列表解析、没有空闲槽位时等待、并行名额由槽位数决定，以及容器内存限制包含常驻运行器的预留内存
+ */
+public class JudgeSlotManagerTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    private DockerSandbox dockerSandbox;
+    private JudgeSlotProperties slotProperties;
+    private WarmRunnerProperties warmRunnerProperties;
+    private JudgeSlotManager slotManager;
+    private JavaSandbox javaSandbox;
+    private PythonSandbox pythonSandbox;
+
+    @BeforeEach
+    public void setUp() {
+        dockerSandbox = mock(DockerSandbox.class);
+        when(dockerSandbox.updateContainerResources(anyString(), anyString(), anyLong())).thenReturn(true);
+
+        slotProperties = new JudgeSlotProperties();
+        slotProperties.setCpus("3");
+        slotManager = new JudgeSlotManager();
+        ReflectionTestUtils.setField(slotManager, "properties", slotProperties);
+        ReflectionTestUtils.setField(slotManager, "dockerSandbox", dockerSandbox);
+
+        warmRunnerProperties = new WarmRunnerProperties();
+        WarmRunnerManager warmRunnerManager = new WarmRunnerManager();
+        ReflectionTestUtils.setField(warmRunnerManager, "properties", warmRunnerProperties);
+        ReflectionTestUtils.setField(warmRunnerManager, "dockerSandbox", dockerSandbox);
+        javaSandbox = new JavaSandbox();
+        ReflectionTestUtils.setField(javaSandbox, "warmRunnerManager", warmRunnerManager);
+        pythonSandbox = new PythonSandbox();
+        ReflectionTestUtils.setField(pythonSandbox, "warmRunnerManager", warmRunnerManager);
+    }
+
+    @Test
+    public void parseCpus() {
+        assertEquals(Arrays.asList(1, 2, 3, 5), JudgeSlotManager.parseCpus("1-3, 5"));
+        assertEquals(Arrays.asList(2, 4), JudgeSlotManager.parseCpus("4,2,4"));
+        assertFalse(JudgeSlotManager.parseCpus("").isEmpty());
+    }
+
+    @Test
+    public void acquireWaitsForReleasedSlot() throws Exception {
+        slotProperties.setAcquireTimeout(20);
+        slotManager.init();
+        JudgeSlotManager.Slot held = slotManager.acquire();
+
+        // 超过 acquire-timeout 后仍继续等待，不会不绑定CPU评测
+        AtomicReference<JudgeSlotManager.Slot> acquired = new AtomicReference<>();
+        Thread waiter = new Thread(() -> acquired.set(slotManager.acquire()));
+        waiter.start();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+
+        slotManager.release(held);
+        waiter.join(2000);
+        assertFalse(waiter.isAlive());
+        assertNotNull(acquired.get());
+        assertSame(held, acquired.get());
+    }
+
+    @Test
+    public void parallelBudgetDerivedFromSlots() {
+        slotProperties.setCpus("1-4");
+        slotManager.init();
+        ParallelJudgeProperties parallelProperties = new ParallelJudgeProperties();
+        parallelProperties.setGlobalSlots(16);
+        ParallelJudgeExecutor executor = new ParallelJudgeExecutor();
+        ReflectionTestUtils.setField(executor, "properties", parallelProperties);
+        ReflectionTestUtils.setField(executor, "judgeSlotManager", slotManager);
+
+        executor.init();
+        try {
+            // 4个槽位：发起并行的任务占用一个，辅助线程最多使用其余3个
+            assertEquals(3, ((Semaphore) ReflectionTestUtils.getField(executor, "slots")).availablePermits());
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void runLimitReservesWarmJvmWhenMemoryLimitBelowHeap() {
+        slotManager.init();
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("cimg/openjdk:17.0", "c1");
+        int memoryLimit = 64;
+        assertTrue(memoryLimit < warmRunnerProperties.getJavaHeap());
+
+        JudgeSlotManager.Slot slot = slotManager.acquire();
+        int resident = javaSandbox.getResidentMemory(container, memoryLimit);
+        slotManager.applyRunLimits(container, memoryLimit, resident);
+        slotManager.release(slot);
+
+        // 常驻JVM会在本次批量运行中启动，容器内存 = 题目限制 + 余量 + 堆 + 堆外
+        long expectedMb = memoryLimit + slotProperties.getMemoryHeadroom()
+                + warmRunnerProperties.getJavaHeap() + warmRunnerProperties.getJavaOverhead();
+        assertEquals(warmRunnerProperties.getJavaHeap() + warmRunnerProperties.getJavaOverhead(), resident);
+        verify(dockerSandbox).updateContainerResources("c1", "3", expectedMb * MB);
+        assertTrue(expectedMb > warmRunnerProperties.getJavaHeap() + warmRunnerProperties.getJavaOverhead());
+        assertEquals(expectedMb * MB, container.getMemoryLimit());
+        assertFalse(container.isBroken());
+    }
+
+    @Test
+    public void runLimitReservesResidentJvmForColdRun() {
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("cimg/openjdk:17.0", "c1");
+        int memoryLimit = warmRunnerProperties.getJavaHeap() * 2;
+
+        // 题目限制超过堆大小时不使用常驻JVM，但之前启动的常驻JVM仍在容器中
+        assertEquals(0, javaSandbox.getResidentMemory(container, memoryLimit));
+        container.getWarmRunners().add("java");
+        assertEquals(warmRunnerProperties.getJavaHeap() + warmRunnerProperties.getJavaOverhead(),
+                javaSandbox.getResidentMemory(container, memoryLimit));
+    }
+
+    @Test
+    public void runLimitReservesPythonZygote() {
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("python:3.13-slim", "p1");
+
+        assertEquals(warmRunnerProperties.getPythonMemory(), pythonSandbox.getResidentMemory(container, 32));
+        assertEquals(0, pythonSandbox.getResidentMemory(null, 32));
+    }
+
+    @Test
+    public void noReserveWhenWarmRunnerDisabled() {
+        warmRunnerProperties.setEnabled(false);
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("cimg/openjdk:17.0", "c1");
+
+        assertEquals(0, javaSandbox.getResidentMemory(container, 64));
+    }
+
+    @Test
+    public void compileLimitIncludesResidentRunner() {
+        slotManager.init();
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("cimg/openjdk:17.0", "c1");
+        container.getWarmRunners().add("java");
+
+        JudgeSlotManager.Slot slot = slotManager.acquire();
+        slotManager.applyCompileLimits(container, javaSandbox.getResidentMemory(container, 64));
+        slotManager.release(slot);
+
+        long expectedMb = slotProperties.getCompileMemory()
+                + warmRunnerProperties.getJavaHeap() + warmRunnerProperties.getJavaOverhead();
+        verify(dockerSandbox).updateContainerResources("c1", "3", expectedMb * MB);
+    }
+
+    @Test
+    public void skipsUpdateWithoutSlot() {
+        slotProperties.setEnabled(false);
+        slotManager.init();
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("cimg/openjdk:17.0", "c1");
+
+        slotManager.applyRunLimits(container, 64, javaSandbox.getResidentMemory(container, 64));
+
+        verify(dockerSandbox, never()).updateContainerResources(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void failedUpdateMarksContainerBroken() {
+        when(dockerSandbox.updateContainerResources(anyString(), anyString(), anyLong())).thenReturn(false);
+        slotManager.init();
+        ContainerPool.PooledContainer container = new ContainerPool.PooledContainer("cimg/openjdk:17.0", "c1");
+
+        JudgeSlotManager.Slot slot = slotManager.acquire();
+        slotManager.applyRunLimits(container, 64, 0);
+        slotManager.release(slot);
+
+        assertTrue(container.isBroken());
+    }
+}
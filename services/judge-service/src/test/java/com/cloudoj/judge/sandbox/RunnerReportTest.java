@@ -0,0 +1,111 @@
+package com.cloudoj.judge.sandbox;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 评测运行器报告解析测试：stderr 末尾的 @@OJRUN 报告行和批量模式的结果清单
+ */
+public class RunnerReportTest {
+
+    @Test
+    public void parseMeteredTrailer() {
+        DockerSandbox.RunnerReport report = DockerSandbox.RunnerReport.parse(
+                "warning: x\n@@OJRUN exit=0 cpu_ms=12 peak_kb=2048 wall_ms=15\n");
+
+        assertNotNull(report);
+        assertEquals(0, report.getExitCode());
+        assertEquals(12, report.getCpuTime());
+        assertEquals(2048, report.getPeakMemoryKb());
+        assertEquals(15, report.getWallTime());
+        assertTrue(report.isMetered());
+        assertEquals("warning: x", report.getRemaining());
+    }
+
+    @Test
+    public void parseExitOnlyTrailer() {
+        DockerSandbox.RunnerReport report = DockerSandbox.RunnerReport.parse("@@OJRUN exit=137");
+
+        assertNotNull(report);
+        assertEquals(137, report.getExitCode());
+        assertFalse(report.isMetered());
+        assertEquals("", report.getRemaining());
+    }
+
+    @Test
+    public void lastTrailerWins() {
+        // 用户程序自己打印的报告行在前，运行器追加的在最后
+        DockerSandbox.RunnerReport report = DockerSandbox.RunnerReport.parse(
+                "@@OJRUN exit=0 cpu_ms=1\n@@OJRUN exit=1 cpu_ms=30 peak_kb=10 wall_ms=31\n");
+
+        assertNotNull(report);
+        assertEquals(1, report.getExitCode());
+        assertEquals(30, report.getCpuTime());
+        assertEquals("@@OJRUN exit=0 cpu_ms=1", report.getRemaining());
+    }
+
+    @Test
+    public void missingOrMalformedTrailer() {
+        assertNull(DockerSandbox.RunnerReport.parse(null));
+        assertNull(DockerSandbox.RunnerReport.parse("Segmentation fault\n"));
+        assertNull(DockerSandbox.RunnerReport.parse("@@OJRUN exit=abc\n"));
+        assertNull(DockerSandbox.RunnerReport.parse("@@OJRUN cpu_ms=1\n"));
+    }
+
+    @Test
+    public void parseManifest() {
+        // fail-fast：第2个用例超时后停止，之后的用例没有结果
+        String manifest = "case=0 exit=0 cpu_ms=5 peak_kb=100 wall_ms=6\n"
+                + "case=1 exit=124 cpu_ms=1000 peak_kb=200 wall_ms=1001\n"
+                + "\n";
+
+        DockerSandbox.RunnerReport[] reports = DockerSandbox.RunnerReport.parseManifest(manifest, 3);
+
+        assertEquals(3, reports.length);
+        assertEquals(0, reports[0].getCaseIndex());
+        assertEquals(5, reports[0].getCpuTime());
+        assertEquals(124, reports[1].getExitCode());
+        assertEquals(200, reports[1].getPeakMemoryKb());
+        assertNull(reports[2]);
+    }
+
+    @Test
+    public void rejectsForgedManifest() {
+        String valid = "case=0 exit=0 cpu_ms=5 peak_kb=100 wall_ms=6\n"
+                + "case=1 exit=124 cpu_ms=1000 peak_kb=200 wall_ms=1001\n";
+        String[] forged = {
+                // 重复的用例行（后一行试图覆盖超时结果）
+                valid + "case=1 exit=0 cpu_ms=1 peak_kb=1 wall_ms=1\n",
+                // 越界的用例下标
+                valid + "case=9 exit=0 cpu_ms=1 peak_kb=1 wall_ms=1\n",
+                // 下标不连续
+                "case=0 exit=0 cpu_ms=5 peak_kb=100 wall_ms=6\ncase=2 exit=0 cpu_ms=1 peak_kb=1 wall_ms=1\n",
+                // 无法解析的行、缺少用例下标、缺少测量数据
+                valid + "garbage\n",
+                "exit=0 cpu_ms=1 peak_kb=1 wall_ms=1\n",
+                "case=0 exit=0\n"
+        };
+
+        for (String manifest : forged) {
+            DockerSandbox.RunnerReport[] reports = DockerSandbox.RunnerReport.parseManifest(manifest, 3);
+            assertEquals(3, reports.length);
+            for (DockerSandbox.RunnerReport report : reports) {
+                assertNull(report, manifest);
+            }
+        }
+    }
+
+    @Test
+    public void parseMissingManifest() {
+        DockerSandbox.RunnerReport[] reports = DockerSandbox.RunnerReport.parseManifest(null, 2);
+
+        assertEquals(2, reports.length);
+        assertNull(reports[0]);
+        assertNull(reports[1]);
+    }
+}
@@ -0,0 +1,180 @@
+package com.cloudoj.judge.service;
+
+import com.cloudoj.judge.config.VerdictCacheProperties;
+import com.cloudoj.judge.sandbox.TestDataCache;
+import com.cloudoj.model.enums.JudgeStatusEnum;
+import com.cloudoj.model.vo.judge.JudgeResultVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 评测结果复用测试：副本隔离、不确定结果不缓存、按条目数和估算内存的LRU淘汰、过期
+ */
+public class JudgeVerdictCacheTest {
+
+    private VerdictCacheProperties properties;
+    private JudgeVerdictCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new VerdictCacheProperties();
+        cache = new JudgeVerdictCache();
+        ReflectionTestUtils.setField(cache, "properties", properties);
+    }
+
+    @Test
+    public void hitReturnsCopyForNewSubmission() {
+        cache.put("k", result(JudgeStatusEnum.WRONG_ANSWER.getCode(), "答案错误", 1L));
+
+        JudgeResultVO hit = cache.get("k", 7L);
+
+        assertNotNull(hit);
+        assertEquals(Long.valueOf(7L), hit.getSubmissionId());
+        assertEquals(JudgeStatusEnum.WRONG_ANSWER.getCode(), hit.getStatus());
+        assertEquals(1, hit.getTestCaseResults().size());
+        assertNull(cache.get("other", 7L));
+        assertNull(cache.get(null, 7L));
+    }
+
+    @Test
+    public void copiesAreIsolatedFromCache() {
+        JudgeResultVO original = result(JudgeStatusEnum.ACCEPTED.getCode(), null, 1L);
+        cache.put("k", original);
+        // 保存后修改原结果不影响缓存
+        original.getTestCaseResults().get(0).setInput("changed");
+
+        JudgeResultVO first = cache.get("k", 2L);
+        // 补充输入和预期输出（如 fillTestCaseData）不影响后续命中
+        first.getTestCaseResults().get(0).setInput("filled");
+        first.getTestCaseResults().get(0).setExpectedOutput("filled");
+        first.getTestCaseResults().add(new JudgeResultVO.TestCaseResultVO());
+
+        JudgeResultVO second = cache.get("k", 3L);
+        assertEquals(1, second.getTestCaseResults().size());
+        assertNull(second.getTestCaseResults().get(0).getInput());
+        assertNull(second.getTestCaseResults().get(0).getExpectedOutput());
+    }
+
+    @Test
+    public void nonDeterministicResultsNotCached() {
+        cache.put("se", result(JudgeStatusEnum.SYSTEM_ERROR.getCode(), "系统错误: x", 1L));
+        cache.put("tle", result(JudgeStatusEnum.TIME_LIMIT_EXCEEDED.getCode(), "运行超时", 1L));
+        cache.put("mle", result(JudgeStatusEnum.MEMORY_LIMIT_EXCEEDED.getCode(), "内存超限", 1L));
+        cache.put("killed", result(JudgeStatusEnum.RUNTIME_ERROR.getCode(), "运行错误(信号9): ", 1L));
+        JudgeResultVO killedCase = result(JudgeStatusEnum.RUNTIME_ERROR.getCode(), null, 1L);
+        killedCase.getTestCaseResults().get(0).setErrorMessage("运行错误(信号11): ");
+        cache.put("killed-case", killedCase);
+        cache.put("re", result(JudgeStatusEnum.RUNTIME_ERROR.getCode(), "运行错误: Exception", 1L));
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("re", 2L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByEntries() {
+        properties.setMaxEntries(2);
+        cache.put("a", result(JudgeStatusEnum.ACCEPTED.getCode(), null, 1L));
+        cache.put("b", result(JudgeStatusEnum.ACCEPTED.getCode(), null, 2L));
+        assertNotNull(cache.get("a", 3L));
+
+        cache.put("c", result(JudgeStatusEnum.ACCEPTED.getCode(), null, 4L));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", 5L));
+        assertNotNull(cache.get("a", 5L));
+        assertNotNull(cache.get("c", 5L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByBytes() {
+        properties.setMaxSize(1);
+        // 每条约400KB，三条超过1MB
+        String message = "x".repeat(200_000);
+        cache.put("a", result(JudgeStatusEnum.WRONG_ANSWER.getCode(), message, 1L));
+        cache.put("b", result(JudgeStatusEnum.WRONG_ANSWER.getCode(), message, 2L));
+        assertNotNull(cache.get("a", 3L));
+
+        cache.put("c", result(JudgeStatusEnum.WRONG_ANSWER.getCode(), message, 4L));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", 5L));
+        assertNotNull(cache.get("a", 5L));
+        assertNotNull(cache.get("c", 5L));
+    }
+
+    @Test
+    public void oversizedResultNotCached() {
+        properties.setMaxSize(1);
+        cache.put("a", result(JudgeStatusEnum.ACCEPTED.getCode(), null, 1L));
+
+        cache.put("big", result(JudgeStatusEnum.WRONG_ANSWER.getCode(), "x".repeat(600_000), 2L));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("big", 3L));
+        assertNotNull(cache.get("a", 3L));
+    }
+
+    @Test
+    public void expiredEntryRemoved() {
+        properties.setTtl(0);
+        cache.put("k", result(JudgeStatusEnum.ACCEPTED.getCode(), null, 1L));
+        assertEquals(1, cache.size());
+
+        assertNull(cache.get("k", 2L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void buildKey() {
+        TestDataCache.ProblemTestData testData = testData("v1", true);
+
+        String key = cache.buildKey(1L, "java", "code", testData);
+        assertNotNull(key);
+        assertEquals(key, cache.buildKey(1L, "java", "code", testData("v1", true)));
+        assertNotEquals(key, cache.buildKey(1L, "java", "code2", testData));
+        assertNotEquals(key, cache.buildKey(1L, "java", "code", testData("v2", true)));
+        // 拼接相同但分段不同的输入不冲突
+        assertNotEquals(cache.buildKey(1L, "ja", "vacode", testData), key);
+
+        assertNull(cache.buildKey(1L, "java", "code", testData(null, true)));
+        assertNull(cache.buildKey(1L, "java", "code", testData("v1", false)));
+        assertNull(cache.buildKey(1L, "java", "code", null));
+        properties.setEnabled(false);
+        assertNull(cache.buildKey(1L, "java", "code", testData));
+    }
+
+    private static JudgeResultVO result(String status, String errorMessage, Long testCaseId) {
+        JudgeResultVO.TestCaseResultVO testCase = new JudgeResultVO.TestCaseResultVO();
+        testCase.setTestCaseId(testCaseId);
+        testCase.setStatus(status);
+        testCase.setActualOutput("1");
+        List<JudgeResultVO.TestCaseResultVO> testCases = new ArrayList<>();
+        testCases.add(testCase);
+
+        JudgeResultVO result = new JudgeResultVO();
+        result.setSubmissionId(1L);
+        result.setStatus(status);
+        result.setErrorMessage(errorMessage);
+        result.setTestCaseResults(testCases);
+        return result;
+    }
+
+    private static TestDataCache.ProblemTestData testData(String version, boolean cacheable) {
+        return TestDataCache.ProblemTestData.builder()
+                .problemId(1L)
+                .version(version)
+                .timeLimit(1000)
+                .memoryLimit(256)
+                .cacheable(cacheable)
+                .build();
+    }
+}
@@ -12,7 +12,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @SpringBootApplication(scanBasePackages = {"com.cloudoj.learning", "com.cloudoj.common"})
 @EnableDiscoveryClient  // 启用服务发现
 @EnableFeignClients     // 启用Feign客户端
-@MapperScan("com.cloudoj.learning.mapper")  // 扫描Mapper接口
+@MapperScan({"com.cloudoj.learning.mapper", "com.cloudoj.common.mapper"})  // 扫描Mapper接口
 public class LearningServiceApplication {
     
     public static void main(String[] args) {
@@ -0,0 +1,25 @@
+package com.cloudoj.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评测完成事件批量消费配置属性
+ * 消费者一次从队列取一批事件，合并后每张表用一条多行写入语句更新
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "learning.judge-event")
+public class JudgeEventBatchProperties {
+
+    /**
+     * 每批最多处理的事件数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 凑批等待时间（毫秒），超时后不满一批也处理
+     */
+    private long receiveTimeout = 200;
+}
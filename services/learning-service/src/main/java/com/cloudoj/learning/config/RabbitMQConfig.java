@@ -0,0 +1,47 @@
+package com.cloudoj.learning.config;
+
+import com.cloudoj.common.config.AbstractJudgeEventRabbitConfig;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ配置类
+ * 评测完成事件的交换机、队列、死信队列和消息转换器见 {@link AbstractJudgeEventRabbitConfig}
+ */
+@Configuration
+public class RabbitMQConfig extends AbstractJudgeEventRabbitConfig {
+    
+    public static final String JUDGE_COMPLETED_QUEUE = "judge.completed.learning";
+    
+    // 评测完成事件批量消费的监听容器工厂
+    public static final String JUDGE_EVENT_BATCH_CONTAINER_FACTORY = "judgeEventBatchContainerFactory";
+    
+    @Override
+    protected String judgeCompletedQueueName() {
+        return JUDGE_COMPLETED_QUEUE;
+    }
+    
+    /**
+     * 评测完成事件批量消费的监听容器工厂
+     * 沿用 spring.rabbitmq.listener.simple 配置（确认模式、重试），消费者一次接收 learning.judge-event.batch-size 条事件，
+     * 整批处理成功后一起确认
+     */
+    @Bean(JUDGE_EVENT_BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory judgeEventBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            JudgeEventBatchProperties judgeEventBatchProperties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        int batchSize = Math.max(1, judgeEventBatchProperties.getBatchSize());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(judgeEventBatchProperties.getReceiveTimeout());
+        factory.setPrefetchCount(batchSize);
+        return factory;
+    }
+}
@@ -0,0 +1,34 @@
+package com.cloudoj.learning.consumer;
+
+import com.cloudoj.learning.config.RabbitMQConfig;
+import com.cloudoj.learning.service.JudgeEventService;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 评测完成事件消费者
+ */
+@Slf4j
+@Component
+public class JudgeCompletedConsumer {
+    
+    @Autowired
+    private JudgeEventService judgeEventService;
+    
+    /**
+     * 批量消费评测完成事件
+     * 抛出异常时按 spring.rabbitmq.listener.simple.retry 重试整批（已处理的事件按事件ID跳过），
+     * 重试耗尽后进入死信队列
+     */
+    @RabbitListener(queues = RabbitMQConfig.JUDGE_COMPLETED_QUEUE,
+            containerFactory = RabbitMQConfig.JUDGE_EVENT_BATCH_CONTAINER_FACTORY)
+    public void handleJudgeCompleted(List<JudgeCompletedEvent> events) {
+        log.debug("收到评测完成事件: size={}", events.size());
+        judgeEventService.handleJudgeCompletedBatch(events);
+    }
+}
@@ -50,6 +50,11 @@ public interface LearningProgressMapper {
      */
     int updateProgress(LearningProgress record);
     
+    /**
+     * 批量写入学习进度（不存在时插入，已存在时合并）
+     */
+    int batchUpsert(@Param("records") List<LearningProgress> records);
+    
     /**
      * 统计用户解决题目数
      */
@@ -57,4 +57,9 @@ public interface LearningStatisticsMapper {
      * 更新统计数据（增量更新）
      */
     int updateStatistics(LearningStatistics record);
+    
+    /**
+     * 批量累加每日统计（当天记录不存在时插入）
+     */
+    int batchUpsert(@Param("records") List<LearningStatistics> records);
 }
@@ -65,6 +65,16 @@ public interface WrongProblemMapper {
      */
     int markAsResolved(@Param("id") Long id);
     
+    /**
+     * 批量写入错题（不存在时插入，已存在时合并）
+     */
+    int batchUpsert(@Param("records") List<WrongProblem> records);
+    
+    /**
+     * 批量标记为已解决（按用户ID和题目ID，没有错题记录的忽略）
+     */
+    int batchResolve(@Param("records") List<WrongProblem> records);
+    
     /**
      * 统计用户错题数
      */
@@ -0,0 +1,22 @@
+package com.cloudoj.learning.service;
+
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+
+import java.util.List;
+
+/**
+ * 评测完成事件处理服务
+ */
+public interface JudgeEventService {
+    
+    /**
+     * 处理评测完成事件，同一事件（按事件ID）只处理一次
+     */
+    void handleJudgeCompleted(JudgeCompletedEvent event);
+    
+    /**
+     * 批量处理评测完成事件，合并后每张表一条多行写入语句
+     * 同一事件（按事件ID）只处理一次，同一提交（按提交ID）只计一次提交和通过次数
+     */
+    void handleJudgeCompletedBatch(List<JudgeCompletedEvent> events);
+}
@@ -0,0 +1,241 @@
+package com.cloudoj.learning.service.impl;
+
+import com.cloudoj.common.mapper.JudgeEventLogMapper;
+import com.cloudoj.learning.entity.LearningProgress;
+import com.cloudoj.learning.entity.LearningStatistics;
+import com.cloudoj.learning.entity.WrongProblem;
+import com.cloudoj.learning.mapper.LearningProgressMapper;
+import com.cloudoj.learning.mapper.LearningStatisticsMapper;
+import com.cloudoj.learning.mapper.WrongProblemMapper;
+import com.cloudoj.learning.service.JudgeEventService;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import com.cloudoj.model.entity.judge.JudgeEventLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 评测完成事件处理服务实现类
+ * 1. 一批事件先在内存中按（用户, 题目）和（用户, 日期）合并，学习进度、错题、每日统计各用一条多行
+ *    INSERT ... ON DUPLICATE KEY UPDATE 写入，最高得分和最佳执行时间由数据库取较大/较小值
+ * 2. 事件去重记录和业务更新在同一个事务中：重复投递的事件（事件ID已记录）跳过；
+ *    同一提交的后续事件（重判）只合并得分、执行时间和错题状态，不再累加提交和通过次数
+ * 3. 整批处理失败时逐个事件重试，定位到失败的事件后抛出异常，由消息重试和死信队列处理
+ */
+@Slf4j
+@Service
+public class JudgeEventServiceImpl implements JudgeEventService {
+    
+    @Autowired
+    private JudgeEventLogMapper judgeEventLogMapper;
+    
+    @Autowired
+    private LearningProgressMapper learningProgressMapper;
+    
+    @Autowired
+    private WrongProblemMapper wrongProblemMapper;
+    
+    @Autowired
+    private LearningStatisticsMapper learningStatisticsMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Override
+    public void handleJudgeCompleted(JudgeCompletedEvent event) {
+        transactionTemplate.executeWithoutResult(status -> applyEvents(Collections.singletonList(event)));
+    }
+    
+    @Override
+    public void handleJudgeCompletedBatch(List<JudgeCompletedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyEvents(events));
+            return;
+        } catch (Exception e) {
+            if (events.size() == 1) {
+                throw e;
+            }
+            log.warn("评测完成事件批量处理失败，逐个重试: size={}, error={}", events.size(), e.getMessage());
+        }
+        
+        // 逐个处理，成功的事件已记录去重，整批重新投递时不会重复处理
+        int failed = 0;
+        for (JudgeCompletedEvent event : events) {
+            try {
+                handleJudgeCompleted(event);
+            } catch (Exception e) {
+                failed++;
+                log.error("评测完成事件处理失败: eventId={}, submissionId={}, error={}",
+                        event.getEventId(), event.getSubmissionId(), e.getMessage(), e);
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException("评测完成事件处理失败: " + failed + "/" + events.size());
+        }
+    }
+    
+    private void applyEvents(List<JudgeCompletedEvent> events) {
+        // 批内按事件ID去重
+        Map<String, JudgeCompletedEvent> unique = new LinkedHashMap<>();
+        Set<Long> submissionIds = new HashSet<>();
+        for (JudgeCompletedEvent event : events) {
+            unique.putIfAbsent(event.getEventId(), event);
+            submissionIds.add(event.getSubmissionId());
+        }
+        
+        // 已处理过的事件跳过；已处理过的提交不再计数
+        Set<String> handledEvents = new HashSet<>();
+        Set<Long> countedSubmissions = new HashSet<>();
+        for (JudgeEventLog eventLog : judgeEventLogMapper.selectBySubmissionIds(submissionIds)) {
+            handledEvents.add(eventLog.getEventId());
+            countedSubmissions.add(eventLog.getSubmissionId());
+        }
+        List<JudgeCompletedEvent> fresh = new ArrayList<>(unique.size());
+        List<JudgeEventLog> eventLogs = new ArrayList<>(unique.size());
+        for (JudgeCompletedEvent event : unique.values()) {
+            if (handledEvents.contains(event.getEventId())) {
+                log.info("评测完成事件已处理过，跳过: eventId={}, submissionId={}", event.getEventId(), event.getSubmissionId());
+                continue;
+            }
+            fresh.add(event);
+            JudgeEventLog eventLog = new JudgeEventLog();
+            eventLog.setEventId(event.getEventId());
+            eventLog.setSubmissionId(event.getSubmissionId());
+            eventLogs.add(eventLog);
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        judgeEventLogMapper.batchInsert(eventLogs);
+        
+        // 按评测完成时间合并，错题状态以最后一次评测为准
+        fresh.sort(Comparator.comparingLong(event -> event.getJudgedAt() != null ? event.getJudgedAt() : Long.MAX_VALUE));
+        Map<String, LearningProgress> progressMap = new LinkedHashMap<>();
+        Map<String, WrongProblem> wrongMap = new LinkedHashMap<>();
+        Map<String, WrongProblem> resolveMap = new LinkedHashMap<>();
+        Map<String, LearningStatistics> statisticsMap = new LinkedHashMap<>();
+        for (JudgeCompletedEvent event : fresh) {
+            boolean accepted = "ACCEPTED".equals(event.getStatus());
+            boolean counted = countedSubmissions.add(event.getSubmissionId());
+            LocalDateTime judgedTime = event.getJudgedAt() != null
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getJudgedAt()), ZoneId.systemDefault())
+                    : LocalDateTime.now();
+            String problemKey = event.getUserId() + ":" + event.getProblemId();
+            
+            mergeProgress(progressMap.computeIfAbsent(problemKey, k -> newProgress(event, judgedTime)),
+                    event, accepted, counted, judgedTime);
+            
+            // 未通过时加入错题本，通过时标记错题已解决
+            if (!accepted) {
+                WrongProblem wrongProblem = wrongMap.computeIfAbsent(problemKey, k -> newWrongProblem(event));
+                wrongProblem.setWrongCount(wrongProblem.getWrongCount() + (counted ? 1 : 0));
+                wrongProblem.setSubmissionId(event.getSubmissionId());
+                wrongProblem.setErrorType(event.getStatus());
+                wrongProblem.setIsResolved(0);
+                wrongProblem.setResolvedTime(null);
+            } else if (wrongMap.containsKey(problemKey)) {
+                WrongProblem wrongProblem = wrongMap.get(problemKey);
+                wrongProblem.setIsResolved(1);
+                wrongProblem.setResolvedTime(judgedTime);
+            } else {
+                resolveMap.putIfAbsent(problemKey, newWrongProblem(event));
+            }
+            
+            // 学习统计（同一提交只计一次）
+            if (counted) {
+                LearningStatistics statistics = statisticsMap.computeIfAbsent(
+                        event.getUserId() + ":" + judgedTime.toLocalDate(),
+                        k -> newStatistics(event.getUserId(), judgedTime.toLocalDate()));
+                statistics.setSubmitCount(statistics.getSubmitCount() + 1);
+                statistics.setAcceptCount(statistics.getAcceptCount() + (accepted ? 1 : 0));
+                statistics.setProblemSolved(statistics.getProblemSolved() + (accepted ? 1 : 0));
+                statistics.setCodeLines(statistics.getCodeLines() + (event.getCodeLines() != null ? event.getCodeLines() : 0));
+            }
+        }
+        
+        learningProgressMapper.batchUpsert(new ArrayList<>(progressMap.values()));
+        // 先标记已解决再写入错题：批内先通过后又出错的题目最终为未解决
+        if (!resolveMap.isEmpty()) {
+            wrongProblemMapper.batchResolve(new ArrayList<>(resolveMap.values()));
+        }
+        if (!wrongMap.isEmpty()) {
+            wrongProblemMapper.batchUpsert(new ArrayList<>(wrongMap.values()));
+        }
+        if (!statisticsMap.isEmpty()) {
+            learningStatisticsMapper.batchUpsert(new ArrayList<>(statisticsMap.values()));
+        }
+        
+        log.info("评测完成事件处理成功: events={}, progress={}, wrongProblems={}, statistics={}",
+                fresh.size(), progressMap.size(), wrongMap.size() + resolveMap.size(), statisticsMap.size());
+    }
+    
+    private static LearningProgress newProgress(JudgeCompletedEvent event, LocalDateTime judgedTime) {
+        LearningProgress progress = new LearningProgress();
+        progress.setUserId(event.getUserId());
+        progress.setProblemId(event.getProblemId());
+        progress.setStatus("IN_PROGRESS");
+        progress.setSubmitCount(0);
+        progress.setAcceptCount(0);
+        progress.setFirstSubmitTime(judgedTime);
+        progress.setBestScore(0);
+        return progress;
+    }
+    
+    private static void mergeProgress(LearningProgress progress, JudgeCompletedEvent event,
+                                      boolean accepted, boolean counted, LocalDateTime judgedTime) {
+        if (counted) {
+            progress.setSubmitCount(progress.getSubmitCount() + 1);
+            progress.setAcceptCount(progress.getAcceptCount() + (accepted ? 1 : 0));
+        }
+        progress.setLastSubmitTime(judgedTime);
+        if (accepted) {
+            progress.setStatus("COMPLETED");
+            if (progress.getFirstAcceptTime() == null) {
+                progress.setFirstAcceptTime(judgedTime);
+            }
+        }
+        if (event.getScore() != null && event.getScore() > progress.getBestScore()) {
+            progress.setBestScore(event.getScore());
+        }
+        if (event.getTimeUsed() != null
+                && (progress.getExecutionTime() == null || event.getTimeUsed() < progress.getExecutionTime())) {
+            progress.setExecutionTime(event.getTimeUsed());
+        }
+    }
+    
+    private static WrongProblem newWrongProblem(JudgeCompletedEvent event) {
+        WrongProblem wrongProblem = new WrongProblem();
+        wrongProblem.setUserId(event.getUserId());
+        wrongProblem.setProblemId(event.getProblemId());
+        wrongProblem.setWrongCount(0);
+        return wrongProblem;
+    }
+    
+    private static LearningStatistics newStatistics(Long userId, LocalDate statDate) {
+        LearningStatistics statistics = new LearningStatistics();
+        statistics.setUserId(userId);
+        statistics.setStatDate(statDate);
+        statistics.setSubmitCount(0);
+        statistics.setAcceptCount(0);
+        statistics.setProblemSolved(0);
+        statistics.setCodeLines(0);
+        return statistics;
+    }
+}
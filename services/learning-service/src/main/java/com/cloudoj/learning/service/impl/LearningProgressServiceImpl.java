@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,59 +42,24 @@ public class LearningProgressServiceImpl implements LearningProgressService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void updateProgress(Long userId, Long problemId, String status, Integer score, Integer executionTime) {
-        // 查询是否已有进度记录
-        LearningProgress progress = learningProgressMapper.selectByUserIdAndProblemId(userId, problemId);
+        // 单条语句写入：不存在时插入，已存在时累加次数，最高得分和最佳执行时间在数据库中比较
+        LocalDateTime now = LocalDateTime.now();
+        boolean accepted = "ACCEPTED".equals(status);
         
-        if (progress == null) {
-            // 首次提交，创建进度记录
-            progress = new LearningProgress();
-            progress.setUserId(userId);
-            progress.setProblemId(problemId);
-            progress.setStatus("IN_PROGRESS");
-            progress.setSubmitCount(1);
-            progress.setAcceptCount("ACCEPTED".equals(status) ? 1 : 0);
-            progress.setFirstSubmitTime(LocalDateTime.now());
-            progress.setLastSubmitTime(LocalDateTime.now());
-            progress.setBestScore(score != null ? score : 0);
-            progress.setExecutionTime(executionTime);
-            
-            if ("ACCEPTED".equals(status)) {
-                progress.setStatus("COMPLETED");
-                progress.setFirstAcceptTime(LocalDateTime.now());
-            }
-            
-            learningProgressMapper.insertSelective(progress);
-            log.info("创建学习进度记录: userId={}, problemId={}", userId, problemId);
-        } else {
-            // 更新已有进度
-            progress.setLastSubmitTime(LocalDateTime.now());
-            
-            // 更新最高得分
-            if (score != null && score > progress.getBestScore()) {
-                progress.setBestScore(score);
-            }
-            
-            // 更新最佳执行时间（取最小值）
-            if (executionTime != null) {
-                if (progress.getExecutionTime() == null || executionTime < progress.getExecutionTime()) {
-                    progress.setExecutionTime(executionTime);
-                }
-            }
-            
-            // 如果通过，更新通过次数和状态
-            if ("ACCEPTED".equals(status)) {
-                progress.setAcceptCount(progress.getAcceptCount() + 1);
-                
-                // 首次通过
-                if (progress.getFirstAcceptTime() == null) {
-                    progress.setFirstAcceptTime(LocalDateTime.now());
-                    progress.setStatus("COMPLETED");
-                }
-            }
-            
-            learningProgressMapper.updateProgress(progress);
-            log.info("更新学习进度: userId={}, problemId={}, status={}", userId, problemId, status);
-        }
+        LearningProgress progress = new LearningProgress();
+        progress.setUserId(userId);
+        progress.setProblemId(problemId);
+        progress.setStatus(accepted ? "COMPLETED" : "IN_PROGRESS");
+        progress.setSubmitCount(1);
+        progress.setAcceptCount(accepted ? 1 : 0);
+        progress.setFirstSubmitTime(now);
+        progress.setLastSubmitTime(now);
+        progress.setFirstAcceptTime(accepted ? now : null);
+        progress.setBestScore(score != null ? score : 0);
+        progress.setExecutionTime(executionTime);
+        
+        learningProgressMapper.batchUpsert(Collections.singletonList(progress));
+        log.info("更新学习进度: userId={}, problemId={}, status={}", userId, problemId, status);
     }
     
     @Override
@@ -13,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,28 +37,15 @@ public class LearningStatisticsServiceImpl implements LearningStatisticsService
     @Override
     @Transactional
     public void recordDailyStatistics(Long userId, int submitCount, int acceptCount, int problemSolved, int codeLines) {
-        LocalDate today = LocalDate.now();
-        LearningStatistics existing = learningStatisticsMapper.selectByUserAndDate(userId, today);
-        
-        if (existing != null) {
-            // 更新今日统计
-            existing.setSubmitCount(existing.getSubmitCount() + submitCount);
-            existing.setAcceptCount(existing.getAcceptCount() + acceptCount);
-            existing.setProblemSolved(existing.getProblemSolved() + problemSolved);
-            existing.setCodeLines(existing.getCodeLines() + codeLines);
-            learningStatisticsMapper.updateByPrimaryKeySelective(existing);
-        } else {
-            // 创建今日统计
-            LearningStatistics stats = new LearningStatistics();
-            stats.setUserId(userId);
-            stats.setStatDate(today);
-            stats.setSubmitCount(submitCount);
-            stats.setAcceptCount(acceptCount);
-            stats.setProblemSolved(problemSolved);
-            stats.setCodeLines(codeLines);
-            stats.setStudyDuration(0);
-            learningStatisticsMapper.insertSelective(stats);
-        }
+        // 单条语句累加今日统计，当天记录不存在时插入
+        LearningStatistics stats = new LearningStatistics();
+        stats.setUserId(userId);
+        stats.setStatDate(LocalDate.now());
+        stats.setSubmitCount(submitCount);
+        stats.setAcceptCount(acceptCount);
+        stats.setProblemSolved(problemSolved);
+        stats.setCodeLines(codeLines);
+        learningStatisticsMapper.batchUpsert(Collections.singletonList(stats));
     }
     
     @Override
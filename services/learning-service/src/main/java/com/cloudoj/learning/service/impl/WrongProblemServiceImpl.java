@@ -8,7 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,30 +26,16 @@ public class WrongProblemServiceImpl implements WrongProblemService {
     @Override
     @Transactional
     public void addWrongProblem(Long userId, Long problemId, Long submissionId, String errorType) {
-        // 检查是否已存在该题的错题记录
-        WrongProblem existing = wrongProblemMapper.selectByUserAndProblem(userId, problemId);
-        
-        if (existing != null) {
-            // 更新错误次数
-            existing.setWrongCount(existing.getWrongCount() + 1);
-            existing.setSubmissionId(submissionId);
-            existing.setErrorType(errorType);
-            existing.setIsResolved(0); // 重新标记为未解决
-            existing.setResolvedTime(null);
-            wrongProblemMapper.updateByPrimaryKeySelective(existing);
-            log.info("更新错题记录：userId={}, problemId={}, wrongCount={}", userId, problemId, existing.getWrongCount());
-        } else {
-            // 创建新记录
-            WrongProblem wrongProblem = new WrongProblem();
-            wrongProblem.setUserId(userId);
-            wrongProblem.setProblemId(problemId);
-            wrongProblem.setSubmissionId(submissionId);
-            wrongProblem.setErrorType(errorType);
-            wrongProblem.setWrongCount(1);
-            wrongProblem.setIsResolved(0);
-            wrongProblemMapper.insertSelective(wrongProblem);
-            log.info("添加错题记录：userId={}, problemId={}", userId, problemId);
-        }
+        // 单条语句写入：不存在时插入，已存在时错误次数加一并重新标记为未解决
+        WrongProblem wrongProblem = new WrongProblem();
+        wrongProblem.setUserId(userId);
+        wrongProblem.setProblemId(problemId);
+        wrongProblem.setSubmissionId(submissionId);
+        wrongProblem.setErrorType(errorType);
+        wrongProblem.setWrongCount(1);
+        wrongProblem.setIsResolved(0);
+        wrongProblemMapper.batchUpsert(Collections.singletonList(wrongProblem));
+        log.info("添加错题记录：userId={}, problemId={}", userId, problemId);
     }
     
     @Override
@@ -65,11 +51,10 @@ public class WrongProblemServiceImpl implements WrongProblemService {
     @Override
     @Transactional
     public void resolveWrongProblem(Long userId, Long problemId) {
-        WrongProblem wrongProblem = wrongProblemMapper.selectByUserAndProblem(userId, problemId);
-        if (wrongProblem != null) {
-            wrongProblem.setIsResolved(1);
-            wrongProblem.setResolvedTime(LocalDateTime.now());
-            wrongProblemMapper.updateByPrimaryKeySelective(wrongProblem);
+        WrongProblem wrongProblem = new WrongProblem();
+        wrongProblem.setUserId(userId);
+        wrongProblem.setProblemId(problemId);
+        if (wrongProblemMapper.batchResolve(Collections.singletonList(wrongProblem)) > 0) {
             log.info("标记错题已解决：userId={}, problemId={}", userId, problemId);
         }
     }
@@ -0,0 +1,284 @@
+package com.cloudoj.learning.service.impl;
+
+import com.cloudoj.common.mapper.JudgeEventLogMapper;
+import com.cloudoj.learning.entity.LearningProgress;
+import com.cloudoj.learning.entity.LearningStatistics;
+import com.cloudoj.learning.entity.WrongProblem;
+import com.cloudoj.learning.mapper.LearningProgressMapper;
+import com.cloudoj.learning.mapper.LearningStatisticsMapper;
+import com.cloudoj.learning.mapper.WrongProblemMapper;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import com.cloudoj.model.entity.judge.JudgeEventLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评测完成事件处理测试：批量合并、重复投递的事件跳过、重判的提交不重复计数、整批失败后逐个重试
+ */
+public class JudgeEventServiceImplTest {
+
+    private static final LocalDateTime DAY1 = LocalDateTime.of(2024, 3, 1, 10, 0);
+    private static final LocalDateTime DAY2 = LocalDateTime.of(2024, 3, 2, 10, 0);
+
+    private JudgeEventLogMapper judgeEventLogMapper;
+    private LearningProgressMapper learningProgressMapper;
+    private WrongProblemMapper wrongProblemMapper;
+    private LearningStatisticsMapper learningStatisticsMapper;
+    private JudgeEventServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        judgeEventLogMapper = mock(JudgeEventLogMapper.class);
+        learningProgressMapper = mock(LearningProgressMapper.class);
+        wrongProblemMapper = mock(WrongProblemMapper.class);
+        learningStatisticsMapper = mock(LearningStatisticsMapper.class);
+
+        service = new JudgeEventServiceImpl();
+        ReflectionTestUtils.setField(service, "judgeEventLogMapper", judgeEventLogMapper);
+        ReflectionTestUtils.setField(service, "learningProgressMapper", learningProgressMapper);
+        ReflectionTestUtils.setField(service, "wrongProblemMapper", wrongProblemMapper);
+        ReflectionTestUtils.setField(service, "learningStatisticsMapper", learningStatisticsMapper);
+        ReflectionTestUtils.setField(service, "transactionTemplate", new DirectTransactionTemplate());
+    }
+
+    @Test
+    public void mergesBatchByUserProblemAndDate() {
+        service.handleJudgeCompletedBatch(Arrays.asList(
+                event("e2", 2L, 1L, 100L, "ACCEPTED", 100, 30, DAY1.plusMinutes(5)),
+                event("e1", 1L, 1L, 100L, "WRONG_ANSWER", 40, 20, DAY1),
+                event("e3", 3L, 1L, 200L, "WRONG_ANSWER", 0, 50, DAY1.plusMinutes(1)),
+                event("e4", 4L, 1L, 300L, "ACCEPTED", 100, 10, DAY2),
+                event("e5", 5L, 2L, 100L, "ACCEPTED", 100, 15, DAY1)));
+
+        verify(judgeEventLogMapper).batchInsert(any());
+
+        List<LearningProgress> progress = captureProgress();
+        assertEquals(4, progress.size());
+        LearningProgress merged = find(progress, 1L, 100L);
+        assertEquals(2, merged.getSubmitCount());
+        assertEquals(1, merged.getAcceptCount());
+        assertEquals("COMPLETED", merged.getStatus());
+        assertEquals(100, merged.getBestScore());
+        assertEquals(20, merged.getExecutionTime());
+        assertEquals(DAY1, merged.getFirstSubmitTime());
+        assertEquals(DAY1.plusMinutes(5), merged.getLastSubmitTime());
+        assertEquals(DAY1.plusMinutes(5), merged.getFirstAcceptTime());
+
+        // 批内先错后过的题目标记为已解决，只错过的题目未解决
+        List<WrongProblem> wrongProblems = captureWrongProblems();
+        assertEquals(2, wrongProblems.size());
+        assertEquals(1, findWrong(wrongProblems, 1L, 100L).getIsResolved());
+        assertEquals(1, findWrong(wrongProblems, 1L, 100L).getWrongCount());
+        assertEquals(0, findWrong(wrongProblems, 1L, 200L).getIsResolved());
+        assertEquals("WRONG_ANSWER", findWrong(wrongProblems, 1L, 200L).getErrorType());
+        verify(wrongProblemMapper).batchResolve(any());
+
+        List<LearningStatistics> statistics = captureStatistics();
+        assertEquals(3, statistics.size());
+        LearningStatistics day1 = findStatistics(statistics, 1L, DAY1.toLocalDate());
+        assertEquals(3, day1.getSubmitCount());
+        assertEquals(1, day1.getAcceptCount());
+        assertEquals(1, findStatistics(statistics, 1L, DAY2.toLocalDate()).getSubmitCount());
+        assertEquals(1, findStatistics(statistics, 2L, DAY1.toLocalDate()).getAcceptCount());
+    }
+
+    @Test
+    public void skipsRedeliveredEvents() {
+        when(judgeEventLogMapper.selectBySubmissionIds(any())).thenReturn(Collections.singletonList(eventLog("e1", 1L)));
+
+        service.handleJudgeCompletedBatch(Collections.singletonList(
+                event("e1", 1L, 1L, 100L, "ACCEPTED", 100, 10, DAY1)));
+
+        verify(judgeEventLogMapper, never()).batchInsert(any());
+        verify(learningProgressMapper, never()).batchUpsert(any());
+        verify(learningStatisticsMapper, never()).batchUpsert(any());
+    }
+
+    @Test
+    public void countsDuplicateEventInBatchOnce() {
+        JudgeCompletedEvent event = event("e1", 1L, 1L, 100L, "WRONG_ANSWER", 0, 10, DAY1);
+
+        service.handleJudgeCompletedBatch(Arrays.asList(event, event));
+
+        assertEquals(1, find(captureProgress(), 1L, 100L).getSubmitCount());
+        assertEquals(1, findWrong(captureWrongProblems(), 1L, 100L).getWrongCount());
+        assertEquals(1, findStatistics(captureStatistics(), 1L, DAY1.toLocalDate()).getSubmitCount());
+    }
+
+    @Test
+    public void rejudgedSubmissionNotCountedAgain() {
+        // 提交1的原始评测事件已处理，重判产生新的事件ID
+        when(judgeEventLogMapper.selectBySubmissionIds(any())).thenReturn(Collections.singletonList(eventLog("e1", 1L)));
+
+        service.handleJudgeCompletedBatch(Collections.singletonList(
+                event("e1-rejudge", 1L, 1L, 100L, "ACCEPTED", 100, 10, DAY2)));
+
+        verify(judgeEventLogMapper).batchInsert(any());
+        LearningProgress progress = find(captureProgress(), 1L, 100L);
+        assertEquals(0, progress.getSubmitCount());
+        assertEquals(0, progress.getAcceptCount());
+        assertEquals("COMPLETED", progress.getStatus());
+        assertEquals(100, progress.getBestScore());
+        // 重判通过后错题标记已解决，但不计入每日统计
+        verify(wrongProblemMapper).batchResolve(any());
+        verify(learningStatisticsMapper, never()).batchUpsert(any());
+    }
+
+    @Test
+    public void rejudgeInSameBatchCountedOnce() {
+        service.handleJudgeCompletedBatch(Arrays.asList(
+                event("e1", 1L, 1L, 100L, "WRONG_ANSWER", 0, 10, DAY1),
+                event("e1-rejudge", 1L, 1L, 100L, "ACCEPTED", 100, 10, DAY1.plusMinutes(30))));
+
+        LearningProgress progress = find(captureProgress(), 1L, 100L);
+        assertEquals(1, progress.getSubmitCount());
+        assertEquals(0, progress.getAcceptCount());
+        assertEquals("COMPLETED", progress.getStatus());
+        WrongProblem wrongProblem = findWrong(captureWrongProblems(), 1L, 100L);
+        assertEquals(1, wrongProblem.getWrongCount());
+        assertEquals(1, wrongProblem.getIsResolved());
+        LearningStatistics statistics = findStatistics(captureStatistics(), 1L, DAY1.toLocalDate());
+        assertEquals(1, statistics.getSubmitCount());
+        assertEquals(0, statistics.getAcceptCount());
+    }
+
+    @Test
+    public void retriesEventsIndividuallyAfterBatchFailure() {
+        // 题目999的事件始终处理失败，其他事件逐个重试后成功
+        doAnswer(invocation -> {
+            List<LearningProgress> progress = invocation.getArgument(0);
+            for (LearningProgress item : progress) {
+                if (item.getProblemId() == 999L) {
+                    throw new IllegalArgumentException("bad event");
+                }
+            }
+            return progress.size();
+        }).when(learningProgressMapper).batchUpsert(any());
+
+        assertThrows(IllegalStateException.class, () -> service.handleJudgeCompletedBatch(Arrays.asList(
+                event("e1", 1L, 1L, 100L, "ACCEPTED", 100, 10, DAY1),
+                event("e2", 2L, 1L, 999L, "ACCEPTED", 100, 10, DAY1),
+                event("e3", 3L, 2L, 100L, "ACCEPTED", 100, 10, DAY1))));
+
+        // 整批一次，逐个三次
+        verify(judgeEventLogMapper, times(4)).batchInsert(any());
+        verify(learningProgressMapper, times(4)).batchUpsert(any());
+        verify(learningStatisticsMapper, times(2)).batchUpsert(any());
+    }
+
+    @Test
+    public void singleEventFailureRethrown() {
+        doAnswer(invocation -> {
+            throw new IllegalArgumentException("bad event");
+        }).when(learningProgressMapper).batchUpsert(any());
+
+        assertThrows(IllegalArgumentException.class, () -> service.handleJudgeCompletedBatch(
+                Collections.singletonList(event("e1", 1L, 1L, 100L, "ACCEPTED", 100, 10, DAY1))));
+        verify(learningProgressMapper, times(1)).batchUpsert(any());
+    }
+
+    @Test
+    public void missingJudgedAtUsesCurrentTime() {
+        JudgeCompletedEvent event = event("e1", 1L, 1L, 100L, "ACCEPTED", 100, 10, DAY1);
+        event.setJudgedAt(null);
+
+        service.handleJudgeCompleted(event);
+
+        LearningStatistics statistics = findStatistics(captureStatistics(), 1L, LocalDate.now());
+        assertEquals(1, statistics.getAcceptCount());
+        assertEquals(1, find(captureProgress(), 1L, 100L).getAcceptCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LearningProgress> captureProgress() {
+        ArgumentCaptor<List<LearningProgress>> captor = ArgumentCaptor.forClass(List.class);
+        verify(learningProgressMapper).batchUpsert(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WrongProblem> captureWrongProblems() {
+        ArgumentCaptor<List<WrongProblem>> captor = ArgumentCaptor.forClass(List.class);
+        verify(wrongProblemMapper).batchUpsert(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LearningStatistics> captureStatistics() {
+        ArgumentCaptor<List<LearningStatistics>> captor = ArgumentCaptor.forClass(List.class);
+        verify(learningStatisticsMapper).batchUpsert(captor.capture());
+        return captor.getValue();
+    }
+
+    private static LearningProgress find(List<LearningProgress> progress, Long userId, Long problemId) {
+        return progress.stream()
+                .filter(item -> item.getUserId().equals(userId) && item.getProblemId().equals(problemId))
+                .findFirst().orElseThrow();
+    }
+
+    private static WrongProblem findWrong(List<WrongProblem> wrongProblems, Long userId, Long problemId) {
+        return wrongProblems.stream()
+                .filter(item -> item.getUserId().equals(userId) && item.getProblemId().equals(problemId))
+                .findFirst().orElseThrow();
+    }
+
+    private static LearningStatistics findStatistics(List<LearningStatistics> statistics, Long userId, LocalDate date) {
+        return statistics.stream()
+                .filter(item -> item.getUserId().equals(userId) && item.getStatDate().equals(date))
+                .findFirst().orElseThrow();
+    }
+
+    private static JudgeCompletedEvent event(String eventId, Long submissionId, Long userId, Long problemId,
+                                             String status, int score, int timeUsed, LocalDateTime judgedAt) {
+        return JudgeCompletedEvent.builder()
+                .eventId(eventId)
+                .submissionId(submissionId)
+                .userId(userId)
+                .problemId(problemId)
+                .status(status)
+                .score(score)
+                .timeUsed(timeUsed)
+                .codeLines(10)
+                .judgedAt(judgedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .build();
+    }
+
+    private static JudgeEventLog eventLog(String eventId, Long submissionId) {
+        JudgeEventLog eventLog = new JudgeEventLog();
+        eventLog.setEventId(eventId);
+        eventLog.setSubmissionId(submissionId);
+        return eventLog;
+    }
+
+    /**
+     * 直接执行回调的事务模板，异常照常抛出
+     */
+    private static class DirectTransactionTemplate extends TransactionTemplate {
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(null);
+        }
+    }
+}
@@ -14,7 +14,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableScheduling
 @EnableFeignClients
 @EnableTransactionManagement
-@MapperScan("com.cloudoj.problem.mapper")
+@MapperScan({"com.cloudoj.problem.mapper", "com.cloudoj.common.mapper"})
 @EnableDiscoveryClient
 @SpringBootApplication(scanBasePackages = {"com.cloudoj.problem", "com.cloudoj.common"})
 public class ProblemServiceApplication {
@@ -0,0 +1,40 @@
+package com.cloudoj.problem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 题目提交统计写回配置属性
+ * 评测结果先在Redis中累加，定时批量写回数据库，热门题目的统计更新不再逐条锁题目行
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "problem.stats-buffer")
+public class ProblemStatsProperties {
+
+    /**
+     * 是否启用写回缓冲（关闭后每次评测直接更新数据库）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 写回间隔（毫秒）
+     */
+    private long flushInterval = 5000;
+
+    /**
+     * 单条批量更新语句最多包含的题目数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 写回锁的超时时间（毫秒），多实例部署时同一时刻只有一个实例写回
+     */
+    private long lockTimeout = 60000;
+
+    /**
+     * 已提交写回记录的保留时间（小时），需要远大于写回锁超时时间
+     */
+    private int flushLogRetention = 24;
+}
@@ -0,0 +1,19 @@
+package com.cloudoj.problem.config;
+
+import com.cloudoj.common.config.AbstractJudgeEventRabbitConfig;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ配置类
+ * 评测完成事件的交换机、队列、死信队列和消息转换器见 {@link AbstractJudgeEventRabbitConfig}
+ */
+@Configuration
+public class RabbitMQConfig extends AbstractJudgeEventRabbitConfig {
+    
+    public static final String JUDGE_COMPLETED_QUEUE = "judge.completed.problem";
+    
+    @Override
+    protected String judgeCompletedQueueName() {
+        return JUDGE_COMPLETED_QUEUE;
+    }
+}
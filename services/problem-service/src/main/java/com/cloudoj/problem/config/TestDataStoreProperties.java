@@ -0,0 +1,37 @@
+package com.cloudoj.problem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+/**
+ * 测试数据存储配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "problem.testdata-store")
+public class TestDataStoreProperties {
+
+    /**
+     * 存储目录，数据块按内容的SHA-256保存为 {dir}/{摘要前2位}/{摘要}.gz
+     */
+    private String dir = System.getProperty("java.io.tmpdir") + File.separator + "oj-testdata-store";
+
+    /**
+     * 单个数据块的最大大小（MB，未压缩）
+     */
+    private long maxBlobSize = 256;
+
+    /**
+     * 预览长度（字节），保存到数据库供管理端列表展示
+     */
+    private int previewLength = 200;
+
+    /**
+     * 内联大小（字节）：不超过该大小的测试数据直接放在评测数据包和测试用例列表中，
+     * 更大的只返回摘要，由评测节点按摘要流式下载
+     */
+    private long inlineMaxSize = 64 * 1024;
+}
@@ -0,0 +1,31 @@
+package com.cloudoj.problem.consumer;
+
+import com.cloudoj.problem.config.RabbitMQConfig;
+import com.cloudoj.problem.service.JudgeEventService;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评测完成事件消费者
+ */
+@Slf4j
+@Component
+public class JudgeCompletedConsumer {
+    
+    @Autowired
+    private JudgeEventService judgeEventService;
+    
+    /**
+     * 消费评测完成事件
+     * 抛出异常时按 spring.rabbitmq.listener.simple.retry 重试，重试耗尽后进入死信队列
+     */
+    @RabbitListener(queues = RabbitMQConfig.JUDGE_COMPLETED_QUEUE)
+    public void handleJudgeCompleted(JudgeCompletedEvent event) {
+        log.debug("收到评测完成事件: eventId={}, submissionId={}, status={}",
+                event.getEventId(), event.getSubmissionId(), event.getStatus());
+        judgeEventService.handleJudgeCompleted(event);
+    }
+}
@@ -1,15 +1,29 @@
 package com.cloudoj.problem.controller;
 
 import com.cloudoj.model.common.Result;
+import com.cloudoj.model.dto.problem.JudgeBundle;
+import com.cloudoj.model.dto.problem.TestDataBlob;
 import com.cloudoj.model.entity.problem.Problem;
 import com.cloudoj.model.entity.problem.TestCase;
 import com.cloudoj.problem.mapper.TestCaseMapper;
 import com.cloudoj.problem.service.ProblemService;
+import com.cloudoj.problem.service.TestDataStore;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +46,9 @@ public class ProblemController {
     @Autowired
     com.cloudoj.problem.service.ProblemCacheService problemCacheService;
     
+    @Autowired
+    TestDataStore testDataStore;
+    
     /**
      * 健康检查
      */
@@ -236,10 +253,48 @@ public class ProblemController {
     @GetMapping("/{id}/testcases")
     public Result<List<TestCase>> getTestCases(@PathVariable Long id) {
         log.info("获取题目测试用例：problemId={}", id);
-        List<TestCase> testCases = testCaseMapper.selectByProblemId(id);
+        List<TestCase> testCases = problemService.getTestCases(id, false);
         return Result.success(testCases);
     }
     
+    /**
+     * 按用例ID批量获取输入和输出预览（供judge-service展示评测结果，包含已删除的用例）
+     * @param ids 测试用例ID列表
+     * @return 只含ID、题目ID和预览的测试用例列表
+     */
+    @GetMapping("/testcases/previews")
+    public Result<List<TestCase>> getTestCasePreviews(@RequestParam List<Long> ids) {
+        return Result.success(problemService.getTestCasePreviews(ids));
+    }
+    
+    /**
+     * 获取题目的评测数据包（供judge-service内部调用）
+     * 只返回评测需要的限制、比对模式、语言和测试用例（附内容摘要），ETag 为评测数据版本，
+     * 请求头 If-None-Match 与当前版本一致时只查询版本号并返回304
+     * @param id 题目ID
+     * @return 评测数据包
+     */
+    @GetMapping("/{id}/judge-bundle")
+    public ResponseEntity<Result<JudgeBundle>> getJudgeBundle(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long version = problemService.getJudgeVersion(id);
+        if (version == null) {
+            return ResponseEntity.ok(Result.error("题目不存在"));
+        }
+        String etag = "\"" + version + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        JudgeBundle bundle = problemService.getJudgeBundle(id);
+        log.info("获取题目评测数据包：problemId={}, version={}, testCases={}",
+                id, bundle.getVersion(), bundle.getTestCases().size());
+        return ResponseEntity.ok()
+                .eTag("\"" + bundle.getVersion() + "\"")
+                .body(Result.success(bundle));
+    }
+    
     /**
      * 获取题目的样例测试用例（供普通用户查看）
      * @param id 题目ID
@@ -248,7 +303,7 @@ public class ProblemController {
     @GetMapping("/{id}/samples")
     public Result<List<TestCase>> getSampleTestCases(@PathVariable Long id) {
         log.info("获取题目样例：problemId={}", id);
-        List<TestCase> samples = testCaseMapper.selectSamplesByProblemId(id);
+        List<TestCase> samples = problemService.getTestCases(id, true);
         return Result.success(samples);
     }
     
@@ -263,19 +318,41 @@ public class ProblemController {
             @PathVariable Long id,
             @RequestBody List<TestCase> testCases) {
         log.info("保存测试用例：problemId={}, count={}", id, testCases.size());
-        
-        // 先删除旧的测试用例
-        testCaseMapper.deleteByProblemId(id);
-        
-        // 设置problemId并插入新的测试用例
-        if (testCases != null && !testCases.isEmpty()) {
-            testCases.forEach(tc -> tc.setProblemId(id));
-            testCaseMapper.batchInsert(testCases);
-        }
-        
+        problemService.saveTestCases(id, testCases);
         return Result.success("保存成功", null);
     }
     
+    /**
+     * 管理员：上传测试数据（请求体为原始内容，流式写入测试数据存储）
+     * 返回的摘要在保存测试用例时填入 inputHash / outputHash，用于较大的测试数据
+     * @return 数据块的摘要、大小和预览
+     */
+    @PostMapping(value = "/testdata/blob", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Result<TestDataBlob> uploadTestDataBlob(HttpServletRequest request) throws IOException {
+        TestDataBlob blob = testDataStore.put(request.getInputStream());
+        log.info("上传测试数据：hash={}, size={}", blob.getHash(), blob.getSize());
+        return Result.success(blob);
+    }
+    
+    /**
+     * 按摘要下载测试数据（供judge-service内部调用）
+     * 直接传输存储中的gzip文件，内容由摘要决定，永久可缓存
+     * @param hash 内容的SHA-256
+     * @return gzip压缩的数据块
+     */
+    @GetMapping("/testdata/blob/{hash}")
+    public ResponseEntity<Resource> downloadTestDataBlob(@PathVariable String hash) {
+        Path file = testDataStore.blobFile(hash);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .eTag("\"" + hash + "\"")
+                .body(new FileSystemResource(file));
+    }
+    
     /**
      * 统计题目的测试用例数量
      * @param id 题目ID
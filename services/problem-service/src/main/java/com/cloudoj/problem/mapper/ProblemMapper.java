@@ -1,6 +1,7 @@
 package com.cloudoj.problem.mapper;
 
 import com.cloudoj.model.entity.problem.Problem;
+import com.cloudoj.problem.service.ProblemStatsBuffer;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
@@ -64,11 +65,26 @@ public interface ProblemMapper {
      */
     Long countAll();
     
+    /**
+     * 查询评测数据版本（题目不存在或已删除时返回null）
+     */
+    Long selectJudgeVersion(Long id);
+    
+    /**
+     * 递增评测数据版本
+     */
+    int incrementJudgeVersion(Long id);
+    
     /**
      * 更新提交统计
      */
     int updateSubmitCount(@Param("id") Long id, @Param("isAccepted") Boolean isAccepted);
     
+    /**
+     * 批量累加提交统计（写回缓冲）
+     */
+    int batchAddSubmitCount(@Param("deltas") List<ProblemStatsBuffer.StatsDelta> deltas);
+    
     // ==================== 管理员功能 ====================
     
     /**
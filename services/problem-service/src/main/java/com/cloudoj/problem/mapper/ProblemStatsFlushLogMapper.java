@@ -0,0 +1,26 @@
+package com.cloudoj.problem.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 已提交的题目统计写回记录 Mapper 接口
+ */
+public interface ProblemStatsFlushLogMapper {
+    
+    /**
+     * 记录已提交的写回
+     *
+     * @return 1-新写回，0-该写回已提交过
+     */
+    int insertIgnore(@Param("flushId") String flushId);
+    
+    /**
+     * 写回是否已提交
+     */
+    int countByFlushId(@Param("flushId") String flushId);
+    
+    /**
+     * 删除超过保留时间的写回记录
+     */
+    int deleteExpired(@Param("retentionHours") int retentionHours);
+}
@@ -0,0 +1,31 @@
+package com.cloudoj.problem.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 提交最近一次评测结果 Mapper 接口
+ * 记录每个提交计入题目统计的结果，重判改变结果时据此修正通过次数
+ */
+public interface SubmissionVerdictMapper {
+    
+    /**
+     * 记录提交的首次评测结果
+     *
+     * @return 1-新提交，0-提交已有记录
+     */
+    int insertIgnore(@Param("submissionId") Long submissionId, @Param("problemId") Long problemId,
+                     @Param("accepted") boolean accepted, @Param("judgedAt") long judgedAt);
+    
+    /**
+     * 评测结果与记录不同且评测时间不早于记录时更新结果
+     *
+     * @return 1-结果已改变，0-结果未改变或事件比记录旧
+     */
+    int updateIfChanged(@Param("submissionId") Long submissionId, @Param("accepted") boolean accepted,
+                        @Param("judgedAt") long judgedAt);
+    
+    /**
+     * 结果未改变时推进评测时间，之后到达的更早事件不再改变结果
+     */
+    int touchJudgedAt(@Param("submissionId") Long submissionId, @Param("judgedAt") long judgedAt);
+}
@@ -27,12 +27,20 @@ public interface TestCaseMapper {
     List<TestCase> selectSamplesByProblemId(@Param("problemId") Long problemId);
     
     /**
-     * 根据ID查询测试用例
+     * 根据ID查询测试用例（包含已删除的用例）
      * @param id 测试用例ID
      * @return 测试用例
      */
     TestCase selectById(@Param("id") Long id);
     
+    /**
+     * 按ID批量查询测试用例的输入和输出预览（包含已删除的用例，供历史提交展示）
+     * @param ids 测试用例ID列表
+     * @param previewLength 旧数据没有预览列时截取的内联内容长度
+     * @return 只含ID、题目ID和预览的测试用例列表
+     */
+    List<TestCase> selectPreviewsByIds(@Param("ids") List<Long> ids, @Param("previewLength") int previewLength);
+    
     /**
      * 插入测试用例
      * @param testCase 测试用例
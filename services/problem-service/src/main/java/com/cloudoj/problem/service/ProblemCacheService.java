@@ -49,4 +49,9 @@ public interface ProblemCacheService {
      * 获取缓存的题目统计信息
      */
     Map<String, Object> getProblemStats(Long problemId);
+    
+    /**
+     * 把写回缓冲中的题目统计写回数据库（定时执行）
+     */
+    void flushProblemStats();
 }
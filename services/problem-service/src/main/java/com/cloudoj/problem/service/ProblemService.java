@@ -1,6 +1,8 @@
 package com.cloudoj.problem.service;
 
+import com.cloudoj.model.dto.problem.JudgeBundle;
 import com.cloudoj.model.entity.problem.Problem;
+import com.cloudoj.model.entity.problem.TestCase;
 
 import java.util.List;
 
@@ -54,6 +56,11 @@ public interface ProblemService {
      */
     void updateSubmitCount(Long id, Boolean isAccepted);
     
+    /**
+     * 修正通过次数（重判改变结果时 delta 为 +1 或 -1）
+     */
+    void adjustAcceptCount(Long id, int delta);
+    
     // ==================== 管理员功能 ====================
     
     /**
@@ -86,4 +93,44 @@ public interface ProblemService {
      * @param status 状态
      */
     void updateProblemStatus(Long problemId, Integer status);
+    
+    /**
+     * 保存题目的测试用例（替换全部旧用例）并递增评测数据版本
+     * 输入和输出写入测试数据存储，数据库只保存摘要、大小和预览；
+     * 内容为空而摘要不为空的用例引用已上传的数据块。
+     * 输入和输出摘要都未变化的用例原地更新、保留用例ID，其余旧用例逻辑删除，
+     * 同一用例ID的内容永不改变，历史提交按用例ID展示的始终是当时评测的数据
+     * @param problemId 题目ID
+     * @param testCases 测试用例列表
+     */
+    void saveTestCases(Long problemId, List<TestCase> testCases);
+    
+    /**
+     * 获取题目的测试用例，不超过内联大小的数据附带完整内容
+     * @param problemId 题目ID
+     * @param samplesOnly 是否只返回样例
+     * @return 测试用例列表
+     */
+    List<TestCase> getTestCases(Long problemId, boolean samplesOnly);
+    
+    /**
+     * 按用例ID批量获取输入和输出预览（包含已删除的用例，供评测结果展示）
+     * @param ids 测试用例ID列表
+     * @return 只含ID、题目ID和预览的测试用例列表
+     */
+    List<TestCase> getTestCasePreviews(List<Long> ids);
+    
+    /**
+     * 查询评测数据版本
+     * @param problemId 题目ID
+     * @return 版本，题目不存在时返回null
+     */
+    Long getJudgeVersion(Long problemId);
+    
+    /**
+     * 获取题目的评测数据包（限制、比对模式、语言和测试用例）
+     * @param problemId 题目ID
+     * @return 评测数据包
+     */
+    JudgeBundle getJudgeBundle(Long problemId);
 }
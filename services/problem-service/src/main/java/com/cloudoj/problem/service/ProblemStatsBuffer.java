@@ -0,0 +1,44 @@
+package com.cloudoj.problem.service;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 题目提交统计写回缓冲接口
+ * 提交次数和通过次数先累加到缓冲中，定时批量写回数据库；读取统计时合并数据库中的值和尚未写回的增量
+ */
+public interface ProblemStatsBuffer {
+    
+    /**
+     * 记录一次评测结果（在事务中调用时，事务提交后才计入缓冲）
+     */
+    void record(Long problemId, boolean accepted);
+    
+    /**
+     * 修正通过次数，不改变提交次数（重判改变结果时 delta 为 +1 或 -1，在事务中调用时事务提交后才计入缓冲）
+     */
+    void adjustAccepted(Long problemId, int delta);
+    
+    /**
+     * 尚未写回数据库的增量
+     */
+    StatsDelta pending(Long problemId);
+    
+    /**
+     * 把缓冲中的增量批量写回数据库
+     *
+     * @return 本次写回的题目ID
+     */
+    List<Long> flush();
+    
+    /**
+     * 题目统计增量
+     */
+    @Value
+    class StatsDelta {
+        Long problemId;
+        long submitCount;
+        long acceptCount;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cloudoj.problem.service;
+
+import com.cloudoj.model.dto.problem.TestDataBlob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * 测试数据存储接口
+ * 测试数据按内容的SHA-256寻址，压缩后保存在本地文件系统，数据库中只保存摘要、大小和预览
+ */
+public interface TestDataStore {
+    
+    /**
+     * 流式保存数据块（边读边计算摘要并压缩写入临时文件），内容相同的数据块只保存一份
+     */
+    TestDataBlob put(InputStream content) throws IOException;
+    
+    /**
+     * 保存字符串内容
+     */
+    TestDataBlob put(String content) throws IOException;
+    
+    /**
+     * 查询数据块的大小和预览，不存在时返回null
+     */
+    TestDataBlob describe(String hash) throws IOException;
+    
+    /**
+     * 读取数据块的完整内容（只用于不超过内联大小的数据块）
+     */
+    String readString(String hash) throws IOException;
+    
+    /**
+     * 数据块的压缩文件（gzip），不存在或摘要格式不合法时返回null
+     */
+    Path blobFile(String hash);
+}
@@ -0,0 +1,63 @@
+package com.cloudoj.problem.service.impl;
+
+import com.cloudoj.common.mapper.JudgeEventLogMapper;
+import com.cloudoj.model.dto.judge.JudgeCompletedEvent;
+import com.cloudoj.problem.mapper.SubmissionVerdictMapper;
+import com.cloudoj.problem.service.JudgeEventService;
+import com.cloudoj.problem.service.ProblemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 评测完成事件处理服务实现类
+ * 事件去重记录和业务更新在同一个事务中：重复投递的事件插入去重记录失败直接跳过，
+ * 处理失败时去重记录随事务回滚，重试时会重新处理；
+ * 重判产生新的事件ID，同一提交只累加一次提交次数；problem_submission_verdict 记录每个提交最近一次计入的结果，
+ * 重判改变结果（错误↔通过）时把通过次数修正 ±1，评测时间早于记录的事件（乱序到达）不改变结果
+ */
+@Slf4j
+@Service
+public class JudgeEventServiceImpl implements JudgeEventService {
+    
+    @Autowired
+    private JudgeEventLogMapper judgeEventLogMapper;
+    
+    @Autowired
+    private SubmissionVerdictMapper submissionVerdictMapper;
+    
+    @Autowired
+    private ProblemService problemService;
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void handleJudgeCompleted(JudgeCompletedEvent event) {
+        if (judgeEventLogMapper.insertIgnore(event.getEventId(), event.getSubmissionId()) == 0) {
+            log.info("评测完成事件已处理过，跳过: eventId={}, submissionId={}", event.getEventId(), event.getSubmissionId());
+            return;
+        }
+        
+        boolean accepted = "ACCEPTED".equals(event.getStatus());
+        long judgedAt = event.getJudgedAt() != null ? event.getJudgedAt() : System.currentTimeMillis();
+        if (submissionVerdictMapper.insertIgnore(event.getSubmissionId(), event.getProblemId(), accepted, judgedAt) == 1) {
+            if (judgeEventLogMapper.countBySubmissionId(event.getSubmissionId()) > 1) {
+                // 结果记录上线前已计入统计的提交：只记录当前结果作为之后重判的基准
+                log.info("提交已计入题目统计，记录评测结果: eventId={}, submissionId={}", event.getEventId(), event.getSubmissionId());
+                return;
+            }
+            problemService.updateSubmitCount(event.getProblemId(), accepted);
+        } else if (submissionVerdictMapper.updateIfChanged(event.getSubmissionId(), accepted, judgedAt) == 1) {
+            problemService.adjustAcceptCount(event.getProblemId(), accepted ? 1 : -1);
+            log.info("重判改变评测结果，修正通过次数: submissionId={}, accepted={}", event.getSubmissionId(), accepted);
+        } else {
+            submissionVerdictMapper.touchJudgedAt(event.getSubmissionId(), judgedAt);
+            log.info("提交已计入题目统计（结果未改变或事件早于已记录的评测），跳过: eventId={}, submissionId={}",
+                    event.getEventId(), event.getSubmissionId());
+            return;
+        }
+        
+        log.info("评测完成事件处理成功: eventId={}, submissionId={}, status={}",
+                event.getEventId(), event.getSubmissionId(), event.getStatus());
+    }
+}
@@ -0,0 +1,184 @@
+package com.cloudoj.problem.service.impl;
+
+import com.cloudoj.model.dto.problem.TestDataBlob;
+import com.cloudoj.problem.config.TestDataStoreProperties;
+import com.cloudoj.problem.service.TestDataStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 本地文件系统测试数据存储
+ * 1. 数据块按未压缩内容的SHA-256寻址：{dir}/{摘要前2位}/{摘要}.gz，同一内容只保存一份
+ * 2. 写入时边读边计算摘要并压缩到临时文件，完成后原子重命名，读取方不会看到写了一半的数据块
+ * 3. 大小从gzip尾部读取（单个数据块不超过 max-blob-size，小于4GB），预览只解压开头部分，都不需要读完整个文件
+ */
+@Slf4j
+@Service
+public class LocalTestDataStore implements TestDataStore {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String BLOB_SUFFIX = ".gz";
+    private static final String TEMP_DIR = "tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TestDataStoreProperties properties;
+
+    private Path storeDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        storeDir = Paths.get(properties.getDir()).toAbsolutePath();
+        Path tempDir = storeDir.resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        // 上次退出时未完成的上传
+        try (Stream<Path> files = Files.list(tempDir)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        log.info("测试数据存储初始化完成: dir={}", storeDir);
+    }
+
+    @Override
+    public TestDataBlob put(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        long maxBytes = properties.getMaxBlobSize() * 1024 * 1024;
+        ByteArrayOutputStream preview = new ByteArrayOutputStream(properties.getPreviewLength());
+        long size = 0;
+        Path tempFile = Files.createTempFile(storeDir.resolve(TEMP_DIR), "upload-", ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = content.read(buffer)) > 0) {
+                    size += n;
+                    if (size > maxBytes) {
+                        throw new IOException("测试数据超过大小限制: " + properties.getMaxBlobSize() + "MB");
+                    }
+                    digest.update(buffer, 0, n);
+                    int previewRemaining = properties.getPreviewLength() - preview.size();
+                    if (previewRemaining > 0) {
+                        preview.write(buffer, 0, Math.min(n, previewRemaining));
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (Files.exists(target)) {
+                Files.delete(tempFile);
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // 其他请求同时保存了相同内容
+                    Files.deleteIfExists(tempFile);
+                }
+                log.debug("保存测试数据: hash={}, size={}", hash, size);
+            }
+            return TestDataBlob.builder()
+                    .hash(hash)
+                    .size(size)
+                    .preview(decodePreview(preview.toByteArray()))
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public TestDataBlob put(String content) throws IOException {
+        byte[] bytes = (content != null ? content : "").getBytes(StandardCharsets.UTF_8);
+        return put(new ByteArrayInputStream(bytes));
+    }
+
+    @Override
+    public TestDataBlob describe(String hash) throws IOException {
+        Path file = blobFile(hash);
+        if (file == null) {
+            return null;
+        }
+        long size;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            // gzip尾部最后4字节是未压缩大小（小端序，模 2^32）
+            raf.seek(raf.length() - 4);
+            size = Integer.toUnsignedLong(Integer.reverseBytes(raf.readInt()));
+        }
+        byte[] preview;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            preview = in.readNBytes(properties.getPreviewLength());
+        }
+        return TestDataBlob.builder()
+                .hash(hash)
+                .size(size)
+                .preview(decodePreview(preview))
+                .build();
+    }
+
+    @Override
+    public String readString(String hash) throws IOException {
+        Path file = blobFile(hash);
+        if (file == null) {
+            throw new IOException("测试数据不存在: " + hash);
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public Path blobFile(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return null;
+        }
+        Path file = resolve(hash);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private Path resolve(String hash) {
+        return storeDir.resolve(hash.substring(0, 2)).resolve(hash + BLOB_SUFFIX);
+    }
+
+    /**
+     * 预览按字节截断，去掉末尾被截断的多字节字符
+     */
+    private static String decodePreview(byte[] bytes) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\uFFFD') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
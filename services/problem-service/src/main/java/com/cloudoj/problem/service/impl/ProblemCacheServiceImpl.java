@@ -3,6 +3,7 @@ package com.cloudoj.problem.service.impl;
 import com.cloudoj.model.entity.problem.Problem;
 import com.cloudoj.problem.mapper.ProblemMapper;
 import com.cloudoj.problem.service.ProblemCacheService;
+import com.cloudoj.problem.service.ProblemStatsBuffer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -28,6 +29,9 @@ public class ProblemCacheServiceImpl implements ProblemCacheService {
     @Autowired
     private ProblemMapper problemMapper;
     
+    @Autowired
+    private ProblemStatsBuffer problemStatsBuffer;
+    
     // 缓存 Key 前缀
     private static final String HOT_PROBLEMS_KEY = "problem:hot";
     private static final String PROBLEM_DETAIL_KEY = "problem:detail:";
@@ -216,33 +220,58 @@ public class ProblemCacheServiceImpl implements ProblemCacheService {
         }
     }
     
+    /**
+     * 题目统计：缓存（或数据库）中已写回的值加上写回缓冲中尚未写回的增量
+     */
     @Override
     @SuppressWarnings("unchecked")
     public Map<String, Object> getProblemStats(Long problemId) {
+        Map<String, Object> persisted = null;
         try {
             String cacheKey = PROBLEM_STATS_KEY + problemId;
-            Map<String, Object> stats = (Map<String, Object>) redisTemplate.opsForValue().get(cacheKey);
-            
-            if (stats != null) {
-                return stats;
-            }
+            persisted = (Map<String, Object>) redisTemplate.opsForValue().get(cacheKey);
         } catch (Exception e) {
             log.warn("获取题目统计信息缓存失败：problemId={}", problemId, e);
         }
         
-        // 缓存未命中，从数据库获取并缓存
-        Problem problem = problemMapper.selectByPrimaryKey(problemId);
-        if (problem != null) {
+        if (persisted == null) {
+            // 缓存未命中，从数据库获取并缓存
+            Problem problem = problemMapper.selectByPrimaryKey(problemId);
+            if (problem == null) {
+                return Collections.emptyMap();
+            }
             cacheProblemStats(problemId, problem.getSubmitCount(), problem.getAcceptCount());
-            
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("submitCount", problem.getSubmitCount());
-            stats.put("acceptCount", problem.getAcceptCount());
-            stats.put("acceptRate", problem.getSubmitCount() > 0 ? 
-                String.format("%.2f%%", 100.0 * problem.getAcceptCount() / problem.getSubmitCount()) : "0.00%");
-            return stats;
+            persisted = new HashMap<>();
+            persisted.put("submitCount", problem.getSubmitCount());
+            persisted.put("acceptCount", problem.getAcceptCount());
         }
         
-        return Collections.emptyMap();
+        ProblemStatsBuffer.StatsDelta pending = problemStatsBuffer.pending(problemId);
+        long submitCount = ((Number) persisted.get("submitCount")).longValue() + pending.getSubmitCount();
+        long acceptCount = ((Number) persisted.get("acceptCount")).longValue() + pending.getAcceptCount();
+        
+        Map<String, Object> stats = new HashMap<>(persisted);
+        stats.put("submitCount", submitCount);
+        stats.put("acceptCount", acceptCount);
+        stats.put("acceptRate", submitCount > 0 ? 
+            String.format("%.2f%%", 100.0 * acceptCount / submitCount) : "0.00%");
+        return stats;
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${problem.stats-buffer.flush-interval:5000}")
+    public void flushProblemStats() {
+        try {
+            // 写回后清除这些题目的统计缓存，下次读取时从数据库加载
+            List<Long> problemIds = problemStatsBuffer.flush();
+            if (!problemIds.isEmpty()) {
+                List<String> cacheKeys = problemIds.stream()
+                        .map(id -> PROBLEM_STATS_KEY + id)
+                        .collect(Collectors.toList());
+                redisTemplate.delete(cacheKeys);
+            }
+        } catch (Exception e) {
+            log.error("题目统计写回失败", e);
+        }
     }
 }
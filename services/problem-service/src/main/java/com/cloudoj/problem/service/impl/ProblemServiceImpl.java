@@ -1,14 +1,32 @@
 package com.cloudoj.problem.service.impl;
 
+import com.cloudoj.model.dto.problem.JudgeBundle;
+import com.cloudoj.model.dto.problem.TestDataBlob;
 import com.cloudoj.model.entity.problem.Problem;
+import com.cloudoj.model.entity.problem.TestCase;
+import com.cloudoj.problem.config.TestDataStoreProperties;
 import com.cloudoj.problem.mapper.ProblemMapper;
+import com.cloudoj.problem.mapper.TestCaseMapper;
 import com.cloudoj.problem.service.ProblemService;
+import com.cloudoj.problem.service.ProblemStatsBuffer;
+import com.cloudoj.problem.service.TestDataStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 题目服务实现类
@@ -20,6 +38,18 @@ public class ProblemServiceImpl implements ProblemService {
     @Autowired
     ProblemMapper problemMapper;
     
+    @Autowired
+    TestCaseMapper testCaseMapper;
+    
+    @Autowired
+    TestDataStore testDataStore;
+    
+    @Autowired
+    TestDataStoreProperties testDataStoreProperties;
+    
+    @Autowired
+    ProblemStatsBuffer problemStatsBuffer;
+    
     @Override
     public Problem getProblemById(Long id) {
         if (id == null) {
@@ -99,6 +129,8 @@ public class ProblemServiceImpl implements ProblemService {
         if (rows == 0) {
             throw new RuntimeException("更新题目失败");
         }
+        // 时间/内存限制、比对模式、样例等可能变化，评测节点的缓存需要失效
+        problemMapper.incrementJudgeVersion(problem.getId());
         log.info("更新题目成功，ID: {}", problem.getId());
     }
     
@@ -127,13 +159,22 @@ public class ProblemServiceImpl implements ProblemService {
     }
     
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void updateSubmitCount(Long id, Boolean isAccepted) {
         if (id == null) {
             throw new RuntimeException("题目ID不能为空");
         }
-        problemMapper.updateSubmitCount(id, isAccepted);
-        log.info("更新题目提交统计成功，ID: {}, isAccepted: {}", id, isAccepted);
+        // 先累加到写回缓冲，定时批量写回数据库
+        problemStatsBuffer.record(id, Boolean.TRUE.equals(isAccepted));
+        log.debug("记录题目提交统计，ID: {}, isAccepted: {}", id, isAccepted);
+    }
+    
+    @Override
+    public void adjustAcceptCount(Long id, int delta) {
+        if (id == null) {
+            throw new RuntimeException("题目ID不能为空");
+        }
+        problemStatsBuffer.adjustAccepted(id, delta);
+        log.debug("修正题目通过次数，ID: {}, delta: {}", id, delta);
     }
     
     // ==================== 管理员功能实现 ====================
@@ -171,4 +212,226 @@ public class ProblemServiceImpl implements ProblemService {
         
         log.info("管理员更新题目状态成功：problemId={}, status={}", problemId, status);
     }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void saveTestCases(Long problemId, List<TestCase> testCases) {
+        // 现有用例按 输入摘要:输出摘要 分组，内容相同的新用例复用其ID（没有摘要的旧数据不参与复用）
+        List<TestCase> current = testCaseMapper.selectByProblemId(problemId);
+        Map<String, List<TestCase>> existing = new HashMap<>();
+        for (TestCase testCase : current) {
+            if (testCase.getInputHash() != null && testCase.getOutputHash() != null) {
+                existing.computeIfAbsent(contentKey(testCase), key -> new ArrayList<>()).add(testCase);
+            }
+        }
+        
+        // 设置problemId，内容写入测试数据存储后原地更新内容未变的用例，其余插入为新用例
+        Set<Long> kept = new HashSet<>();
+        List<TestCase> inserts = new ArrayList<>();
+        if (testCases != null) {
+            for (TestCase testCase : testCases) {
+                testCase.setProblemId(problemId);
+                storeTestData(testCase);
+                TestCase same = takeSameContent(existing.get(contentKey(testCase)), testCase.getId());
+                if (same != null) {
+                    testCase.setId(same.getId());
+                    testCaseMapper.update(testCase);
+                    kept.add(same.getId());
+                } else {
+                    testCase.setId(null);
+                    inserts.add(testCase);
+                }
+            }
+        }
+        
+        // 内容变化或被移除的旧用例逻辑删除，历史提交仍能按用例ID读取当时的数据
+        for (TestCase testCase : current) {
+            if (!kept.contains(testCase.getId())) {
+                testCaseMapper.deleteById(testCase.getId());
+            }
+        }
+        if (!inserts.isEmpty()) {
+            testCaseMapper.batchInsert(inserts);
+        }
+        
+        // 与测试用例在同一事务中递增版本，评测节点读到新版本时一定能读到新的测试用例
+        problemMapper.incrementJudgeVersion(problemId);
+        log.info("保存测试用例：problemId={}, kept={}, inserted={}", problemId, kept.size(), inserts.size());
+    }
+    
+    private static String contentKey(TestCase testCase) {
+        return testCase.getInputHash() + ":" + testCase.getOutputHash();
+    }
+    
+    /**
+     * 从内容相同的旧用例中取出一个，优先取ID与新用例相同的
+     */
+    private static TestCase takeSameContent(List<TestCase> candidates, Long preferredId) {
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        Iterator<TestCase> iterator = candidates.iterator();
+        while (iterator.hasNext()) {
+            TestCase candidate = iterator.next();
+            if (candidate.getId().equals(preferredId)) {
+                iterator.remove();
+                return candidate;
+            }
+        }
+        return candidates.remove(0);
+    }
+    
+    /**
+     * 把测试用例的输入和输出写入测试数据存储，用例中只保留摘要、大小和预览
+     */
+    private void storeTestData(TestCase testCase) {
+        TestDataBlob input = storeBlob(testCase.getInput(), testCase.getInputHash());
+        testCase.setInput(null);
+        testCase.setInputHash(input.getHash());
+        testCase.setInputSize(input.getSize());
+        testCase.setInputPreview(input.getPreview());
+        
+        TestDataBlob output = storeBlob(testCase.getOutput(), testCase.getOutputHash());
+        testCase.setOutput(null);
+        testCase.setOutputHash(output.getHash());
+        testCase.setOutputSize(output.getSize());
+        testCase.setOutputPreview(output.getPreview());
+    }
+    
+    /**
+     * 有内容时保存内容，否则引用已上传的数据块（摘要为空时保存空内容）
+     */
+    private TestDataBlob storeBlob(String content, String hash) {
+        try {
+            if (content == null && hash != null) {
+                TestDataBlob blob = testDataStore.describe(hash);
+                if (blob == null) {
+                    throw new RuntimeException("测试数据不存在：" + hash);
+                }
+                return blob;
+            }
+            return testDataStore.put(content);
+        } catch (IOException e) {
+            log.error("保存测试数据失败", e);
+            throw new RuntimeException("保存测试数据失败：" + e.getMessage());
+        }
+    }
+    
+    @Override
+    public List<TestCase> getTestCases(Long problemId, boolean samplesOnly) {
+        List<TestCase> testCases = samplesOnly
+                ? testCaseMapper.selectSamplesByProblemId(problemId)
+                : testCaseMapper.selectByProblemId(problemId);
+        for (TestCase testCase : testCases) {
+            if (testCase.getInput() == null) {
+                testCase.setInput(readInline(testCase.getInputHash(), testCase.getInputSize()));
+            }
+            if (testCase.getOutput() == null) {
+                testCase.setOutput(readInline(testCase.getOutputHash(), testCase.getOutputSize()));
+            }
+        }
+        return testCases;
+    }
+    
+    @Override
+    public List<TestCase> getTestCasePreviews(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return testCaseMapper.selectPreviewsByIds(ids, testDataStoreProperties.getPreviewLength());
+    }
+    
+    /**
+     * 读取不超过内联大小的数据块内容，更大的返回null（只提供摘要和预览）
+     */
+    private String readInline(String hash, Long size) {
+        if (hash == null || size == null || size > testDataStoreProperties.getInlineMaxSize()) {
+            return null;
+        }
+        try {
+            return testDataStore.readString(hash);
+        } catch (IOException e) {
+            log.error("读取测试数据失败：hash={}", hash, e);
+            throw new RuntimeException("读取测试数据失败：" + hash);
+        }
+    }
+    
+    @Override
+    public Long getJudgeVersion(Long problemId) {
+        return problemMapper.selectJudgeVersion(problemId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public JudgeBundle getJudgeBundle(Long problemId) {
+        // 只读事务内先读题目再读测试用例，版本与测试用例来自同一快照
+        Problem problem = getProblemById(problemId);
+        List<TestCase> testCases = testCaseMapper.selectByProblemId(problemId);
+        
+        List<JudgeBundle.BundleTestCase> bundleTestCases = new ArrayList<>();
+        boolean fromSamples = testCases == null || testCases.isEmpty();
+        if (!fromSamples) {
+            for (TestCase testCase : testCases) {
+                int score = testCase.getScore() != null ? testCase.getScore() : 20; // 默认20分
+                if (testCase.getInputHash() == null || testCase.getOutputHash() == null) {
+                    // 保存在数据库中的旧数据
+                    bundleTestCases.add(toBundleTestCase(testCase.getId(), testCase.getInput(), testCase.getOutput(), score));
+                    continue;
+                }
+                bundleTestCases.add(JudgeBundle.BundleTestCase.builder()
+                        .id(testCase.getId())
+                        .input(readInline(testCase.getInputHash(), testCase.getInputSize()))
+                        .output(readInline(testCase.getOutputHash(), testCase.getOutputSize()))
+                        .inputHash(testCase.getInputHash())
+                        .outputHash(testCase.getOutputHash())
+                        .inputSize(testCase.getInputSize())
+                        .outputSize(testCase.getOutputSize())
+                        .score(score)
+                        .build());
+            }
+        } else if (problem.getSampleInput() != null && !problem.getSampleInput().trim().isEmpty()
+                && problem.getSampleOutput() != null && !problem.getSampleOutput().trim().isEmpty()) {
+            // 题目没有测试用例时使用题目样例（负数ID表示样例，满分100）
+            bundleTestCases.add(toBundleTestCase(-1L, problem.getSampleInput().trim(),
+                    problem.getSampleOutput().trim(), 100));
+        }
+        
+        return JudgeBundle.builder()
+                .problemId(problemId)
+                .version(problem.getJudgeVersion() != null ? problem.getJudgeVersion() : 0L)
+                .timeLimit(problem.getTimeLimit())
+                .memoryLimit(problem.getMemoryLimit())
+                .outputLimit(problem.getOutputLimit())
+                .parallelJudge(problem.getParallelJudge())
+                .checkerMode(problem.getCheckerMode())
+                .checkerEpsilon(problem.getCheckerEpsilon())
+                .languages(problem.getLanguages())
+                .fromSamples(fromSamples)
+                .testCases(bundleTestCases)
+                .build();
+    }
+    
+    private JudgeBundle.BundleTestCase toBundleTestCase(Long id, String input, String output, Integer score) {
+        byte[] inputBytes = (input != null ? input : "").getBytes(StandardCharsets.UTF_8);
+        byte[] outputBytes = (output != null ? output : "").getBytes(StandardCharsets.UTF_8);
+        return JudgeBundle.BundleTestCase.builder()
+                .id(id)
+                .input(input != null ? input : "")
+                .output(output != null ? output : "")
+                .inputHash(sha256(inputBytes))
+                .outputHash(sha256(outputBytes))
+                .inputSize((long) inputBytes.length)
+                .outputSize((long) outputBytes.length)
+                .score(score)
+                .build();
+    }
+    
+    private static String sha256(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
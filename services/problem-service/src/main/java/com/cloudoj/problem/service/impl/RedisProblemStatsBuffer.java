@@ -0,0 +1,225 @@
+package com.cloudoj.problem.service.impl;
+
+import com.cloudoj.problem.config.ProblemStatsProperties;
+import com.cloudoj.problem.mapper.ProblemMapper;
+import com.cloudoj.problem.mapper.ProblemStatsFlushLogMapper;
+import com.cloudoj.problem.service.ProblemStatsBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis题目提交统计写回缓冲
+ * 1. 增量保存在哈希 problem:stats:pending 中（字段为题目ID），提交次数和通过次数编码在同一个值里：
+ *    低32位为提交次数，高32位为通过次数，每次评测只需要一次 HINCRBY，两个计数不会只更新一半；
+ *    重判修正的通过次数可能为负，高32位按有符号数解码
+ * 2. 写回时先把 pending 原子重命名为 problem:stats:flushing，新的评测结果继续写入新的 pending；
+ *    flushing 在一个事务中按批写回数据库（每批一条多行 UPDATE），提交后删除。
+ *    写回中断时 flushing 保留，下次写回先处理它
+ * 3. 重命名后在 flushing 中写入写回ID，同一事务内把写回ID记入 problem_stats_flush_log：
+ *    事务已提交但 flushing 没来得及删除（实例崩溃、Redis超时、锁过期后其他实例接手）时，
+ *    重试发现写回ID已记录就不再累加；删除 flushing 前核对写回ID，不会误删下一轮的 flushing
+ * 4. 多实例部署时通过 problem:stats:flush-lock 保证同一时刻通常只有一个实例写回，
+ *    锁过期只会造成重复尝试，不会重复计数
+ * 5. 读取未写回增量时，写回ID已提交的 flushing 已经计入数据库，不再重复累加
+ * 6. Redis不可用时直接更新数据库
+ */
+@Slf4j
+@Service
+public class RedisProblemStatsBuffer implements ProblemStatsBuffer {
+
+    private static final String PENDING_KEY = "problem:stats:pending";
+    private static final String FLUSHING_KEY = "problem:stats:flushing";
+    private static final String FLUSH_LOCK_KEY = "problem:stats:flush-lock";
+    /** flushing 中保存写回ID的字段（题目ID字段都是数字，不会冲突） */
+    private static final String FLUSH_ID_FIELD = "flush-id";
+
+    /** 字段值与期望一致时才删除键：KEYS[1]=键，ARGV[1]=字段（为空时比较字符串值），ARGV[2]=期望值 */
+    private static final DefaultRedisScript<Long> COMPARE_AND_DELETE_SCRIPT = new DefaultRedisScript<>(
+            "local v\n" +
+            "if ARGV[1] == '' then v = redis.call('GET', KEYS[1]) else v = redis.call('HGET', KEYS[1], ARGV[1]) end\n" +
+            "if v == ARGV[2] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0",
+            Long.class);
+
+    private static final long SUBMIT_MASK = 0xFFFFFFFFL;
+    private static final int ACCEPT_SHIFT = 32;
+
+    @Autowired
+    private ProblemStatsProperties properties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ProblemMapper problemMapper;
+
+    @Autowired
+    private ProblemStatsFlushLogMapper flushLogMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void record(Long problemId, boolean accepted) {
+        if (!properties.isEnabled()) {
+            problemMapper.updateSubmitCount(problemId, accepted);
+            return;
+        }
+        add(problemId, 1, accepted ? 1 : 0);
+    }
+
+    @Override
+    public void adjustAccepted(Long problemId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (!properties.isEnabled()) {
+            problemMapper.batchAddSubmitCount(Collections.singletonList(new StatsDelta(problemId, 0, delta)));
+            return;
+        }
+        add(problemId, 0, delta);
+    }
+
+    private void add(Long problemId, int submitDelta, int acceptDelta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务回滚（如评测事件处理失败后重试）时不计数
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(problemId, submitDelta, acceptDelta);
+                }
+            });
+        } else {
+            increment(problemId, submitDelta, acceptDelta);
+        }
+    }
+
+    private void increment(Long problemId, int submitDelta, int acceptDelta) {
+        long delta = submitDelta + ((long) acceptDelta << ACCEPT_SHIFT);
+        try {
+            stringRedisTemplate.opsForHash().increment(PENDING_KEY, problemId.toString(), delta);
+        } catch (Exception e) {
+            log.warn("写入题目统计缓冲失败，直接更新数据库：problemId={}, error={}", problemId, e.getMessage());
+            problemMapper.batchAddSubmitCount(Collections.singletonList(new StatsDelta(problemId, submitDelta, acceptDelta)));
+        }
+    }
+
+    @Override
+    public StatsDelta pending(Long problemId) {
+        if (!properties.isEnabled()) {
+            return new StatsDelta(problemId, 0, 0);
+        }
+        try {
+            HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+            String field = problemId.toString();
+            long encoded = parse(hashOps.get(PENDING_KEY, field));
+            List<String> flushing = hashOps.multiGet(FLUSHING_KEY, Arrays.asList(field, FLUSH_ID_FIELD));
+            if (flushing.get(0) != null && !isFlushed(flushing.get(1))) {
+                encoded += parse(flushing.get(0));
+            }
+            return decode(problemId, encoded);
+        } catch (Exception e) {
+            log.warn("读取题目统计缓冲失败：problemId={}, error={}", problemId, e.getMessage());
+            return new StatsDelta(problemId, 0, 0);
+        }
+    }
+
+    @Override
+    public List<Long> flush() {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(FLUSH_LOCK_KEY, token, properties.getLockTimeout(), TimeUnit.MILLISECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return Collections.emptyList();
+        }
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(FLUSHING_KEY))) {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(PENDING_KEY))) {
+                    return Collections.emptyList();
+                }
+                // 锁过期后其他实例可能已经重命名出新的 flushing，此时先处理它
+                stringRedisTemplate.renameIfAbsent(PENDING_KEY, FLUSHING_KEY);
+            }
+
+            HashOperations<String, String, String> hashOps = stringRedisTemplate.opsForHash();
+            // 重试中断的写回时沿用原来的写回ID
+            hashOps.putIfAbsent(FLUSHING_KEY, FLUSH_ID_FIELD, UUID.randomUUID().toString());
+            Map<String, String> entries = hashOps.entries(FLUSHING_KEY);
+            String flushId = entries.remove(FLUSH_ID_FIELD);
+            if (entries.isEmpty()) {
+                // 其他实例刚写回完成并删除了 flushing，上面只写入了写回ID
+                compareAndDelete(FLUSHING_KEY, FLUSH_ID_FIELD, flushId);
+                return Collections.emptyList();
+            }
+            List<StatsDelta> deltas = new ArrayList<>(entries.size());
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                StatsDelta delta = decode(Long.valueOf(entry.getKey()), parse(entry.getValue()));
+                if (delta.getSubmitCount() != 0 || delta.getAcceptCount() != 0) {
+                    deltas.add(delta);
+                }
+            }
+
+            int batchSize = Math.max(1, properties.getBatchSize());
+            Boolean applied = transactionTemplate.execute(status -> {
+                if (flushLogMapper.insertIgnore(flushId) == 0) {
+                    return false;
+                }
+                for (int from = 0; from < deltas.size(); from += batchSize) {
+                    problemMapper.batchAddSubmitCount(deltas.subList(from, Math.min(deltas.size(), from + batchSize)));
+                }
+                flushLogMapper.deleteExpired(properties.getFlushLogRetention());
+                return true;
+            });
+            if (!Boolean.TRUE.equals(applied)) {
+                log.info("题目统计写回已提交过，跳过累加：flushId={}", flushId);
+            }
+            compareAndDelete(FLUSHING_KEY, FLUSH_ID_FIELD, flushId);
+
+            List<Long> problemIds = new ArrayList<>(deltas.size());
+            for (StatsDelta delta : deltas) {
+                problemIds.add(delta.getProblemId());
+            }
+            if (!problemIds.isEmpty()) {
+                log.debug("题目统计写回完成：problems={}", problemIds.size());
+            }
+            return problemIds;
+        } finally {
+            // 只释放自己持有的锁（超时后可能已被其他实例获取）
+            compareAndDelete(FLUSH_LOCK_KEY, "", token);
+        }
+    }
+
+    /**
+     * 写回ID对应的事务是否已提交（还没有写回ID的 flushing 一定没有提交）
+     */
+    private boolean isFlushed(String flushId) {
+        return flushId != null && flushLogMapper.countByFlushId(flushId) > 0;
+    }
+
+    private void compareAndDelete(String key, String field, String expected) {
+        stringRedisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, Collections.singletonList(key), field, expected);
+    }
+
+    private static long parse(String value) {
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    private static StatsDelta decode(Long problemId, long encoded) {
+        return new StatsDelta(problemId, encoded & SUBMIT_MASK, encoded >> ACCEPT_SHIFT);
+    }
+}